@@ -28,6 +28,13 @@ public class AnalyzerConfig {
     // 'maxToleratedMisalignment' bytes
     protected long maxToleratedMisalignment = 10L * 1024L; // 10Kb
 
+    // Maximum number of context vectors kept in the query cache,
+    // if set to 0 the cache is disabled
+    protected int cacheSize = 10000;
+
+    // Time-to-live in seconds of the context vectors in cache
+    protected int cacheTtl = 300;
+
     public AnalyzerConfig(EngineConfig parent) {
         this.parent = parent;
     }
@@ -84,6 +91,22 @@ public class AnalyzerConfig {
         this.maxToleratedMisalignment = maxToleratedMisalignment;
     }
 
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    public int getCacheTtl() {
+        return cacheTtl;
+    }
+
+    public void setCacheTtl(int cacheTtl) {
+        this.cacheTtl = cacheTtl;
+    }
+
     @Override
     public String toString() {
         return "Analyzer: " +
@@ -92,6 +115,8 @@ public class AnalyzerConfig {
                 ", batch=" + batchSize +
                 ", threads=" + threads +
                 ", timeout=" + timeout +
-                ", misalignment=" + maxToleratedMisalignment;
+                ", misalignment=" + maxToleratedMisalignment +
+                ", cacheSize=" + cacheSize +
+                ", cacheTtl=" + cacheTtl;
     }
 }
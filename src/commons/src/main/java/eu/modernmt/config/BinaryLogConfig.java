@@ -12,12 +12,20 @@ import org.apache.commons.lang3.StringUtils;
  */
 public class BinaryLogConfig {
 
+    /**
+     * KAFKA: a Kafka cluster (embedded or remote) shared by all the nodes;
+     * FILE: an append-only log on local disk, for single-node deployments
+     */
+    public enum Type {KAFKA, FILE}
+
     private final NodeConfig parent;
+    private Type type = Type.KAFKA;
     private boolean enabled = true;
     private boolean embedded = true;
     private String[] hosts = new String[]{"localhost"};
     private int port = 9092;
     private String name = null;
+    private long flushInterval = 1000L;
 
     public BinaryLogConfig(NodeConfig parent) {
         this.parent = parent;
@@ -27,6 +35,15 @@ public class BinaryLogConfig {
         return parent;
     }
 
+    public Type getType() {
+        return type;
+    }
+
+    public BinaryLogConfig setType(Type type) {
+        this.type = type;
+        return this;
+    }
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -77,13 +94,28 @@ public class BinaryLogConfig {
         return this;
     }
 
+    /**
+     * @return the interval in milliseconds between two flushes to disk of a FILE binary log:
+     * 0 to flush after every record, a negative value to flush only when the log is closed
+     */
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    public BinaryLogConfig setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "Binlog: " +
-                "enabled=" + enabled +
+                "type=" + type +
+                ", enabled=" + enabled +
                 ", embedded=" + embedded +
                 ", hosts=" + StringUtils.join(hosts, ',') +
                 ", port=" + port +
-                ", name='" + name + '\'';
+                ", name='" + name + '\'' +
+                ", flushInterval=" + flushInterval;
     }
 }
@@ -36,6 +36,8 @@ class XMLBinaryLogConfigBuilder extends XMLAbstractBuilder {
      * with the XML configuration file data
      */
     public BinaryLogConfig build(BinaryLogConfig config) throws ConfigException {
+        if (this.hasAttribute("type"))
+            config.setType(this.getEnumAttribute("type", BinaryLogConfig.Type.class));
         if (this.hasAttribute("enabled"))
             config.setEnabled(this.getBooleanAttribute("enabled"));
         if (this.hasAttribute("embedded"))
@@ -50,6 +52,8 @@ class XMLBinaryLogConfigBuilder extends XMLAbstractBuilder {
             config.setPort(this.getIntAttribute("port"));
         if (this.hasAttribute("name"))
             config.setName(this.getStringAttribute("name"));
+        if (this.hasAttribute("flush-interval"))
+            config.setFlushInterval(this.getLongAttribute("flush-interval"));
         return config;
     }
 
@@ -183,6 +183,12 @@ class XMLEngineConfigBuilder extends XMLAbstractBuilder {
             if (hasAttribute("max-misalignment"))
                 config.setMaxToleratedMisalignment(getLongAttribute("max-misalignment"));
 
+            if (hasAttribute("cache-size"))
+                config.setCacheSize(getIntAttribute("cache-size"));
+
+            if (hasAttribute("cache-ttl"))
+                config.setCacheTtl(getIntAttribute("cache-ttl"));
+
             return config;
         }
     }
@@ -7,6 +7,7 @@ import eu.modernmt.model.corpus.TranslationUnit;
 
 import java.io.Closeable;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -49,6 +50,20 @@ public interface BinaryLog extends Closeable {
 
     void delete(Memory memory) throws BinaryLogException;
 
+    /**
+     * Writes a bulk import, whose data has been loaded offline by the local {@link BulkDataListener}s:
+     * the content of the corpus is written as translation units tagged with the import id, followed
+     * by the marker of the import. Listeners with the offline data skip the content and attach the
+     * data when they receive the marker, the other ones apply the content.
+     *
+     * @param memory  the memory the data has been imported into
+     * @param corpus  the imported corpus
+     * @param id      the id of the bulk import
+     * @param channel the channel of the import
+     * @return the import job, ending at the position of the marker, or null if the corpus is empty
+     */
+    ImportJob uploadBulkImport(Memory memory, MultilingualCorpus corpus, UUID id, short channel) throws BinaryLogException;
+
     LogChannel getLogChannel(short id);
 
     Map<Short, Long> getChannelsPositions();
@@ -0,0 +1,49 @@
+package eu.modernmt.data;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * A data listener that can import large corpora bypassing the per-message path: the data is
+ * written offline by a {@link Loader} and attached at once when the matching
+ * {@link BulkImportMessage} is received from the binary log.
+ * <p>
+ * The content of a bulk import is also written to the binary log, before its marker, as translation
+ * units tagged with the import id (see {@link TranslationUnitMessage#bulkImport}): a listener that
+ * has the finished offline data of the import skips them and attaches the data at the marker,
+ * a listener without it (another node, or a node replaying the log) applies them as regular
+ * additions and ignores the marker.
+ */
+public interface BulkDataListener extends LogDataListener {
+
+    interface Loader {
+
+        /**
+         * Writes the given translation units offline, they are not visible until the import is attached.
+         * The channel info of the units is ignored.
+         */
+        void add(Collection<TranslationUnitMessage> units) throws IOException;
+
+        /**
+         * Completes the offline data: it will be attached by the listener when the
+         * bulk import message with the same id is received. Finished data survives a restart
+         * of the listener, until it is attached.
+         */
+        void finish() throws IOException;
+
+        /**
+         * Deletes the offline data, if not attached yet.
+         */
+        void discard();
+
+    }
+
+    /**
+     * @param id the id of the bulk import
+     * @return a new loader for the given bulk import
+     * @throws IOException if an I/O error occurs while creating the loader
+     */
+    Loader newBulkLoader(UUID id) throws IOException;
+
+}
@@ -0,0 +1,25 @@
+package eu.modernmt.data;
+
+import java.util.UUID;
+
+/**
+ * Marks the position in the binary log of a bulk import: the translation units have been
+ * loaded offline by the {@link BulkDataListener}s of the importing node, and they must be
+ * attached when this message is received.
+ */
+public class BulkImportMessage extends DataMessage {
+
+    public final UUID id;
+    public final UUID owner;
+    public final long memory;
+    public final int size;
+
+    public BulkImportMessage(short channel, long channelPosition, UUID id, UUID owner, long memory, int size) {
+        super(channel, channelPosition);
+        this.id = id;
+        this.owner = owner;
+        this.memory = memory;
+        this.size = size;
+    }
+
+}
@@ -1,6 +1,7 @@
 package eu.modernmt.data;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -12,6 +13,10 @@ public interface DataBatch {
 
     Collection<DeletionMessage> getDeletions();
 
+    default Collection<BulkImportMessage> getBulkImports() {
+        return Collections.emptyList();
+    }
+
     Map<Short, Long> getChannelPositions();
 
 }
@@ -25,9 +25,19 @@ public class TranslationUnitMessage extends DataMessage {
     public final Sentence translation;
     public final Alignment alignment;
 
+    public final UUID bulkImport;  // the bulk import this unit is part of, null for regular additions
+
     public TranslationUnitMessage(short channel, long channelPosition, long memory, UUID owner, TranslationUnit value,
                                   boolean update, String previousSentence, String previousTranslation,
                                   LanguageDirection language, Sentence sentence, Sentence translation, Alignment alignment) {
+        this(channel, channelPosition, memory, owner, value, update, previousSentence, previousTranslation,
+                language, sentence, translation, alignment, null);
+    }
+
+    public TranslationUnitMessage(short channel, long channelPosition, long memory, UUID owner, TranslationUnit value,
+                                  boolean update, String previousSentence, String previousTranslation,
+                                  LanguageDirection language, Sentence sentence, Sentence translation, Alignment alignment,
+                                  UUID bulkImport) {
         super(channel, channelPosition);
         this.memory = memory;
         this.owner = owner;
@@ -41,6 +51,8 @@ public class TranslationUnitMessage extends DataMessage {
         this.sentence = sentence;
         this.translation = translation;
         this.alignment = alignment;
+
+        this.bulkImport = bulkImport;
     }
 
     @Override
@@ -53,6 +65,7 @@ public class TranslationUnitMessage extends DataMessage {
                 ", previousSentence='" + previousSentence + '\'' +
                 ", previousTranslation='" + previousTranslation + '\'' +
                 ", language=" + language +
+                ", bulkImport=" + bulkImport +
                 '}';
     }
 }
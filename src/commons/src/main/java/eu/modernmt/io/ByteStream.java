@@ -65,6 +65,10 @@ public class ByteStream {
         return buffer.get();
     }
 
+    public int readInt() {
+        return buffer.getInt();
+    }
+
     public long readLong() {
         return buffer.getLong();
     }
@@ -90,6 +94,14 @@ public class ByteStream {
         return string;
     }
 
+    public byte[] readBytes() {
+        int length = buffer.getInt();
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
     public Date readDate() {
         if (buffer.remaining() == 0)
             return null;
@@ -110,6 +122,12 @@ public class ByteStream {
         return this;
     }
 
+    public ByteStream write(int value) {
+        ensureCapacity(buffer.position() + 4);
+        buffer.putInt(value);
+        return this;
+    }
+
     public ByteStream write(long value) {
         ensureCapacity(buffer.position() + 8);
         buffer.putLong(value);
@@ -144,6 +162,13 @@ public class ByteStream {
         return this;
     }
 
+    public ByteStream write(byte[] value) {
+        ensureCapacity(buffer.position() + 4 + value.length);
+        buffer.putInt(value.length);
+        buffer.put(value);
+        return this;
+    }
+
     public ByteStream write(Date value) {
         return write(value == null ? 0L : value.getTime());
     }
@@ -66,6 +66,10 @@ public class Sentence implements Serializable, Iterable<Token> {
         annotations.put(annotation.getId(), annotation);
     }
 
+    public Collection<Annotation> getAnnotations() {
+        return annotations == null ? Collections.emptyList() : annotations.values();
+    }
+
     public boolean hasAnnotation(String annotation) {
         return getAnnotation(annotation) != null;
     }
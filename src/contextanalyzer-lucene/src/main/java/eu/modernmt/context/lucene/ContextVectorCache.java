@@ -0,0 +1,114 @@
+package eu.modernmt.context.lucene;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import eu.modernmt.io.UTF8Charset;
+import eu.modernmt.lang.LanguageDirection;
+import eu.modernmt.model.ContextVector;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Cache of the context vectors computed for a given (user, direction, context, limit).
+ * <p>
+ * Contexts are identified by the hash of their normalized text, so that the same document sent
+ * with different whitespaces maps to the same entry. Every key also holds the index generation
+ * it was computed on: when new content is committed the generation is bumped, and all the
+ * previous entries become unreachable until they are evicted.
+ */
+public class ContextVectorCache {
+
+    private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+    private final Cache<Key, ContextVector> cache;
+    private final AtomicLong generation = new AtomicLong(0L);
+
+    /**
+     * @param maxSize the maximum number of context vectors held by the cache
+     * @param ttl     the time-to-live of the entries in seconds
+     */
+    public ContextVectorCache(long maxSize, long ttl) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    public ContextVector get(UUID user, LanguageDirection direction, String context, int limit,
+                             Callable<ContextVector> loader) throws ExecutionException {
+        Key key = new Key(user, direction, hash(context), limit, generation.get());
+        return cache.get(key, loader);
+    }
+
+    /**
+     * Invalidates all the context vectors computed so far.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static HashCode hash(String context) {
+        String normalized = WHITESPACES.matcher(context).replaceAll(" ").trim();
+        return Hashing.murmur3_128().hashString(normalized, UTF8Charset.get());
+    }
+
+    private static final class Key {
+
+        private final UUID user;
+        private final LanguageDirection direction;
+        private final HashCode context;
+        private final int limit;
+        private final long generation;
+
+        private Key(UUID user, LanguageDirection direction, HashCode context, int limit, long generation) {
+            this.user = user;
+            this.direction = direction;
+            this.context = context;
+            this.limit = limit;
+            this.generation = generation;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+            return limit == key.limit &&
+                    generation == key.generation &&
+                    Objects.equals(user, key.user) &&
+                    direction.equals(key.direction) &&
+                    context.equals(key.context);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Objects.hashCode(user);
+            result = 31 * result + direction.hashCode();
+            result = 31 * result + context.hashCode();
+            result = 31 * result + limit;
+            result = 31 * result + (int) (generation ^ (generation >>> 32));
+            return result;
+        }
+
+    }
+
+}
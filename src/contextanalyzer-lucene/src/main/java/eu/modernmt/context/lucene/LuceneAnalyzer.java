@@ -5,6 +5,7 @@ import eu.modernmt.context.ContextAnalyzer;
 import eu.modernmt.context.ContextAnalyzerException;
 import eu.modernmt.context.lucene.analysis.ContextAnalyzerIndex;
 import eu.modernmt.context.lucene.analysis.DocumentBuilder;
+import eu.modernmt.context.lucene.analysis.TermFrequencies;
 import eu.modernmt.context.lucene.storage.Bucket;
 import eu.modernmt.context.lucene.storage.CorporaStorage;
 import eu.modernmt.data.LogDataListener;
@@ -15,12 +16,14 @@ import eu.modernmt.model.ContextVector;
 import eu.modernmt.model.corpus.Corpus;
 import eu.modernmt.model.corpus.impl.StringCorpus;
 import eu.modernmt.model.corpus.impl.parallel.FileCorpus;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.document.Document;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.*;
@@ -36,6 +39,7 @@ public class LuceneAnalyzer implements ContextAnalyzer, DataListenerProvider {
     private final ContextAnalyzerIndex index;
     private final CorporaStorage storage;
     private final AnalysisThread analysis;
+    private final ContextVectorCache cache;
 
     public LuceneAnalyzer(File indexPath, AnalyzerConfig config) throws IOException {
         this(new ContextAnalyzerIndex(new File(indexPath, "index")), new CorporaStorage(new File(indexPath, "storage")), config);
@@ -44,6 +48,7 @@ public class LuceneAnalyzer implements ContextAnalyzer, DataListenerProvider {
     protected LuceneAnalyzer(ContextAnalyzerIndex index, CorporaStorage storage, AnalyzerConfig config) {
         this.index = index;
         this.storage = storage;
+        this.cache = config.getCacheSize() > 0 ? new ContextVectorCache(config.getCacheSize(), config.getCacheTtl()) : null;
 
         if (config.analyze()) {
             this.analysis = new AnalysisThread(config);
@@ -61,9 +66,24 @@ public class LuceneAnalyzer implements ContextAnalyzer, DataListenerProvider {
         return storage;
     }
 
+    /**
+     * @return the query cache of the context vectors, or null if the cache is disabled
+     */
+    public ContextVectorCache getCache() {
+        return cache;
+    }
+
     @Override
     public ContextVector getContextVector(UUID user, LanguageDirection direction, String query, int limit) throws ContextAnalyzerException {
-        return getContextVector(user, direction, new StringCorpus(null, direction.source, query), limit);
+        StringCorpus corpus = new StringCorpus(null, direction.source, query);
+        if (cache == null)
+            return getContextVector(user, direction, corpus, limit);
+
+        try {
+            return cache.get(user, direction, query, limit, () -> index.getContextVector(user, direction, corpus, limit));
+        } catch (ExecutionException e) {
+            throw new ContextAnalyzerException("Failed to calculate context-vector due an internal error", e.getCause());
+        }
     }
 
     @Override
@@ -101,8 +121,26 @@ public class LuceneAnalyzer implements ContextAnalyzer, DataListenerProvider {
             // Deleted
             index.delete(bucket.getId());
         } else {
-            Reader reader = new InputStreamReader(bucket.getContentStream(), UTF8Charset.get());
-            Document document = DocumentBuilder.newInstance(bucket.getOwner(), bucket.getId(), bucket.getLanguage(), reader);
+            // Only the content appended since the last analysis is processed: buckets are append-only
+            // and memory ids are never reused, so the history is re-analyzed only if the stored
+            // frequencies are missing or they refer to a larger content
+            TermFrequencies frequencies = index.getTermFrequencies(bucket.getId(), bucket.getLanguage());
+            if (frequencies == null || frequencies.getOffset() > size)
+                frequencies = new TermFrequencies();
+
+            long offset = frequencies.getOffset();
+            if (offset == size)
+                return;
+
+            InputStream stream = new BoundedInputStream(bucket.getContentStream(offset), size - offset);
+            try (Reader reader = new InputStreamReader(stream, UTF8Charset.get())) {
+                String fieldName = DocumentBuilder.makeContentFieldName(bucket.getLanguage());
+                frequencies.add(index.getAnalyzer(), fieldName, reader);
+            }
+
+            frequencies.setOffset(size);
+
+            Document document = DocumentBuilder.newInstance(bucket.getOwner(), bucket.getId(), bucket.getLanguage(), frequencies);
             index.update(document);
         }
     }
@@ -155,6 +193,9 @@ public class LuceneAnalyzer implements ContextAnalyzer, DataListenerProvider {
 
         index.flush();
 
+        if (cache != null && !tasks.isEmpty())
+            cache.invalidate();
+
         for (AnalysisTask task : tasks) {
             try {
                 storage.markUpdate(task.getBucket(), task.getSize());
@@ -100,6 +100,10 @@ public class ContextAnalyzerIndex implements Closeable {
         return this._indexReader;
     }
 
+    public Analyzer getAnalyzer() {
+        return analyzer;
+    }
+
     public IndexSearcher getIndexSearcher() throws IOException {
         getIndexReader();
         return this._indexSearcher;
@@ -110,6 +114,21 @@ public class ContextAnalyzerIndex implements Closeable {
         this.indexWriter.updateDocument(DocumentBuilder.makeIdTerm(id), document);
     }
 
+    /**
+     * Returns the term frequencies stored with the document of the given memory and direction.
+     *
+     * @return the stored term frequencies, or null if the document does not exist or it
+     * has been indexed without term frequencies
+     */
+    public TermFrequencies getTermFrequencies(long memory, LanguageDirection direction) throws IOException {
+        IndexSearcher searcher = this.getIndexSearcher();
+
+        Query query = new TermQuery(DocumentBuilder.makeIdTerm(DocumentBuilder.makeId(memory, direction)));
+        ScoreDoc[] docs = searcher.search(query, 1).scoreDocs;
+
+        return docs.length == 0 ? null : DocumentBuilder.getTermFrequencies(searcher.getIndexReader(), docs[0].doc);
+    }
+
     public void delete(long memory) throws IOException {
         Term memoryTerm = DocumentBuilder.makeMemoryTerm(memory);
         this.indexWriter.deleteDocuments(memoryTerm);
@@ -178,8 +197,16 @@ public class ContextAnalyzerIndex implements Closeable {
         // Rescore result
 
         if (rescorer != null) {
-            Document referenceDocument = DocumentBuilder.newInstance(direction, queryDocument);
-            rescorer.rescore(reader, this.analyzer, topDocs, referenceDocument, contentFieldName);
+            TermFrequencies reference = new TermFrequencies();
+
+            queryDocumentReader = queryDocument.getRawContentReader();
+            try {
+                reference.add(this.analyzer, contentFieldName, queryDocumentReader);
+            } finally {
+                IOUtils.closeQuietly(queryDocumentReader);
+            }
+
+            rescorer.rescore(reader, topDocs, reference, contentFieldName);
         }
 
         // Build result
@@ -188,9 +215,7 @@ public class ContextAnalyzerIndex implements Closeable {
         resultBuilder.setLimit(limit);
 
         for (ScoreDoc topDocRef : topDocs) {
-            Document topDoc = searcher.doc(topDocRef.doc);
-
-            long memory = DocumentBuilder.getMemory(topDoc);
+            long memory = DocumentBuilder.getMemory(reader, topDocRef.doc);
             resultBuilder.add(memory, topDocRef.score);
         }
 
@@ -199,6 +224,8 @@ public class ContextAnalyzerIndex implements Closeable {
 
     @Override
     public void close() {
+        if (this.rescorer instanceof Closeable)
+            IOUtils.closeQuietly((Closeable) this.rescorer);
         IOUtils.closeQuietly(this._indexReader);
         IOUtils.closeQuietly(this.indexWriter);
         IOUtils.closeQuietly(this.indexDirectory);
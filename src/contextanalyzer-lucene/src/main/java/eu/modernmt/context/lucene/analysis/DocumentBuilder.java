@@ -5,17 +5,22 @@ import eu.modernmt.model.corpus.Corpus;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.LongField;
+import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.NumericUtils;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.Collections;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -34,6 +39,21 @@ public class DocumentBuilder {
     }
 
     public static Document newInstance(UUID owner, long memory, LanguageDirection direction, Reader contentReader) {
+        Document document = newInstance(owner, memory, direction);
+        document.add(new CorpusContentField(makeContentFieldName(direction), contentReader));
+
+        return document;
+    }
+
+    public static Document newInstance(UUID owner, long memory, LanguageDirection direction, TermFrequencies frequencies) throws IOException {
+        Document document = newInstance(owner, memory, direction);
+        document.add(new CorpusContentField(makeContentFieldName(direction), frequencies.asTokenStream()));
+        document.add(new StoredField(TERM_FREQUENCIES_FIELD, frequencies.toByteArray()));
+
+        return document;
+    }
+
+    private static Document newInstance(UUID owner, long memory, LanguageDirection direction) {
         Document document = new Document();
         document.add(new StringField(DOC_ID_FIELD, makeId(memory, direction), Field.Store.NO));
         document.add(new LongField(MEMORY_FIELD, memory, Field.Store.YES));
@@ -46,8 +66,6 @@ public class DocumentBuilder {
             document.add(new LongField(OWNER_LSB_FIELD, 0L, Field.Store.NO));
         }
 
-        document.add(new CorpusContentField(makeContentFieldName(direction), contentReader));
-
         return document;
     }
 
@@ -56,6 +74,9 @@ public class DocumentBuilder {
     private static final String OWNER_MSB_FIELD = "owner_msb";
     private static final String OWNER_LSB_FIELD = "owner_lsb";
     private static final String CONTENT_PREFIX_FIELD = "content_";
+    private static final String TERM_FREQUENCIES_FIELD = "term_frequencies";
+    private static final Set<String> MEMORY_FIELD_SET = Collections.singleton(MEMORY_FIELD);
+    private static final Set<String> TERM_FREQUENCIES_FIELD_SET = Collections.singleton(TERM_FREQUENCIES_FIELD);
 
     // Getters
 
@@ -67,6 +88,10 @@ public class DocumentBuilder {
         return Long.parseLong(self.get(MEMORY_FIELD));
     }
 
+    public static long getMemory(IndexReader reader, int docId) throws IOException {
+        return getMemory(reader.document(docId, MEMORY_FIELD_SET));
+    }
+
     public static long getMemory(String docId) {
         String[] parts = docId.split("_");
         if (parts.length != 3)
@@ -75,6 +100,15 @@ public class DocumentBuilder {
         return Long.parseLong(parts[0]);
     }
 
+    public static TermFrequencies getTermFrequencies(Document self) throws IOException {
+        BytesRef value = self.getBinaryValue(TERM_FREQUENCIES_FIELD);
+        return value == null ? null : TermFrequencies.fromByteArray(value);
+    }
+
+    public static TermFrequencies getTermFrequencies(IndexReader reader, int docId) throws IOException {
+        return getTermFrequencies(reader.document(docId, TERM_FREQUENCIES_FIELD_SET));
+    }
+
     public static String getLanguageForContentField(String field) {
         if (!field.startsWith(CONTENT_PREFIX_FIELD))
             return null;
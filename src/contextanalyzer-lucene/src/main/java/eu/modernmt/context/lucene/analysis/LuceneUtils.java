@@ -4,13 +4,9 @@ import org.apache.commons.io.IOUtils;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
-import org.apache.lucene.document.Document;
 import org.apache.lucene.index.*;
 import org.apache.lucene.search.DocIdSetIterator;
-import org.apache.lucene.store.Directory;
-import org.apache.lucene.store.RAMDirectory;
 import org.apache.lucene.util.BytesRef;
-import org.apache.lucene.util.Version;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -71,27 +67,4 @@ public class LuceneUtils {
         return frequencies;
     }
 
-    public static Map<String, Float> getTermFrequencies(Analyzer analyzer, Document document, String fieldName) throws IOException {
-        Directory directory = new RAMDirectory();
-        IndexWriter writer = null;
-        IndexReader reader = null;
-
-        try {
-            // Writing document in RAM
-            IndexWriterConfig indexConfig = new IndexWriterConfig(Version.LUCENE_4_10_4, analyzer);
-            indexConfig.setOpenMode(IndexWriterConfig.OpenMode.CREATE);
-            writer = new IndexWriter(directory, indexConfig);
-            writer.addDocument(document);
-            IOUtils.closeQuietly(writer);
-
-
-            reader = DirectoryReader.open(directory);
-            return getTermFrequencies(reader, 0, fieldName);
-        } finally {
-            IOUtils.closeQuietly(writer);
-            IOUtils.closeQuietly(reader);
-            IOUtils.closeQuietly(directory);
-        }
-    }
-
 }
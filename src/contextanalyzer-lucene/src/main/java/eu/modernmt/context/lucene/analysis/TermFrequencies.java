@@ -0,0 +1,159 @@
+package eu.modernmt.context.lucene.analysis;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Term frequencies of the content of a bucket, together with the offset of the bucket
+ * content they have been computed from. New content appended to the bucket can be added
+ * incrementally, without re-analyzing the content already processed.
+ */
+public class TermFrequencies {
+
+    private final HashMap<String, Integer> frequencies;
+    private long offset;
+
+    public TermFrequencies() {
+        this(new HashMap<>(), 0L);
+    }
+
+    private TermFrequencies(HashMap<String, Integer> frequencies, long offset) {
+        this.frequencies = frequencies;
+        this.offset = offset;
+    }
+
+    /**
+     * @return the offset (in bytes) of the bucket content analyzed so far
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public int get(String term) {
+        return frequencies.getOrDefault(term, 0);
+    }
+
+    public int size() {
+        return frequencies.size();
+    }
+
+    public void forEach(BiConsumer<String, Integer> action) {
+        frequencies.forEach(action);
+    }
+
+    /**
+     * Analyzes the given content and adds its terms to these frequencies.
+     *
+     * @param analyzer  the analyzer to use
+     * @param fieldName the name of the field the content belongs to
+     * @param content   the content reader
+     * @throws IOException if an I/O error occurs while reading the content
+     */
+    public void add(Analyzer analyzer, String fieldName, Reader content) throws IOException {
+        TokenStream stream = null;
+
+        try {
+            stream = analyzer.tokenStream(fieldName, content);
+            stream.reset();
+
+            CharTermAttribute termAttribute = stream.getAttribute(CharTermAttribute.class);
+            while (stream.incrementToken())
+                frequencies.merge(termAttribute.toString(), 1, Integer::sum);
+
+            stream.end();
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+
+    /**
+     * Returns a token stream that emits every term as many times as its frequency, so that the
+     * indexed term vector matches the one of the original content without analyzing it again.
+     *
+     * @return a token stream for these frequencies
+     */
+    public TokenStream asTokenStream() {
+        return new FrequenciesTokenStream(frequencies);
+    }
+
+    // Serialization
+
+    public byte[] toByteArray() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(frequencies.size() * 12 + 12);
+        DataOutputStream output = new DataOutputStream(bytes);
+
+        output.writeLong(offset);
+        output.writeInt(frequencies.size());
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            output.writeUTF(entry.getKey());
+            output.writeInt(entry.getValue());
+        }
+
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    public static TermFrequencies fromByteArray(BytesRef bytes) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.bytes, bytes.offset, bytes.length));
+
+        long offset = input.readLong();
+        int size = input.readInt();
+
+        HashMap<String, Integer> frequencies = new HashMap<>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; i++)
+            frequencies.put(input.readUTF(), input.readInt());
+
+        return new TermFrequencies(frequencies, offset);
+    }
+
+    private static final class FrequenciesTokenStream extends TokenStream {
+
+        private final CharTermAttribute termAttribute = addAttribute(CharTermAttribute.class);
+        private final Map<String, Integer> frequencies;
+
+        private Iterator<Map.Entry<String, Integer>> iterator = null;
+        private int remaining = 0;
+
+        private FrequenciesTokenStream(Map<String, Integer> frequencies) {
+            this.frequencies = frequencies;
+        }
+
+        @Override
+        public boolean incrementToken() {
+            while (remaining == 0) {
+                if (!iterator.hasNext())
+                    return false;
+
+                Map.Entry<String, Integer> entry = iterator.next();
+                clearAttributes();
+                termAttribute.setEmpty().append(entry.getKey());
+                remaining = entry.getValue();
+            }
+
+            remaining--;
+            return true;
+        }
+
+        @Override
+        public void reset() throws IOException {
+            super.reset();
+            iterator = frequencies.entrySet().iterator();
+            remaining = 0;
+        }
+
+    }
+
+}
@@ -1,37 +1,88 @@
 package eu.modernmt.context.lucene.analysis.rescoring;
 
-import eu.modernmt.context.lucene.analysis.LuceneUtils;
-import org.apache.lucene.analysis.Analyzer;
-import org.apache.lucene.document.Document;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import eu.modernmt.context.lucene.analysis.TermFrequencies;
+import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.search.ScoreDoc;
 
+import java.io.Closeable;
 import java.io.IOException;
-import java.util.Map;
+import java.util.List;
 import java.util.concurrent.*;
 
 /**
  * Created by davide on 06/08/17.
+ * <p>
+ * Term vectors of the indexed documents are cached by segment and document id, so that the
+ * vector (and its L2 norm) of a document is decoded only once for every segment it lives in.
+ * Documents not in cache are decoded in parallel on a shared thread pool.
  */
-public class CosineSimilarityRescorer implements Rescorer {
+public class CosineSimilarityRescorer implements Rescorer, Closeable {
+
+    private static final long DEFAULT_CACHE_SIZE = 10_000_000L;  // in number of terms
+
+    private final Cache<DocumentKey, TermVector> cache;
+    private final ExecutorService executor;
+
+    public CosineSimilarityRescorer() {
+        this(DEFAULT_CACHE_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param cacheSize the maximum number of terms of all the document vectors in cache
+     * @param threads   the number of threads used to decode document vectors
+     */
+    public CosineSimilarityRescorer(long cacheSize, int threads) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(cacheSize)
+                .weigher((DocumentKey key, TermVector vector) -> vector.size() + 1)
+                .build();
+        this.executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+                .setNameFormat("CosineSimilarityRescorer-%d")
+                .setDaemon(true)
+                .build());
+    }
 
     @Override
-    public void rescore(IndexReader reader, Analyzer analyzer, ScoreDoc[] topDocs, Document reference, String fieldName) throws IOException {
-        // Compute reference document stats
-        Map<String, Float> referenceTerms = LuceneUtils.getTermFrequencies(analyzer, reference, fieldName);
-        double referenceL2Norm = getL2Norm(referenceTerms);
+    public void rescore(IndexReader reader, ScoreDoc[] topDocs, TermFrequencies reference, String fieldName) throws IOException {
+        TermVector referenceVector = TermVector.fromFrequencies(reference);
+
+        List<AtomicReaderContext> leaves = reader.leaves();
+        TermVector[] vectors = new TermVector[topDocs.length];
+        Future<?>[] tasks = new Future<?>[topDocs.length];
+
+        for (int i = 0; i < topDocs.length; i++) {
+            int doc = topDocs[i].doc;
+            AtomicReaderContext leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+            DocumentKey key = new DocumentKey(leaf.reader().getCoreCacheKey(), fieldName, doc - leaf.docBase);
+
+            vectors[i] = cache.getIfPresent(key);
+            if (vectors[i] == null) {
+                final int index = i;
+                tasks[i] = executor.submit(() -> {
+                    TermVector vector = TermVector.fromTerms(reader.getTermVector(doc, fieldName));
+                    cache.put(key, vector);
+                    vectors[index] = vector;
+                    return null;
+                });
+            }
+        }
 
-        // Calculate similarity with reference
-        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-        try {
-            Future<?>[] tasks = new Future<?>[topDocs.length];
-            for (int i = 0; i < tasks.length; i++)
-                tasks[i] = executor.submit(new RescoringTask(reader, fieldName, topDocs[i], referenceTerms, referenceL2Norm));
+        boolean success = false;
 
+        try {
             for (Future<?> task : tasks) {
+                if (task == null)
+                    continue;
+
                 try {
                     task.get();
                 } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                     throw new IOException("Execution interrupted", e);
                 } catch (ExecutionException e) {
                     Throwable cause = e.getCause();
@@ -44,63 +95,56 @@ public class CosineSimilarityRescorer implements Rescorer {
                     }
                 }
             }
+
+            success = true;
         } finally {
-            executor.shutdownNow();
+            if (!success) {
+                for (Future<?> task : tasks) {
+                    if (task != null)
+                        task.cancel(true);
+                }
+            }
         }
+
+        for (int i = 0; i < topDocs.length; i++)
+            topDocs[i].score = referenceVector.cosineSimilarity(vectors[i]);
     }
 
-    public static double getL2Norm(Map<String, Float> terms) throws IOException {
-        double norm = 0;
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        cache.invalidateAll();
+    }
 
-        for (Float value : terms.values())
-            norm += value * value;
+    private static final class DocumentKey {
 
-        return Math.sqrt(norm);
-    }
+        private final Object segment;
+        private final String field;
+        private final int doc;
 
-    private static class RescoringTask implements Callable<Void> {
-
-        private final IndexReader reader;
-        private final String fieldName;
-        private final ScoreDoc target;
-        private final Map<String, Float> referenceTerms;
-        private final double referenceL2Norm;
-
-        public RescoringTask(IndexReader reader, String fieldName,
-                             ScoreDoc target, Map<String, Float> referenceTerms, double referenceL2Norm) {
-            this.reader = reader;
-            this.fieldName = fieldName;
-            this.target = target;
-            this.referenceTerms = referenceTerms;
-            this.referenceL2Norm = referenceL2Norm;
+        private DocumentKey(Object segment, String field, int doc) {
+            this.segment = segment;
+            this.field = field;
+            this.doc = doc;
         }
 
         @Override
-        public Void call() throws IOException {
-            Map<String, Float> terms = LuceneUtils.getTermFrequencies(this.reader, this.target.doc, this.fieldName);
-
-            double dotProduct = 0;
-            double l2Norm = 0;
-
-            for (Float value : terms.values())
-                l2Norm += value * value;
-            l2Norm = Math.sqrt(l2Norm);
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
 
-            for (Map.Entry<String, Float> entry : referenceTerms.entrySet()) {
-                Float otherFreq = terms.get(entry.getKey());
-                if (otherFreq != null)
-                    dotProduct += entry.getValue() * otherFreq;
-            }
-
-            float similarity = (float) (dotProduct / (referenceL2Norm * l2Norm));
-
-            if (Float.isInfinite(similarity) || Float.isNaN(similarity))
-                this.target.score = 0.f;
-            else
-                this.target.score = similarity;
+            DocumentKey that = (DocumentKey) o;
+            return doc == that.doc && segment == that.segment && field.equals(that.field);
+        }
 
-            return null;
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(segment);
+            result = 31 * result + field.hashCode();
+            result = 31 * result + doc;
+            return result;
         }
+
     }
 
 }
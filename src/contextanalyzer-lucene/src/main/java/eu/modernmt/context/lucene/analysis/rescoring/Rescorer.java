@@ -1,7 +1,6 @@
 package eu.modernmt.context.lucene.analysis.rescoring;
 
-import org.apache.lucene.analysis.Analyzer;
-import org.apache.lucene.document.Document;
+import eu.modernmt.context.lucene.analysis.TermFrequencies;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.search.ScoreDoc;
 
@@ -12,7 +11,15 @@ import java.io.IOException;
  */
 public interface Rescorer {
 
-    void rescore(IndexReader reader, Analyzer analyzer,
-                 ScoreDoc[] topDocs, Document reference, String fieldName) throws IOException;
+    /**
+     * Updates the score of the given documents with their similarity to the reference.
+     *
+     * @param reader    the reader the documents come from
+     * @param topDocs   the documents to rescore
+     * @param reference the term frequencies of the query document
+     * @param fieldName the content field of the documents
+     * @throws IOException if a low-level I/O error occurs
+     */
+    void rescore(IndexReader reader, ScoreDoc[] topDocs, TermFrequencies reference, String fieldName) throws IOException;
 
 }
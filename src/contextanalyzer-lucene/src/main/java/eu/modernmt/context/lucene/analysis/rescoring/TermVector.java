@@ -0,0 +1,147 @@
+package eu.modernmt.context.lucene.analysis.rescoring;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import eu.modernmt.context.lucene.analysis.TermFrequencies;
+import eu.modernmt.io.UTF8Charset;
+import org.apache.lucene.index.DocsEnum;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.InPlaceMergeSorter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Compact term-frequency vector: terms are identified by the 64-bit hash of their UTF-8 bytes
+ * and sorted, so that the dot product of two vectors is a linear merge of primitive arrays.
+ */
+final class TermVector {
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final long[] terms;
+    private final float[] weights;
+    private final double norm;
+
+    private TermVector(long[] terms, float[] weights) {
+        double norm = 0;
+        for (float weight : weights)
+            norm += weight * weight;
+
+        this.terms = terms;
+        this.weights = weights;
+        this.norm = Math.sqrt(norm);
+    }
+
+    private static TermVector create(long[] terms, float[] weights, int size) {
+        final long[] t = size < terms.length ? Arrays.copyOf(terms, size) : terms;
+        final float[] w = size < weights.length ? Arrays.copyOf(weights, size) : weights;
+
+        new InPlaceMergeSorter() {
+
+            @Override
+            protected int compare(int i, int j) {
+                return Long.compare(t[i], t[j]);
+            }
+
+            @Override
+            protected void swap(int i, int j) {
+                long term = t[i];
+                t[i] = t[j];
+                t[j] = term;
+
+                float weight = w[i];
+                w[i] = w[j];
+                w[j] = weight;
+            }
+
+        }.sort(0, size);
+
+        return new TermVector(t, w);
+    }
+
+    public static TermVector fromTerms(Terms vector) throws IOException {
+        if (vector == null)
+            return new TermVector(new long[0], new float[0]);
+
+        long size = vector.size();
+        int capacity = size < 0 ? 64 : (int) size;
+
+        long[] terms = new long[capacity];
+        float[] weights = new float[capacity];
+        int count = 0;
+
+        TermsEnum termsEnum = vector.iterator(null);
+        DocsEnum docsEnum = null;
+
+        BytesRef text;
+        while ((text = termsEnum.next()) != null) {
+            docsEnum = termsEnum.docs(null, docsEnum, DocsEnum.FLAG_FREQS);
+
+            int freq = 0;
+            if (docsEnum.nextDoc() != DocIdSetIterator.NO_MORE_DOCS)
+                freq = docsEnum.freq();
+
+            if (freq > 0) {
+                if (count == terms.length) {
+                    terms = Arrays.copyOf(terms, count * 2);
+                    weights = Arrays.copyOf(weights, count * 2);
+                }
+
+                terms[count] = HASH.hashBytes(text.bytes, text.offset, text.length).asLong();
+                weights[count] = freq;
+                count++;
+            }
+        }
+
+        return create(terms, weights, count);
+    }
+
+    public static TermVector fromFrequencies(TermFrequencies frequencies) {
+        int capacity = frequencies.size();
+        long[] terms = new long[capacity];
+        float[] weights = new float[capacity];
+        int[] count = new int[1];
+
+        frequencies.forEach((term, freq) -> {
+            if (freq > 0) {
+                int i = count[0]++;
+                terms[i] = HASH.hashBytes(term.getBytes(UTF8Charset.get())).asLong();
+                weights[i] = freq;
+            }
+        });
+
+        return create(terms, weights, count[0]);
+    }
+
+    public int size() {
+        return terms.length;
+    }
+
+    public float cosineSimilarity(TermVector other) {
+        long[] aTerms = this.terms, bTerms = other.terms;
+        float[] aWeights = this.weights, bWeights = other.weights;
+
+        double dotProduct = 0;
+
+        int i = 0, j = 0;
+        while (i < aTerms.length && j < bTerms.length) {
+            long a = aTerms[i], b = bTerms[j];
+
+            if (a < b) {
+                i++;
+            } else if (a > b) {
+                j++;
+            } else {
+                dotProduct += aWeights[i++] * bWeights[j++];
+            }
+        }
+
+        float similarity = (float) (dotProduct / (this.norm * other.norm));
+        return Float.isInfinite(similarity) || Float.isNaN(similarity) ? 0.f : similarity;
+    }
+
+}
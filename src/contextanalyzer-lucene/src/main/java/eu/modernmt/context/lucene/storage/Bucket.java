@@ -86,6 +86,19 @@ public class Bucket {
     }
 
     public InputStream getContentStream() throws IOException {
+        return getContentStream(0L);
+    }
+
+    /**
+     * Returns the content of this bucket starting from the given offset of the uncompressed content.
+     * If the offset falls in the compressed part of the bucket, the preceding compressed content
+     * is decompressed and skipped.
+     *
+     * @param offset the offset of the uncompressed content, in bytes
+     * @return the content stream starting from the given offset
+     * @throws IOException if an I/O error occurs
+     */
+    public InputStream getContentStream(long offset) throws IOException {
         boolean success = false;
 
         InputStream gzStream = null;
@@ -95,11 +108,25 @@ public class Bucket {
             this.lockFiles();
 
             try {
-                if (gzPath.exists() && compressedFileSize > 0)
-                    gzStream = new GZIPInputStream(new BoundedInputStream(new FileInputStream(gzPath), compressedFileSize));
+                long compressedContentSize = virtualSize - plainTextFileSize;
 
-                if (path.exists() && plainTextFileSize > 0)
-                    stream = new BoundedInputStream(new FileInputStream(path), plainTextFileSize);
+                if (offset < compressedContentSize) {
+                    if (gzPath.exists() && compressedFileSize > 0) {
+                        gzStream = new GZIPInputStream(new BoundedInputStream(new FileInputStream(gzPath), compressedFileSize));
+                        IOUtils.skipFully(gzStream, offset);
+                    }
+
+                    offset = 0L;
+                } else {
+                    offset -= compressedContentSize;
+                }
+
+                if (path.exists() && plainTextFileSize > offset) {
+                    FileInputStream fileStream = new FileInputStream(path);
+                    stream = fileStream;
+                    fileStream.getChannel().position(offset);
+                    stream = new BoundedInputStream(fileStream, plainTextFileSize - offset);
+                }
             } finally {
                 this.unlockFiles();
             }
@@ -120,8 +147,10 @@ public class Bucket {
                     }
                 };
         } finally {
-            if (!success)
+            if (!success) {
                 IOUtils.closeQuietly(gzStream);
+                IOUtils.closeQuietly(stream);
+            }
         }
     }
 
@@ -45,6 +45,22 @@ public class BucketWriter implements Closeable {
         stream.write('\n');
     }
 
+    /**
+     * Appends the content of the given file, made of lines terminated by '\n'.
+     *
+     * @param content the file to append
+     * @throws IOException if an I/O error occurs
+     */
+    public void append(File content) throws IOException {
+        if (deleted)
+            throw new FileNotFoundException("Bucket is deleted");
+
+        if (stream == null)
+            stream = openStream(bucket.path, bucket.plainTextFileSize);
+
+        FileUtils.copyFile(content, stream);
+    }
+
     public void flush() throws IOException {
         if (deleted) {
             this.bucket.lockFiles();
@@ -66,23 +82,25 @@ public class BucketWriter implements Closeable {
             FileSystemUtils.fsync(stream);
 
             long size = stream.getChannel().position();
-            bucket.virtualSize += size - bucket.plainTextFileSize;
 
-            // Compress if needed
-            if (size >= COMPRESS_THRESHOLD) {
-                this.bucket.lockFiles();
+            // Sizes are updated under lock, readers rely on them to locate content offsets
+            this.bucket.lockFiles();
+
+            try {
+                bucket.virtualSize += size - bucket.plainTextFileSize;
 
-                try {
+                // Compress if needed
+                if (size >= COMPRESS_THRESHOLD) {
                     IOUtils.closeQuietly(this.stream);
                     this.stream = null;
 
                     bucket.compressedFileSize = compress();
                     bucket.plainTextFileSize = 0;
-                } finally {
-                    this.bucket.unlockFiles();
+                } else {
+                    bucket.plainTextFileSize = size;
                 }
-            } else {
-                bucket.plainTextFileSize = size;
+            } finally {
+                this.bucket.unlockFiles();
             }
         }
     }
@@ -1,25 +1,26 @@
 package eu.modernmt.context.lucene.storage;
 
-import eu.modernmt.data.DataBatch;
-import eu.modernmt.data.DeletionMessage;
-import eu.modernmt.data.LogDataListener;
-import eu.modernmt.data.TranslationUnitMessage;
+import eu.modernmt.data.*;
+import eu.modernmt.io.UTF8Charset;
+import eu.modernmt.lang.Language;
+import eu.modernmt.lang.LanguageDirection;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 
-import java.io.Closeable;
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
-public class CorporaStorage implements LogDataListener, Closeable {
+public class CorporaStorage implements BulkDataListener, Closeable {
 
     protected final File path;
     protected final BucketRegistry buckets;
     private boolean closed = false;
     private final Map<Short, Long> channels;
+    private final ConcurrentHashMap<UUID, BulkLoader> bulkLoads = new ConcurrentHashMap<>();
 
     public CorporaStorage(File path) throws IOException {
         this(path, true);
@@ -31,6 +32,8 @@ public class CorporaStorage implements LogDataListener, Closeable {
         this.path = path;
         this.buckets = new BucketRegistry(path, maskLanguageRegion);
         this.channels = buckets.getChannels();
+
+        this.loadBulkImports();
     }
 
     public BucketRegistry getRegistry() {
@@ -103,6 +106,7 @@ public class CorporaStorage implements LogDataListener, Closeable {
         if (closed)
             return;
 
+        List<BulkLoader> attached = new ArrayList<>();
         HashSet<Bucket> pendingUpdatesBuckets = new HashSet<>();
 
         // Apply changes
@@ -111,6 +115,10 @@ public class CorporaStorage implements LogDataListener, Closeable {
             if (skipData(unit.channel, unit.channelPosition))
                 continue;
 
+            // the unit will be appended with the offline data of its bulk import
+            if (unit.bulkImport != null && bulkLoads.containsKey(unit.bulkImport))
+                continue;
+
             Bucket fwdBucket = buckets.get(unit.memory, unit.language, unit.owner);
             fwdBucket.getWriter().append(unit.value.source);
             pendingUpdatesBuckets.add(fwdBucket);
@@ -120,6 +128,24 @@ public class CorporaStorage implements LogDataListener, Closeable {
             pendingUpdatesBuckets.add(bwdBucket);
         }
 
+        for (BulkImportMessage message : batch.getBulkImports()) {
+            if (skipData(message.channel, message.channelPosition))
+                continue;
+
+            // without offline data on this node, the content has been applied as regular additions
+            BulkLoader loader = bulkLoads.get(message.id);
+            if (loader == null)
+                continue;
+
+            attached.add(loader);
+
+            for (Map.Entry<LanguageDirection, File> entry : loader.files.entrySet()) {
+                Bucket bucket = buckets.get(message.memory, entry.getKey(), message.owner);
+                bucket.getWriter().append(entry.getValue());
+                pendingUpdatesBuckets.add(bucket);
+            }
+        }
+
         for (DeletionMessage deletion : batch.getDeletions()) {
             if (skipData(deletion.channel, deletion.channelPosition))
                 continue;
@@ -145,6 +171,117 @@ public class CorporaStorage implements LogDataListener, Closeable {
         channels.putAll(updatedChannels);
 
         buckets.clearCache();
+
+        for (BulkLoader loader : attached)
+            loader.discard();
+    }
+
+    // BulkDataListener
+
+    private static final String BULK_PREFIX = "bulk-";
+    private static final String BULK_FINISHED_FLAG = "finished";
+
+    /**
+     * Restores the bulk imports finished before a restart and not attached yet, and deletes the incomplete ones.
+     */
+    private void loadBulkImports() throws IOException {
+        File[] folders = path.getParentFile().listFiles();
+        if (folders == null)
+            return;
+
+        for (File folder : folders) {
+            if (!folder.isDirectory() || !folder.getName().startsWith(BULK_PREFIX))
+                continue;
+
+            UUID id;
+            try {
+                id = UUID.fromString(folder.getName().substring(BULK_PREFIX.length()));
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+
+            if (!new File(folder, BULK_FINISHED_FLAG).isFile()) {
+                FileUtils.deleteDirectory(folder);
+                continue;
+            }
+
+            BulkLoader loader = new BulkLoader(id, folder);
+            for (File file : FileUtils.listFiles(folder, new String[]{"txt"}, false)) {
+                String[] languages = file.getName().substring(0, file.getName().length() - 4).split("_");
+                loader.files.put(new LanguageDirection(Language.fromString(languages[0]), Language.fromString(languages[1])), file);
+            }
+
+            bulkLoads.put(id, loader);
+        }
+    }
+
+    @Override
+    public BulkLoader newBulkLoader(UUID id) throws IOException {
+        File folder = new File(path.getParentFile(), BULK_PREFIX + id);
+        FileUtils.deleteDirectory(folder);
+        FileUtils.forceMkdir(folder);
+
+        return new BulkLoader(id, folder);
+    }
+
+    /**
+     * Writes the content of a bulk import in separate files, one for every bucket, that are
+     * appended to the buckets when the bulk import message is received.
+     * Once finished the folder is flagged as such, so that it is restored after a restart.
+     */
+    public class BulkLoader implements BulkDataListener.Loader {
+
+        private final UUID id;
+        private final File folder;
+        private final HashMap<LanguageDirection, File> files = new HashMap<>();
+        private final HashMap<LanguageDirection, OutputStream> streams = new HashMap<>();
+
+        private BulkLoader(UUID id, File folder) {
+            this.id = id;
+            this.folder = folder;
+        }
+
+        private void write(LanguageDirection language, String line) throws IOException {
+            OutputStream stream = streams.get(language);
+            if (stream == null) {
+                File file = new File(folder, language.source.toLanguageTag() + '_' + language.target.toLanguageTag() + ".txt");
+                stream = new BufferedOutputStream(new FileOutputStream(file));
+
+                files.put(language, file);
+                streams.put(language, stream);
+            }
+
+            stream.write(line.getBytes(UTF8Charset.get()));
+            stream.write('\n');
+        }
+
+        @Override
+        public void add(Collection<TranslationUnitMessage> units) throws IOException {
+            for (TranslationUnitMessage unit : units) {
+                write(unit.language, unit.value.source);
+                write(unit.language.reversed(), unit.value.target);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            for (OutputStream stream : streams.values())
+                stream.close();
+            streams.clear();
+
+            FileUtils.touch(new File(folder, BULK_FINISHED_FLAG));
+            bulkLoads.put(id, this);
+        }
+
+        @Override
+        public void discard() {
+            bulkLoads.remove(id, this);
+
+            for (OutputStream stream : streams.values())
+                IOUtils.closeQuietly(stream);
+            FileUtils.deleteQuietly(folder);
+        }
+
     }
 
     @Override
@@ -165,6 +302,8 @@ public class CorporaStorage implements LogDataListener, Closeable {
     @Override
     public synchronized void close() throws IOException {
         closed = true;
+
+        // bulk imports not attached yet are restored at the next start
         buckets.close();
     }
 
@@ -6,6 +6,7 @@ import eu.modernmt.context.lucene.analysis.DocumentBuilder;
 import eu.modernmt.context.lucene.analysis.LuceneUtils;
 import eu.modernmt.context.lucene.storage.Bucket;
 import eu.modernmt.context.lucene.storage.CorporaStorage;
+import eu.modernmt.data.BulkImportMessage;
 import eu.modernmt.data.DataBatch;
 import eu.modernmt.data.DeletionMessage;
 import eu.modernmt.data.TranslationUnitMessage;
@@ -204,6 +205,34 @@ public class TLuceneAnalyzer extends LuceneAnalyzer {
         this.forceAnalysis();
     }
 
+    public void onBulkImport(final BulkImportMessage message) throws IOException {
+        getStorage().onDataReceived(new DataBatch() {
+
+            @Override
+            public Collection<TranslationUnitMessage> getTranslationUnits() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public Collection<DeletionMessage> getDeletions() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public Collection<BulkImportMessage> getBulkImports() {
+                return Collections.singleton(message);
+            }
+
+            @Override
+            public Map<Short, Long> getChannelPositions() {
+                return Collections.singletonMap(message.channel, message.channelPosition);
+            }
+
+        });
+
+        this.forceAnalysis();
+    }
+
     public void onDataReceived(Collection<TranslationUnitMessage> units) throws IOException {
         final HashMap<Short, Long> positions = new HashMap<>();
         for (TranslationUnitMessage unit : units) {
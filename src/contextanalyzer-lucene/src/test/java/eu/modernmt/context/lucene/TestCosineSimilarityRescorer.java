@@ -0,0 +1,85 @@
+package eu.modernmt.context.lucene;
+
+import eu.modernmt.context.lucene.analysis.ContextAnalyzerIndex;
+import eu.modernmt.context.lucene.analysis.DocumentBuilder;
+import eu.modernmt.context.lucene.analysis.LuceneUtils;
+import eu.modernmt.context.lucene.analysis.TermFrequencies;
+import eu.modernmt.context.lucene.analysis.rescoring.CosineSimilarityRescorer;
+import eu.modernmt.model.Memory;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.ScoreDoc;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Map;
+
+import static eu.modernmt.context.lucene.TestData.EN__IT;
+import static org.junit.Assert.assertEquals;
+
+public class TestCosineSimilarityRescorer {
+
+    private TLuceneAnalyzer analyzer;
+    private CosineSimilarityRescorer rescorer;
+
+    @Before
+    public void setup() throws Throwable {
+        this.analyzer = new TLuceneAnalyzer();
+        this.rescorer = new CosineSimilarityRescorer(1000, 2);
+
+        analyzer.onDataReceived(new Memory(1), TestData.corpus("none", EN__IT,
+                "hello world\nhello big world\nthe world is big", "ciao mondo\nciao grande mondo\nil mondo è grande"));
+        analyzer.onDataReceived(new Memory(2), TestData.corpus("none", EN__IT,
+                "the test\nthe second test\nhello test", "il test\nil secondo test\nciao test"));
+        analyzer.onDataReceived(new Memory(3), TestData.corpus("none", EN__IT,
+                "nothing in common", "niente in comune"));
+    }
+
+    @After
+    public void teardown() throws Throwable {
+        this.rescorer.close();
+        this.analyzer.close();
+    }
+
+    private static double cosine(Map<String, Float> a, TermFrequencies b) {
+        double dot = 0;
+        double aNorm = 0;
+        for (Map.Entry<String, Float> entry : a.entrySet()) {
+            dot += entry.getValue() * b.get(entry.getKey());
+            aNorm += entry.getValue() * entry.getValue();
+        }
+
+        double[] bNorm = new double[1];
+        b.forEach((term, freq) -> bNorm[0] += freq * freq);
+
+        return dot / (Math.sqrt(aNorm) * Math.sqrt(bNorm[0]));
+    }
+
+    @Test
+    public void scoresMatchCosineSimilarity() throws Throwable {
+        ContextAnalyzerIndex index = analyzer.getIndex();
+        IndexReader reader = index.getIndexReader();
+        String field = DocumentBuilder.makeContentFieldName(EN__IT);
+
+        TermFrequencies reference = new TermFrequencies();
+        reference.add(index.getAnalyzer(), field, new StringReader("hello big world, hello test"));
+
+        ScoreDoc[] docs = new ScoreDoc[reader.maxDoc()];
+        for (int i = 0; i < docs.length; i++)
+            docs[i] = new ScoreDoc(i, 0.f);
+
+        // twice: the second time vectors come from cache
+        for (int k = 0; k < 2; k++) {
+            rescorer.rescore(reader, docs, reference, field);
+
+            for (ScoreDoc doc : docs) {
+                Map<String, Float> frequencies = LuceneUtils.getTermFrequencies(reader, doc.doc, field);
+                double expected = frequencies.isEmpty() ? 0 : cosine(frequencies, reference);
+
+                assertEquals(expected, doc.score, 1e-5);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,161 @@
+package eu.modernmt.context.lucene;
+
+import eu.modernmt.context.lucene.storage.CorporaStorage;
+import eu.modernmt.data.BulkImportMessage;
+import eu.modernmt.data.DataBatch;
+import eu.modernmt.data.DeletionMessage;
+import eu.modernmt.data.TranslationUnitMessage;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.*;
+
+import static eu.modernmt.context.lucene.TestData.*;
+import static org.junit.Assert.*;
+
+public class TestLuceneAnalyzer_bulkImport {
+
+    private TLuceneAnalyzer analyzer;
+
+    @Before
+    public void setup() throws Throwable {
+        this.analyzer = new TLuceneAnalyzer();
+    }
+
+    @After
+    public void teardown() throws Throwable {
+        if (this.analyzer != null)
+            this.analyzer.close();
+        this.analyzer = null;
+    }
+
+    /**
+     * @return the given units as the content of a bulk import, as written to the binary log before its marker
+     */
+    private static List<TranslationUnitMessage> content(UUID id, List<TranslationUnitMessage> units) {
+        ArrayList<TranslationUnitMessage> result = new ArrayList<>(units.size());
+        for (TranslationUnitMessage unit : units) {
+            result.add(new TranslationUnitMessage(unit.channel, unit.channelPosition, unit.memory, unit.owner, unit.value,
+                    unit.update, unit.previousSentence, unit.previousTranslation,
+                    unit.language, unit.sentence, unit.translation, unit.alignment, id));
+        }
+        return result;
+    }
+
+    private static DataBatch batch(BulkImportMessage message) {
+        return new DataBatch() {
+
+            @Override
+            public Collection<TranslationUnitMessage> getTranslationUnits() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public Collection<DeletionMessage> getDeletions() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public Collection<BulkImportMessage> getBulkImports() {
+                return Collections.singleton(message);
+            }
+
+            @Override
+            public Map<Short, Long> getChannelPositions() {
+                return Collections.singletonMap(message.channel, message.channelPosition);
+            }
+
+        };
+    }
+
+    @Test
+    public void bulkImportIsAttachedOnMarker() throws Throwable {
+        List<TranslationUnitMessage> units = TestData.tuList(0, 0L, 1L, EN__IT, 4);
+
+        UUID id = UUID.randomUUID();
+        CorporaStorage.BulkLoader loader = analyzer.getStorage().newBulkLoader(id);
+        loader.add(units);
+        loader.finish();
+
+        // offline data is not visible before the marker, and its content in the log is skipped
+        analyzer.onDataReceived(content(id, units.subList(0, 3)));
+        assertEquals(0, analyzer.getStorageSize());
+
+        analyzer.onBulkImport(new BulkImportMessage((short) 0, 3L, id, null, 1L, units.size()));
+
+        TLuceneAnalyzer.Entry entry = analyzer.getEntry(1, EN__IT);
+
+        assertEquals(2, analyzer.getIndexSize());
+        assertEquals(2, analyzer.getStorageSize());
+        assertEquals(TestData.channels(0, 3L), analyzer.getLatestChannelPositions());
+        assertEquals(TestData.tuGetTerms(units, true), entry.terms);
+        assertEquals(TestData.tuGetContent(units, true), entry.content);
+    }
+
+    @Test
+    public void replicaAppliesBulkImportContent() throws Throwable {
+        List<TranslationUnitMessage> units = TestData.tuList(0, 0L, 1L, EN__IT, 4);
+
+        UUID id = UUID.randomUUID();
+        CorporaStorage.BulkLoader loader = analyzer.getStorage().newBulkLoader(id);
+        loader.add(units);
+        loader.finish();
+
+        List<TranslationUnitMessage> content = content(id, units);
+        BulkImportMessage marker = new BulkImportMessage((short) 0, 4L, id, null, 1L, units.size());
+
+        // another listener instance, as on a node that did not run the import
+        try (TLuceneAnalyzer replica = new TLuceneAnalyzer()) {
+            replica.onDataReceived(content);
+            replica.onBulkImport(marker);
+
+            assertEquals(TestData.channels(0, 4L), replica.getLatestChannelPositions());
+            assertEquals(TestData.tuGetContent(units, true), replica.getEntry(1, EN__IT).content);
+        }
+
+        analyzer.onDataReceived(content);
+        analyzer.onBulkImport(marker);
+        assertEquals(TestData.channels(0, 4L), analyzer.getLatestChannelPositions());
+        assertEquals(TestData.tuGetContent(units, true), analyzer.getEntry(1, EN__IT).content);
+    }
+
+    @Test
+    public void finishedBulkImportSurvivesRestart() throws Throwable {
+        File folder = Files.createTempDirectory("TestLuceneAnalyzer_bulkImport").toFile();
+        File path = new File(folder, "storage");
+
+        try {
+            List<TranslationUnitMessage> units = TestData.tuList(0, 0L, 1L, EN__IT, 4);
+            UUID id = UUID.randomUUID();
+
+            try (CorporaStorage storage = new CorporaStorage(path)) {
+                CorporaStorage.BulkLoader loader = storage.newBulkLoader(id);
+                loader.add(units);
+                loader.finish();
+            }
+
+            // an incomplete bulk import, as left by a crash, is deleted at restart
+            FileUtils.forceMkdir(new File(folder, "bulk-" + UUID.randomUUID()));
+
+            try (TLuceneAnalyzer.TCorporaStorage storage = new TLuceneAnalyzer.TCorporaStorage(path)) {
+                assertEquals(1, folder.listFiles((dir, name) -> name.startsWith("bulk-")).length);
+
+                storage.onDataReceived(batch(new BulkImportMessage((short) 0, 4L, id, null, 1L, units.size())));
+
+                assertEquals(TestData.channels(0, 4L), storage.getLatestChannelPositions());
+                assertNotNull(storage.getBucket(1L, EN__IT));
+                assertNotNull(storage.getBucket(1L, EN__IT.reversed()));
+
+                // the bulk data is deleted once attached
+                assertEquals(0, folder.listFiles((dir, name) -> name.startsWith("bulk-")).length);
+            }
+        } finally {
+            FileUtils.deleteDirectory(folder);
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+package eu.modernmt.context.lucene;
+
+import eu.modernmt.model.ContextVector;
+import eu.modernmt.model.Memory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static eu.modernmt.context.lucene.TestData.*;
+import static org.junit.Assert.*;
+
+public class TestLuceneAnalyzer_cache {
+
+    private TLuceneAnalyzer analyzer;
+
+    @Before
+    public void setup() throws Throwable {
+        this.analyzer = new TLuceneAnalyzer();
+        this.analyzer.onDataReceived(new Memory(1), TestData.corpus("none", EN__IT,
+                "hello world 1\nhello world 2", "ciao mondo 1\nciao mondo 2"));
+    }
+
+    @After
+    public void teardown() throws Throwable {
+        if (this.analyzer != null)
+            this.analyzer.close();
+        this.analyzer = null;
+    }
+
+    private long hits() {
+        return analyzer.getCache().stats().hitCount();
+    }
+
+    @Test
+    public void sameContextIsServedFromCache() throws Throwable {
+        ContextVector first = analyzer.getContextVector(null, EN__IT, "hello world", 10);
+        assertEquals(0, hits());
+
+        ContextVector second = analyzer.getContextVector(null, EN__IT, "  hello\n\tworld ", 10);
+        assertEquals(1, hits());
+        assertSame(first, second);
+
+        analyzer.getContextVector(null, EN__IT, "hello world", 5);
+        analyzer.getContextVector(UUID.randomUUID(), EN__IT, "hello world", 10);
+        analyzer.getContextVector(null, EN__FR, "hello world", 10);
+        assertEquals(1, hits());
+        assertEquals(4, analyzer.getCache().size());
+    }
+
+    @Test
+    public void analysisInvalidatesCache() throws Throwable {
+        ContextVector before = analyzer.getContextVector(null, EN__IT, "the test", 10);
+        assertTrue(before.isEmpty());
+
+        analyzer.onDataReceived(new Memory(2), TestData.corpus("none", EN__IT,
+                "the test 1\nthe test 2", "il test 1\nil test 2"));
+
+        ContextVector after = analyzer.getContextVector(null, EN__IT, "the test", 10);
+        assertEquals(0, hits());
+        assertEquals(1, after.size());
+        assertEquals(2L, after.iterator().next().memory.getId());
+    }
+
+}
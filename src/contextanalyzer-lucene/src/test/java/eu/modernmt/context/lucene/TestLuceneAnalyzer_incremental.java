@@ -0,0 +1,131 @@
+package eu.modernmt.context.lucene;
+
+import eu.modernmt.context.lucene.analysis.ContextAnalyzerIndex;
+import eu.modernmt.context.lucene.analysis.DocumentBuilder;
+import eu.modernmt.context.lucene.analysis.LuceneUtils;
+import eu.modernmt.context.lucene.analysis.TermFrequencies;
+import eu.modernmt.context.lucene.storage.Bucket;
+import eu.modernmt.data.TranslationUnitMessage;
+import eu.modernmt.io.UTF8Charset;
+import org.apache.commons.io.IOUtils;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.*;
+
+import static eu.modernmt.context.lucene.TestData.EN__IT;
+import static org.junit.Assert.*;
+
+public class TestLuceneAnalyzer_incremental {
+
+    private TLuceneAnalyzer analyzer;
+    private long position = 0L;
+
+    @Before
+    public void setup() throws Throwable {
+        this.analyzer = new TLuceneAnalyzer();
+    }
+
+    @After
+    public void teardown() throws Throwable {
+        if (this.analyzer != null)
+            this.analyzer.close();
+        this.analyzer = null;
+    }
+
+    private List<TranslationUnitMessage> units(Random random, int size) {
+        List<TranslationUnitMessage> units = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            StringBuilder source = new StringBuilder();
+            StringBuilder target = new StringBuilder();
+            for (int j = 0; j < 15; j++) {
+                source.append("word").append(random.nextInt(500)).append(' ');
+                target.append("parola").append(random.nextInt(500)).append(' ');
+            }
+
+            units.add(TestData.tu(0, position++, 1L, EN__IT, source.toString().trim(), target.toString().trim(), null));
+        }
+
+        return units;
+    }
+
+    private Map<String, Float> getIndexedFrequencies() throws Throwable {
+        IndexSearcher searcher = analyzer.getIndex().getIndexSearcher();
+        TermQuery query = new TermQuery(DocumentBuilder.makeIdTerm(DocumentBuilder.makeId(1L, EN__IT)));
+        ScoreDoc[] docs = searcher.search(query, 1).scoreDocs;
+
+        assertEquals(1, docs.length);
+        return LuceneUtils.getTermFrequencies(searcher.getIndexReader(), docs[0].doc, DocumentBuilder.makeContentFieldName(EN__IT));
+    }
+
+    private Map<String, Float> getExpectedFrequencies(Bucket bucket) throws Throwable {
+        TermFrequencies frequencies = new TermFrequencies();
+        try (Reader reader = new InputStreamReader(bucket.getContentStream(), UTF8Charset.get())) {
+            frequencies.add(analyzer.getIndex().getAnalyzer(), DocumentBuilder.makeContentFieldName(EN__IT), reader);
+        }
+
+        Map<String, Float> result = new HashMap<>();
+        for (Map.Entry<String, Float> entry : getIndexedFrequencies().entrySet())
+            result.put(entry.getKey(), (float) frequencies.get(entry.getKey()));
+        assertEquals(frequencies.size(), result.size());
+
+        return result;
+    }
+
+    @Test
+    public void incrementalFrequenciesMatchFullAnalysis() throws Throwable {
+        Random random = new Random(7);
+
+        // enough content to have the bucket compressed between two analysis
+        for (int i = 0; i < 4; i++) {
+            analyzer.onDataReceived(units(random, 150));
+
+            Bucket bucket = analyzer.getStorage().getBucket(1L, EN__IT);
+            assertEquals(getExpectedFrequencies(bucket), getIndexedFrequencies());
+
+            TermFrequencies stored = analyzer.getIndex().getTermFrequencies(1L, EN__IT);
+            assertNotNull(stored);
+            assertEquals(bucket.getSize(), stored.getOffset());
+        }
+    }
+
+    @Test
+    public void contentStreamFromOffset() throws Throwable {
+        Random random = new Random(11);
+
+        List<TranslationUnitMessage> units = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            List<TranslationUnitMessage> batch = units(random, 150);
+            analyzer.onDataReceived(batch);
+            units.addAll(batch);
+        }
+
+        Bucket bucket = analyzer.getStorage().getBucket(1L, EN__IT);
+        String content = TestData.tuGetContent(units, true) + '\n';
+        byte[] bytes = content.getBytes(UTF8Charset.get());
+        assertEquals(bytes.length, bucket.getSize());
+
+        for (long offset : new long[]{0L, 1000L, bytes.length / 2, bytes.length - 100L}) {
+            byte[] expected = Arrays.copyOfRange(bytes, (int) offset, bytes.length);
+            byte[] actual = IOUtils.toByteArray(bucket.getContentStream(offset));
+
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void deletionRemovesFrequencies() throws Throwable {
+        analyzer.onDataReceived(units(new Random(3), 10));
+        assertNotNull(analyzer.getIndex().getTermFrequencies(1L, EN__IT));
+
+        analyzer.onDelete(TestData.deletion(position++, 1L, null));
+        assertNull(analyzer.getIndex().getTermFrequencies(1L, EN__IT));
+    }
+
+}
@@ -3,6 +3,7 @@ package eu.modernmt.api;
 import eu.modernmt.api.framework.JSONSerializer;
 import eu.modernmt.api.framework.routing.Route;
 import eu.modernmt.api.framework.routing.RouterServlet;
+import eu.modernmt.api.model.BatchTranslationResponse;
 import eu.modernmt.api.model.ContextVectorResult;
 import eu.modernmt.api.model.TranslationResponse;
 import eu.modernmt.api.serializers.*;
@@ -23,6 +24,8 @@ import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.util.thread.ThreadPool;
 import org.reflections.Reflections;
 
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.File;
@@ -36,6 +39,7 @@ public class ApiServer {
 
     static {
         JSONSerializer.registerCustomSerializer(TranslationResponse.class, new TranslationResponseSerializer());
+        JSONSerializer.registerCustomSerializer(BatchTranslationResponse.class, new BatchTranslationResponseSerializer());
         JSONSerializer.registerCustomSerializer(Alignment.class, new AlignmentSerializer());
         JSONSerializer.registerCustomSerializer(ContextVectorResult.class, new ContextVectorResultSerializer());
         JSONSerializer.registerCustomSerializer(Language.class, new LanguageSerializer());
@@ -83,12 +87,12 @@ public class ApiServer {
         String contextPath = normalizeContextPath(options.contextPath);
         if (contextPath == null) {
             ServletHandler router = new ServletHandler();
-            router.addServletWithMapping(Router.class, "/*");
+            router.addServletWithMapping(Router.class, "/*").setAsyncSupported(true);
             rootHandler = router;
         } else {
             ServletContextHandler contextHandler = new ServletContextHandler();
             contextHandler.setContextPath(contextPath);
-            contextHandler.addServlet(Router.class, "/*");
+            contextHandler.addServlet(Router.class, "/*").setAsyncSupported(true);
             rootHandler = contextHandler;
         }
 
@@ -121,6 +125,7 @@ public class ApiServer {
 
         Router.lock.writeLock().lock();
         try {
+            Router.awaitAsyncRequests();
             jettyServer.stop();
         } finally {
             Router.lock.writeLock().unlock();
@@ -133,6 +138,17 @@ public class ApiServer {
 
         private static final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
 
+        // requests still in progress after service() returned (i.e. streaming responses)
+        private static final Object asyncLock = new Object();
+        private static int asyncRequests = 0;
+
+        private static void awaitAsyncRequests() throws InterruptedException {
+            synchronized (asyncLock) {
+                while (asyncRequests > 0)
+                    asyncLock.wait();
+            }
+        }
+
         @Override
         protected Collection<Class<?>> getDeclaredActions() {
             Reflections reflections = new Reflections("eu.modernmt.api.actions");
@@ -144,11 +160,48 @@ public class ApiServer {
             if (lock.readLock().tryLock()) {
                 try {
                     super.service(req, resp);
+
+                    // registered while holding the lock, so that stop() waits for its completion
+                    if (req.isAsyncStarted())
+                        req.getAsyncContext().addListener(new AsyncRequestListener());
                 } finally {
                     lock.readLock().unlock();
                 }
             }
         }
+
+        private static class AsyncRequestListener implements AsyncListener {
+
+            AsyncRequestListener() {
+                synchronized (asyncLock) {
+                    asyncRequests++;
+                }
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+                synchronized (asyncLock) {
+                    asyncRequests--;
+                    asyncLock.notifyAll();
+                }
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                // onComplete() follows
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                // onComplete() follows
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+                // Nothing to do
+            }
+
+        }
     }
 
 }
@@ -32,7 +32,7 @@ public class AddToMemoryCorpus extends ObjectAction<ImportJob> {
         if (params.tu != null)
             return ModernMT.memory.add(params.memory, params.tu);
         else
-            return ModernMT.memory.add(params.memory, params.corpus);
+            return ModernMT.memory.add(params.memory, params.corpus, params.bulk);
     }
 
     @Override
@@ -53,11 +53,13 @@ public class AddToMemoryCorpus extends ObjectAction<ImportJob> {
         private final long memory;
         private final TranslationUnit tu;
         private final MultilingualCorpus corpus;
+        private final boolean bulk;
 
         public Params(RESTRequest req) throws ParameterParsingException, TemplateException {
             super(req);
 
             memory = req.getPathParameterAsLong("id");
+            bulk = getBoolean("bulk", false);
 
             String source = getString("sentence", false, null);
             String target = getString("translation", false, null);
@@ -0,0 +1,126 @@
+package eu.modernmt.api.actions.translation;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import eu.modernmt.api.actions.util.ContextUtils;
+import eu.modernmt.api.framework.HttpMethod;
+import eu.modernmt.api.framework.Parameters;
+import eu.modernmt.api.framework.RESTRequest;
+import eu.modernmt.api.framework.actions.ObjectAction;
+import eu.modernmt.api.framework.routing.Route;
+import eu.modernmt.api.model.BatchTranslationResponse;
+import eu.modernmt.context.ContextAnalyzerException;
+import eu.modernmt.decoder.DecoderException;
+import eu.modernmt.facade.ModernMT;
+import eu.modernmt.lang.LanguageDirection;
+import eu.modernmt.model.ContextVector;
+import eu.modernmt.model.Priority;
+import eu.modernmt.processing.Preprocessor;
+import eu.modernmt.processing.ProcessingException;
+import eu.modernmt.processing.tags.format.InputFormat;
+
+import java.util.UUID;
+
+/**
+ * Translates a batch of texts sharing the same direction, context and priority.
+ * The context vector is computed once for the whole batch.
+ */
+@Route(aliases = "translate/batch", method = HttpMethod.POST)
+public class BatchTranslate extends ObjectAction<BatchTranslationResponse> {
+
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    @Override
+    protected BatchTranslationResponse execute(RESTRequest req, Parameters _params) throws ContextAnalyzerException, DecoderException, ProcessingException {
+        Params params = (Params) _params;
+
+        BatchTranslationResponse result = new BatchTranslationResponse(params.priority);
+        result.verbose = params.verbose;
+
+        Preprocessor.Options processing = new Preprocessor.Options();
+        processing.format = params.format;
+        processing.splitByNewline = params.splitByNewline;
+
+        ContextVector context = params.context;
+        if (context == null && params.contextString != null) {
+            context = ModernMT.translation.getContextVector(params.user, params.direction, params.contextString, params.contextLimit);
+            result.context = context;
+        }
+
+        result.result = ModernMT.translation.get(params.user, params.direction, processing, params.queries, context, params.nbest, params.priority, params.timeout);
+
+        return result;
+    }
+
+    @Override
+    protected Parameters getParameters(RESTRequest req) throws Parameters.ParameterParsingException {
+        return new Params(req);
+    }
+
+    public static class Params extends Parameters {
+
+        public final InputFormat.Type format;
+        public final boolean splitByNewline;
+        public final UUID user;
+        public final LanguageDirection direction;
+        public final String[] queries;
+        public final ContextVector context;
+        public final String contextString;
+        public final int contextLimit;
+        public final int nbest;
+        public final Priority priority;
+        public final boolean verbose;
+        public final long timeout;
+
+        public Params(RESTRequest req) throws ParameterParsingException {
+            super(req);
+
+            format = getEnum("if", InputFormat.Type.class, null);
+            splitByNewline = getBoolean("split_nl", false);
+
+            user = getUUID("user", null);
+
+            JsonArray array = getJSONArray("q");
+            if (array.size() == 0)
+                throw new ParameterParsingException("q", "[]", "batch cannot be empty");
+            if (array.size() > MAX_BATCH_SIZE)
+                throw new ParameterParsingException("q", "[...]", "max batch size of " + MAX_BATCH_SIZE + " exceeded");
+
+            queries = new String[array.size()];
+            for (int i = 0; i < queries.length; i++) {
+                JsonElement element = array.get(i);
+                if (!element.isJsonPrimitive())
+                    throw new ParameterParsingException("q", element.toString(), "batch elements must be strings");
+
+                String query = element.getAsString();
+                if (query.length() > Translate.MAX_QUERY_LENGTH)
+                    throw new ParameterParsingException("q", query.substring(0, 10) + "...",
+                            "max query length of " + Translate.MAX_QUERY_LENGTH + " exceeded");
+
+                queries[i] = query;
+            }
+
+            LanguageDirection engineDirection = ModernMT.getNode().getEngine().getLanguageIndex().asSingleLanguagePair();
+            direction = engineDirection != null ?
+                    getLanguagePair("source", "target", engineDirection) :
+                    getLanguagePair("source", "target");
+
+            contextLimit = getInt("context_limit", 10);
+            nbest = getInt("nbest", 0);
+
+            priority = getEnum("priority", Priority.class, Priority.NORMAL);
+            verbose = getBoolean("verbose", false);
+            timeout = getLong("timeout", 0L);
+
+            String weights = getString("context_vector", false, null);
+
+            if (weights != null) {
+                context = ContextUtils.parseParameter("context_vector", weights);
+                contextString = null;
+            } else {
+                context = null;
+                contextString = getString("context", false, null);
+            }
+        }
+    }
+}
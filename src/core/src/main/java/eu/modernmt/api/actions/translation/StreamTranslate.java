@@ -0,0 +1,265 @@
+package eu.modernmt.api.actions.translation;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import eu.modernmt.api.actions.util.ContextUtils;
+import eu.modernmt.api.framework.*;
+import eu.modernmt.api.framework.actions.StreamingAction;
+import eu.modernmt.api.framework.routing.Route;
+import eu.modernmt.api.model.TranslationResponse;
+import eu.modernmt.facade.ModernMT;
+import eu.modernmt.io.UTF8Charset;
+import eu.modernmt.lang.LanguageDirection;
+import eu.modernmt.model.ContextVector;
+import eu.modernmt.model.Priority;
+import eu.modernmt.model.Translation;
+import eu.modernmt.processing.Preprocessor;
+import eu.modernmt.processing.tags.format.InputFormat;
+import org.apache.commons.io.IOUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Translates a stream of segments and writes every translation, as a JSON line, as soon as it is ready.
+ * <p>
+ * Segments are read from the request body (Content-Type "application/x-ndjson") or from the multipart
+ * file parameter "q": every line contains either a JSON string or a JSON object with the "q" field.
+ * Every output line contains the "index" of the segment and either its "data" or its "error";
+ * if the context vector is computed from a context string, it is written in the first line.
+ * <p>
+ * At most MAX_PENDING_TRANSLATIONS segments are in progress at the same time: every completed
+ * translation submits the next segment, so no request thread is held while the document is translated.
+ */
+@Route(aliases = "translate/stream", method = HttpMethod.POST)
+public class StreamTranslate extends StreamingAction {
+
+    public static final int MAX_SEGMENTS = 10000;
+    public static final int MAX_PENDING_TRANSLATIONS = 32;
+
+    // completed translations are handled off the cluster callback threads, since submitting
+    // the next segment pre-processes it in the calling thread
+    private static final ExecutorService executor = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), new ThreadFactoryBuilder()
+                    .setNameFormat("StreamTranslate-%d")
+                    .setDaemon(true)
+                    .build());
+
+    private ContextVector context = null;
+
+    @Override
+    protected void prepare(RESTRequest req, Parameters _params) throws Throwable {
+        Params params = (Params) _params;
+
+        // fail before opening the stream if the direction is not supported
+        ModernMT.translation.mapLanguage(params.direction);
+
+        if (params.context != null)
+            context = params.context;
+        else if (params.contextString != null)
+            context = ModernMT.translation.getContextVector(params.user, params.direction, params.contextString, params.contextLimit);
+    }
+
+    @Override
+    protected void execute(RESTRequest req, Parameters _params, JSONStream stream) {
+        Params params = (Params) _params;
+
+        if (params.contextString != null && context != null) {
+            JsonObject json = new JsonObject();
+            json.add("contextVector", JSONSerializer.toJSON(context, ContextVector.class));
+            stream.write(json);
+        }
+
+        new TranslationStream(params, context, stream).start();
+    }
+
+    @Override
+    protected Parameters getParameters(RESTRequest req) throws Parameters.ParameterParsingException {
+        return new Params(req);
+    }
+
+    private static class TranslationStream {
+
+        private final Params params;
+        private final ContextVector context;
+        private final JSONStream stream;
+        private final Preprocessor.Options processing;
+
+        private final AtomicInteger next = new AtomicInteger(0);
+        private final AtomicInteger completed = new AtomicInteger(0);
+
+        private TranslationStream(Params params, ContextVector context, JSONStream stream) {
+            this.params = params;
+            this.context = context;
+            this.stream = stream;
+
+            this.processing = new Preprocessor.Options();
+            this.processing.format = params.format;
+            this.processing.splitByNewline = params.splitByNewline;
+        }
+
+        public void start() {
+            int size = params.queries.length;
+            if (size == 0) {
+                stream.close();
+                return;
+            }
+
+            for (int i = 0; i < Math.min(MAX_PENDING_TRANSLATIONS, size); i++)
+                submitNext();
+        }
+
+        private void submitNext() {
+            int index = next.getAndIncrement();
+            if (index >= params.queries.length)
+                return;
+
+            // the client is gone, no need to translate the rest of the document
+            if (stream.isCompleted())
+                return;
+
+            TranslationResponse response = new TranslationResponse(params.priority);
+            response.verbose = params.verbose;
+
+            ModernMT.translation.getAsync(params.user, params.direction, processing, params.queries[index], context, params.nbest, params.priority, params.timeout)
+                    .whenCompleteAsync((translation, error) -> onTranslationCompleted(index, response, translation, error), executor);
+        }
+
+        private void onTranslationCompleted(int index, TranslationResponse response, Translation translation, Throwable error) {
+            JsonObject json = new JsonObject();
+            json.addProperty("index", index);
+
+            if (error == null) {
+                response.translation = translation;
+                json.add("data", JSONSerializer.toJSON(response, TranslationResponse.class));
+            } else {
+                if (error instanceof CompletionException && error.getCause() != null)
+                    error = error.getCause();
+                json.add("error", RESTResponse.encode(error));
+            }
+
+            stream.write(json);
+
+            if (completed.incrementAndGet() == params.queries.length)
+                stream.close();
+            else
+                submitNext();
+        }
+
+    }
+
+    public static class Params extends Parameters {
+
+        public final InputFormat.Type format;
+        public final boolean splitByNewline;
+        public final UUID user;
+        public final LanguageDirection direction;
+        public final String[] queries;
+        public final ContextVector context;
+        public final String contextString;
+        public final int contextLimit;
+        public final int nbest;
+        public final Priority priority;
+        public final boolean verbose;
+        public final long timeout;
+
+        public Params(RESTRequest req) throws ParameterParsingException {
+            super(req);
+
+            format = getEnum("if", InputFormat.Type.class, null);
+            splitByNewline = getBoolean("split_nl", false);
+
+            user = getUUID("user", null);
+            queries = readQueries(req);
+
+            LanguageDirection engineDirection = ModernMT.getNode().getEngine().getLanguageIndex().asSingleLanguagePair();
+            direction = engineDirection != null ?
+                    getLanguagePair("source", "target", engineDirection) :
+                    getLanguagePair("source", "target");
+
+            contextLimit = getInt("context_limit", 10);
+            nbest = getInt("nbest", 0);
+
+            priority = getEnum("priority", Priority.class, Priority.NORMAL);
+            verbose = getBoolean("verbose", false);
+            timeout = getLong("timeout", 0L);
+
+            String weights = getString("context_vector", false, null);
+
+            if (weights != null) {
+                context = ContextUtils.parseParameter("context_vector", weights);
+                contextString = null;
+            } else {
+                context = null;
+                contextString = getString("context", false, null);
+            }
+        }
+
+        private static String[] readQueries(RESTRequest req) throws ParameterParsingException {
+            BufferedReader reader = null;
+
+            try {
+                Reader content = req.getNDJSONContent();
+                if (content == null) {
+                    FileParameter file = req.getFile("q");
+                    if (file == null)
+                        throw new ParameterParsingException("q");
+
+                    content = new InputStreamReader(file.getInputStream(), UTF8Charset.get());
+                }
+
+                reader = new BufferedReader(content);
+                JsonParser parser = new JsonParser();
+                ArrayList<String> queries = new ArrayList<>();
+
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.trim().isEmpty())
+                        continue;
+
+                    if (queries.size() == MAX_SEGMENTS)
+                        throw new ParameterParsingException("q", "[...]", "max number of segments of " + MAX_SEGMENTS + " exceeded");
+
+                    String query = parseQuery(parser, line);
+                    if (query.length() > Translate.MAX_QUERY_LENGTH)
+                        throw new ParameterParsingException("q", query.substring(0, 10) + "...",
+                                "max query length of " + Translate.MAX_QUERY_LENGTH + " exceeded");
+
+                    queries.add(query);
+                }
+
+                return queries.toArray(new String[0]);
+            } catch (IOException e) {
+                throw new ParameterParsingException("q", e);
+            } finally {
+                IOUtils.closeQuietly(reader);
+            }
+        }
+
+        private static String parseQuery(JsonParser parser, String line) throws ParameterParsingException {
+            try {
+                JsonElement json = parser.parse(line);
+                if (json.isJsonObject())
+                    json = json.getAsJsonObject().get("q");
+
+                if (json == null || !json.isJsonPrimitive())
+                    throw new ParameterParsingException("q", line);
+
+                return json.getAsString();
+            } catch (JsonParseException e) {
+                throw new ParameterParsingException("q", line);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package eu.modernmt.api.framework;
+
+import com.google.gson.JsonElement;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+
+/**
+ * A JSONStream writes JSON elements, one per line, to an asynchronous response.
+ * <p>
+ * Elements can be written by any thread: they are queued and sent with non-blocking I/O
+ * as soon as the connection is ready, and the output is flushed every time the queue is
+ * drained so that clients receive every line as soon as possible.
+ * The response is completed when the stream is closed and all the elements have been sent.
+ */
+public class JSONStream implements WriteListener {
+
+    private final Logger logger = LogManager.getLogger(JSONStream.class);
+
+    private final AsyncContext context;
+    private final ServletOutputStream output;
+    private final ArrayDeque<byte[]> queue = new ArrayDeque<>();
+
+    private boolean dirty = false;
+    private boolean closed = false;
+    private boolean completed = false;
+
+    JSONStream(AsyncContext context, ServletOutputStream output) {
+        this.context = context;
+        this.output = output;
+    }
+
+    public synchronized void write(JsonElement json) {
+        if (completed)
+            return;
+
+        queue.add((json.toString() + '\n').getBytes(StandardCharsets.UTF_8));
+        drain();
+    }
+
+    /**
+     * Closes the stream: the response is completed as soon as all the pending elements have been sent.
+     */
+    public synchronized void close() {
+        closed = true;
+        drain();
+    }
+
+    /**
+     * @return true if the response has been completed, either because the stream has been
+     * closed or because the connection failed
+     */
+    public synchronized boolean isCompleted() {
+        return completed;
+    }
+
+    @Override
+    public synchronized void onWritePossible() {
+        drain();
+    }
+
+    @Override
+    public synchronized void onError(Throwable e) {
+        if (logger.isDebugEnabled())
+            logger.debug("Failed to write stream", e);
+
+        queue.clear();
+        complete();
+    }
+
+    private void drain() {
+        if (completed)
+            return;
+
+        try {
+            while (output.isReady()) {
+                byte[] bytes = queue.poll();
+
+                if (bytes != null) {
+                    output.write(bytes);
+                    dirty = true;
+                } else if (dirty) {
+                    output.flush();
+                    dirty = false;
+                } else {
+                    if (closed)
+                        complete();
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            onError(e);
+        }
+    }
+
+    private void complete() {
+        if (!completed) {
+            completed = true;
+            context.complete();
+        }
+    }
+
+}
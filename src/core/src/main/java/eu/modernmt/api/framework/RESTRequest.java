@@ -10,6 +10,7 @@ import eu.modernmt.api.framework.routing.RouteTree;
 import eu.modernmt.api.framework.routing.TemplateException;
 import org.apache.commons.io.IOUtils;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.Part;
@@ -114,6 +115,18 @@ public class RESTRequest {
         }
     }
 
+    public Reader getNDJSONContent() throws IOException {
+        if (isContentType("application/x-ndjson")) {
+            return request.getReader();
+        } else {
+            return null;
+        }
+    }
+
+    AsyncContext startAsync() {
+        return request.startAsync();
+    }
+
     public String getQueryString() {
         if (queryString == null) {
             String qs = request.getQueryString();
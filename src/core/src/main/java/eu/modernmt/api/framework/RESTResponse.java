@@ -5,6 +5,8 @@ import com.google.gson.JsonObject;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -83,6 +85,32 @@ public class RESTResponse {
         output(HttpServletResponse.SC_SERVICE_UNAVAILABLE, null, e);
     }
 
+    /**
+     * Switches this response to asynchronous streaming mode: the request thread can be
+     * released and the content is written, one JSON element per line, with non-blocking I/O.
+     *
+     * @param request the request of this response
+     * @return the stream of the response content
+     * @throws IOException if an I/O error occurs while opening the stream
+     */
+    public JSONStream stream(RESTRequest request) throws IOException {
+        if (content != null)
+            throw new IllegalStateException("Output has been already set");
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("application/x-ndjson; charset=utf-8");
+        response.addHeader("Access-Control-Allow-Origin", "*");
+
+        AsyncContext context = request.startAsync();
+        context.setTimeout(0L);
+
+        ServletOutputStream output = response.getOutputStream();
+        JSONStream stream = new JSONStream(context, output);
+        output.setWriteListener(stream);
+
+        return stream;
+    }
+
     private void output(int httpStatus, JsonElement json, Throwable throwable) {
         if (content != null)
             throw new IllegalStateException("Output has been already set");
@@ -109,7 +137,7 @@ public class RESTResponse {
         }
     }
 
-    private static JsonObject encode(Throwable e) {
+    public static JsonObject encode(Throwable e) {
         // Message
         String msg = e.getMessage();
         if (msg == null || msg.trim().isEmpty()) {
@@ -52,7 +52,7 @@ public abstract class JSONAction implements Action {
         }
     }
 
-    private void unsecureExecute(RESTRequest req, RESTResponse resp) throws Throwable {
+    protected void unsecureExecute(RESTRequest req, RESTResponse resp) throws Throwable {
         Parameters params = getParameters(req);
         JSONActionResult result = getResult(req, params);
 
@@ -0,0 +1,55 @@
+package eu.modernmt.api.framework.actions;
+
+import com.google.gson.JsonObject;
+import eu.modernmt.api.framework.JSONStream;
+import eu.modernmt.api.framework.Parameters;
+import eu.modernmt.api.framework.RESTRequest;
+import eu.modernmt.api.framework.RESTResponse;
+
+/**
+ * A StreamingAction writes its result as a stream of JSON lines (NDJSON) with asynchronous I/O.
+ * <p>
+ * Errors thrown before the stream is opened are reported as standard JSON responses;
+ * once the stream is open, the action is responsible for writing its errors in the stream.
+ */
+public abstract class StreamingAction extends JSONAction {
+
+    @Override
+    protected final void unsecureExecute(RESTRequest req, RESTResponse resp) throws Throwable {
+        Parameters params = getParameters(req);
+        prepare(req, params);
+
+        JSONStream stream = resp.stream(req);
+
+        try {
+            execute(req, params, stream);
+        } catch (Throwable e) {
+            logger.error("Unexpected error while streaming: ", e);
+
+            JsonObject json = new JsonObject();
+            json.add("error", RESTResponse.encode(e));
+            stream.write(json);
+            stream.close();
+        }
+    }
+
+    @Override
+    protected final JSONActionResult getResult(RESTRequest req, Parameters params) {
+        throw new UnsupportedOperationException("StreamingAction does not support synchronous results");
+    }
+
+    /**
+     * Validates the request before opening the stream.
+     * Exceptions thrown by this method are reported as standard JSON responses.
+     */
+    protected void prepare(RESTRequest req, Parameters params) throws Throwable {
+        // Default implementation does nothing
+    }
+
+    /**
+     * Starts writing the result to the given stream. The method should return as soon as
+     * possible, and the stream must be closed when the last element has been written.
+     */
+    protected abstract void execute(RESTRequest req, Parameters params, JSONStream stream) throws Throwable;
+
+}
@@ -0,0 +1,27 @@
+package eu.modernmt.api.model;
+
+import eu.modernmt.cluster.BatchTranslationResult;
+import eu.modernmt.model.ContextVector;
+import eu.modernmt.model.Priority;
+
+/**
+ * Response of a batch translation: results are in the same order of the request texts.
+ */
+public class BatchTranslationResponse {
+
+    public BatchTranslationResult result = null;
+    public ContextVector context = null;
+    public boolean verbose = false;
+    public final Priority priority;
+
+    private final long creationTimestamp = System.currentTimeMillis();
+
+    public BatchTranslationResponse(Priority priority) {
+        this.priority = priority;
+    }
+
+    public long getTotalTime() {
+        return System.currentTimeMillis() - creationTimestamp;
+    }
+
+}
@@ -0,0 +1,61 @@
+package eu.modernmt.api.serializers;
+
+import com.google.gson.*;
+import eu.modernmt.api.model.BatchTranslationResponse;
+import eu.modernmt.cluster.BatchTranslationResult;
+import eu.modernmt.model.ContextVector;
+import eu.modernmt.model.Translation;
+
+import java.lang.reflect.Type;
+
+/**
+ * Serializes the results of a batch in the same order of the request: every element
+ * is either a translation (with the same fields of a single translation) or an error.
+ */
+public class BatchTranslationResponseSerializer implements JsonSerializer<BatchTranslationResponse> {
+
+    @Override
+    public JsonElement serialize(BatchTranslationResponse src, Type typeOfSrc, JsonSerializationContext context) {
+        BatchTranslationResult result = src.result;
+
+        JsonArray translations = new JsonArray();
+        for (int i = 0; i < result.size(); i++) {
+            if (result.isSuccessful(i)) {
+                Translation translation = result.getTranslation(i);
+
+                JsonObject json = TranslationResponseSerializer.serializeTranslation(context, translation, src.verbose);
+                TranslationResponseSerializer.addTimings(json, translation);
+                translations.add(json);
+            } else {
+                JsonObject json = new JsonObject();
+                json.add("error", serializeError(result.getError(i)));
+                translations.add(json);
+            }
+        }
+
+        JsonObject json = new JsonObject();
+        json.add("translations", translations);
+
+        if (src.context != null)
+            json.add("contextVector", context.serialize(src.context, ContextVector.class));
+
+        json.addProperty("priority", src.priority.toString().toLowerCase());
+        json.addProperty("totalTime", src.getTotalTime());
+
+        return json;
+    }
+
+    private static JsonObject serializeError(Throwable e) {
+        String msg = e.getMessage();
+        if ((msg == null || msg.trim().isEmpty()) && e.getCause() != null)
+            msg = e.getCause().getMessage();
+
+        JsonObject error = new JsonObject();
+        error.addProperty("type", e.getClass().getSimpleName());
+        if (msg != null)
+            error.addProperty("message", msg.trim());
+
+        return error;
+    }
+
+}
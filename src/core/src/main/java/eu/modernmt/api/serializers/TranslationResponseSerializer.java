@@ -13,39 +13,49 @@ public class TranslationResponseSerializer implements JsonSerializer<Translation
 
     @Override
     public JsonElement serialize(TranslationResponse src, Type typeOfSrc, JsonSerializationContext context) {
-        Sentence source = src.translation.getSource();
+        JsonObject json = serializeTranslation(context, src.translation, src.verbose);
+
+        if (src.context != null)
+            json.add("contextVector", context.serialize(src.context, ContextVector.class));
+
+        json.addProperty("priority", src.priority.toString().toLowerCase());
+        json.addProperty("totalTime", src.getTotalTime());
+        addTimings(json, src.translation);
+
+        return json;
+    }
+
+    static JsonObject serializeTranslation(JsonSerializationContext context, Translation translation, boolean verbose) {
+        Sentence source = translation.getSource();
 
         JsonObject json = new JsonObject();
-        json.addProperty("translation", src.translation.toString());
+        json.addProperty("translation", translation.toString());
         json.addProperty("sourceWordCount", source.getWords().length);
-        json.addProperty("targetWordCount", src.translation.getWords().length);
+        json.addProperty("targetWordCount", translation.getWords().length);
 
-        if (src.verbose) {
-            json.add("translationTokens", serializeTokens(src.translation));
+        if (verbose) {
+            json.add("translationTokens", serializeTokens(translation));
             json.add("sentenceTokens", serializeTokens(source));
-            json.add("alignment", context.serialize(src.translation.getSentenceAlignment(), Alignment.class));
+            json.add("alignment", context.serialize(translation.getSentenceAlignment(), Alignment.class));
         }
 
-        if (src.translation.hasNbest()) {
+        if (translation.hasNbest()) {
             JsonArray array = new JsonArray();
-            for (Translation hypothesis : src.translation.getNbest())
-                array.add(serializeHypothesis(context, hypothesis, src.verbose));
+            for (Translation hypothesis : translation.getNbest())
+                array.add(serializeHypothesis(context, hypothesis, verbose));
             json.add("nbest", array);
         }
 
-        if (src.context != null)
-            json.add("contextVector", context.serialize(src.context, ContextVector.class));
-
-        json.addProperty("priority", src.priority.toString().toLowerCase());
-        json.addProperty("totalTime", src.getTotalTime());
-        json.addProperty("memoryLookupTime", src.translation.getMemoryLookupTime());
-        json.addProperty("decodingTime", src.translation.getDecodeTime());
-        json.addProperty("queueTime", src.translation.getQueueTime());
-        json.addProperty("queueLength", src.translation.getQueueLength());
-
         return json;
     }
 
+    static void addTimings(JsonObject json, Translation translation) {
+        json.addProperty("memoryLookupTime", translation.getMemoryLookupTime());
+        json.addProperty("decodingTime", translation.getDecodeTime());
+        json.addProperty("queueTime", translation.getQueueTime());
+        json.addProperty("queueLength", translation.getQueueLength());
+    }
+
     private static JsonElement serializeHypothesis(JsonSerializationContext context, Translation translation, boolean verbose) {
         JsonObject json = new JsonObject();
         json.addProperty("translation", translation.toString());
@@ -0,0 +1,107 @@
+package eu.modernmt.cluster;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The future of a BatchTranslationTask that has been split into contiguous slices, one for every
+ * cluster member. The results of the slices are merged back in the order of the original batch;
+ * if a slice fails, its error is reported for all the sentences of the slice.
+ */
+class BatchTranslationFuture implements Future<BatchTranslationResult> {
+
+    private final int size;
+    private final int[] offsets;
+    private final List<Future<BatchTranslationResult>> slices;
+
+    /**
+     * Splits a batch into contiguous slices of (almost) the same size.
+     *
+     * @param size   the size of the batch
+     * @param slices the maximum number of slices
+     * @return the offsets of the slices: slice i begins at offsets[i] and ends at offsets[i + 1], exclusive
+     */
+    static int[] split(int size, int slices) {
+        slices = Math.max(1, Math.min(slices, size));
+
+        int[] offsets = new int[slices + 1];
+        for (int i = 0; i < slices; i++) {
+            int begin = offsets[i];
+            offsets[i + 1] = begin + (size - begin) / (slices - i);
+        }
+
+        return offsets;
+    }
+
+    BatchTranslationFuture(int size, int[] offsets, List<Future<BatchTranslationResult>> slices) {
+        this.size = size;
+        this.offsets = offsets;
+        this.slices = slices;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = false;
+        for (Future<BatchTranslationResult> slice : slices)
+            cancelled |= slice.cancel(mayInterruptIfRunning);
+        return cancelled;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        for (Future<BatchTranslationResult> slice : slices) {
+            if (slice.isCancelled())
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isDone() {
+        for (Future<BatchTranslationResult> slice : slices) {
+            if (!slice.isDone())
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public BatchTranslationResult get() throws InterruptedException {
+        try {
+            return get(0L, null);
+        } catch (TimeoutException e) {
+            throw new Error("Unexpected timeout", e);
+        }
+    }
+
+    @Override
+    public BatchTranslationResult get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+        long deadline = unit == null ? 0L : System.nanoTime() + unit.toNanos(timeout);
+        BatchTranslationResult result = new BatchTranslationResult(size);
+
+        for (int i = 0; i < slices.size(); i++) {
+            Future<BatchTranslationResult> future = slices.get(i);
+            int begin = offsets[i];
+            int end = offsets[i + 1];
+
+            try {
+                BatchTranslationResult slice = unit == null ? future.get() :
+                        future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+
+                for (int j = begin; j < end; j++) {
+                    result.setTranslation(j, slice.getTranslation(j - begin));
+                    result.setError(j, slice.getError(j - begin));
+                }
+            } catch (ExecutionException e) {
+                for (int j = begin; j < end; j++)
+                    result.setError(j, e.getCause());
+            }
+        }
+
+        return result;
+    }
+
+}
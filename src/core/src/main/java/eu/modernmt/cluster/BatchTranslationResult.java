@@ -0,0 +1,80 @@
+package eu.modernmt.cluster;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+import eu.modernmt.model.Translation;
+
+import java.io.IOException;
+
+/**
+ * The result of a BatchTranslationTask: for every sentence of the batch it holds
+ * either its translation or the error that made it fail, in the same order of the batch.
+ */
+public class BatchTranslationResult implements DataSerializable {
+
+    private Translation[] translations;
+    private Throwable[] errors;
+
+    private BatchTranslationResult() {
+        // Used by Hazelcast deserialization
+    }
+
+    public BatchTranslationResult(int size) {
+        this(new Translation[size], new Throwable[size]);
+    }
+
+    public BatchTranslationResult(Translation[] translations, Throwable[] errors) {
+        if (translations.length != errors.length)
+            throw new IllegalArgumentException("Translations and errors must have the same length");
+
+        this.translations = translations;
+        this.errors = errors;
+    }
+
+    public int size() {
+        return translations.length;
+    }
+
+    public Translation getTranslation(int index) {
+        return translations[index];
+    }
+
+    public void setTranslation(int index, Translation translation) {
+        translations[index] = translation;
+    }
+
+    public Throwable getError(int index) {
+        return errors[index];
+    }
+
+    public void setError(int index, Throwable error) {
+        errors[index] = error;
+    }
+
+    public boolean isSuccessful(int index) {
+        return errors[index] == null;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(translations.length);
+        for (int i = 0; i < translations.length; i++) {
+            out.writeObject(translations[i]);
+            out.writeObject(errors[i]);
+        }
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        int size = in.readInt();
+        translations = new Translation[size];
+        errors = new Throwable[size];
+
+        for (int i = 0; i < size; i++) {
+            translations[i] = in.readObject();
+            errors[i] = in.readObject();
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package eu.modernmt.cluster;
+
+import com.hazelcast.nio.serialization.DataSerializable;
+import eu.modernmt.lang.LanguageDirection;
+import eu.modernmt.model.Priority;
+import eu.modernmt.model.Translation;
+
+/**
+ * A BatchTranslationTask holds a batch of sentences sharing the same translation parameters
+ * (user, direction, context, priority) that are sent to a cluster member with a single operation.
+ * The member translates the sentences concurrently and returns all the results at once.
+ */
+public interface BatchTranslationTask extends DataSerializable {
+
+    LanguageDirection getLanguageDirection();
+
+    Priority getPriority();
+
+    int size();
+
+    /**
+     * Translates the sentence at the given index of the batch.
+     *
+     * @param index the index of the sentence in the batch
+     * @return the translation of the sentence
+     * @throws Exception if the translation fails
+     */
+    Translation call(int index) throws Exception;
+
+    /**
+     * Returns a task for a contiguous portion of this batch.
+     *
+     * @param begin the index of the first sentence, inclusive
+     * @param end   the index of the last sentence, exclusive
+     * @return a task for the sentences in the given range
+     */
+    BatchTranslationTask slice(int begin, int end);
+
+}
@@ -6,12 +6,16 @@ import com.hazelcast.config.TcpIpConfig;
 import com.hazelcast.config.XmlConfigBuilder;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ICompletableFuture;
 import com.hazelcast.core.Member;
 import eu.modernmt.api.ApiServer;
+import eu.modernmt.cluster.binlog.FileBinaryLog;
 import eu.modernmt.cluster.cassandra.EmbeddedCassandra;
 import eu.modernmt.cluster.error.FailedToJoinClusterException;
 import eu.modernmt.cluster.kafka.EmbeddedKafka;
 import eu.modernmt.cluster.kafka.KafkaBinaryLog;
+import eu.modernmt.cluster.serialization.ModelSerialization;
+import eu.modernmt.cluster.services.TranslationLoad;
 import eu.modernmt.cluster.services.TranslationService;
 import eu.modernmt.cluster.services.TranslationServiceProxy;
 import eu.modernmt.config.*;
@@ -35,9 +39,9 @@ import eu.modernmt.persistence.mysql.MySQLDatabase;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 
 /**
  * Created by davide on 18/04/16.
@@ -67,6 +71,8 @@ public class ClusterNode {
         void onStatusChanged(ClusterNode node, Status currentStatus, Status previousStatus);
     }
 
+    private static final long LOAD_PUBLISH_INTERVAL = 1000L;  // in milliseconds
+
     private final Logger logger = LogManager.getLogger(ClusterNode.class);
     private final String clusterName;
 
@@ -81,6 +87,7 @@ public class ClusterNode {
     ApiServer api;
     TranslationServiceProxy translationService;
     ArrayList<EmbeddedService> services = new ArrayList<>(2);
+    ScheduledExecutorService loadPublisher;
 
     private final ShutdownThread shutdownThread = new ShutdownThread(this);
     private boolean loadBalancing = true;
@@ -176,6 +183,7 @@ public class ClusterNode {
         Config hazelcastConfig = new XmlConfigBuilder().build();
         hazelcastConfig.setGroupConfig(
                 new GroupConfig().setName(this.clusterName));
+        ModelSerialization.register(hazelcastConfig.getSerializationConfig());
 
         NetworkConfig networkConfig = nodeConfig.getNetworkConfig();
         if (unit != null && interval > 0L) {
@@ -301,7 +309,13 @@ public class ClusterNode {
         // ===========  Data stream bootstrap  =============
 
         BinaryLogConfig binaryLogConfig = nodeConfig.getBinaryLogConfig();
-        if (binaryLogConfig.isEnabled()) {
+        if (binaryLogConfig.isEnabled() && binaryLogConfig.getType() == BinaryLogConfig.Type.FILE) {
+            try {
+                this.binaryLog = new FileBinaryLog(this.engine, binaryLogConfig);
+            } catch (IOException e) {
+                throw new BootstrapException("Failed to open binary log", e);
+            }
+        } else if (binaryLogConfig.isEnabled()) {
             String[] hosts = binaryLogConfig.getHosts();
             boolean localBinaryLog = hosts.length == 1 && NetworkUtils.isLocalhost(hosts[0]);
             boolean embeddedBinaryLog = binaryLogConfig.isEmbedded();
@@ -327,6 +341,9 @@ public class ClusterNode {
                 throw new BootstrapException("BinaryLog name is mandatory if binlog is not embedded");
 
             this.binaryLog = new KafkaBinaryLog(this.engine, uuid, binaryLogConfig);
+        }
+
+        if (this.binaryLog != null) {
             this.binaryLog.setBinaryLogListener(this::updateChannelsPositions);
 
             addToBinaryLog(this.engine, this.binaryLog);
@@ -407,6 +424,13 @@ public class ClusterNode {
 
         translationService = hazelcast.getDistributedObject(TranslationService.SERVICE_NAME, "TranslationService");
 
+        loadPublisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ClusterNode-LoadPublisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        loadPublisher.scheduleWithFixedDelay(this::publishLoad, LOAD_PUBLISH_INTERVAL, LOAD_PUBLISH_INTERVAL, TimeUnit.MILLISECONDS);
+
         setStatus(Status.RUNNING);
         logger.info("Node started in " + (globalTimer.time() / 1000.) + "s");
     }
@@ -437,6 +461,11 @@ public class ClusterNode {
     }
 
     private void updateDecoderAvailability(int currentAvailability, int maxAvailability) {
+        if (hazelcast != null) {
+            Member localMember = hazelcast.getCluster().getLocalMember();
+            NodeInfo.updateDecoderAvailabilityInMember(localMember, currentAvailability, maxAvailability);
+        }
+
         if (currentAvailability == 0)
             setStatus(Status.UNAVAILABLE, Status.RUNNING, Status.DEGRADED);
         else if (currentAvailability < maxAvailability)
@@ -445,6 +474,16 @@ public class ClusterNode {
             setStatus(Status.RUNNING, Status.UNAVAILABLE, Status.DEGRADED);
     }
 
+    private void publishLoad() {
+        try {
+            TranslationLoad load = translationService.getLocalLoad();
+            Member localMember = hazelcast.getCluster().getLocalMember();
+            NodeInfo.updateLoadInMember(localMember, load.getPendingTranslations(), load.getLatencies());
+        } catch (RuntimeException e) {
+            logger.warn("Unable to publish node load", e);
+        }
+    }
+
     public Collection<NodeInfo> getClusterNodes() {
         Set<Member> members = hazelcast.getCluster().getMembers();
         ArrayList<NodeInfo> nodes = new ArrayList<>(members.size());
@@ -461,13 +500,13 @@ public class ClusterNode {
         return NodeInfo.fromMember(member);
     }
 
-    public Future<Translation> submit(TranslationTask task) throws DecoderUnavailableException {
+    public ICompletableFuture<Translation> submit(TranslationTask task) throws DecoderUnavailableException {
         LanguageDirection language = task.getLanguageDirection();
         LanguageBridge bridge = engine.getLanguageIndex().getLanguageBridge(language);
 
         Member member;
         if (this.loadBalancing) {
-            member = getRandomMember(language, bridge);
+            member = getLeastLoadedMember(language, bridge);
         } else {
             member = hazelcast.getCluster().getLocalMember();
             if (!NodeInfo.statusIs(member, Status.RUNNING, Status.DEGRADED))
@@ -479,7 +518,74 @@ public class ClusterNode {
         return translationService.submit(task, member.getAddress());
     }
 
-    private Member getRandomMember(LanguageDirection language, LanguageBridge bridge) throws DecoderUnavailableException {
+    /**
+     * Submits a batch of translations. The batch is split in contiguous slices, one for every
+     * active member that supports the batch direction, and every slice is sent to its member
+     * with a single operation. The returned future collects the results of all the slices
+     * in the original order: if a slice fails, its error is reported for all its sentences.
+     *
+     * @param task the batch to translate
+     * @return a future for the ordered result of the whole batch
+     * @throws DecoderUnavailableException if no active member is available
+     */
+    public Future<BatchTranslationResult> submit(BatchTranslationTask task) throws DecoderUnavailableException {
+        LanguageDirection language = task.getLanguageDirection();
+        LanguageBridge bridge = engine.getLanguageIndex().getLanguageBridge(language);
+
+        List<Member> members;
+        if (this.loadBalancing) {
+            members = getCandidateMembers(language, bridge);
+            Collections.shuffle(members);
+        } else {
+            Member member = hazelcast.getCluster().getLocalMember();
+            if (!NodeInfo.statusIs(member, Status.RUNNING, Status.DEGRADED))
+                throw new DecoderUnavailableException("Local node is not active");
+            if (!hasTranslationDirection(member, language, bridge))
+                throw new UnsupportedLanguageException(language);
+
+            members = Collections.singletonList(member);
+        }
+
+        int size = task.size();
+        int[] offsets = BatchTranslationFuture.split(size, members.size());
+        int slices = offsets.length - 1;
+
+        List<Future<BatchTranslationResult>> futures = new ArrayList<>(slices);
+
+        for (int i = 0; i < slices; i++) {
+            BatchTranslationTask slice = slices == 1 ? task : task.slice(offsets[i], offsets[i + 1]);
+            futures.add(translationService.submit(slice, members.get(i).getAddress()));
+        }
+
+        return new BatchTranslationFuture(size, offsets, futures);
+    }
+
+    /**
+     * Selects the member with the "power of two choices" strategy: two distinct candidates are
+     * picked at random, and the one with the lower load is returned. Load gauges are published
+     * by members periodically, so sampling only two candidates prevents all the nodes from
+     * sending their requests to the same member until its gauges are updated.
+     */
+    private Member getLeastLoadedMember(LanguageDirection language, LanguageBridge bridge) throws DecoderUnavailableException {
+        List<Member> candidates = getCandidateMembers(language, bridge);
+
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        } else {
+            Random random = ThreadLocalRandom.current();
+            int i = random.nextInt(candidates.size());
+            int j = random.nextInt(candidates.size() - 1);
+            if (j >= i)
+                j++;
+
+            Member a = candidates.get(i);
+            Member b = candidates.get(j);
+
+            return NodeInfo.compareLoad(a, b, language) <= 0 ? a : b;
+        }
+    }
+
+    private List<Member> getCandidateMembers(LanguageDirection language, LanguageBridge bridge) throws DecoderUnavailableException {
         Set<Member> members = hazelcast.getCluster().getMembers();
 
         ArrayList<Member> candidates = new ArrayList<>(members.size());
@@ -502,12 +608,7 @@ public class ClusterNode {
                 throw new DecoderUnavailableException("Could not find active node in the cluster");
         }
 
-        if (candidates.size() == 1) {
-            return candidates.get(0);
-        } else {
-            int i = new Random().nextInt(candidates.size());
-            return candidates.get(i);
-        }
+        return candidates;
     }
 
     private static boolean hasTranslationDirection(Member member, LanguageDirection language, LanguageBridge bridge) {
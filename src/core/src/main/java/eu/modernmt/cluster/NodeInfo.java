@@ -14,6 +14,9 @@ public class NodeInfo {
     private static final String STATUS_ATTRIBUTE = "NodeInfo.STATUS_ATTRIBUTE";
     private static final String DATA_CHANNELS_ATTRIBUTE = "NodeInfo.DATA_CHANNELS_ATTRIBUTE";
     private static final String TRANSLATION_DIRECTIONS_ATTRIBUTE = "NodeInfo.TRANSLATION_DIRECTIONS_ATTRIBUTE";
+    private static final String PENDING_TRANSLATIONS_ATTRIBUTE = "NodeInfo.PENDING_TRANSLATIONS_ATTRIBUTE";
+    private static final String DECODER_AVAILABILITY_ATTRIBUTE = "NodeInfo.DECODER_AVAILABILITY_ATTRIBUTE";
+    private static final String TRANSLATION_LATENCIES_ATTRIBUTE = "NodeInfo.TRANSLATION_LATENCIES_ATTRIBUTE";
 
     public final String uuid;
     public final ClusterNode.Status status;
@@ -58,6 +61,39 @@ public class NodeInfo {
         return encoded.contains(search);
     }
 
+    /**
+     * Compares the expected load of two members for a translation in the given direction.
+     * The load is the number of pending translations per available decoder process, weighted by the
+     * average translation latency of the direction if it is known for both members.
+     *
+     * @return a negative value if the first member is less loaded than the second one, a positive value
+     * if it is more loaded, or zero if they have the same load
+     */
+    static int compareLoad(Member a, Member b, LanguageDirection direction) {
+        double loadA = getPendingTranslationsPerDecoder(a);
+        double loadB = getPendingTranslationsPerDecoder(b);
+
+        Map<LanguageDirection, Double> latenciesA = deserializeLatencies(a.getStringAttribute(TRANSLATION_LATENCIES_ATTRIBUTE));
+        Map<LanguageDirection, Double> latenciesB = deserializeLatencies(b.getStringAttribute(TRANSLATION_LATENCIES_ATTRIBUTE));
+        Double latencyA = latenciesA.get(direction);
+        Double latencyB = latenciesB.get(direction);
+
+        if (latencyA != null && latencyB != null) {
+            loadA *= Math.max(latencyA, 1.);
+            loadB *= Math.max(latencyB, 1.);
+        }
+
+        return Double.compare(loadA, loadB);
+    }
+
+    private static double getPendingTranslationsPerDecoder(Member member) {
+        String pending = member.getStringAttribute(PENDING_TRANSLATIONS_ATTRIBUTE);
+        int[] availability = deserializeAvailability(member.getStringAttribute(DECODER_AVAILABILITY_ATTRIBUTE));
+
+        int translations = pending == null ? 0 : Integer.parseInt(pending);
+        return (translations + 1.) / Math.max(availability[0], 1);
+    }
+
     static void updateStatusInMember(Member member, ClusterNode.Status status) {
         member.setStringAttribute(STATUS_ATTRIBUTE, status.name());
     }
@@ -74,6 +110,21 @@ public class NodeInfo {
         member.setStringAttribute(DATA_CHANNELS_ATTRIBUTE, serialize(positions));
     }
 
+    static void updateDecoderAvailabilityInMember(Member member, int currentAvailability, int maxAvailability) {
+        member.setStringAttribute(DECODER_AVAILABILITY_ATTRIBUTE, currentAvailability + ":" + maxAvailability);
+    }
+
+    static void updateLoadInMember(Member member, int pendingTranslations, Map<LanguageDirection, Double> latencies) {
+        updateIfChanged(member, PENDING_TRANSLATIONS_ATTRIBUTE, Integer.toString(pendingTranslations));
+        updateIfChanged(member, TRANSLATION_LATENCIES_ATTRIBUTE, serializeLatencies(latencies));
+    }
+
+    private static void updateIfChanged(Member member, String key, String value) {
+        // every attribute update is broadcast to the whole cluster
+        if (!value.equals(member.getStringAttribute(key)))
+            member.setStringAttribute(key, value);
+    }
+
     // Serializers
 
     private static String serialize(Set<LanguageDirection> directions) {
@@ -110,6 +161,27 @@ public class NodeInfo {
         return builder.substring(0, builder.length() - 1);
     }
 
+    private static String serializeLatencies(Map<LanguageDirection, Double> latencies) {
+        if (latencies == null || latencies.isEmpty())
+            return "";
+
+        StringBuilder builder = new StringBuilder();
+
+        for (Map.Entry<LanguageDirection, Double> entry : latencies.entrySet()) {
+            LanguageDirection direction = entry.getKey();
+            builder.append('[');
+            builder.append(direction.source.toLanguageTag());
+            builder.append(':');
+            builder.append(direction.target.toLanguageTag());
+            builder.append(']');
+            builder.append('=');
+            builder.append(Math.round(entry.getValue()));
+            builder.append(',');
+        }
+
+        return builder.substring(0, builder.length() - 1);
+    }
+
     // Deserializers
 
     private static ClusterNode.Status deserializeStatus(String encoded) {
@@ -159,4 +231,35 @@ public class NodeInfo {
 
         return result;
     }
+
+    private static int[] deserializeAvailability(String encoded) {
+        if (encoded == null || encoded.isEmpty())
+            return new int[]{1, 1};
+
+        String[] values = encoded.split(":");
+        return new int[]{Integer.parseInt(values[0]), Integer.parseInt(values[1])};
+    }
+
+    private static HashMap<LanguageDirection, Double> deserializeLatencies(String encoded) {
+        if (encoded == null || encoded.isEmpty())
+            return new HashMap<>();
+
+        String[] elements = encoded.split(",");
+
+        HashMap<LanguageDirection, Double> result = new HashMap<>(elements.length);
+        for (String element : elements) {
+            String[] keyvalue = element.split("=");
+            String[] tags = keyvalue[0].split(":");
+
+            String sourceTag = tags[0].substring(1);
+            String targetTag = tags[1].substring(0, tags[1].length() - 1);
+
+            Language source = Language.fromString(sourceTag);
+            Language target = Language.fromString(targetTag);
+
+            result.put(new LanguageDirection(source, target), Double.parseDouble(keyvalue[1]));
+        }
+
+        return result;
+    }
 }
@@ -1,6 +1,7 @@
 package eu.modernmt.cluster;
 
 import java.util.Collection;
+import java.util.Map;
 
 /**
  * Created by davide on 15/12/16.
@@ -28,14 +29,54 @@ public class ServerInfo {
 
     }
 
+    public static class CacheInfo {
+
+        public final long size;
+        public final long requests;
+        public final long hits;
+        public final double hitRate;
+
+        public CacheInfo(long size, long requests, long hits) {
+            this.size = size;
+            this.requests = requests;
+            this.hits = hits;
+            this.hitRate = requests == 0 ? 1. : ((double) hits) / requests;
+        }
+
+    }
+
+    public static class DecoderInfo {
+
+        public final CacheInfo translationCache;
+        public final CacheInfo suggestionCache;
+        public final Map<String, Long> modelSwitches;
+        public final long expiredJobs;
+
+        public DecoderInfo(CacheInfo translationCache, CacheInfo suggestionCache, Map<String, Long> modelSwitches, long expiredJobs) {
+            this.translationCache = translationCache;
+            this.suggestionCache = suggestionCache;
+            this.modelSwitches = modelSwitches;
+            this.expiredJobs = expiredJobs;
+        }
+
+    }
+
     private final ClusterInfo cluster;
     private final BuildInfo build;
     private final long memorySize;
+    private final CacheInfo contextCache;
+    private final DecoderInfo decoder;
 
     public ServerInfo(ClusterInfo cluster, BuildInfo build, long memorySize) {
+        this(cluster, build, memorySize, null, null);
+    }
+
+    public ServerInfo(ClusterInfo cluster, BuildInfo build, long memorySize, CacheInfo contextCache, DecoderInfo decoder) {
         this.cluster = cluster;
         this.build = build;
         this.memorySize = memorySize;
+        this.contextCache = contextCache;
+        this.decoder = decoder;
     }
 
 }
@@ -28,6 +28,8 @@ class ShutdownThread extends Thread {
         halt(this.node.api);
 
         // Close internal services
+        if (this.node.loadPublisher != null)
+            this.node.loadPublisher.shutdownNow();
         halt(this.node.translationService); // wait for all translations to be fulfilled
         halt(this.node.database);
         halt(this.node.binaryLog);
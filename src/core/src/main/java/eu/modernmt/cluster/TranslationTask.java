@@ -1,13 +1,16 @@
 package eu.modernmt.cluster;
 
+import com.hazelcast.nio.serialization.DataSerializable;
 import eu.modernmt.lang.LanguageDirection;
+import eu.modernmt.model.Priority;
 import eu.modernmt.model.Translation;
 
-import java.io.Serializable;
 import java.util.concurrent.Callable;
 
-public interface TranslationTask extends Callable<Translation>, Serializable {
+public interface TranslationTask extends Callable<Translation>, DataSerializable {
 
     LanguageDirection getLanguageDirection();
 
+    Priority getPriority();
+
 }
@@ -0,0 +1,149 @@
+package eu.modernmt.cluster.binlog;
+
+import eu.modernmt.aligner.AlignerException;
+import eu.modernmt.cluster.kafka.BulkPacketReader;
+import eu.modernmt.cluster.kafka.KafkaDataBatch;
+import eu.modernmt.cluster.kafka.KafkaPacket;
+import eu.modernmt.data.BinaryLog;
+import eu.modernmt.data.BinaryLogException;
+import eu.modernmt.data.BulkDataListener;
+import eu.modernmt.data.LogDataListener;
+import eu.modernmt.lang.LanguageIndex;
+import eu.modernmt.model.ImportJob;
+import eu.modernmt.model.Memory;
+import eu.modernmt.model.corpus.MultilingualCorpus;
+import eu.modernmt.processing.Preprocessor;
+import eu.modernmt.processing.ProcessingException;
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Imports a corpus bypassing the per-message path of the binary log: translation units are
+ * preprocessed in large chunks and written offline by the local {@link BulkDataListener}s, then the
+ * corpus is written to the binary log as compressed bulk packets followed by the marker of the import.
+ * Local listeners skip the packets and attach the offline data when they receive the marker, so the
+ * import is applied in order with the other updates of the channel.
+ * <p>
+ * The offline data only exists on the importing node and it is deleted once attached: a node
+ * without the data (another node of the cluster, or the same node replaying the log from scratch)
+ * applies the bulk packets as a regular upload instead. Finished offline data survives a restart of
+ * the listeners, so a node restarting before the marker still attaches it. If writing to the binary
+ * log fails, the offline data is discarded and the import fails like a regular upload.
+ */
+public class BulkImporter {
+
+    public static final int CHUNK_SIZE = 20000;
+
+    private final Logger logger = LogManager.getLogger(BulkImporter.class);
+
+    private final LanguageIndex languages;
+    private final Preprocessor preprocessor;
+    private final List<BulkDataListener> listeners = new ArrayList<>();
+
+    public BulkImporter(LanguageIndex languages, Preprocessor preprocessor, Collection<LogDataListener> listeners) {
+        this.languages = languages;
+        this.preprocessor = preprocessor;
+
+        for (LogDataListener listener : listeners) {
+            if (listener instanceof BulkDataListener)
+                this.listeners.add((BulkDataListener) listener);
+        }
+    }
+
+    /**
+     * Imports the given corpus and writes it to the binary log, followed by the bulk import marker.
+     *
+     * @param memory  the target memory
+     * @param corpus  the corpus to import
+     * @param binlog  the binary log the import is written to
+     * @param channel the channel of the import
+     * @return the import job of the bulk import, or null if the corpus is empty
+     * @throws BinaryLogException if the import fails
+     */
+    public ImportJob importCorpus(Memory memory, MultilingualCorpus corpus, BinaryLog binlog, short channel) throws BinaryLogException {
+        UUID id = UUID.randomUUID();
+        long begin = System.currentTimeMillis();
+
+        boolean process = false;
+        for (BulkDataListener listener : listeners)
+            process |= listener.needsProcessing();
+
+        ArrayList<BulkDataListener.Loader> loaders = new ArrayList<>(listeners.size());
+        BulkPacketReader reader = null;
+        boolean success = false;
+
+        try {
+            for (BulkDataListener listener : listeners)
+                loaders.add(listener.newBulkLoader(id));
+
+            KafkaDataBatch batch = new KafkaDataBatch(languages, preprocessor, null, null);
+            ArrayList<KafkaPacket> chunk = new ArrayList<>();
+            int chunkSize = 0;
+
+            reader = new BulkPacketReader(memory, corpus.getContentReader());
+
+            KafkaPacket packet;
+            while ((packet = reader.read()) != null) {
+                packet.setChannelInfo(channel, 0L);
+                chunk.add(packet);
+                chunkSize += packet.size();
+
+                if (chunkSize >= CHUNK_SIZE) {
+                    load(batch, chunk, process, loaders);
+                    chunk.clear();
+                    chunkSize = 0;
+                }
+            }
+
+            if (!chunk.isEmpty())
+                load(batch, chunk, process, loaders);
+
+            int size = reader.getSize();
+            if (size == 0)
+                return null;
+
+            for (BulkDataListener.Loader loader : loaders)
+                loader.finish();
+
+            ImportJob job = binlog.uploadBulkImport(memory, corpus, id, channel);
+            if (job == null)
+                throw new BinaryLogException("Corpus for memory " + memory + " changed while being imported");
+
+            if (logger.isDebugEnabled())
+                logger.debug("Memory " + memory + " bulk import " + id + " loaded in " +
+                        ((System.currentTimeMillis() - begin) / 1000.) + "s: " + size + " pairs");
+
+            success = true;
+            return job;
+        } catch (IOException e) {
+            throw new BinaryLogException("Failed to import corpus for memory " + memory, e);
+        } catch (ProcessingException | AlignerException e) {
+            throw new BinaryLogException("Failed to process corpus for memory " + memory, e);
+        } catch (InterruptedException e) {
+            throw new BinaryLogException("Interrupted import for memory " + memory, e);
+        } finally {
+            IOUtils.closeQuietly(reader);
+
+            if (!success) {
+                for (BulkDataListener.Loader loader : loaders)
+                    loader.discard();
+            }
+        }
+    }
+
+    private static void load(KafkaDataBatch batch, List<KafkaPacket> packets, boolean process, List<BulkDataListener.Loader> loaders)
+            throws ProcessingException, AlignerException, InterruptedException, IOException {
+        batch.load(packets, process, false);
+
+        for (BulkDataListener.Loader loader : loaders)
+            loader.add(batch.getTranslationUnits());
+    }
+
+}
@@ -0,0 +1,322 @@
+package eu.modernmt.cluster.binlog;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import eu.modernmt.aligner.Aligner;
+import eu.modernmt.cluster.kafka.BulkPacketReader;
+import eu.modernmt.cluster.kafka.KafkaBinaryLog;
+import eu.modernmt.cluster.kafka.KafkaPacket;
+import eu.modernmt.config.BinaryLogConfig;
+import eu.modernmt.data.*;
+import eu.modernmt.engine.Engine;
+import eu.modernmt.lang.LanguageIndex;
+import eu.modernmt.model.ImportJob;
+import eu.modernmt.model.Memory;
+import eu.modernmt.model.corpus.MultilingualCorpus;
+import eu.modernmt.model.corpus.TranslationUnit;
+import eu.modernmt.processing.Preprocessor;
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A BinaryLog stored on local disk, for single-node deployments that do not need a Kafka cluster.
+ * <p>
+ * Every channel is an append-only sequence of memory-mapped segments, containing the records in
+ * the same binary format of the KafkaBinaryLog: channel ids, offsets and positions have the same
+ * semantics, so the listeners do not need to know which implementation is in use.
+ */
+public class FileBinaryLog implements BinaryLog {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final long DEFAULT_FLUSH_INTERVAL = 1000L;
+
+    private static final Logger logger = LogManager.getLogger(FileBinaryLog.class);
+
+    private final FileLogChannel[] channels;
+    private final FileLogPollingThread pollingThread;
+    private final boolean flushOnAppend;
+    private final ScheduledExecutorService flushExecutor;
+
+    private static Aligner getAligner(Engine engine) {
+        try {
+            return engine.getAligner();
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    public FileBinaryLog(Engine engine, BinaryLogConfig config) throws IOException {
+        this(engine.getLanguageIndex(), engine.getPreprocessor(), getAligner(engine),
+                new File(engine.getModelsPath(), "binlog"), config.getName(), DEFAULT_SEGMENT_SIZE, config.getFlushInterval());
+    }
+
+    public FileBinaryLog(LanguageIndex languages, Preprocessor preprocessor, Aligner aligner,
+                         File path, String name, int segmentSize) throws IOException {
+        this(languages, preprocessor, aligner, path, name, segmentSize, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     * Opens the binary log stored in the given folder, creating it if it does not exist.
+     *
+     * @param path          the folder of the binary log
+     * @param name          the base name of the channels, it can be null
+     * @param segmentSize   the size of the segment files
+     * @param flushInterval the interval in milliseconds between two flushes of the records to disk:
+     *                      0 to flush after every record, a negative value to flush only on close
+     * @throws IOException if an I/O error occurs while opening the channels
+     */
+    public FileBinaryLog(LanguageIndex languages, Preprocessor preprocessor, Aligner aligner,
+                         File path, String name, int segmentSize, long flushInterval) throws IOException {
+        String[] names = KafkaBinaryLog.getDefaultTopicNames(name);
+
+        this.channels = new FileLogChannel[2];
+        this.channels[0] = new FileLogChannel(BinaryLog.MEMORY_UPLOAD_CHANNEL_ID,
+                names[BinaryLog.MEMORY_UPLOAD_CHANNEL_ID], new File(path, names[BinaryLog.MEMORY_UPLOAD_CHANNEL_ID]), segmentSize);
+        this.channels[1] = new FileLogChannel(BinaryLog.CONTRIBUTIONS_CHANNEL_ID,
+                names[BinaryLog.CONTRIBUTIONS_CHANNEL_ID], new File(path, names[BinaryLog.CONTRIBUTIONS_CHANNEL_ID]), segmentSize);
+
+        try {
+            for (FileLogChannel channel : channels)
+                channel.open();
+        } catch (IOException e) {
+            for (FileLogChannel channel : channels)
+                IOUtils.closeQuietly(channel);
+            throw e;
+        }
+
+        this.pollingThread = new FileLogPollingThread(languages, preprocessor, aligner, channels);
+        this.flushOnAppend = flushInterval == 0;
+
+        if (flushInterval > 0) {
+            this.flushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("FileBinaryLogFlush")
+                    .setDaemon(true)
+                    .build());
+            this.flushExecutor.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        } else {
+            this.flushExecutor = null;
+        }
+    }
+
+    private void flush() {
+        for (FileLogChannel channel : channels)
+            channel.flush();
+    }
+
+    @Override
+    public Map<Short, Long> connect() {
+        return this.connect(0, TimeUnit.SECONDS, true, true);
+    }
+
+    @Override
+    public Map<Short, Long> connect(long timeout, TimeUnit unit) {
+        return this.connect(timeout, unit, true, true);
+    }
+
+    /**
+     * Starts reading the channels from the current positions of the listeners.
+     * The log is on local disk, the timeout is ignored and the log can always be written.
+     *
+     * @return a map containing, for each channel, the offset the next record will have
+     */
+    @Override
+    public Map<Short, Long> connect(long timeout, TimeUnit unit, boolean enableConsumer, boolean enableProducer) {
+        HashMap<Short, Long> positions = new HashMap<>(channels.length);
+        for (FileLogChannel channel : channels)
+            positions.put(channel.getId(), channel.getNextOffset());
+
+        if (enableConsumer)
+            pollingThread.start(pollingThread.getCurrentPositions());
+
+        return positions;
+    }
+
+    @Override
+    public void setBinaryLogListener(Listener listener) {
+        pollingThread.setBinaryLogListener(listener);
+    }
+
+    @Override
+    public void addLogDataListener(LogDataListener listener) {
+        pollingThread.addListener(listener);
+    }
+
+    @Override
+    public ImportJob upload(Memory memory, MultilingualCorpus corpus, short channel) throws BinaryLogException {
+        return upload(memory, corpus, getLogChannel(channel));
+    }
+
+    @Override
+    public ImportJob upload(Memory memory, MultilingualCorpus corpus, LogChannel channel) throws BinaryLogException {
+        return upload(memory, corpus, null, channel);
+    }
+
+    /**
+     * Writes the content of the corpus as bulk packets and, if the upload is a bulk import, its marker.
+     */
+    private ImportJob upload(Memory memory, MultilingualCorpus corpus, UUID bulkImport, LogChannel channel) throws BinaryLogException {
+        if (logger.isDebugEnabled())
+            logger.debug("Uploading memory " + memory);
+
+        BulkPacketReader reader = null;
+
+        long importBegin = -1L;
+        long importEnd = -1L;
+        int size;
+
+        try {
+            reader = new BulkPacketReader(memory, corpus.getContentReader(), bulkImport);
+
+            KafkaPacket packet;
+            while ((packet = reader.read()) != null) {
+                importEnd = append(packet, channel, false);
+                if (importBegin < 0)
+                    importBegin = importEnd;
+            }
+
+            size = reader.getSize();
+
+            if (bulkImport != null && size > 0)
+                importEnd = append(KafkaPacket.createBulkImport(memory.getOwner(), memory.getId(), bulkImport, size), channel, false);
+        } catch (IOException e) {
+            throw new BinaryLogException("Failed to read corpus for memory " + memory, e);
+        } finally {
+            IOUtils.closeQuietly(reader);
+            pollingThread.signal();
+        }
+
+        if (size == 0)
+            return null;
+
+        if (logger.isDebugEnabled())
+            logger.debug("Memory " + memory + " uploaded [" + importBegin + ", " + importEnd + "]: " + size + " pairs");
+
+        ImportJob job = new ImportJob();
+        job.setMemory(memory.getId());
+        job.setSize(size);
+        job.setDataChannel(channel.getId());
+        job.setBegin(importBegin);
+        job.setEnd(importEnd);
+
+        return job;
+    }
+
+    @Override
+    public ImportJob upload(Memory memory, TranslationUnit tu, short channel) throws BinaryLogException {
+        return upload(memory, tu, getLogChannel(channel));
+    }
+
+    @Override
+    public ImportJob upload(Memory memory, TranslationUnit tu, LogChannel channel) throws BinaryLogException {
+        long offset = append(KafkaPacket.createAddition(memory.getOwner(), memory.getId(), tu), channel, true);
+        return ImportJob.createEphemeralJob(memory.getId(), offset, channel.getId());
+    }
+
+    @Override
+    public ImportJob replace(Memory memory, TranslationUnit tu, short channel) throws BinaryLogException {
+        return replace(memory, tu, getLogChannel(channel));
+    }
+
+    @Override
+    public ImportJob replace(Memory memory, TranslationUnit tu, LogChannel channel) throws BinaryLogException {
+        long offset = append(KafkaPacket.createOverwrite(memory.getOwner(), memory.getId(), tu), channel, true);
+        return ImportJob.createEphemeralJob(memory.getId(), offset, channel.getId());
+    }
+
+    @Override
+    public ImportJob replace(Memory memory, TranslationUnit tu, String previousSentence, String previousTranslation, short channel) throws BinaryLogException {
+        return replace(memory, tu, previousSentence, previousTranslation, getLogChannel(channel));
+    }
+
+    @Override
+    public ImportJob replace(Memory memory, TranslationUnit tu, String previousSentence, String previousTranslation, LogChannel channel) throws BinaryLogException {
+        long offset = append(KafkaPacket.createOverwrite(memory.getOwner(), memory.getId(), tu, previousSentence, previousTranslation), channel, true);
+        return ImportJob.createEphemeralJob(memory.getId(), offset, channel.getId());
+    }
+
+    @Override
+    public void delete(Memory memory) throws BinaryLogException {
+        LogChannel channel = getLogChannel(BinaryLog.MEMORY_UPLOAD_CHANNEL_ID);
+        append(KafkaPacket.createDeletion(memory.getOwner(), memory.getId()), channel, true);
+    }
+
+    @Override
+    public ImportJob uploadBulkImport(Memory memory, MultilingualCorpus corpus, UUID id, short channel) throws BinaryLogException {
+        return upload(memory, corpus, id, getLogChannel(channel));
+    }
+
+    private long append(KafkaPacket packet, LogChannel channel, boolean signal) throws BinaryLogException {
+        pollingThread.ensureRunning();
+
+        try {
+            FileLogChannel target = channels[channel.getId()];
+            long offset = target.append(packet.toBytes());
+
+            if (flushOnAppend)
+                target.flush();
+
+            if (signal)
+                pollingThread.signal();
+
+            return offset;
+        } catch (IOException e) {
+            throw new BinaryLogException("Failed to append packet " + packet + " to " + channel, e);
+        }
+    }
+
+    @Override
+    public FileLogChannel getLogChannel(short id) {
+        return this.channels[id];
+    }
+
+    @Override
+    public Map<Short, Long> getChannelsPositions() {
+        return pollingThread.getPositions();
+    }
+
+    @Override
+    public void waitChannelPosition(short channel, long position) throws InterruptedException {
+        HashMap<Short, Long> map = new HashMap<>(1);
+        map.put(channel, position);
+
+        waitChannelPositions(map);
+    }
+
+    @Override
+    public void waitChannelPositions(Map<Short, Long> positions) throws InterruptedException {
+        pollingThread.getPositionTracker().await(positions);
+    }
+
+    @Override
+    public void close() throws IOException {
+        pollingThread.shutdown();
+        try {
+            if (pollingThread.isAlive() && !pollingThread.awaitTermination(TimeUnit.SECONDS, 2))
+                pollingThread.shutdownNow();
+        } catch (InterruptedException e) {
+            pollingThread.shutdownNow();
+        }
+
+        if (flushExecutor != null) {
+            flushExecutor.shutdownNow();
+            try {
+                flushExecutor.awaitTermination(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                // Ignore it
+            }
+        }
+
+        for (FileLogChannel channel : channels)
+            IOUtils.closeQuietly(channel);
+    }
+
+}
@@ -0,0 +1,199 @@
+package eu.modernmt.cluster.binlog;
+
+import eu.modernmt.data.LogChannel;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A channel of the FileBinaryLog: a folder of segments, rolled when the last one is full.
+ * Offsets are assigned sequentially, starting from zero, as Kafka does for a single partition.
+ */
+public class FileLogChannel implements LogChannel, Closeable {
+
+    private final short id;
+    private final String name;
+    private final File folder;
+    private final int segmentSize;
+
+    private final ArrayList<LogSegment> segments = new ArrayList<>();
+
+    FileLogChannel(int id, String name, File folder, int segmentSize) {
+        this.id = (short) id;
+        this.name = name;
+        this.folder = folder;
+        this.segmentSize = segmentSize;
+    }
+
+    @Override
+    public short getId() {
+        return id;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    synchronized void open() throws IOException {
+        FileUtils.forceMkdir(folder);
+
+        File[] files = folder.listFiles((dir, filename) -> filename.endsWith(LogSegment.EXTENSION));
+        if (files != null) {
+            Arrays.sort(files);
+
+            for (File file : files)
+                segments.add(new LogSegment(file, segmentSize));
+        }
+
+        // a crash may have left an empty segment after a full one
+        if (segments.size() > 1 && last().isEmpty()) {
+            LogSegment empty = segments.remove(segments.size() - 1);
+            empty.close();
+            FileUtils.forceDelete(empty.getFile());
+        }
+
+        if (segments.isEmpty())
+            segments.add(new LogSegment(LogSegment.getFile(folder, 0L), segmentSize));
+    }
+
+    private LogSegment last() {
+        return segments.get(segments.size() - 1);
+    }
+
+    /**
+     * Appends a record at the end of the channel, rolling a new segment if the current one is full.
+     *
+     * @param payload the record to append
+     * @return the offset of the record
+     * @throws IOException if an I/O error occurs
+     */
+    synchronized long append(byte[] payload) throws IOException {
+        long offset = last().append(payload);
+
+        if (offset < 0) {
+            // a full segment is never written again, it is flushed before rolling
+            last().flush();
+
+            LogSegment segment = new LogSegment(LogSegment.getFile(folder, last().getNextOffset()),
+                    Math.max(segmentSize, LogSegment.HEADER_SIZE + payload.length));
+            segments.add(segment);
+
+            offset = segment.append(payload);
+        }
+
+        return offset;
+    }
+
+    /**
+     * @return the offset the next record will have
+     */
+    synchronized long getNextOffset() {
+        return last().getNextOffset();
+    }
+
+    synchronized void flush() {
+        last().flush();
+    }
+
+    private synchronized List<LogSegment> getSegments() {
+        return new ArrayList<>(segments);
+    }
+
+    /**
+     * Creates a reader of this channel.
+     *
+     * @param offset the offset of the first record to read
+     * @return a new reader, positioned at the given offset (or at the end of the channel, if after it)
+     */
+    Reader newReader(long offset) {
+        return new Reader(offset);
+    }
+
+    @Override
+    public synchronized void close() {
+        for (LogSegment segment : segments)
+            IOUtils.closeQuietly(segment);
+        segments.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "FileLogChannel(" + name + ')';
+    }
+
+    /**
+     * A sequential reader of the channel, not thread-safe.
+     */
+    class Reader {
+
+        private LogSegment segment;
+        private int segmentIndex;
+        private int position;
+        private long offset;
+
+        private Reader(long offset) {
+            List<LogSegment> segments = getSegments();
+
+            segmentIndex = 0;
+            for (int i = 1; i < segments.size(); i++) {
+                if (segments.get(i).getBaseOffset() <= offset)
+                    segmentIndex = i;
+            }
+
+            this.segment = segments.get(segmentIndex);
+            this.position = 0;
+            this.offset = segment.getBaseOffset();
+
+            while (this.offset < offset && position < segment.getEnd()) {
+                position = segment.next(position);
+                this.offset++;
+            }
+        }
+
+        FileLogChannel getChannel() {
+            return FileLogChannel.this;
+        }
+
+        /**
+         * @return the offset of the next record that will be read
+         */
+        long getOffset() {
+            return offset;
+        }
+
+        /**
+         * Reads the next record, if available.
+         *
+         * @return the content of the record or null if the end of the channel has been reached
+         */
+        byte[] next() {
+            while (position >= segment.getEnd()) {
+                List<LogSegment> segments = getSegments();
+
+                // a segment is never written after the next one has been created
+                if (position < segment.getEnd())
+                    break;
+                if (segmentIndex + 1 >= segments.size())
+                    return null;
+
+                segment = segments.get(++segmentIndex);
+                position = 0;
+            }
+
+            byte[] payload = segment.read(position);
+            position = segment.next(position);
+            offset++;
+
+            return payload;
+        }
+
+    }
+
+}
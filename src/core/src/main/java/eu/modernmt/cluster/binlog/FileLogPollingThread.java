@@ -0,0 +1,216 @@
+package eu.modernmt.cluster.binlog;
+
+import eu.modernmt.aligner.Aligner;
+import eu.modernmt.aligner.AlignerException;
+import eu.modernmt.cluster.kafka.ChannelPositionTracker;
+import eu.modernmt.cluster.kafka.KafkaDataBatch;
+import eu.modernmt.cluster.kafka.KafkaPacket;
+import eu.modernmt.cluster.kafka.LogDataListeners;
+import eu.modernmt.data.BinaryLog;
+import eu.modernmt.data.BinaryLogException;
+import eu.modernmt.data.LogDataListener;
+import eu.modernmt.lang.LanguageIndex;
+import eu.modernmt.processing.Preprocessor;
+import eu.modernmt.processing.ProcessingException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Reads the records appended to the channels of a FileBinaryLog and delivers them to the listeners,
+ * in batches of about MAX_BATCH_SIZE translation units. After every delivered batch the positions
+ * reached by all the listeners are published to the ChannelPositionTracker.
+ */
+class FileLogPollingThread extends Thread {
+
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final long MAX_WAIT_MILLIS = 500L;
+
+    private final Logger logger = LogManager.getLogger(FileBinaryLog.class);
+
+    private final FileLogChannel[] channels;
+    private final KafkaDataBatch batch;
+    private final ArrayList<LogDataListener> listeners = new ArrayList<>(10);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Object dataAvailable = new Object();
+    private final ChannelPositionTracker positionTracker;
+
+    private volatile BinaryLogException exception;
+    private volatile boolean interrupted = false;
+    private BinaryLog.Listener binaryLogListener = null;
+    private FileLogChannel.Reader[] readers;
+
+    FileLogPollingThread(LanguageIndex languages, Preprocessor preprocessor, Aligner aligner, FileLogChannel[] channels) {
+        super("FileLogPollingThread");
+        this.channels = channels;
+        this.positionTracker = new ChannelPositionTracker(channels.length);
+        this.batch = new KafkaDataBatch(languages, preprocessor, aligner, null, executor);
+    }
+
+    void ensureRunning() throws BinaryLogException {
+        BinaryLogException e = exception;
+
+        if (e != null)
+            throw e;
+    }
+
+    void setBinaryLogListener(BinaryLog.Listener binaryLogListener) {
+        this.binaryLogListener = binaryLogListener;
+    }
+
+    void addListener(LogDataListener listener) {
+        this.listeners.add(listener);
+    }
+
+    void start(Map<Short, Long> positions) {
+        this.readers = new FileLogChannel.Reader[channels.length];
+        for (int i = 0; i < channels.length; i++) {
+            FileLogChannel channel = channels[i];
+            long position = positions.getOrDefault(channel.getId(), 0L);
+
+            logger.info("Channel '" + channel.getName() + "' seek to position " + position);
+            readers[i] = channel.newReader(position);
+        }
+
+        positionTracker.update(getCurrentPositions());
+        super.start();
+    }
+
+    /**
+     * Wakes up the thread, new records are available.
+     */
+    void signal() {
+        synchronized (dataAvailable) {
+            dataAvailable.notifyAll();
+        }
+    }
+
+    void shutdown() {
+        this.interrupted = true;
+        this.signal();
+    }
+
+    void shutdownNow() {
+        this.shutdown();
+        this.interrupt();
+    }
+
+    boolean awaitTermination(TimeUnit unit, long timeout) throws InterruptedException {
+        unit.timedJoin(this, timeout);
+        return !this.isAlive();
+    }
+
+    ChannelPositionTracker getPositionTracker() {
+        return positionTracker;
+    }
+
+    Map<Short, Long> getPositions() {
+        return this.isAlive() ? positionTracker.getPositions() : getCurrentPositions();
+    }
+
+    Map<Short, Long> getCurrentPositions() {
+        return LogDataListeners.getCurrentPositions(listeners, channels);
+    }
+
+    private List<KafkaPacket> read() {
+        ArrayList<KafkaPacket> packets = new ArrayList<>();
+        int size = 0;
+
+        // channels are read in round-robin, so that a busy channel cannot starve the others
+        boolean[] exhausted = new boolean[readers.length];
+        int available = readers.length;
+
+        while (size < MAX_BATCH_SIZE && available > 0) {
+            for (int i = 0; i < readers.length && size < MAX_BATCH_SIZE; i++) {
+                if (exhausted[i])
+                    continue;
+
+                FileLogChannel.Reader reader = readers[i];
+
+                long offset = reader.getOffset();
+                byte[] payload = reader.next();
+                if (payload == null) {
+                    exhausted[i] = true;
+                    available--;
+                    continue;
+                }
+
+                KafkaPacket packet = KafkaPacket.fromBytes(payload);
+                packet.setChannelInfo(reader.getChannel().getId(), offset);
+                packets.add(packet);
+                size += Math.max(1, packet.size());
+            }
+        }
+
+        return packets;
+    }
+
+    @Override
+    public void run() {
+        while (!interrupted) {
+            try {
+                List<KafkaPacket> packets;
+
+                synchronized (dataAvailable) {
+                    packets = read();
+                    if (packets.isEmpty()) {
+                        dataAvailable.wait(MAX_WAIT_MILLIS);
+                        continue;
+                    }
+                }
+
+                boolean process = false;
+                boolean align = false;
+                for (LogDataListener listener : listeners) {
+                    process |= listener.needsProcessing();
+                    align |= listener.needsAlignment();
+                }
+
+                batch.load(packets, process, align);
+
+                try {
+                    deliverBatch(batch);
+                } catch (InterruptedException e) {
+                    // Shutdown request, listeners may still be reading the batch
+                    break;
+                } catch (Throwable e) {
+                    logger.error("Failed to delivery updates", e);
+                }
+
+                positionTracker.update(getCurrentPositions());
+
+                if (binaryLogListener != null)
+                    binaryLogListener.onLogDataBatchProcessed(batch.getChannelPositions());
+
+                batch.clear();
+            } catch (InterruptedException e) {
+                // Shutdown request
+                break;
+            } catch (RuntimeException e) {
+                exception = new BinaryLogException("Unexpected exception while reading binary log", e);
+                logger.error(exception.getMessage(), e);
+                break;
+            } catch (AlignerException | ProcessingException e) {
+                exception = new BinaryLogException("Failed to parse update batch", e);
+                logger.error(exception.getMessage(), e);
+                break;
+            }
+        }
+
+        executor.shutdownNow();
+    }
+
+    private void deliverBatch(KafkaDataBatch batch) throws Exception {
+        if (listeners.isEmpty()) {
+            logger.warn("Discarding " + batch.size() + " updates, listeners is empty");
+            return;
+        }
+
+        LogDataListeners.deliver(executor, listeners, batch);
+    }
+
+}
@@ -0,0 +1,189 @@
+package eu.modernmt.cluster.binlog;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * A memory-mapped, append-only file containing a contiguous range of records of a channel,
+ * starting from the base offset encoded in the file name.
+ * <p>
+ * Every record is stored as: length (int), CRC32 of the payload (int), payload.
+ * The mapped file is zero-filled, so a zero length marks the end of the segment; a record
+ * that does not pass the CRC check (a write interrupted by a crash) truncates the segment.
+ * <p>
+ * A segment has a single writer and many readers: readers only access the records
+ * before the end position, that is published after the record has been written.
+ */
+class LogSegment implements Closeable {
+
+    static final String EXTENSION = ".log";
+    static final int HEADER_SIZE = 8;
+
+    private final File file;
+    private final long baseOffset;
+    private final RandomAccessFile raf;
+    private final MappedByteBuffer buffer;
+
+    private volatile int end;
+    private volatile long size;
+
+    static File getFile(File folder, long baseOffset) {
+        return new File(folder, String.format("%020d", baseOffset) + EXTENSION);
+    }
+
+    static long parseBaseOffset(File file) {
+        String name = file.getName();
+        return Long.parseLong(name.substring(0, name.length() - EXTENSION.length()));
+    }
+
+    /**
+     * Opens the segment, creating the file if it does not exist, and recovers its records.
+     *
+     * @param file     the segment file
+     * @param capacity the size of the file, ignored if the file is already larger
+     * @throws IOException if an I/O error occurs
+     */
+    LogSegment(File file, int capacity) throws IOException {
+        this.file = file;
+        this.baseOffset = parseBaseOffset(file);
+        this.raf = new RandomAccessFile(file, "rw");
+
+        long length = Math.max(capacity, raf.length());
+        this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+
+        recover();
+    }
+
+    private void recover() {
+        CRC32 crc = new CRC32();
+        ByteBuffer view = buffer.duplicate();
+
+        int position = 0;
+        long count = 0;
+
+        while (position + HEADER_SIZE <= view.capacity()) {
+            int length = view.getInt(position);
+            if (length <= 0 || position + HEADER_SIZE + length > view.capacity())
+                break;
+
+            int checksum = view.getInt(position + 4);
+
+            view.limit(position + HEADER_SIZE + length).position(position + HEADER_SIZE);
+            crc.reset();
+            crc.update(view);
+            view.clear();
+
+            if ((int) crc.getValue() != checksum)
+                break;
+
+            position += HEADER_SIZE + length;
+            count++;
+        }
+
+        // wipe a partially written record, if any
+        for (int i = position; i < Math.min(position + HEADER_SIZE, view.capacity()); i++)
+            view.put(i, (byte) 0);
+
+        this.end = position;
+        this.size = count;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getBaseOffset() {
+        return baseOffset;
+    }
+
+    /**
+     * @return the offset the next record appended to this segment will have
+     */
+    public long getNextOffset() {
+        return baseOffset + size;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Appends a record to the segment.
+     *
+     * @param payload the content of the record
+     * @return the offset of the record or -1 if the segment does not have enough space
+     */
+    long append(byte[] payload) {
+        int position = end;
+        if ((long) position + HEADER_SIZE + payload.length > buffer.capacity())
+            return -1L;
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + HEADER_SIZE);
+        view.put(payload);
+        view.putInt(position + 4, (int) crc.getValue());
+        view.putInt(position, payload.length);  // the length is written last, it makes the record valid
+
+        long offset = baseOffset + size;
+
+        // publish the record to the readers
+        this.size = size + 1;
+        this.end = position + HEADER_SIZE + payload.length;
+
+        return offset;
+    }
+
+    /**
+     * Reads the record at the given position.
+     *
+     * @param position the position of the record in the file, it must be before the end of the segment
+     * @return the content of the record
+     */
+    byte[] read(int position) {
+        ByteBuffer view = buffer.duplicate();
+        int length = view.getInt(position);
+
+        byte[] payload = new byte[length];
+        view.position(position + HEADER_SIZE);
+        view.get(payload);
+
+        return payload;
+    }
+
+    /**
+     * @param position the position of a record in the file
+     * @return the position of the following record
+     */
+    int next(int position) {
+        return position + HEADER_SIZE + buffer.getInt(position);
+    }
+
+    void flush() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        raf.close();
+    }
+
+    @Override
+    public String toString() {
+        return "LogSegment(" + file.getName() + ", size=" + size + ")";
+    }
+
+}
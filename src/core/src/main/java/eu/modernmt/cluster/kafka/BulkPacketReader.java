@@ -0,0 +1,97 @@
+package eu.modernmt.cluster.kafka;
+
+import eu.modernmt.lang.LanguageDirection;
+import eu.modernmt.model.Memory;
+import eu.modernmt.model.corpus.TUReader;
+import eu.modernmt.model.corpus.TranslationUnit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.UUID;
+
+/**
+ * Reads the translation units of a corpus and groups them in bulk addition packets:
+ * every packet contains consecutive translation units with the same language direction,
+ * up to MAX_BULK_SIZE units or MAX_BULK_CHARS characters of content.
+ * If a bulk import id is given, the packets are part of the content of that bulk import.
+ */
+public class BulkPacketReader implements Closeable {
+
+    public static final int MAX_BULK_SIZE = 1000;
+    public static final int MAX_BULK_CHARS = 128 * 1024;
+
+    private final Memory memory;
+    private final TUReader reader;
+    private final UUID bulkImport;
+    private final ArrayList<TranslationUnit> buffer = new ArrayList<>(MAX_BULK_SIZE);
+
+    private TranslationUnit pending = null;
+    private int size = 0;
+
+    public BulkPacketReader(Memory memory, TUReader reader) {
+        this(memory, reader, null);
+    }
+
+    public BulkPacketReader(Memory memory, TUReader reader, UUID bulkImport) {
+        this.memory = memory;
+        this.reader = reader;
+        this.bulkImport = bulkImport;
+    }
+
+    private static int length(TranslationUnit tu) {
+        int length = 0;
+        if (tu.tuid != null) length += tu.tuid.length();
+        if (tu.source != null) length += tu.source.length();
+        if (tu.target != null) length += tu.target.length();
+        return length;
+    }
+
+    /**
+     * @return the next bulk packet or null if the corpus has been entirely read
+     * @throws IOException if an I/O error occurs while reading the corpus
+     */
+    public KafkaPacket read() throws IOException {
+        TranslationUnit tu = pending != null ? pending : reader.read();
+        pending = null;
+
+        if (tu == null)
+            return null;
+
+        LanguageDirection direction = tu.language;
+        int chars = 0;
+
+        buffer.clear();
+
+        do {
+            if (!direction.equals(tu.language) || buffer.size() >= MAX_BULK_SIZE ||
+                    (!buffer.isEmpty() && chars + length(tu) > MAX_BULK_CHARS)) {
+                pending = tu;
+                break;
+            }
+
+            buffer.add(tu);
+            chars += length(tu);
+        } while ((tu = reader.read()) != null);
+
+        size += buffer.size();
+
+        if (bulkImport == null)
+            return KafkaPacket.createBulkAddition(memory.getOwner(), memory.getId(), direction, buffer);
+        else
+            return KafkaPacket.createBulkImportAddition(memory.getOwner(), memory.getId(), bulkImport, direction, buffer);
+    }
+
+    /**
+     * @return the number of translation units read so far
+     */
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+}
@@ -0,0 +1,128 @@
+package eu.modernmt.cluster.kafka;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the positions reached by all the listeners of a binary log, as published by the polling thread
+ * after every delivered batch, and notifies the threads waiting for a channel to reach a given position.
+ * <p>
+ * A position is the offset of the next record to read, as returned by BinaryLog.getChannelsPositions().
+ * Reading the positions and registering a waiter never block the polling thread.
+ */
+public class ChannelPositionTracker {
+
+    private final AtomicLongArray positions;
+    private final ArrayList<ConcurrentSkipListMap<Long, CompletableFuture<Void>>> waiters;
+
+    public ChannelPositionTracker(int channels) {
+        this.positions = new AtomicLongArray(channels);
+        this.waiters = new ArrayList<>(channels);
+        for (int i = 0; i < channels; i++)
+            this.waiters.add(new ConcurrentSkipListMap<>());
+    }
+
+    /**
+     * Publishes the current positions and completes the waiters whose target has been reached.
+     * Positions never move backward.
+     *
+     * @param positions the positions of the channels
+     */
+    public void update(Map<Short, Long> positions) {
+        for (Map.Entry<Short, Long> entry : positions.entrySet()) {
+            int channel = entry.getKey();
+            long position = entry.getValue();
+
+            long current;
+            do {
+                current = this.positions.get(channel);
+            } while (current < position && !this.positions.compareAndSet(channel, current, position));
+
+            notifyWaiters(channel, this.positions.get(channel));
+        }
+    }
+
+    private void notifyWaiters(int channel, long position) {
+        ConcurrentNavigableMap<Long, CompletableFuture<Void>> reached = waiters.get(channel).headMap(position, true);
+
+        Map.Entry<Long, CompletableFuture<Void>> entry;
+        while ((entry = reached.pollFirstEntry()) != null)
+            entry.getValue().complete(null);
+    }
+
+    /**
+     * @return a snapshot of the current positions
+     */
+    public Map<Short, Long> getPositions() {
+        HashMap<Short, Long> result = new HashMap<>(positions.length());
+        for (int i = 0; i < positions.length(); i++)
+            result.put((short) i, positions.get(i));
+        return result;
+    }
+
+    /**
+     * @param channel  the channel id
+     * @param position the target position
+     * @return a future completed when the channel reaches the given position
+     */
+    public CompletableFuture<Void> whenReached(short channel, long position) {
+        if (positions.get(channel) >= position)
+            return CompletableFuture.completedFuture(null);
+
+        CompletableFuture<Void> future = waiters.get(channel).computeIfAbsent(position, key -> new CompletableFuture<>());
+
+        // the position may have been published while the future was registered
+        if (positions.get(channel) >= position) {
+            waiters.get(channel).remove(position, future);
+            future.complete(null);
+        }
+
+        return future;
+    }
+
+    /**
+     * @param positions the target positions, channels with target 0 are ignored
+     * @return a future completed when all the channels reach the given positions
+     */
+    public CompletableFuture<Void> whenReached(Map<Short, Long> positions) {
+        ArrayList<CompletableFuture<Void>> futures = new ArrayList<>(positions.size());
+
+        for (Map.Entry<Short, Long> entry : positions.entrySet()) {
+            long position = entry.getValue();
+            if (position == 0L)
+                continue;
+
+            CompletableFuture<Void> future = whenReached(entry.getKey(), position);
+            if (!future.isDone())
+                futures.add(future);
+        }
+
+        if (futures.isEmpty())
+            return CompletableFuture.completedFuture(null);
+        else if (futures.size() == 1)
+            return futures.get(0);
+        else
+            return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Blocks until all the channels reach the given positions.
+     *
+     * @param positions the target positions, channels with target 0 are ignored
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public void await(Map<Short, Long> positions) throws InterruptedException {
+        try {
+            whenReached(positions).get();
+        } catch (ExecutionException e) {
+            throw new Error("Unexpected exception", e.getCause());
+        }
+    }
+
+}
@@ -9,7 +9,6 @@ import eu.modernmt.lang.LanguageIndex;
 import eu.modernmt.model.ImportJob;
 import eu.modernmt.model.Memory;
 import eu.modernmt.model.corpus.MultilingualCorpus;
-import eu.modernmt.model.corpus.TUReader;
 import eu.modernmt.model.corpus.TranslationUnit;
 import eu.modernmt.processing.Preprocessor;
 import org.apache.commons.io.IOUtils;
@@ -78,8 +77,6 @@ public class KafkaBinaryLog implements BinaryLog {
         this.port = config.getPort();
         this.name = config.getName();
 
-        this.pollingThread = new LogDataPollingThread(languages, preprocessor, aligner, this);
-
         // initialize the two required kafkaChannels with proper names
         // and put them in an array "channels"
         this.channels = new KafkaChannel[2];
@@ -98,6 +95,8 @@ public class KafkaBinaryLog implements BinaryLog {
             this.partitions.add(channel.getTopicPartition());
             this.name2channel.put(channel.getName(), channel);
         }
+
+        this.pollingThread = new LogDataPollingThread(languages, preprocessor, aligner, this);
     }
 
     /**
@@ -274,40 +273,49 @@ public class KafkaBinaryLog implements BinaryLog {
 
     @Override
     public ImportJob upload(Memory memory, MultilingualCorpus corpus, LogChannel channel) throws BinaryLogException {
+        return upload(memory, corpus, null, channel);
+    }
+
+    /**
+     * Writes the content of the corpus as bulk packets and, if the upload is a bulk import, its marker.
+     */
+    private ImportJob upload(Memory memory, MultilingualCorpus corpus, UUID bulkImport, LogChannel channel) throws BinaryLogException {
         if (this.producer == null)
             throw new IllegalStateException("connect() not called");
 
         if (logger.isDebugEnabled())
             logger.debug("Uploading memory " + memory);
 
-        TUReader reader = null;
+        BulkPacketReader reader = null;
 
         long importBegin, importEnd;
-        int size = 0;
+        int size;
 
         try {
-            reader = corpus.getContentReader();
+            reader = new BulkPacketReader(memory, corpus.getContentReader(), bulkImport);
 
-            TranslationUnit tu = reader.read();
-            if (tu == null)
+            KafkaPacket packet = reader.read();
+            if (packet == null)
                 return null;
 
-            importEnd = importBegin = sendElement(KafkaPacket.createAddition(memory.getOwner(), memory.getId(), tu), true, channel);
-            size++;
+            importEnd = importBegin = sendElement(packet, true, channel);
 
-            tu = reader.read();
+            packet = reader.read();
 
-            while (tu != null) {
-                TranslationUnit current = tu;
-                tu = reader.read();
+            while (packet != null) {
+                KafkaPacket current = packet;
+                packet = reader.read();
 
-                if (tu == null)
-                    importEnd = sendElement(KafkaPacket.createAddition(memory.getOwner(), memory.getId(), current), true, channel);
+                if (packet == null)
+                    importEnd = sendElement(current, true, channel);
                 else
-                    sendElement(KafkaPacket.createAddition(memory.getOwner(), memory.getId(), current), false, channel);
-
-                size++;
+                    sendElement(current, false, channel);
             }
+
+            size = reader.getSize();
+
+            if (bulkImport != null)
+                importEnd = sendElement(KafkaPacket.createBulkImport(memory.getOwner(), memory.getId(), bulkImport, size), true, channel);
         } catch (IOException e) {
             throw new BinaryLogException("Failed to read corpus for memory " + memory, e);
         } finally {
@@ -377,6 +385,11 @@ public class KafkaBinaryLog implements BinaryLog {
         sendElement(KafkaPacket.createDeletion(memory.getOwner(), memory.getId()), true, channel);
     }
 
+    @Override
+    public ImportJob uploadBulkImport(Memory memory, MultilingualCorpus corpus, UUID id, short channel) throws BinaryLogException {
+        return upload(memory, corpus, id, getLogChannel(channel));
+    }
+
     private long sendElement(KafkaPacket packet, boolean sync, LogChannel channel) throws BinaryLogException {
         pollingThread.ensureRunning();
 
@@ -408,7 +421,7 @@ public class KafkaBinaryLog implements BinaryLog {
 
     @Override
     public Map<Short, Long> getChannelsPositions() {
-        return pollingThread.getCurrentPositions();
+        return pollingThread.getPositions();
     }
 
     @Override
@@ -421,30 +434,7 @@ public class KafkaBinaryLog implements BinaryLog {
 
     @Override
     public void waitChannelPositions(Map<Short, Long> positions) throws InterruptedException {
-        while (true) {
-            Map<Short, Long> current = this.pollingThread.getCurrentPositions();
-            boolean wait = false;
-
-            for (Map.Entry<Short, Long> entry : positions.entrySet()) {
-                Short channel = entry.getKey();
-                Long targetPosition = entry.getValue();
-
-                if (targetPosition == 0L)
-                    continue;
-
-                Long position = current.get(channel);
-
-                if (position == null || position < targetPosition) {
-                    wait = true;
-                    break;
-                }
-            }
-
-            if (!wait)
-                break;
-
-            Thread.sleep(500);
-        }
+        pollingThread.getPositionTracker().await(positions);
     }
 
     @Override
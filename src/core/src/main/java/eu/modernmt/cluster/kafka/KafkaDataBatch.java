@@ -2,6 +2,7 @@ package eu.modernmt.cluster.kafka;
 
 import eu.modernmt.aligner.Aligner;
 import eu.modernmt.aligner.AlignerException;
+import eu.modernmt.data.BulkImportMessage;
 import eu.modernmt.data.DataBatch;
 import eu.modernmt.data.DeletionMessage;
 import eu.modernmt.data.TranslationUnitMessage;
@@ -15,34 +16,52 @@ import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Created by davide on 06/09/16.
  */
-class KafkaDataBatch implements DataBatch {
+public class KafkaDataBatch implements DataBatch {
 
     private final ArrayList<TranslationUnitMessage> translationUnits = new ArrayList<>();
     private final ArrayList<DeletionMessage> deletions = new ArrayList<>();
+    private final ArrayList<BulkImportMessage> bulkImports = new ArrayList<>();
     private final HashMap<Short, Long> currentPositions = new HashMap<>();
 
     private final LanguageIndex languageIndex;
     private final Preprocessor preprocessor;
     private final Aligner aligner;
     private final KafkaBinaryLog manager;
+    private final ExecutorService executor;
 
     private final Stack<DataPartition> cachedPartitions = new Stack<>();
     private final HashMap<LanguageDirection, DataPartition> cachedDataSet = new HashMap<>();
 
     public KafkaDataBatch(LanguageIndex languageIndex, Preprocessor preprocessor, Aligner aligner, KafkaBinaryLog manager) {
+        this(languageIndex, preprocessor, aligner, manager, null);
+    }
+
+    /**
+     * @param manager  the Kafka binary log the records are polled from, it can be null
+     *                 if the batch is only loaded with {@link #load(Collection, boolean, boolean)}
+     * @param executor the executor used to process the partitions of different language directions
+     *                 in parallel, or null to process them sequentially on the loading thread
+     */
+    public KafkaDataBatch(LanguageIndex languageIndex, Preprocessor preprocessor, Aligner aligner, KafkaBinaryLog manager,
+                          ExecutorService executor) {
         this.languageIndex = languageIndex;
         this.preprocessor = preprocessor;
         this.aligner = aligner;
         this.manager = manager;
+        this.executor = executor;
     }
 
     public void clear() {
         translationUnits.clear();
         deletions.clear();
+        bulkImports.clear();
         currentPositions.clear();
     }
 
@@ -66,40 +85,110 @@ class KafkaDataBatch implements DataBatch {
 
         for (ConsumerRecord<Integer, KafkaPacket> record : records) {
             KafkaChannel channel = this.manager.getChannel(record.topic());
-            long offset = record.offset();
-            short channelId = channel.getId();
-
-            Long previousOffset = this.currentPositions.get(channelId);
-            if (previousOffset == null || previousOffset < offset)
-                this.currentPositions.put(channelId, offset);
 
             KafkaPacket packet = record.value();
-            packet.setChannelInfo(channelId, offset);
-            byte packetType = packet.getType();
+            packet.setChannelInfo(channel.getId(), record.offset());
+            add(packet, size);
+        }
 
-            if (packetType == KafkaPacket.TYPE_DELETION) {
-                deletions.add(packet.asDeletion());
-            } else {
-                LanguageDirection direction = languageIndex.mapIgnoringDirection(packet.getDirection());
-                if (direction == null)
-                    direction = LanguageCache.defaultMapping(packet.getDirection()); // No specific rule in languageIndex
+        process(process, align);
+    }
 
-                DataPartition partition = cachedDataSet.computeIfAbsent(direction, key -> getDataPartition(key, size));
-                partition.add(packet);
-            }
+    /**
+     * Loads the given packets, that must already have their channel info.
+     *
+     * @param packets the packets to load
+     * @param process true if the translation units must be preprocessed
+     * @param align   true if the translation units must be aligned
+     */
+    public void load(Collection<KafkaPacket> packets, boolean process, boolean align) throws ProcessingException, AlignerException, InterruptedException {
+        this.clear();
+        int size = packets.size();
+        this.cachedDataSet.clear();
+
+        for (KafkaPacket packet : packets)
+            add(packet, size);
+
+        process(process, align);
+    }
+
+    private void add(KafkaPacket packet, int size) {
+        short channelId = packet.getChannel();
+        long offset = packet.getPosition();
+
+        Long previousOffset = this.currentPositions.get(channelId);
+        if (previousOffset == null || previousOffset < offset)
+            this.currentPositions.put(channelId, offset);
+
+        if (packet.getType() == KafkaPacket.TYPE_DELETION) {
+            deletions.add(packet.asDeletion());
+        } else if (packet.getType() == KafkaPacket.TYPE_BULK_IMPORT) {
+            bulkImports.add(packet.asBulkImport());
+        } else {
+            LanguageDirection direction = languageIndex.mapIgnoringDirection(packet.getDirection());
+            if (direction == null)
+                direction = LanguageCache.defaultMapping(packet.getDirection()); // No specific rule in languageIndex
+
+            DataPartition partition = cachedDataSet.computeIfAbsent(direction, key -> getDataPartition(key, size));
+            for (KafkaPacket unit : packet.expand())
+                partition.add(unit);
         }
+    }
 
+    private void process(boolean process, boolean align) throws ProcessingException, AlignerException, InterruptedException {
         // Process translation units
+        if (executor == null || cachedDataSet.size() < 2) {
+            for (DataPartition partition : cachedDataSet.values())
+                partition.process(process, align);
+        } else {
+            processInParallel(cachedDataSet.values(), process, align);
+        }
+
         for (DataPartition partition : cachedDataSet.values()) {
-            partition.process(process, align, this.translationUnits);
+            translationUnits.addAll(partition.output);
             releaseDataPartition(partition);
         }
 
         this.cachedDataSet.clear();
     }
 
+    private void processInParallel(Collection<DataPartition> partitions, boolean process, boolean align) throws ProcessingException, AlignerException, InterruptedException {
+        ArrayList<Future<Void>> results = new ArrayList<>(partitions.size());
+
+        try {
+            for (DataPartition partition : partitions) {
+                results.add(executor.submit(() -> {
+                    partition.process(process, align);
+                    return null;
+                }));
+            }
+
+            for (Future<Void> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+
+                    if (cause instanceof ProcessingException)
+                        throw (ProcessingException) cause;
+                    else if (cause instanceof AlignerException)
+                        throw (AlignerException) cause;
+                    else if (cause instanceof InterruptedException)
+                        throw (InterruptedException) cause;
+                    else if (cause instanceof RuntimeException)
+                        throw (RuntimeException) cause;
+                    else
+                        throw new Error("Unexpected exception", cause);
+                }
+            }
+        } finally {
+            for (Future<Void> result : results)
+                result.cancel(true);
+        }
+    }
+
     public int size() {
-        return translationUnits.size() + deletions.size();
+        return translationUnits.size() + deletions.size() + bulkImports.size();
     }
 
     @Override
@@ -112,6 +201,11 @@ class KafkaDataBatch implements DataBatch {
         return deletions;
     }
 
+    @Override
+    public Collection<BulkImportMessage> getBulkImports() {
+        return bulkImports;
+    }
+
     @Override
     public Map<Short, Long> getChannelPositions() {
         return currentPositions;
@@ -123,6 +217,7 @@ class KafkaDataBatch implements DataBatch {
         public final ArrayList<KafkaPacket> packets = new ArrayList<>();
         public final ArrayList<String> sources = new ArrayList<>();
         public final ArrayList<String> targets = new ArrayList<>();
+        public final ArrayList<TranslationUnitMessage> output = new ArrayList<>();
 
         public DataPartition reset(LanguageDirection direction, int size) {
             this.clear();
@@ -131,6 +226,7 @@ class KafkaDataBatch implements DataBatch {
             packets.ensureCapacity(size);
             sources.ensureCapacity(size);
             targets.ensureCapacity(size);
+            output.ensureCapacity(size);
 
             return this;
         }
@@ -139,6 +235,7 @@ class KafkaDataBatch implements DataBatch {
             packets.clear();
             sources.clear();
             targets.clear();
+            output.clear();
 
             return this;
         }
@@ -149,7 +246,7 @@ class KafkaDataBatch implements DataBatch {
             targets.add(packet.getTranslation());
         }
 
-        public void process(boolean process, boolean align, Collection<TranslationUnitMessage> output) throws ProcessingException, AlignerException, InterruptedException {
+        public void process(boolean process, boolean align) throws ProcessingException, AlignerException, InterruptedException {
             if (packets.isEmpty())
                 return;
 
@@ -1,5 +1,6 @@
 package eu.modernmt.cluster.kafka;
 
+import eu.modernmt.data.BulkImportMessage;
 import eu.modernmt.data.DeletionMessage;
 import eu.modernmt.data.TranslationUnitMessage;
 import eu.modernmt.io.ByteStream;
@@ -7,8 +8,14 @@ import eu.modernmt.lang.LanguageDirection;
 import eu.modernmt.model.Alignment;
 import eu.modernmt.model.Sentence;
 import eu.modernmt.model.corpus.TranslationUnit;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -20,6 +27,12 @@ public class KafkaPacket {
     public static final byte TYPE_ADDITION = 0x01;
     public static final byte TYPE_OVERWRITE_BY_VALUE = 0x02;
     public static final byte TYPE_OVERWRITE_BY_TUID = 0x03;
+    public static final byte TYPE_BULK_ADDITION = 0x04;
+    public static final byte TYPE_BULK_IMPORT = 0x05;
+    public static final byte TYPE_BULK_IMPORT_ADDITION = 0x06;
+
+    private static final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
 
     private short channel = -1;
     private long position = -1;
@@ -34,6 +47,9 @@ public class KafkaPacket {
     private final Date timestamp;
     private final String previousSentence;
     private final String previousTranslation;
+    private final List<TranslationUnit> units;
+    private final UUID importId;
+    private final int importSize;
 
     public static KafkaPacket createDeletion(UUID owner, long memory) {
         return new KafkaPacket(TYPE_DELETION, owner, memory, null, null, null, null, null, null, null);
@@ -51,9 +67,56 @@ public class KafkaPacket {
         return new KafkaPacket(TYPE_OVERWRITE_BY_VALUE, owner, memory, tu.language, tu.tuid, tu.source, tu.target, tu.timestamp, previousSentence, previousTranslation);
     }
 
+    /**
+     * Creates a single packet containing many additions to the same memory. The translation units
+     * share owner, memory and language direction, that are stored once, while their content is compressed.
+     *
+     * @param direction the language direction of all the translation units
+     * @param units     the translation units to add, their language is ignored
+     * @return a new bulk packet
+     */
+    public static KafkaPacket createBulkAddition(UUID owner, long memory, LanguageDirection direction, List<TranslationUnit> units) {
+        return new KafkaPacket(TYPE_BULK_ADDITION, owner, memory, direction, new ArrayList<>(units), null);
+    }
+
+    /**
+     * Creates a bulk packet containing part of the content of a bulk import: it is written before
+     * the marker of the import, for the listeners that do not have its offline data.
+     *
+     * @param id        the id of the bulk import
+     * @param direction the language direction of all the translation units
+     * @param units     the translation units to add, their language is ignored
+     * @return a new bulk packet
+     */
+    public static KafkaPacket createBulkImportAddition(UUID owner, long memory, UUID id, LanguageDirection direction, List<TranslationUnit> units) {
+        return new KafkaPacket(TYPE_BULK_IMPORT_ADDITION, owner, memory, direction, new ArrayList<>(units), id);
+    }
+
+    /**
+     * Creates the marker of a bulk import, whose content has been loaded offline.
+     *
+     * @param id   the id of the bulk import
+     * @param size the number of translation units imported
+     * @return a new bulk import marker
+     */
+    public static KafkaPacket createBulkImport(UUID owner, long memory, UUID id, int size) {
+        return new KafkaPacket(TYPE_BULK_IMPORT, owner, memory, null, null, null, null, null, null, null, null, id, size);
+    }
+
+    private KafkaPacket(byte type, UUID owner, long memory, LanguageDirection direction, List<TranslationUnit> units, UUID importId) {
+        this(type, owner, memory, direction, null, null, null, null, null, null, units, importId, 0);
+    }
+
     private KafkaPacket(byte type, UUID owner, long memory,
                         LanguageDirection direction, String tuid, String sentence, String translation, Date timestamp,
                         String previousSentence, String previousTranslation) {
+        this(type, owner, memory, direction, tuid, sentence, translation, timestamp, previousSentence, previousTranslation, null, null, 0);
+    }
+
+    private KafkaPacket(byte type, UUID owner, long memory,
+                        LanguageDirection direction, String tuid, String sentence, String translation, Date timestamp,
+                        String previousSentence, String previousTranslation, List<TranslationUnit> units,
+                        UUID importId, int importSize) {
         this.type = type;
         this.owner = owner;
         this.memory = memory;
@@ -66,6 +129,9 @@ public class KafkaPacket {
 
         this.previousSentence = previousSentence;
         this.previousTranslation = previousTranslation;
+        this.units = units;
+        this.importId = importId;
+        this.importSize = importSize;
     }
 
     public void setChannelInfo(short channel, long position) {
@@ -73,6 +139,14 @@ public class KafkaPacket {
         this.position = position;
     }
 
+    public short getChannel() {
+        return channel;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
     public byte getType() {
         return type;
     }
@@ -93,6 +167,47 @@ public class KafkaPacket {
         return translation;
     }
 
+    /**
+     * @return the number of translation units contained in this packet
+     */
+    public int size() {
+        if (type == TYPE_DELETION || type == TYPE_BULK_IMPORT)
+            return 0;
+        return units == null ? 1 : units.size();
+    }
+
+    private boolean isBulk() {
+        return type == TYPE_BULK_ADDITION || type == TYPE_BULK_IMPORT_ADDITION;
+    }
+
+    /**
+     * Expands a bulk packet in the single additions it contains; all of them share the
+     * channel info and the bulk import id of this packet. Any other packet is returned as is.
+     *
+     * @return the list of packets contained in this packet
+     */
+    public List<KafkaPacket> expand() {
+        if (!isBulk())
+            return Collections.singletonList(this);
+
+        ArrayList<KafkaPacket> packets = new ArrayList<>(units.size());
+        for (TranslationUnit tu : units) {
+            KafkaPacket packet = new KafkaPacket(TYPE_ADDITION, owner, memory, direction,
+                    tu.tuid, tu.source, tu.target, tu.timestamp, null, null, null, importId, 0);
+            packet.setChannelInfo(channel, position);
+            packets.add(packet);
+        }
+
+        return packets;
+    }
+
+    public BulkImportMessage asBulkImport() {
+        if (channel < 0 || position < 0)
+            throw new IllegalStateException("Call setChannelInfo() before parsing methods.");
+
+        return new BulkImportMessage(channel, position, importId, owner, memory, importSize);
+    }
+
     public DeletionMessage asDeletion() {
         if (channel < 0 || position < 0)
             throw new IllegalStateException("Call setChannelInfo() before parsing methods.");
@@ -107,13 +222,15 @@ public class KafkaPacket {
     public TranslationUnitMessage asTranslationUnit(LanguageDirection language, Sentence sSentence, Sentence sTranslation, Alignment alignment) {
         if (channel < 0 || position < 0)
             throw new IllegalStateException("Call setChannelInfo() before parsing methods.");
+        if (isBulk())
+            throw new IllegalStateException("Call expand() before parsing a bulk packet.");
 
         boolean update = (type == TYPE_OVERWRITE_BY_VALUE) || (type == TYPE_OVERWRITE_BY_TUID);
         TranslationUnit tu = new TranslationUnit(this.tuid, this.direction, this.sentence, this.translation, this.timestamp);
 
         return new TranslationUnitMessage(channel, position, memory, owner, tu,
                 update, previousSentence, previousTranslation,
-                language, sSentence, sTranslation, alignment);
+                language, sSentence, sTranslation, alignment, importId);
     }
 
     public static KafkaPacket fromBytes(byte[] data) {
@@ -124,8 +241,15 @@ public class KafkaPacket {
 
         if (type == TYPE_DELETION)
             return createDeletion(owner, memory);
+        if (type == TYPE_BULK_IMPORT)
+            return createBulkImport(owner, memory, buffer.readUUID(), buffer.readInt());
 
+        final UUID importId = type == TYPE_BULK_IMPORT_ADDITION ? buffer.readUUID() : null;
         final LanguageDirection language = new LanguageDirection(buffer.readLanguage(), buffer.readLanguage());
+
+        if (type == TYPE_BULK_ADDITION || type == TYPE_BULK_IMPORT_ADDITION)
+            return new KafkaPacket(type, owner, memory, language, readBulkContent(buffer, language), importId);
+
         final String sentence = buffer.readString();
         final String translation = buffer.readString();
         final Date timestamp = buffer.readDate();
@@ -143,6 +267,42 @@ public class KafkaPacket {
         return new KafkaPacket(type, owner, memory, language, tuid, sentence, translation, timestamp, previousSentence, previousTranslation);
     }
 
+    private static List<TranslationUnit> readBulkContent(ByteStream buffer, LanguageDirection language) {
+        int size = buffer.readInt();
+        int length = buffer.readInt();
+        byte[] compressed = buffer.readBytes();
+
+        ByteStream content = new ByteStream(decompressor.decompress(compressed, length));
+
+        ArrayList<TranslationUnit> units = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String tuid = content.readString();
+            String sentence = content.readString();
+            String translation = content.readString();
+            Date timestamp = content.readDate();
+
+            units.add(new TranslationUnit(tuid, language, sentence, translation, timestamp));
+        }
+
+        return units;
+    }
+
+    private static void writeBulkContent(ByteStream buffer, List<TranslationUnit> units) {
+        ByteStream content = new ByteStream(units.size() * 128);
+        for (TranslationUnit tu : units) {
+            content.write(tu.tuid)
+                    .write(tu.source)
+                    .write(tu.target)
+                    .write(tu.timestamp);
+        }
+
+        byte[] bytes = content.toArray();
+
+        buffer.write(units.size())
+                .write(bytes.length)
+                .write(compressor.compress(bytes));
+    }
+
     public byte[] toBytes() {
         ByteStream buffer = new ByteStream();
         buffer
@@ -153,9 +313,25 @@ public class KafkaPacket {
         if (type == TYPE_DELETION)
             return buffer.toArray();
 
+        if (type == TYPE_BULK_IMPORT) {
+            buffer.write(importId)
+                    .write(importSize);
+            return buffer.toArray();
+        }
+
+        if (type == TYPE_BULK_IMPORT_ADDITION)
+            buffer.write(importId);
+
         buffer
                 .write(direction.source)
-                .write(direction.target)
+                .write(direction.target);
+
+        if (isBulk()) {
+            writeBulkContent(buffer, units);
+            return buffer.toArray();
+        }
+
+        buffer
                 .write(sentence)
                 .write(translation)
                 .write(timestamp);
@@ -172,6 +348,27 @@ public class KafkaPacket {
 
     @Override
     public String toString() {
+        if (type == TYPE_BULK_IMPORT) {
+            return "KafkaPacket{" +
+                    "type=" + type +
+                    ", owner=" + owner +
+                    ", memory=" + memory +
+                    ", importId=" + importId +
+                    ", importSize=" + importSize +
+                    '}';
+        }
+
+        if (isBulk()) {
+            return "KafkaPacket{" +
+                    "type=" + type +
+                    ", owner=" + owner +
+                    ", memory=" + memory +
+                    ", importId=" + importId +
+                    ", direction=" + direction +
+                    ", size=" + units.size() +
+                    '}';
+        }
+
         return "KafkaPacket{" +
                 "type=" + type +
                 ", owner=" + owner +
@@ -0,0 +1,123 @@
+package eu.modernmt.cluster.kafka;
+
+import eu.modernmt.data.DataBatch;
+import eu.modernmt.data.LogChannel;
+import eu.modernmt.data.LogDataListener;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Operations on the listeners of a binary log shared by the polling threads of the Kafka and
+ * the file-based implementations.
+ */
+public class LogDataListeners {
+
+    private static final Logger logger = LogManager.getLogger(LogDataListeners.class);
+
+    private LogDataListeners() {
+    }
+
+    /**
+     * Computes the positions reached by all the listeners: the position of a channel is the offset
+     * of the next record to read, that is the minimum offset consumed by the listeners plus one, or 0
+     * if at least one listener has not consumed any record of the channel.
+     *
+     * @param listeners the listeners of the binary log
+     * @param channels  the channels of the binary log
+     * @return the position of every channel
+     */
+    public static Map<Short, Long> getCurrentPositions(Collection<LogDataListener> listeners, LogChannel[] channels) {
+        HashMap<Short, Long> result = null;
+
+        for (LogDataListener listener : listeners) {
+            Map<Short, Long> latestPositions = listener.getLatestChannelPositions();
+
+            logger.debug("DataListener[" + listener.getClass().getSimpleName() + "]: channel positions = " + latestPositions);
+
+            if (latestPositions == null || latestPositions.isEmpty()) {
+                result = null;
+                break;
+            }
+
+            if (result == null) {
+                result = new HashMap<>(latestPositions);
+            } else {
+                for (LogChannel channel : channels) {
+                    short channelId = channel.getId();
+
+                    Long v0 = result.get(channelId);
+                    Long v1 = latestPositions.get(channelId);
+
+                    long value = (v1 == null || v0 == null) ? -1L : Math.min(v0, v1);
+
+                    result.put(channelId, value);
+                }
+            }
+        }
+
+        if (result == null)
+            result = new HashMap<>();
+
+        // Normalize result
+        for (LogChannel channel : channels)
+            result.putIfAbsent(channel.getId(), -1L);
+
+        for (Map.Entry<Short, Long> entry : result.entrySet()) {
+            long value = entry.getValue();
+            entry.setValue(value < 0 ? 0 : value + 1);
+        }
+
+        return result;
+    }
+
+    /**
+     * Delivers the batch to all the listeners in parallel and waits for them to complete.
+     * Unless interrupted, the method returns only when every listener has returned, even if some
+     * of them failed, so that the batch can be safely reused afterwards.
+     *
+     * @param executor  the executor running the listeners
+     * @param listeners the listeners of the binary log
+     * @param batch     the batch to deliver
+     * @throws InterruptedException if interrupted while waiting: listeners may still be reading the batch
+     * @throws Exception             the first exception thrown by a listener, with the following ones as suppressed
+     */
+    public static void deliver(ExecutorService executor, Collection<LogDataListener> listeners, DataBatch batch) throws Exception {
+        int index = 0;
+        Future[] results = new Future[listeners.size()];
+
+        for (final LogDataListener listener : listeners) {
+            results[index++] = executor.submit(() -> {
+                listener.onDataReceived(batch);
+                return null;
+            });
+        }
+
+        // wait for all the listeners, even after a failure: the batch must not be reused while
+        // a listener is still reading it
+        Throwable failure = null;
+
+        for (Future<?> future : results) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null)
+                    failure = e.getCause();
+                else
+                    failure.addSuppressed(e.getCause());
+            }
+        }
+
+        if (failure instanceof Exception)
+            throw (Exception) failure;
+        else if (failure != null)
+            throw new Error("Unexpected exception", failure);
+    }
+
+}
@@ -9,40 +9,56 @@ import eu.modernmt.lang.LanguageIndex;
 import eu.modernmt.processing.Preprocessor;
 import eu.modernmt.processing.ProcessingException;
 import org.apache.commons.io.IOUtils;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
-import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.common.errors.WakeupException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.*;
 
 /**
  * Created by davide on 06/09/16.
+ * <p>
+ * Ingestion is a pipeline of three stages: this thread polls the records from Kafka, a pool of threads
+ * preprocesses and aligns them (every language direction in parallel) and the DeliveryThread delivers
+ * the batches to the listeners, in the same order they have been polled.
+ * The number of batches in the pipeline is bounded: when the listeners fall behind, polling stops
+ * until a batch is delivered.
+ * After every delivered batch the positions reached by all the listeners are published to the
+ * ChannelPositionTracker, so that the threads waiting for a position are notified without polling.
  */
 class LogDataPollingThread extends Thread {
 
-    private final Logger logger = LogManager.getLogger(KafkaBinaryLog.class);
+    private static final int PIPELINE_DEPTH = 3;
+    private static final Future<KafkaDataBatch> POISON_PILL = CompletableFuture.completedFuture(null);
 
-    private final KafkaDataBatch batch;
+    private final Logger logger = LogManager.getLogger(KafkaBinaryLog.class);
 
-    private BinaryLogException exception;
-    private KafkaConsumer<Integer, KafkaPacket> consumer;
-    private boolean interrupted;
+    private volatile BinaryLogException exception;
+    private Consumer<Integer, KafkaPacket> consumer;
+    private volatile boolean interrupted;
     private final ArrayList<LogDataListener> listeners = new ArrayList<>(10);
     private BinaryLog.Listener binaryLogListener = null;
     private KafkaBinaryLog manager;
 
     private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ExecutorService processingExecutor = Executors.newCachedThreadPool();
+    private final BlockingQueue<KafkaDataBatch> freeBatches = new ArrayBlockingQueue<>(PIPELINE_DEPTH);
+    private final BlockingQueue<Future<KafkaDataBatch>> loadingBatches = new LinkedBlockingQueue<>();
+    private final DeliveryThread deliveryThread = new DeliveryThread();
+    private final ChannelPositionTracker positionTracker;
 
     public LogDataPollingThread(LanguageIndex languages, Preprocessor preprocessor, Aligner aligner, KafkaBinaryLog manager) {
         super("DataPollingThread");
         this.manager = manager;
-        this.batch = new KafkaDataBatch(languages, preprocessor, aligner, manager);
+        this.positionTracker = new ChannelPositionTracker(manager.getChannels().length);
+
+        for (int i = 0; i < PIPELINE_DEPTH; i++)
+            this.freeBatches.add(new KafkaDataBatch(languages, preprocessor, aligner, manager, processingExecutor));
     }
 
     public void ensureRunning() throws BinaryLogException {
@@ -60,10 +76,12 @@ class LogDataPollingThread extends Thread {
         this.listeners.add(listener);
     }
 
-    public void start(KafkaConsumer<Integer, KafkaPacket> consumer) {
+    public void start(Consumer<Integer, KafkaPacket> consumer) {
         this.consumer = consumer;
         this.interrupted = false;
 
+        this.positionTracker.update(getCurrentPositions());
+        this.deliveryThread.start();
         super.start();
     }
 
@@ -75,57 +93,32 @@ class LogDataPollingThread extends Thread {
     public void shutdownNow() {
         this.shutdown();
         this.interrupt();
+        this.deliveryThread.interrupt();
     }
 
     public boolean awaitTermination(TimeUnit unit, long timeout) throws InterruptedException {
-        unit.timedJoin(this, timeout);
-        return !this.isAlive();
-    }
-
-    public Map<Short, Long> getCurrentPositions() {
-        KafkaChannel[] channels = this.manager.getChannels();
-
-        HashMap<Short, Long> result = null;
-
-        for (LogDataListener listener : listeners) {
-            Map<Short, Long> latestPositions = listener.getLatestChannelPositions();
-
-            logger.debug("DataListener[" + listener.getClass().getSimpleName() + "]: channel positions = " + latestPositions);
-
-            if (latestPositions == null || latestPositions.isEmpty()) {
-                result = null;
-                break;
-            }
-
-            if (result == null) {
-                result = new HashMap<>(latestPositions);
-            } else {
-                for (KafkaChannel channel : channels) {
-                    short channelId = channel.getId();
-
-                    Long v0 = result.get(channelId);
-                    Long v1 = latestPositions.get(channelId);
-
-                    long value = (v1 == null || v0 == null) ? -1L : Math.min(v0, v1);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
 
-                    result.put(channelId, value);
-                }
-            }
-        }
+        TimeUnit.NANOSECONDS.timedJoin(this, deadline - System.nanoTime());
+        TimeUnit.NANOSECONDS.timedJoin(deliveryThread, deadline - System.nanoTime());
 
-        if (result == null)
-            result = new HashMap<>();
+        return !this.isAlive() && !deliveryThread.isAlive();
+    }
 
-        // Normalize result
-        for (KafkaChannel channel : channels)
-            result.putIfAbsent(channel.getId(), -1L);
+    public ChannelPositionTracker getPositionTracker() {
+        return positionTracker;
+    }
 
-        for (Map.Entry<Short, Long> entry : result.entrySet()) {
-            long value = entry.getValue();
-            entry.setValue(value < 0 ? 0 : value + 1);
-        }
+    /**
+     * @return the positions published after the last delivered batch if the thread has been started,
+     * the positions computed from the listeners otherwise
+     */
+    public Map<Short, Long> getPositions() {
+        return this.isAlive() ? positionTracker.getPositions() : getCurrentPositions();
+    }
 
-        return result;
+    public Map<Short, Long> getCurrentPositions() {
+        return LogDataListeners.getCurrentPositions(listeners, manager.getChannels());
     }
 
     @Override
@@ -146,40 +139,46 @@ class LogDataPollingThread extends Thread {
                     align |= listener.needsAlignment();
                 }
 
+                // wait for a batch to be delivered if the pipeline is full
+                KafkaDataBatch batch = null;
+                while (batch == null && !interrupted)
+                    batch = freeBatches.poll(500, TimeUnit.MILLISECONDS);
+
+                if (batch == null)
+                    break;
+
                 if (logger.isDebugEnabled())
                     logger.debug("Loading batch of " + records.count() + " records: " +
                             "process=" + process + ", align=" + align);
-                batch.load(records, process, align);
-
-                if (logger.isDebugEnabled())
-                    logger.debug("Delivering batch of " + batch.size() + " updates");
-
-                try {
-                    deliverBatch(batch);
-                } catch (Throwable e) {
-                    logger.error("Failed to delivery updates", e);
-                }
-
-                if (binaryLogListener != null)
-                    binaryLogListener.onLogDataBatchProcessed(batch.getChannelPositions());
 
-                batch.clear();
+                loadingBatches.put(load(batch, records, process, align));
             } catch (WakeupException | InterruptedException e) {
                 // Shutdown request
                 break;
             } catch (RuntimeException e) {
+                if (interrupted)
+                    break;  // the pipeline has been stopped by the DeliveryThread
+
                 exception = new BinaryLogException("Unexpected exception while data-stream polling", e);
                 logger.error(exception.getMessage(), e);
                 break;
-            } catch (AlignerException | ProcessingException e) {
-                exception = new BinaryLogException("Failed to parse update batch", e);
-                logger.error(exception.getMessage(), e);
-                break;
             }
         }
 
         IOUtils.closeQuietly(consumer);
-        executor.shutdownNow();
+
+        // batches already polled are not delivered if the pipeline has been stopped,
+        // they will be polled again from the last delivered position
+        interrupted = true;
+        loadingBatches.add(POISON_PILL);
+    }
+
+    private Future<KafkaDataBatch> load(KafkaDataBatch batch, ConsumerRecords<Integer, KafkaPacket> records,
+                                        boolean process, boolean align) {
+        return processingExecutor.submit(() -> {
+            batch.load(records, process, align);
+            return batch;
+        });
     }
 
     private void deliverBatch(KafkaDataBatch batch) throws Exception {
@@ -188,44 +187,82 @@ class LogDataPollingThread extends Thread {
             return;
         }
 
-        int index = 0;
-        Future[] results = new Future[listeners.size()];
-
-        for (final LogDataListener listener : listeners)
-            results[index++] = executor.submit(new DeliveryTask(batch, listener));
-
-        for (Future<?> future : results) {
-            try {
-                future.get();
-            } catch (ExecutionException e) {
-                Throwable cause = e.getCause();
-
-                if (cause instanceof Exception)
-                    throw (Exception) cause;
-                else
-                    throw new Error("Unexpected exception", cause);
-            }
-        }
+        LogDataListeners.deliver(executor, listeners, batch);
 
         if (logger.isDebugEnabled())
             logger.info("DataBatch delivered of size " + batch.size() + ", channels = " + batch.getChannelPositions());
     }
 
-    private static final class DeliveryTask implements Callable<Void> {
-
-        private final KafkaDataBatch batch;
-        private final LogDataListener listener;
+    private class DeliveryThread extends Thread {
 
-        public DeliveryTask(KafkaDataBatch batch, LogDataListener listener) {
-            this.batch = batch;
-            this.listener = listener;
+        public DeliveryThread() {
+            super("DataDeliveryThread");
         }
 
         @Override
-        public Void call() throws Exception {
-            listener.onDataReceived(batch);
-            return null;
+        public void run() {
+            while (!interrupted) {
+                Future<KafkaDataBatch> loading;
+                KafkaDataBatch batch;
+
+                try {
+                    loading = loadingBatches.take();
+                    if (loading == POISON_PILL)
+                        break;
+
+                    batch = loading.get();
+                } catch (InterruptedException e) {
+                    // Shutdown request
+                    break;
+                } catch (ExecutionException e) {
+                    onLoadingFailed(e.getCause());
+                    break;
+                }
+
+                if (interrupted)
+                    break;
+
+                if (logger.isDebugEnabled())
+                    logger.debug("Delivering batch of " + batch.size() + " updates");
+
+                try {
+                    deliverBatch(batch);
+                } catch (InterruptedException e) {
+                    // Shutdown request, listeners may still be reading the batch
+                    break;
+                } catch (Throwable e) {
+                    logger.error("Failed to delivery updates", e);
+                }
+
+                positionTracker.update(getCurrentPositions());
+
+                if (binaryLogListener != null)
+                    binaryLogListener.onLogDataBatchProcessed(batch.getChannelPositions());
+
+                batch.clear();
+                freeBatches.add(batch);
+            }
+
+            for (Future<KafkaDataBatch> loading : loadingBatches)
+                loading.cancel(true);
+
+            processingExecutor.shutdownNow();
+            executor.shutdownNow();
         }
+
+        private void onLoadingFailed(Throwable cause) {
+            if (cause instanceof InterruptedException)
+                return;  // Shutdown request
+
+            if (cause instanceof AlignerException || cause instanceof ProcessingException)
+                exception = new BinaryLogException("Failed to parse update batch", cause);
+            else
+                exception = new BinaryLogException("Unexpected exception while data-stream polling", cause);
+
+            logger.error(exception.getMessage(), cause);
+            shutdown();
+        }
+
     }
 
 }
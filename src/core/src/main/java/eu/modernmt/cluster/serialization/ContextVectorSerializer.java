@@ -0,0 +1,32 @@
+package eu.modernmt.cluster.serialization;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+import eu.modernmt.model.ContextVector;
+
+import java.io.IOException;
+
+public class ContextVectorSerializer implements StreamSerializer<ContextVector> {
+
+    @Override
+    public void write(ObjectDataOutput out, ContextVector object) throws IOException {
+        ModelSerialization.writeContextVector(out, object);
+    }
+
+    @Override
+    public ContextVector read(ObjectDataInput in) throws IOException {
+        return ModelSerialization.readContextVector(in);
+    }
+
+    @Override
+    public int getTypeId() {
+        return ModelSerialization.CONTEXT_VECTOR_TYPE_ID;
+    }
+
+    @Override
+    public void destroy() {
+        // Nothing to do
+    }
+
+}
@@ -0,0 +1,429 @@
+package eu.modernmt.cluster.serialization;
+
+import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.config.SerializerConfig;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import eu.modernmt.lang.Language;
+import eu.modernmt.lang.LanguageDirection;
+import eu.modernmt.model.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of the model objects exchanged by cluster members during translation.
+ * <p>
+ * Every token is encoded with a flags byte followed by its strings: the text is omitted when it is
+ * equal to the placeholder, and the most common spaces (none or a single blank) are encoded in the
+ * flags themselves. Tags are re-created with their factory methods, so that their name and DTD
+ * status are not transferred.
+ */
+public class ModelSerialization {
+
+    public static final int SENTENCE_TYPE_ID = 1001;
+    public static final int TRANSLATION_TYPE_ID = 1002;
+    public static final int CONTEXT_VECTOR_TYPE_ID = 1003;
+
+    public static void register(SerializationConfig config) {
+        config.addSerializerConfig(new SerializerConfig()
+                .setTypeClass(Sentence.class).setImplementation(new SentenceSerializer()));
+        config.addSerializerConfig(new SerializerConfig()
+                .setTypeClass(Translation.class).setImplementation(new TranslationSerializer()));
+        config.addSerializerConfig(new SerializerConfig()
+                .setTypeClass(ContextVector.class).setImplementation(new ContextVectorSerializer()));
+    }
+
+    // Token flags
+
+    private static final int SENTENCE_BREAK = 1;
+    private static final int TEXT_SHIFT = 1;
+    private static final int LEFT_SPACE_SHIFT = 3;
+    private static final int RIGHT_SPACE_SHIFT = 5;
+
+    private static final int NULL_VALUE = 0;
+    private static final int DEFAULT_VALUE = 1;  // placeholder for text, single blank for spaces
+    private static final int CUSTOM_VALUE = 2;
+
+    // Word flags
+
+    private static final int LEFT_SPACE_REQUIRED = 1;
+    private static final int RIGHT_SPACE_REQUIRED = 1 << 1;
+    private static final int HIDDEN_LEFT_SPACE = 1 << 2;
+    private static final int HIDDEN_RIGHT_SPACE = 1 << 3;
+
+    // Tag kinds
+
+    private static final byte XML_TAG = 0;
+    private static final byte WHITESPACE_TAG = 1;
+    private static final byte EMOJI_TAG = 2;
+    private static final byte OTHER_TAG = 3;
+
+    private static final Tag.Type[] TAG_TYPES = Tag.Type.values();
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    // Common types
+
+    public static void writeUUID(ObjectDataOutput out, UUID uuid) throws IOException {
+        out.writeBoolean(uuid != null);
+        if (uuid != null) {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        }
+    }
+
+    public static UUID readUUID(ObjectDataInput in) throws IOException {
+        return in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+    }
+
+    public static void writeLanguageDirection(ObjectDataOutput out, LanguageDirection direction) throws IOException {
+        out.writeUTF(direction.source.toLanguageTag());
+        out.writeUTF(direction.target.toLanguageTag());
+    }
+
+    public static LanguageDirection readLanguageDirection(ObjectDataInput in) throws IOException {
+        Language source = Language.fromString(in.readUTF());
+        Language target = Language.fromString(in.readUTF());
+        return new LanguageDirection(source, target);
+    }
+
+    public static void writePriority(ObjectDataOutput out, Priority priority) throws IOException {
+        out.writeByte(priority.ordinal());
+    }
+
+    public static Priority readPriority(ObjectDataInput in) throws IOException {
+        return PRIORITIES[in.readByte()];
+    }
+
+    // Sentence
+
+    static void writeSentence(ObjectDataOutput out, Sentence sentence) throws IOException {
+        writeWords(out, sentence.getWords());
+        writeTags(out, sentence.getTags());
+        writeAnnotations(out, sentence.getAnnotations());
+    }
+
+    static Sentence readSentence(ObjectDataInput in) throws IOException {
+        Word[] words = readWords(in);
+        Tag[] tags = readTags(in);
+
+        Sentence sentence = new Sentence(words, tags);
+        readAnnotations(in, sentence);
+
+        return sentence;
+    }
+
+    // Translation
+
+    static void writeTranslation(ObjectDataOutput out, Translation translation, Sentence parentSource) throws IOException {
+        writeWords(out, translation.getWords());
+        writeTags(out, translation.getTags());
+        writeAnnotations(out, translation.getAnnotations());
+
+        Sentence source = translation.getSource();
+        if (source != null && source == parentSource) {
+            out.writeByte(DEFAULT_VALUE);
+        } else if (source != null) {
+            out.writeByte(CUSTOM_VALUE);
+            writeSentence(out, source);
+        } else {
+            out.writeByte(NULL_VALUE);
+        }
+
+        writeAlignment(out, translation.getWordAlignment());
+
+        out.writeLong(translation.getMemoryLookupTime());
+        out.writeLong(translation.getDecodeTime());
+        out.writeLong(translation.getQueueTime());
+        out.writeInt(translation.getQueueLength());
+
+        List<Translation> nbest = translation.getNbest();
+        out.writeInt(nbest == null ? -1 : nbest.size());
+        if (nbest != null) {
+            for (Translation hypothesis : nbest)
+                writeTranslation(out, hypothesis, source);
+        }
+    }
+
+    static Translation readTranslation(ObjectDataInput in, Sentence parentSource) throws IOException {
+        Word[] words = readWords(in);
+        Tag[] tags = readTags(in);
+        Annotation[] annotations = readAnnotations(in);
+
+        Sentence source;
+        switch (in.readByte()) {
+            case DEFAULT_VALUE:
+                source = parentSource;
+                break;
+            case CUSTOM_VALUE:
+                source = readSentence(in);
+                break;
+            default:
+                source = null;
+                break;
+        }
+
+        Alignment alignment = readAlignment(in);
+
+        Translation translation = new Translation(words, tags, source, alignment);
+        for (Annotation annotation : annotations)
+            translation.addAnnotation(annotation);
+
+        translation.setMemoryLookupTime(in.readLong());
+        translation.setDecodeTime(in.readLong());
+        translation.setQueueTime(in.readLong());
+        translation.setQueueLength(in.readInt());
+
+        int nbestSize = in.readInt();
+        if (nbestSize >= 0) {
+            List<Translation> nbest = new ArrayList<>(nbestSize);
+            for (int i = 0; i < nbestSize; i++)
+                nbest.add(readTranslation(in, source));
+            translation.setNbest(nbest);
+        }
+
+        return translation;
+    }
+
+    // Context vector
+
+    static void writeContextVector(ObjectDataOutput out, ContextVector vector) throws IOException {
+        out.writeInt(vector.size());
+        for (ContextVector.Entry entry : vector) {
+            out.writeLong(entry.memory.getId());
+            writeUUID(out, entry.memory.getOwner());
+            out.writeUTF(entry.memory.getName());
+            out.writeFloat(entry.score);
+        }
+    }
+
+    static ContextVector readContextVector(ObjectDataInput in) throws IOException {
+        int size = in.readInt();
+
+        ContextVector.Builder builder = new ContextVector.Builder(size);
+        for (int i = 0; i < size; i++) {
+            long id = in.readLong();
+            UUID owner = readUUID(in);
+            String name = in.readUTF();
+            float score = in.readFloat();
+
+            builder.add(new Memory(id, owner, name), score);
+        }
+
+        return builder.build();
+    }
+
+    // Tokens
+
+    private static int encode(String value, String defaultValue) {
+        if (value == null)
+            return NULL_VALUE;
+        return value.equals(defaultValue) ? DEFAULT_VALUE : CUSTOM_VALUE;
+    }
+
+    private static String decode(int code, ObjectDataInput in, String defaultValue) throws IOException {
+        switch (code) {
+            case NULL_VALUE:
+                return null;
+            case DEFAULT_VALUE:
+                return defaultValue;
+            default:
+                return in.readUTF();
+        }
+    }
+
+    private static void writeToken(ObjectDataOutput out, Token token) throws IOException {
+        int textCode = encode(token.getText(), token.getPlaceholder());
+        int leftSpaceCode = encode(token.getLeftSpace(), " ");
+        int rightSpaceCode = encode(token.getRightSpace(), " ");
+
+        int flags = (token.isSentenceBreak() ? SENTENCE_BREAK : 0) |
+                textCode << TEXT_SHIFT |
+                leftSpaceCode << LEFT_SPACE_SHIFT |
+                rightSpaceCode << RIGHT_SPACE_SHIFT;
+
+        out.writeByte(flags);
+        out.writeUTF(token.getPlaceholder());
+        if (textCode == CUSTOM_VALUE)
+            out.writeUTF(token.getText());
+        if (leftSpaceCode == CUSTOM_VALUE)
+            out.writeUTF(token.getLeftSpace());
+        if (rightSpaceCode == CUSTOM_VALUE)
+            out.writeUTF(token.getRightSpace());
+    }
+
+    private static final class TokenData {
+
+        private boolean sentenceBreak;
+        private String placeholder;
+        private String text;
+        private String leftSpace;
+        private String rightSpace;
+
+        private void read(ObjectDataInput in) throws IOException {
+            int flags = in.readByte();
+
+            sentenceBreak = (flags & SENTENCE_BREAK) != 0;
+            placeholder = in.readUTF();
+            text = decode((flags >> TEXT_SHIFT) & 0x03, in, placeholder);
+            leftSpace = decode((flags >> LEFT_SPACE_SHIFT) & 0x03, in, " ");
+            rightSpace = decode((flags >> RIGHT_SPACE_SHIFT) & 0x03, in, " ");
+        }
+
+    }
+
+    private static void writeWords(ObjectDataOutput out, Word[] words) throws IOException {
+        out.writeInt(words.length);
+
+        for (Word word : words) {
+            writeToken(out, word);
+
+            int flags = (word.isLeftSpaceRequired() ? LEFT_SPACE_REQUIRED : 0) |
+                    (word.isRightSpaceRequired() ? RIGHT_SPACE_REQUIRED : 0) |
+                    (word.hasHiddenLeftSpace() ? HIDDEN_LEFT_SPACE : 0) |
+                    (word.hasHiddenRightSpace() ? HIDDEN_RIGHT_SPACE : 0);
+            out.writeByte(flags);
+        }
+    }
+
+    private static Word[] readWords(ObjectDataInput in) throws IOException {
+        Word[] words = new Word[in.readInt()];
+        TokenData data = new TokenData();
+
+        for (int i = 0; i < words.length; i++) {
+            data.read(in);
+            int flags = in.readByte();
+
+            Word word = new Word(data.text, data.placeholder, data.leftSpace, data.rightSpace,
+                    (flags & LEFT_SPACE_REQUIRED) != 0, (flags & RIGHT_SPACE_REQUIRED) != 0);
+            word.setHiddenLeftSpace((flags & HIDDEN_LEFT_SPACE) != 0);
+            word.setHiddenRightSpace((flags & HIDDEN_RIGHT_SPACE) != 0);
+            word.setSentenceBreak(data.sentenceBreak);
+
+            words[i] = word;
+        }
+
+        return words;
+    }
+
+    private static void writeTags(ObjectDataOutput out, Tag[] tags) throws IOException {
+        out.writeInt(tags.length);
+
+        for (Tag tag : tags) {
+            byte kind;
+            if (tag instanceof XMLTag)
+                kind = XML_TAG;
+            else if (tag instanceof WhitespaceTag)
+                kind = WHITESPACE_TAG;
+            else if (tag instanceof EmojiTag)
+                kind = EMOJI_TAG;
+            else
+                kind = OTHER_TAG;
+
+            out.writeByte(kind);
+
+            if (kind == OTHER_TAG) {
+                out.writeObject(tag);
+            } else {
+                writeToken(out, tag);
+                out.writeInt(tag.getPosition());
+                out.writeByte(tag.getType().ordinal());
+            }
+        }
+    }
+
+    private static Tag[] readTags(ObjectDataInput in) throws IOException {
+        Tag[] tags = new Tag[in.readInt()];
+        TokenData data = new TokenData();
+
+        for (int i = 0; i < tags.length; i++) {
+            byte kind = in.readByte();
+
+            if (kind == OTHER_TAG) {
+                tags[i] = in.readObject();
+                continue;
+            }
+
+            data.read(in);
+            int position = in.readInt();
+            Tag.Type type = TAG_TYPES[in.readByte()];
+
+            Tag tag;
+            switch (kind) {
+                case XML_TAG:
+                    tag = XMLTag.fromText(data.text, data.leftSpace, data.rightSpace, position);
+                    break;
+                case WHITESPACE_TAG:
+                    tag = WhitespaceTag.fromText(data.text, data.leftSpace, data.rightSpace, position);
+                    break;
+                case EMOJI_TAG:
+                    tag = EmojiTag.fromText(data.text, data.leftSpace, data.rightSpace, position);
+                    break;
+                default:
+                    throw new IOException("Invalid tag kind: " + kind);
+            }
+
+            tag.setType(type);
+            tag.setPlaceholder(data.placeholder);
+            tag.setSentenceBreak(data.sentenceBreak);
+
+            tags[i] = tag;
+        }
+
+        return tags;
+    }
+
+    // Annotations
+
+    private static void writeAnnotations(ObjectDataOutput out, Collection<Annotation> annotations) throws IOException {
+        out.writeInt(annotations.size());
+
+        for (Annotation annotation : annotations) {
+            boolean plain = annotation.getClass() == Annotation.class;
+            out.writeBoolean(plain);
+
+            if (plain)
+                out.writeUTF(annotation.getId());
+            else
+                out.writeObject(annotation);
+        }
+    }
+
+    private static Annotation[] readAnnotations(ObjectDataInput in) throws IOException {
+        Annotation[] annotations = new Annotation[in.readInt()];
+        for (int i = 0; i < annotations.length; i++)
+            annotations[i] = in.readBoolean() ? new Annotation(in.readUTF()) : in.readObject();
+        return annotations;
+    }
+
+    private static void readAnnotations(ObjectDataInput in, Sentence sentence) throws IOException {
+        for (Annotation annotation : readAnnotations(in))
+            sentence.addAnnotation(annotation);
+    }
+
+    // Alignment
+
+    private static void writeAlignment(ObjectDataOutput out, Alignment alignment) throws IOException {
+        out.writeBoolean(alignment != null);
+        if (alignment != null) {
+            out.writeIntArray(alignment.getSourceIndexes());
+            out.writeIntArray(alignment.getTargetIndexes());
+            out.writeFloat(alignment.getScore());
+        }
+    }
+
+    private static Alignment readAlignment(ObjectDataInput in) throws IOException {
+        if (!in.readBoolean())
+            return null;
+
+        int[] sourceIndexes = in.readIntArray();
+        int[] targetIndexes = in.readIntArray();
+        float score = in.readFloat();
+
+        return new Alignment(sourceIndexes, targetIndexes, score);
+    }
+
+}
@@ -0,0 +1,32 @@
+package eu.modernmt.cluster.serialization;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+import eu.modernmt.model.Sentence;
+
+import java.io.IOException;
+
+public class SentenceSerializer implements StreamSerializer<Sentence> {
+
+    @Override
+    public void write(ObjectDataOutput out, Sentence object) throws IOException {
+        ModelSerialization.writeSentence(out, object);
+    }
+
+    @Override
+    public Sentence read(ObjectDataInput in) throws IOException {
+        return ModelSerialization.readSentence(in);
+    }
+
+    @Override
+    public int getTypeId() {
+        return ModelSerialization.SENTENCE_TYPE_ID;
+    }
+
+    @Override
+    public void destroy() {
+        // Nothing to do
+    }
+
+}
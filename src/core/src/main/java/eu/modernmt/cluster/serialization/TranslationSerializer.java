@@ -0,0 +1,32 @@
+package eu.modernmt.cluster.serialization;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+import eu.modernmt.model.Translation;
+
+import java.io.IOException;
+
+public class TranslationSerializer implements StreamSerializer<Translation> {
+
+    @Override
+    public void write(ObjectDataOutput out, Translation object) throws IOException {
+        ModelSerialization.writeTranslation(out, object, null);
+    }
+
+    @Override
+    public Translation read(ObjectDataInput in) throws IOException {
+        return ModelSerialization.readTranslation(in, null);
+    }
+
+    @Override
+    public int getTypeId() {
+        return ModelSerialization.TRANSLATION_TYPE_ID;
+    }
+
+    @Override
+    public void destroy() {
+        // Nothing to do
+    }
+
+}
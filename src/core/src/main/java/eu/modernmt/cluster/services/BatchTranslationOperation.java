@@ -0,0 +1,137 @@
+package eu.modernmt.cluster.services;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.spi.Operation;
+import com.hazelcast.spi.impl.operationservice.impl.OperationServiceImpl;
+import com.hazelcast.spi.impl.operationservice.impl.responses.NormalResponse;
+import eu.modernmt.cluster.BatchTranslationResult;
+import eu.modernmt.cluster.BatchTranslationTask;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A BatchTranslationOperation is an Hazelcast Operation for translating a whole BatchTranslationTask.
+ * <p>
+ * Every sentence of the batch is run on the TranslationService executor, so that they are
+ * translated concurrently as if they were sent with different TranslationOperations;
+ * the response is sent asynchronously, in a single message, when the last sentence is completed.
+ * The failure of a sentence does not affect the others: its error is reported in the result.
+ *
+ * @see TranslationOperation
+ */
+class BatchTranslationOperation extends Operation {
+
+    private class SentenceRunnable implements Runnable {
+
+        private final int index;
+        private final TranslationLoad load;
+
+        SentenceRunnable(int index, TranslationLoad load) {
+            this.index = index;
+            this.load = load;
+        }
+
+        @Override
+        public void run() {
+            long begin = System.currentTimeMillis();
+
+            try {
+                result.setTranslation(index, task.call(index));
+            } catch (Throwable e) {
+                result.setError(index, e);
+            } finally {
+                load.onTranslationCompleted(task.getLanguageDirection(), System.currentTimeMillis() - begin);
+                onSentenceCompleted();
+            }
+        }
+
+    }
+
+    private BatchTranslationTask task;
+    private transient BatchTranslationResult result;
+    private transient AtomicInteger pending;
+
+    // necessary for deserialization
+    @SuppressWarnings("unused")
+    public BatchTranslationOperation() {
+    }
+
+    public BatchTranslationOperation(BatchTranslationTask task) {
+        this.task = task;
+    }
+
+    @Override
+    public void run() {
+        TranslationService translationService = getService();
+        TranslationLoad load = translationService.getLoad();
+
+        int size = task.size();
+        this.result = new BatchTranslationResult(size);
+        this.pending = new AtomicInteger(size);
+
+        startAsyncOperation();
+
+        if (size == 0) {
+            sendResult();
+            return;
+        }
+
+        for (int i = 0; i < size; i++) {
+            load.onTranslationSubmitted();
+            try {
+                translationService.execute(task.getPriority(), new SentenceRunnable(i, load));
+            } catch (Throwable e) {
+                load.onTranslationRejected();
+                result.setError(i, e);
+                onSentenceCompleted();
+            }
+        }
+    }
+
+    private void onSentenceCompleted() {
+        if (pending.decrementAndGet() == 0)
+            sendResult();
+    }
+
+    private void sendResult() {
+        try {
+            sendResponse(new NormalResponse(result, getCallId(), 0, false));
+        } finally {
+            completeAsyncOperation();
+        }
+    }
+
+    @Override
+    protected void writeInternal(ObjectDataOutput out) throws IOException {
+        out.writeObject(this.task);
+    }
+
+    @Override
+    protected void readInternal(ObjectDataInput in) throws IOException {
+        this.task = in.readObject();
+    }
+
+    @Override
+    public boolean returnsResponse() {
+        return false;
+    }
+
+    /**
+     * @see TranslationOperation
+     */
+    private void startAsyncOperation() {
+        OperationServiceImpl operationService = (OperationServiceImpl) this.getNodeEngine().getOperationService();
+        operationService.onStartAsyncOperation(this);
+    }
+
+    /**
+     * @see TranslationOperation
+     */
+    private void completeAsyncOperation() {
+        OperationServiceImpl operationService = (OperationServiceImpl) this.getNodeEngine().getOperationService();
+        operationService.onCompletionAsyncOperation(this);
+    }
+
+}
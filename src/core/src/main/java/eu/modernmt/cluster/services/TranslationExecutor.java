@@ -0,0 +1,94 @@
+package eu.modernmt.cluster.services;
+
+import eu.modernmt.decoder.DecoderUnavailableException;
+import eu.modernmt.model.Priority;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The executor of the TranslationService: a fixed number of threads that take the
+ * translations from a queue ordered by priority (and by arrival within the same priority).
+ * <p>
+ * The queue is bounded: when it is full, new translations are rejected immediately with a
+ * DecoderUnavailableException instead of spawning more threads that would only wait for the decoder.
+ */
+class TranslationExecutor extends ThreadPoolExecutor {
+
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    private final int maxQueueSize;
+    private final AtomicLong sequence = new AtomicLong(0L);
+
+    TranslationExecutor(int threads, int maxQueueSize) {
+        super(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new PriorityBlockingQueue<>(), new TranslationThreadFactory());
+        this.maxQueueSize = maxQueueSize;
+        this.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Runs the given translation with the given priority.
+     *
+     * @param priority the priority of the translation
+     * @param runnable the translation to run
+     * @throws DecoderUnavailableException if the queue is full
+     */
+    void execute(Priority priority, Runnable runnable) throws DecoderUnavailableException {
+        // the bound is approximate under concurrent submissions, that is acceptable for load shedding
+        if (getQueue().size() >= maxQueueSize)
+            throw new DecoderUnavailableException("Translation queue is full (" + maxQueueSize + ")");
+
+        super.execute(new PrioritizedRunnable(priority, sequence.getAndIncrement(), runnable));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command instanceof PrioritizedRunnable)
+            super.execute(command);
+        else
+            super.execute(new PrioritizedRunnable(Priority.NORMAL, sequence.getAndIncrement(), command));
+    }
+
+    private static final class PrioritizedRunnable implements Runnable, Comparable<PrioritizedRunnable> {
+
+        private final Priority priority;
+        private final long sequence;
+        private final Runnable runnable;
+
+        private PrioritizedRunnable(Priority priority, long sequence, Runnable runnable) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public void run() {
+            runnable.run();
+        }
+
+        @Override
+        public int compareTo(PrioritizedRunnable o) {
+            int cmp = Integer.compare(priority.intValue, o.priority.intValue);
+            return cmp == 0 ? Long.compare(sequence, o.sequence) : cmp;
+        }
+
+    }
+
+    private static final class TranslationThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "TranslationService-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
@@ -0,0 +1,50 @@
+package eu.modernmt.cluster.services;
+
+import eu.modernmt.lang.LanguageDirection;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load gauges of the local TranslationService: the number of translations that are queued or
+ * running on this node, and the exponentially weighted moving average of the translation latency
+ * for every language direction. The latency does not include the time spent in queue, which is
+ * already accounted for by the number of pending translations.
+ */
+public class TranslationLoad {
+
+    private static final double ALPHA = 0.2;
+
+    private final AtomicInteger pending = new AtomicInteger(0);
+    private final ConcurrentHashMap<LanguageDirection, Double> latencies = new ConcurrentHashMap<>();
+
+    void onTranslationSubmitted() {
+        pending.incrementAndGet();
+    }
+
+    void onTranslationRejected() {
+        pending.decrementAndGet();
+    }
+
+    void onTranslationCompleted(LanguageDirection direction, long latency) {
+        pending.decrementAndGet();
+        latencies.merge(direction, (double) latency, (average, value) -> average + ALPHA * (value - average));
+    }
+
+    /**
+     * @return the number of translations queued or running on this node
+     */
+    public int getPendingTranslations() {
+        return pending.get();
+    }
+
+    /**
+     * @return the average translation latency in milliseconds of every direction translated so far
+     */
+    public Map<LanguageDirection, Double> getLatencies() {
+        return new HashMap<>(latencies);
+    }
+
+}
@@ -8,10 +8,8 @@ import com.hazelcast.spi.impl.operationservice.impl.responses.ErrorResponse;
 import com.hazelcast.spi.impl.operationservice.impl.responses.NormalResponse;
 import eu.modernmt.cluster.TranslationTask;
 import eu.modernmt.model.Translation;
-import org.apache.commons.lang.SerializationUtils;
 
 import java.io.IOException;
-import java.util.concurrent.ExecutorService;
 
 /**
  * A TranslationOperation is an Hazelcast Operation for performing translations.
@@ -33,13 +31,17 @@ class TranslationOperation extends Operation {
     class TranslationRunnable implements Runnable {
 
         private final TranslationTask task;
+        private final TranslationLoad load;
 
-        TranslationRunnable(TranslationTask task) {
+        TranslationRunnable(TranslationTask task, TranslationLoad load) {
             this.task = task;
+            this.load = load;
         }
 
         @Override
         public void run() {
+            long begin = System.currentTimeMillis();
+
             try {
                 startAsyncOperation();
                 Translation translation = task.call();
@@ -47,6 +49,7 @@ class TranslationOperation extends Operation {
             } catch (Throwable e) {
                 sendResponse(new ErrorResponse(e, getCallId(), false));
             } finally {
+                load.onTranslationCompleted(task.getLanguageDirection(), System.currentTimeMillis() - begin);
                 completeAsyncOperation();
             }
         }
@@ -69,25 +72,25 @@ class TranslationOperation extends Operation {
     @Override
     public void run() {
         TranslationService translationService = getService();
-        ExecutorService executor = translationService.getExecutor();
+        TranslationLoad load = translationService.getLoad();
 
+        load.onTranslationSubmitted();
         try {
-            executor.submit(new TranslationRunnable(task));
+            translationService.execute(task.getPriority(), new TranslationRunnable(task, load));
         } catch (Throwable e) {
+            load.onTranslationRejected();
             submitException = e;
         }
     }
 
     @Override
     protected void writeInternal(ObjectDataOutput out) throws IOException {
-        byte[] taskBytes = SerializationUtils.serialize(this.task);
-        out.writeByteArray(taskBytes);
+        out.writeObject(this.task);
     }
 
     @Override
     protected void readInternal(ObjectDataInput in) throws IOException {
-        byte[] taskBytes = in.readByteArray();
-        this.task = (TranslationTask) SerializationUtils.deserialize(taskBytes);
+        this.task = in.readObject();
     }
 
     @Override
@@ -4,10 +4,11 @@ import com.hazelcast.core.DistributedObject;
 import com.hazelcast.spi.ManagedService;
 import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.spi.RemoteService;
+import eu.modernmt.decoder.DecoderUnavailableException;
+import eu.modernmt.model.Priority;
 
 import java.util.Properties;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * A TranslationService is an Hazelcast Service for performing translations in a ModernMT cluster.
@@ -19,24 +20,43 @@ import java.util.concurrent.Executors;
  * @see TranslationServiceProxy
  * <p>
  * This TranslationService is typically initialized at cluster start.
+ * <p>
+ * Translations are run by a bounded pool of threads that takes them in priority order; the number of
+ * threads and the maximum number of queued translations can be set with the "threads" and "queue-size"
+ * service properties.
  */
 public class TranslationService implements ManagedService, RemoteService {
 
     public static final String SERVICE_NAME = "mmt:cluster:TranslationService";
 
+    private static final int DEFAULT_THREADS = 256;
+    private static final int DEFAULT_QUEUE_SIZE = 4096;
+
     private NodeEngine nodeEngine;
-    private ExecutorService executor;
+    private TranslationExecutor executor;
+    private final TranslationLoad load = new TranslationLoad();
 
     @Override
     public void init(NodeEngine nodeEngine, Properties properties) {
         this.nodeEngine = nodeEngine;
-        this.executor = Executors.newCachedThreadPool();
+        int threads = Integer.parseInt(properties.getProperty("threads", Integer.toString(DEFAULT_THREADS)));
+        int queueSize = Integer.parseInt(properties.getProperty("queue-size", Integer.toString(DEFAULT_QUEUE_SIZE)));
+
+        this.executor = new TranslationExecutor(threads, queueSize);
+    }
+
+    void execute(Priority priority, Runnable runnable) throws DecoderUnavailableException {
+        executor.execute(priority, runnable);
     }
 
     ExecutorService getExecutor() {
         return executor;
     }
 
+    TranslationLoad getLoad() {
+        return load;
+    }
+
     @Override
     public void reset() {
         // nothing to do
@@ -1,9 +1,12 @@
 package eu.modernmt.cluster.services;
 
+import com.hazelcast.core.ICompletableFuture;
 import com.hazelcast.nio.Address;
 import com.hazelcast.spi.AbstractDistributedObject;
 import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.spi.OperationService;
+import eu.modernmt.cluster.BatchTranslationResult;
+import eu.modernmt.cluster.BatchTranslationTask;
 import eu.modernmt.cluster.TranslationTask;
 import eu.modernmt.model.Translation;
 
@@ -49,12 +52,33 @@ public class TranslationServiceProxy extends AbstractDistributedObject<Translati
      * @param address the Address of the Member that should run this task
      * @return a Future for the Translation that this task will output
      */
-    public Future<Translation> submit(TranslationTask task, Address address) {
+    public ICompletableFuture<Translation> submit(TranslationTask task, Address address) {
         OperationService localOperationService = getNodeEngine().getOperationService();
         TranslationOperation operation = new TranslationOperation(task);
         return localOperationService.invokeOnTarget(getServiceName(), operation, address);
     }
 
+    /**
+     * This method allows this cluster Member to ask another Member to run a whole BatchTranslationTask
+     * with a single BatchTranslationOperation.
+     *
+     * @param task    the BatchTranslationTask to run
+     * @param address the Address of the Member that should run this task
+     * @return a Future for the result of the batch
+     */
+    public Future<BatchTranslationResult> submit(BatchTranslationTask task, Address address) {
+        OperationService localOperationService = getNodeEngine().getOperationService();
+        BatchTranslationOperation operation = new BatchTranslationOperation(task);
+        return localOperationService.invokeOnTarget(getServiceName(), operation, address);
+    }
+
+    /**
+     * @return the load gauges of the local TranslationService
+     */
+    public TranslationLoad getLocalLoad() {
+        return getService().getLoad();
+    }
+
     public void shutdown() {
         ExecutorService service = getService().getExecutor();
 
@@ -4,9 +4,11 @@ import eu.modernmt.cleaning.ChainedMultilingualCorpusFilter;
 import eu.modernmt.cleaning.CorporaCleaning;
 import eu.modernmt.cluster.ClusterNode;
 import eu.modernmt.cluster.NodeInfo;
+import eu.modernmt.cluster.binlog.BulkImporter;
 import eu.modernmt.data.BinaryLog;
 import eu.modernmt.data.BinaryLogException;
 import eu.modernmt.data.EmptyCorpusException;
+import eu.modernmt.engine.Engine;
 import eu.modernmt.lang.LanguageDirection;
 import eu.modernmt.model.ImportJob;
 import eu.modernmt.model.Memory;
@@ -214,6 +216,17 @@ public class MemoryFacade {
     }
 
     public ImportJob add(long memoryId, MultilingualCorpus corpus) throws PersistenceException, BinaryLogException {
+        return add(memoryId, corpus, false);
+    }
+
+    /**
+     * Imports a corpus into a memory.
+     *
+     * @param bulk if true, the corpus is also loaded offline by this node, that attaches it at once when the
+     *             import is read back from the binary log (see {@link BulkImporter}), otherwise every
+     *             translation unit is applied from the log
+     */
+    public ImportJob add(long memoryId, MultilingualCorpus corpus, boolean bulk) throws PersistenceException, BinaryLogException {
         Connection connection = null;
         Database db = ModernMT.getNode().getDatabase();
 
@@ -231,8 +244,17 @@ public class MemoryFacade {
 
         corpus = CorporaCleaning.wrap(corpus, CorporaCleaning.Options.defaultOptionsForMemoryImport());
 
-        BinaryLog binlog = ModernMT.getNode().getBinaryLog();
-        ImportJob job = binlog.upload(memory, corpus, BinaryLog.MEMORY_UPLOAD_CHANNEL_ID);
+        ClusterNode node = ModernMT.getNode();
+        BinaryLog binlog = node.getBinaryLog();
+        ImportJob job;
+
+        if (bulk) {
+            Engine engine = node.getEngine();
+            BulkImporter importer = new BulkImporter(engine.getLanguageIndex(), engine.getPreprocessor(), engine.getDataListeners());
+            job = importer.importCorpus(memory, corpus, binlog, BinaryLog.MEMORY_UPLOAD_CHANNEL_ID);
+        } else {
+            job = binlog.upload(memory, corpus, BinaryLog.MEMORY_UPLOAD_CHANNEL_ID);
+        }
 
         if (job == null)
             throw new EmptyCorpusException();
@@ -1,13 +1,19 @@
 package eu.modernmt.facade;
 
+import com.google.common.cache.CacheStats;
 import eu.modernmt.Pom;
 import eu.modernmt.cluster.ClusterNode;
 import eu.modernmt.cluster.NodeInfo;
 import eu.modernmt.cluster.ServerInfo;
 import eu.modernmt.cluster.error.FailedToJoinClusterException;
 import eu.modernmt.config.NodeConfig;
+import eu.modernmt.context.ContextAnalyzer;
+import eu.modernmt.context.lucene.ContextVectorCache;
+import eu.modernmt.context.lucene.LuceneAnalyzer;
 import eu.modernmt.decoder.Decoder;
 import eu.modernmt.decoder.DecoderException;
+import eu.modernmt.decoder.neural.NeuralDecoder;
+import eu.modernmt.decoder.neural.cache.MemoryAwareCache;
 import eu.modernmt.engine.BootstrapException;
 import eu.modernmt.engine.Engine;
 import eu.modernmt.facade.exceptions.TestFailedException;
@@ -20,7 +26,9 @@ import org.apache.logging.log4j.Logger;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -70,17 +78,53 @@ public class ModernMT {
         Collection<NodeInfo> nodes = localhostOnly ? Collections.singleton(node.getLocalNode()) : node.getClusterNodes();
 
         long memorySize = 0;
+        ServerInfo.CacheInfo contextCache = null;
+        ServerInfo.DecoderInfo decoderInfo = null;
         if (engine != null) {
             try {
                 Decoder decoder = engine.getDecoder();
                 TranslationMemory memory = decoder.getTranslationMemory();
                 memorySize = memory.size();
+
+                if (decoder instanceof NeuralDecoder)
+                    decoderInfo = getDecoderInfo((NeuralDecoder) decoder);
             } catch (UnsupportedOperationException e) {
                 // Ignore - decoder not available
             }
+
+            try {
+                ContextAnalyzer analyzer = engine.getContextAnalyzer();
+                ContextVectorCache cache = analyzer instanceof LuceneAnalyzer ? ((LuceneAnalyzer) analyzer).getCache() : null;
+                if (cache != null) {
+                    CacheStats stats = cache.stats();
+                    contextCache = new ServerInfo.CacheInfo(cache.size(), stats.requestCount(), stats.hitCount());
+                }
+            } catch (UnsupportedOperationException e) {
+                // Ignore - context analyzer not available
+            }
         }
 
-        return new ServerInfo(new ServerInfo.ClusterInfo(nodes), new ServerInfo.BuildInfo(BUILD_VERSION, BUILD_NUMBER), memorySize);
+        return new ServerInfo(new ServerInfo.ClusterInfo(nodes), new ServerInfo.BuildInfo(BUILD_VERSION, BUILD_NUMBER), memorySize, contextCache, decoderInfo);
+    }
+
+    private static ServerInfo.DecoderInfo getDecoderInfo(NeuralDecoder decoder) {
+        Map<String, Long> modelSwitches = new TreeMap<>();
+        for (Map.Entry<LanguageDirection, Long> entry : decoder.getModelSwitches().entrySet())
+            modelSwitches.put(entry.getKey().toString(), entry.getValue());
+
+        return new ServerInfo.DecoderInfo(
+                getCacheInfo(decoder.getTranslationCache()),
+                getCacheInfo(decoder.getSuggestionCache()),
+                modelSwitches,
+                decoder.getExpiredJobCount());
+    }
+
+    private static ServerInfo.CacheInfo getCacheInfo(MemoryAwareCache<?> cache) {
+        if (cache == null)
+            return null;
+
+        CacheStats stats = cache.getStats();
+        return new ServerInfo.CacheInfo(cache.size(), stats.requestCount(), stats.hitCount());
     }
 
     public static void test(boolean strict) throws TestFailedException {
@@ -1,9 +1,15 @@
 package eu.modernmt.facade;
 
+import com.hazelcast.core.ExecutionCallback;
 import com.hazelcast.core.HazelcastException;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import eu.modernmt.cluster.BatchTranslationResult;
+import eu.modernmt.cluster.BatchTranslationTask;
 import eu.modernmt.cluster.ClusterNode;
 import eu.modernmt.cluster.TranslationTask;
 import eu.modernmt.cluster.error.SystemShutdownException;
+import eu.modernmt.cluster.serialization.ModelSerialization;
 import eu.modernmt.context.ContextAnalyzer;
 import eu.modernmt.context.ContextAnalyzerException;
 import eu.modernmt.decoder.Decoder;
@@ -20,7 +26,6 @@ import eu.modernmt.model.Priority;
 import eu.modernmt.model.Sentence;
 import eu.modernmt.model.Translation;
 import eu.modernmt.model.corpus.Corpus;
-import eu.modernmt.model.corpus.impl.StringCorpus;
 import eu.modernmt.model.corpus.impl.parallel.FileCorpus;
 import eu.modernmt.processing.Postprocessor;
 import eu.modernmt.processing.Preprocessor;
@@ -31,10 +36,9 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.*;
 
 /**
  * Created by davide on 31/01/17.
@@ -109,14 +113,160 @@ public class TranslationFacade {
 
         // Post-processing translation
         Postprocessor.Options postprocessingOptions = new Postprocessor.Options(direction.source, direction.target);
-        postprocessor.process(normalizedDirection, translation, postprocessingOptions);
+        postprocess(postprocessor, normalizedDirection, translation, postprocessingOptions);
+
+        return translation;
+    }
+
+    /**
+     * Translates a text asynchronously: the text is pre-processed in the calling thread, while
+     * the returned future is completed by the cluster callback thread as soon as the translation
+     * is available. Differently from the synchronous version, failed translations are not retried
+     * and all the errors are reported through the returned future.
+     */
+    public CompletableFuture<Translation> getAsync(UUID user, LanguageDirection direction, Preprocessor.Options preprocessingOptions, String text, ContextVector translationContext, int nbest, Priority priority, long timeout) {
+        CompletableFuture<Translation> result = new CompletableFuture<>();
+
+        try {
+            LanguageDirection normalizedDirection = mapLanguage(direction);
+            if (nbest > 0)
+                ensureDecoderSupportsNBest();
+
+            Engine engine = ModernMT.getNode().getEngine();
+            Preprocessor preprocessor = engine.getPreprocessor();
+            Postprocessor postprocessor = engine.getPostprocessor();
+            Postprocessor.Options postprocessingOptions = new Postprocessor.Options(direction.source, direction.target);
+
+            Sentence sentence = preprocessor.process(normalizedDirection, text, preprocessingOptions);
+
+            if (!sentence.hasWords()) {
+                Translation translation = Translation.emptyTranslation(sentence);
+                postprocess(postprocessor, normalizedDirection, translation, postprocessingOptions);
+                result.complete(translation);
+                return result;
+            }
+
+            long expirationTimestamp = timeout > 0 ? (System.currentTimeMillis() + timeout) : 0L;
+            TranslationTask task = new TranslationTaskImpl(priority, user, normalizedDirection, sentence, translationContext, nbest, expirationTimestamp);
+
+            ModernMT.getNode().submit(task).andThen(new ExecutionCallback<Translation>() {
+
+                @Override
+                public void onResponse(Translation translation) {
+                    try {
+                        postprocess(postprocessor, normalizedDirection, translation, postprocessingOptions);
+                        result.complete(translation);
+                    } catch (Throwable e) {
+                        result.completeExceptionally(e);
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    result.completeExceptionally(e);
+                }
+
+            });
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        }
+
+        return result;
+    }
+
+    private static void postprocess(Postprocessor postprocessor, LanguageDirection direction, Translation translation, Postprocessor.Options options) throws ProcessingException {
+        postprocessor.process(direction, translation, options);
 
         if (translation.hasNbest()) {
             for (Translation hypothesis : translation.getNbest())
-                postprocessor.process(normalizedDirection, hypothesis, postprocessingOptions);
+                postprocessor.process(direction, hypothesis, options);
         }
+    }
 
-        return translation;
+    /**
+     * Translates a batch of texts sharing the same translation parameters. Texts are pre-processed
+     * together, and the batch is sent to the cluster members with one task per member.
+     * The returned result preserves the order of the input texts and contains either the
+     * translation or the error of every text.
+     */
+    public BatchTranslationResult get(UUID user, LanguageDirection direction, Preprocessor.Options preprocessingOptions, String[] texts, ContextVector translationContext, int nbest, Priority priority, long timeout) throws ProcessingException, DecoderException {
+        LanguageDirection normalizedDirection = mapLanguage(direction);
+        if (nbest > 0)
+            ensureDecoderSupportsNBest();
+
+        Engine engine = ModernMT.getNode().getEngine();
+        Preprocessor preprocessor = engine.getPreprocessor();
+        Postprocessor postprocessor = engine.getPostprocessor();
+
+        // Pre-processing texts
+        Sentence[] sentences;
+        try {
+            sentences = preprocessor.process(normalizedDirection, texts, preprocessingOptions);
+        } catch (InterruptedException e) {
+            throw new SystemShutdownException(e);
+        }
+
+        // Translating (only sentences with words are sent to the cluster)
+        long expirationTimestamp = timeout > 0 ? (System.currentTimeMillis() + timeout) : 0L;
+
+        BatchTranslationResult result = new BatchTranslationResult(sentences.length);
+
+        int[] indexes = new int[sentences.length];
+        int size = 0;
+        for (int i = 0; i < sentences.length; i++) {
+            if (sentences[i].hasWords())
+                indexes[size++] = i;
+            else
+                result.setTranslation(i, Translation.emptyTranslation(sentences[i]));
+        }
+
+        Sentence[] batch = new Sentence[size];
+        for (int i = 0; i < size; i++)
+            batch[i] = sentences[indexes[i]];
+
+        if (size > 0) {
+            BatchTranslationTask task = new BatchTranslationTaskImpl(priority, user, normalizedDirection, batch, translationContext, nbest, expirationTimestamp);
+            Future<BatchTranslationResult> future = ModernMT.getNode().submit(task);
+
+            try {
+                BatchTranslationResult translated = timeout > 0 ?
+                        future.get(Math.max(0L, expirationTimestamp - System.currentTimeMillis()), TimeUnit.MILLISECONDS) :
+                        future.get();
+
+                for (int i = 0; i < size; i++) {
+                    result.setTranslation(indexes[i], translated.getTranslation(i));
+                    result.setError(indexes[i], translated.getError(i));
+                }
+            } catch (TimeoutException e) {
+                future.cancel(true);
+
+                for (int i = 0; i < size; i++)
+                    result.setError(indexes[i], new TranslationTimeoutException());
+            } catch (InterruptedException e) {
+                throw new SystemShutdownException(e);
+            } catch (ExecutionException e) {
+                // errors are collected per sentence in the batch result
+                throw new Error("Unexpected exception thrown: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+
+        // Post-processing translations
+        Postprocessor.Options postprocessingOptions = new Postprocessor.Options(direction.source, direction.target);
+
+        for (int i = 0; i < result.size(); i++) {
+            Translation translation = result.getTranslation(i);
+            if (translation == null)
+                continue;
+
+            try {
+                postprocess(postprocessor, normalizedDirection, translation, postprocessingOptions);
+            } catch (ProcessingException e) {
+                result.setTranslation(i, null);
+                result.setError(i, e);
+            }
+        }
+
+        return result;
     }
 
     private Translation insecureGet(UUID user, LanguageDirection direction, Sentence sentence, ContextVector context, int nbest, Priority priority, long expirationTimestamp) throws DecoderException {
@@ -159,7 +309,11 @@ public class TranslationFacade {
 
     public ContextVector getContextVector(UUID user, LanguageDirection direction, String context, int limit) throws ContextAnalyzerException {
         direction = mapLanguage(direction);
-        return getContextVector(user, direction, new StringCorpus(null, direction.source, context), limit);
+
+        Engine engine = ModernMT.getNode().getEngine();
+        ContextAnalyzer analyzer = engine.getContextAnalyzer();
+
+        return analyzer.getContextVector(user, direction, context, limit);
     }
 
     private ContextVector getContextVector(UUID user, LanguageDirection direction, Corpus context, int limit) throws ContextAnalyzerException {
@@ -174,10 +328,14 @@ public class TranslationFacade {
     }
 
     public Map<Language, ContextVector> getContextVectors(UUID user, String context, int limit, Language source, Language... targets) throws ContextAnalyzerException {
-        return getContextVectors(user, new StringCorpus(null, source, context), limit, source, targets);
+        return getContextVectors(user, context, null, limit, source, targets);
     }
 
     private Map<Language, ContextVector> getContextVectors(UUID user, Corpus context, int limit, Language source, Language... targets) throws ContextAnalyzerException {
+        return getContextVectors(user, null, context, limit, source, targets);
+    }
+
+    private Map<Language, ContextVector> getContextVectors(UUID user, String text, Corpus corpus, int limit, Language source, Language... targets) throws ContextAnalyzerException {
         Engine engine = ModernMT.getNode().getEngine();
         ContextAnalyzer analyzer = engine.getContextAnalyzer();
 
@@ -185,7 +343,9 @@ public class TranslationFacade {
         for (Language target : targets) {
             try {
                 LanguageDirection direction = mapLanguage(new LanguageDirection(source, target));
-                ContextVector contextVector = analyzer.getContextVector(user, direction, context, limit);
+                ContextVector contextVector = text == null ?
+                        analyzer.getContextVector(user, direction, corpus, limit) :
+                        analyzer.getContextVector(user, direction, text, limit);
                 result.put(target, contextVector);
             } catch (UnsupportedLanguageException e) {
                 // ignore it
@@ -211,14 +371,18 @@ public class TranslationFacade {
 
     private static class TranslationTaskImpl implements TranslationTask {
 
-        private final Priority priority;
-        private final UUID user;
-        private final LanguageDirection direction;
-        private final Sentence sentence;
-        private final ContextVector context;
-        private final int nbest;
+        private Priority priority;
+        private UUID user;
+        private LanguageDirection direction;
+        private Sentence sentence;
+        private ContextVector context;
+        private int nbest;
 
-        private final long expirationTimestamp;
+        private long expirationTimestamp;
+
+        private TranslationTaskImpl() {
+            // Used by Hazelcast deserialization
+        }
 
         TranslationTaskImpl(Priority priority, UUID user, LanguageDirection direction, Sentence sentence, ContextVector context, int nbest, long expirationTimestamp) {
             this.priority = priority;
@@ -235,6 +399,11 @@ public class TranslationFacade {
             return direction;
         }
 
+        @Override
+        public Priority getPriority() {
+            return priority;
+        }
+
         @Override
         public Translation call() throws DecoderException {
             if (expirationTimestamp > 0 && expirationTimestamp < System.currentTimeMillis())
@@ -250,5 +419,106 @@ public class TranslationFacade {
             }
         }
 
+        @Override
+        public void writeData(ObjectDataOutput out) throws IOException {
+            ModelSerialization.writePriority(out, priority);
+            ModelSerialization.writeUUID(out, user);
+            ModelSerialization.writeLanguageDirection(out, direction);
+            out.writeObject(sentence);
+            out.writeObject(context);
+            out.writeInt(nbest);
+            out.writeLong(expirationTimestamp);
+        }
+
+        @Override
+        public void readData(ObjectDataInput in) throws IOException {
+            priority = ModelSerialization.readPriority(in);
+            user = ModelSerialization.readUUID(in);
+            direction = ModelSerialization.readLanguageDirection(in);
+            sentence = in.readObject();
+            context = in.readObject();
+            nbest = in.readInt();
+            expirationTimestamp = in.readLong();
+        }
+
+    }
+
+    private static class BatchTranslationTaskImpl implements BatchTranslationTask {
+
+        private Priority priority;
+        private UUID user;
+        private LanguageDirection direction;
+        private Sentence[] sentences;
+        private ContextVector context;
+        private int nbest;
+
+        private long expirationTimestamp;
+
+        private BatchTranslationTaskImpl() {
+            // Used by Hazelcast deserialization
+        }
+
+        BatchTranslationTaskImpl(Priority priority, UUID user, LanguageDirection direction, Sentence[] sentences, ContextVector context, int nbest, long expirationTimestamp) {
+            this.priority = priority;
+            this.user = user;
+            this.direction = direction;
+            this.sentences = sentences;
+            this.context = context;
+            this.nbest = nbest;
+            this.expirationTimestamp = expirationTimestamp;
+        }
+
+        @Override
+        public LanguageDirection getLanguageDirection() {
+            return direction;
+        }
+
+        @Override
+        public Priority getPriority() {
+            return priority;
+        }
+
+        @Override
+        public int size() {
+            return sentences.length;
+        }
+
+        @Override
+        public Translation call(int index) throws DecoderException {
+            return new TranslationTaskImpl(priority, user, direction, sentences[index], context, nbest, expirationTimestamp).call();
+        }
+
+        @Override
+        public BatchTranslationTask slice(int begin, int end) {
+            Sentence[] slice = Arrays.copyOfRange(sentences, begin, end);
+            return new BatchTranslationTaskImpl(priority, user, direction, slice, context, nbest, expirationTimestamp);
+        }
+
+        @Override
+        public void writeData(ObjectDataOutput out) throws IOException {
+            ModelSerialization.writePriority(out, priority);
+            ModelSerialization.writeUUID(out, user);
+            ModelSerialization.writeLanguageDirection(out, direction);
+            out.writeInt(sentences.length);
+            for (Sentence sentence : sentences)
+                out.writeObject(sentence);
+            out.writeObject(context);
+            out.writeInt(nbest);
+            out.writeLong(expirationTimestamp);
+        }
+
+        @Override
+        public void readData(ObjectDataInput in) throws IOException {
+            priority = ModelSerialization.readPriority(in);
+            user = ModelSerialization.readUUID(in);
+            direction = ModelSerialization.readLanguageDirection(in);
+            sentences = new Sentence[in.readInt()];
+            for (int i = 0; i < sentences.length; i++)
+                sentences[i] = in.readObject();
+            context = in.readObject();
+            nbest = in.readInt();
+            expirationTimestamp = in.readLong();
+        }
+
     }
 }
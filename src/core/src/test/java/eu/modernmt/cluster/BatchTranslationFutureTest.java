@@ -0,0 +1,93 @@
+package eu.modernmt.cluster;
+
+import eu.modernmt.model.Translation;
+import eu.modernmt.model.Word;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+public class BatchTranslationFutureTest {
+
+    private static Translation[] translations(int size) {
+        Translation[] result = new Translation[size];
+        for (int i = 0; i < size; i++)
+            result[i] = new Translation(new Word[0], null, null);
+        return result;
+    }
+
+    private static List<Future<BatchTranslationResult>> slices(int[] offsets, Translation[] translations) {
+        List<Future<BatchTranslationResult>> slices = new ArrayList<>();
+        for (int i = 0; i < offsets.length - 1; i++) {
+            Translation[] slice = Arrays.copyOfRange(translations, offsets[i], offsets[i + 1]);
+            slices.add(CompletableFuture.completedFuture(new BatchTranslationResult(slice, new Throwable[slice.length])));
+        }
+        return slices;
+    }
+
+    @Test
+    public void splitInContiguousBalancedSlices() {
+        assertArrayEquals(new int[]{0, 3, 6, 10}, BatchTranslationFuture.split(10, 3));
+        assertArrayEquals(new int[]{0, 1, 2}, BatchTranslationFuture.split(2, 5));
+        assertArrayEquals(new int[]{0, 7}, BatchTranslationFuture.split(7, 1));
+        assertArrayEquals(new int[]{0, 0}, BatchTranslationFuture.split(0, 3));
+    }
+
+    @Test
+    public void resultsAreMergedInBatchOrder() throws Throwable {
+        Translation[] translations = translations(10);
+        int[] offsets = BatchTranslationFuture.split(translations.length, 3);
+
+        BatchTranslationResult result = new BatchTranslationFuture(translations.length, offsets,
+                slices(offsets, translations)).get();
+
+        assertEquals(translations.length, result.size());
+        for (int i = 0; i < translations.length; i++) {
+            assertSame(translations[i], result.getTranslation(i));
+            assertTrue(result.isSuccessful(i));
+        }
+    }
+
+    @Test
+    public void failedSliceReportsErrorForItsSentences() throws Throwable {
+        Translation[] translations = translations(10);
+        int[] offsets = BatchTranslationFuture.split(translations.length, 3);
+
+        List<Future<BatchTranslationResult>> slices = slices(offsets, translations);
+        IllegalStateException error = new IllegalStateException("member left the cluster");
+        CompletableFuture<BatchTranslationResult> failed = new CompletableFuture<>();
+        failed.completeExceptionally(error);
+        slices.set(1, failed);
+
+        BatchTranslationResult result = new BatchTranslationFuture(translations.length, offsets, slices).get();
+
+        for (int i = 0; i < translations.length; i++) {
+            if (i >= offsets[1] && i < offsets[2]) {
+                assertNull(result.getTranslation(i));
+                assertSame(error, result.getError(i));
+            } else {
+                assertSame(translations[i], result.getTranslation(i));
+                assertTrue(result.isSuccessful(i));
+            }
+        }
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void pendingSliceTimesOut() throws Throwable {
+        Translation[] translations = translations(4);
+        int[] offsets = BatchTranslationFuture.split(translations.length, 2);
+
+        List<Future<BatchTranslationResult>> slices = slices(offsets, translations);
+        slices.set(1, new CompletableFuture<>());
+
+        new BatchTranslationFuture(translations.length, offsets, slices).get(50, TimeUnit.MILLISECONDS);
+    }
+
+}
@@ -0,0 +1,306 @@
+package eu.modernmt.cluster.binlog;
+
+import eu.modernmt.data.BinaryLog;
+import eu.modernmt.data.BinaryLogException;
+import eu.modernmt.data.BulkImportMessage;
+import eu.modernmt.data.DataBatch;
+import eu.modernmt.data.LogDataListener;
+import eu.modernmt.data.TranslationUnitMessage;
+import eu.modernmt.lang.Language;
+import eu.modernmt.lang.LanguageDirection;
+import eu.modernmt.lang.LanguageIndex;
+import eu.modernmt.model.ImportJob;
+import eu.modernmt.model.Memory;
+import eu.modernmt.model.corpus.TranslationUnit;
+import eu.modernmt.training.MockMultilingualCorpus;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class FileBinaryLogTest {
+
+    private static final LanguageDirection EN__IT = new LanguageDirection(Language.ENGLISH, Language.ITALIAN);
+    private static final Memory MEMORY = new Memory(1L, new UUID(0L, 1L), "test");
+
+    private final LanguageIndex languages = new LanguageIndex.Builder().add(EN__IT).build();
+    private File path;
+
+    private static class RecordingListener implements LogDataListener {
+
+        private final List<String> sources = Collections.synchronizedList(new ArrayList<>());
+        private final Map<Short, Long> positions = new HashMap<>();
+        private final Map<String, Integer> batchIndexes = new HashMap<>();
+        private int batches = 0;
+
+        @Override
+        public synchronized void onDataReceived(DataBatch batch) throws IOException {
+            for (TranslationUnitMessage tu : batch.getTranslationUnits()) {
+                sources.add(tu.value.source);
+                positions.put(tu.channel, tu.channelPosition);
+                batchIndexes.put(tu.value.source, batches);
+            }
+
+            batches++;
+        }
+
+        @Override
+        public synchronized Map<Short, Long> getLatestChannelPositions() {
+            return new HashMap<>(positions);
+        }
+
+        @Override
+        public boolean needsProcessing() {
+            return false;
+        }
+
+        @Override
+        public boolean needsAlignment() {
+            return false;
+        }
+
+        void await(int size) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10000L;
+            while (sources.size() < size && System.currentTimeMillis() < deadline)
+                Thread.sleep(10);
+        }
+
+    }
+
+    @Before
+    public void setup() throws IOException {
+        path = Files.createTempDirectory("FileBinaryLogTest").toFile();
+    }
+
+    @After
+    public void teardown() throws IOException {
+        FileUtils.deleteDirectory(path);
+    }
+
+    private FileBinaryLog open(int segmentSize, RecordingListener listener) throws IOException {
+        FileBinaryLog binaryLog = new FileBinaryLog(languages, null, null, path, "test", segmentSize);
+        binaryLog.addLogDataListener(listener);
+        binaryLog.connect();
+        return binaryLog;
+    }
+
+    private static TranslationUnit tu(int i) {
+        return new TranslationUnit("tu" + i, EN__IT, "source " + i, "target " + i);
+    }
+
+    private static List<String> sources(int from, int to) {
+        ArrayList<String> result = new ArrayList<>();
+        for (int i = from; i < to; i++)
+            result.add("source " + i);
+        return result;
+    }
+
+    @Test
+    public void contributionsAreDeliveredWithPositions() throws Throwable {
+        RecordingListener listener = new RecordingListener();
+
+        try (FileBinaryLog binaryLog = open(FileBinaryLog.DEFAULT_SEGMENT_SIZE, listener)) {
+            ImportJob job = null;
+            for (int i = 0; i < 10; i++)
+                job = binaryLog.upload(MEMORY, tu(i), BinaryLog.CONTRIBUTIONS_CHANNEL_ID);
+
+            assertNotNull(job);
+            assertEquals(9L, job.getBegin());
+
+            listener.await(10);
+            assertEquals(sources(0, 10), listener.sources);
+
+            Map<Short, Long> positions = new HashMap<>();
+            positions.put(BinaryLog.CONTRIBUTIONS_CHANNEL_ID, 10L);
+            binaryLog.waitChannelPositions(positions);
+        }
+    }
+
+    @Test
+    public void reopenResumesFromListenerPositions() throws Throwable {
+        RecordingListener listener = new RecordingListener();
+
+        try (FileBinaryLog binaryLog = open(FileBinaryLog.DEFAULT_SEGMENT_SIZE, listener)) {
+            for (int i = 0; i < 5; i++)
+                binaryLog.upload(MEMORY, tu(i), BinaryLog.CONTRIBUTIONS_CHANNEL_ID);
+            listener.await(5);
+        }
+
+        // records written while the listener was not running
+        try (FileBinaryLog binaryLog = new FileBinaryLog(languages, null, null, path, "test", FileBinaryLog.DEFAULT_SEGMENT_SIZE)) {
+            for (int i = 5; i < 8; i++)
+                binaryLog.upload(MEMORY, tu(i), BinaryLog.CONTRIBUTIONS_CHANNEL_ID);
+        }
+
+        try (FileBinaryLog binaryLog = open(FileBinaryLog.DEFAULT_SEGMENT_SIZE, listener)) {
+            ImportJob job = binaryLog.upload(MEMORY, tu(8), BinaryLog.CONTRIBUTIONS_CHANNEL_ID);
+            assertEquals(8L, job.getBegin());
+
+            listener.await(9);
+            assertEquals(sources(0, 9), listener.sources);
+        }
+    }
+
+    @Test
+    public void segmentsAreRolled() throws Throwable {
+        RecordingListener listener = new RecordingListener();
+
+        try (FileBinaryLog binaryLog = open(256, listener)) {
+            for (int i = 0; i < 100; i++)
+                binaryLog.upload(MEMORY, tu(i), BinaryLog.CONTRIBUTIONS_CHANNEL_ID);
+
+            listener.await(100);
+            assertEquals(sources(0, 100), listener.sources);
+        }
+
+        File[] segments = new File(path, binaryLogChannelName()).listFiles();
+        assertNotNull(segments);
+        assertTrue(segments.length > 1);
+
+        // a new reader can start from any offset
+        RecordingListener second = new RecordingListener();
+        second.positions.put(BinaryLog.MEMORY_UPLOAD_CHANNEL_ID, -1L);
+        second.positions.put(BinaryLog.CONTRIBUTIONS_CHANNEL_ID, 49L);
+
+        try (FileBinaryLog binaryLog = open(256, second)) {
+            second.await(50);
+            assertEquals(sources(50, 100), second.sources);
+            assertEquals(100L, binaryLog.getLogChannel(BinaryLog.CONTRIBUTIONS_CHANNEL_ID).getNextOffset());
+        }
+    }
+
+    @Test
+    public void busyChannelDoesNotStarveOthers() throws Throwable {
+        try (FileBinaryLog binaryLog = new FileBinaryLog(languages, null, null, path, "test", FileBinaryLog.DEFAULT_SEGMENT_SIZE)) {
+            for (int i = 0; i < 2000; i++)
+                binaryLog.upload(MEMORY, tu(i), BinaryLog.MEMORY_UPLOAD_CHANNEL_ID);
+            binaryLog.upload(MEMORY, new TranslationUnit("tu", EN__IT, "contribution", "contributo"), BinaryLog.CONTRIBUTIONS_CHANNEL_ID);
+        }
+
+        RecordingListener listener = new RecordingListener();
+        try (FileBinaryLog ignored = open(FileBinaryLog.DEFAULT_SEGMENT_SIZE, listener)) {
+            listener.await(2001);
+            assertEquals(2001, listener.sources.size());
+        }
+
+        // the contribution is delivered with the first batch, not after the whole backlog of the other channel
+        assertEquals(0, (int) listener.batchIndexes.get("contribution"));
+        assertTrue(listener.batches > 1);
+    }
+
+    @Test
+    public void recordsAreReadBackWithEveryFlushPolicy() throws Throwable {
+        for (long flushInterval : new long[]{0L, 10L, -1L}) {
+            FileUtils.cleanDirectory(path);
+            RecordingListener listener = new RecordingListener();
+
+            try (FileBinaryLog binaryLog = new FileBinaryLog(languages, null, null, path, "test", 256, flushInterval)) {
+                binaryLog.addLogDataListener(listener);
+                binaryLog.connect();
+
+                for (int i = 0; i < 20; i++)
+                    binaryLog.upload(MEMORY, tu(i), BinaryLog.CONTRIBUTIONS_CHANNEL_ID);
+
+                listener.await(20);
+                Thread.sleep(50);  // let the periodic flush run
+            }
+
+            assertEquals(sources(0, 20), listener.sources);
+
+            try (FileBinaryLog binaryLog = new FileBinaryLog(languages, null, null, path, "test", 256, flushInterval)) {
+                assertEquals(20L, binaryLog.getLogChannel(BinaryLog.CONTRIBUTIONS_CHANNEL_ID).getNextOffset());
+            }
+        }
+    }
+
+    @Test
+    public void bulkImportIsWrittenWithItsContent() throws Throwable {
+        List<UUID> contentImports = Collections.synchronizedList(new ArrayList<>());
+        List<BulkImportMessage> markers = Collections.synchronizedList(new ArrayList<>());
+
+        RecordingListener listener = new RecordingListener() {
+
+            @Override
+            public synchronized void onDataReceived(DataBatch batch) throws IOException {
+                super.onDataReceived(batch);
+
+                for (TranslationUnitMessage tu : batch.getTranslationUnits())
+                    contentImports.add(tu.bulkImport);
+                markers.addAll(batch.getBulkImports());
+            }
+
+        };
+
+        UUID id = UUID.randomUUID();
+        TranslationUnit[] units = {tu(0), tu(1), tu(2)};
+
+        try (FileBinaryLog binaryLog = open(FileBinaryLog.DEFAULT_SEGMENT_SIZE, listener)) {
+            ImportJob job = binaryLog.uploadBulkImport(MEMORY, new MockMultilingualCorpus(units), id, BinaryLog.MEMORY_UPLOAD_CHANNEL_ID);
+
+            // a single bulk packet followed by the marker
+            assertEquals(3, job.getSize());
+            assertEquals(0L, job.getBegin());
+            assertEquals(1L, job.getEnd());
+
+            listener.await(3);
+            long deadline = System.currentTimeMillis() + 10000L;
+            while (markers.isEmpty() && System.currentTimeMillis() < deadline)
+                Thread.sleep(10);
+        }
+
+        // listeners without the offline data of the import apply its content
+        assertEquals(sources(0, 3), listener.sources);
+        assertEquals(Arrays.asList(id, id, id), contentImports);
+
+        assertEquals(1, markers.size());
+        assertEquals(id, markers.get(0).id);
+        assertEquals(3, markers.get(0).size);
+        assertEquals(1L, markers.get(0).channelPosition);
+    }
+
+    @Test
+    public void tornRecordIsDiscardedOnRecovery() throws Throwable {
+        try (FileBinaryLog binaryLog = new FileBinaryLog(languages, null, null, path, "test", 4096)) {
+            for (int i = 0; i < 3; i++)
+                binaryLog.upload(MEMORY, tu(i), BinaryLog.CONTRIBUTIONS_CHANNEL_ID);
+        }
+
+        // corrupt the payload of the last record
+        File segment = LogSegment.getFile(new File(path, binaryLogChannelName()), 0L);
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            int position = 0;
+            for (int i = 0; i < 2; i++) {
+                raf.seek(position);
+                position += LogSegment.HEADER_SIZE + raf.readInt();
+            }
+
+            raf.seek(position + LogSegment.HEADER_SIZE);
+            int value = raf.read();
+            raf.seek(position + LogSegment.HEADER_SIZE);
+            raf.write(~value);
+        }
+
+        RecordingListener listener = new RecordingListener();
+        try (FileBinaryLog binaryLog = open(4096, listener)) {
+            assertEquals(2L, binaryLog.getLogChannel(BinaryLog.CONTRIBUTIONS_CHANNEL_ID).getNextOffset());
+
+            binaryLog.upload(MEMORY, tu(3), BinaryLog.CONTRIBUTIONS_CHANNEL_ID);
+            listener.await(3);
+
+            assertEquals(Arrays.asList("source 0", "source 1", "source 3"), listener.sources);
+        }
+    }
+
+    private static String binaryLogChannelName() {
+        return "test-contributions-stream";
+    }
+
+}
@@ -0,0 +1,86 @@
+package eu.modernmt.cluster.kafka;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ChannelPositionTrackerTest {
+
+    private static Map<Short, Long> positions(long channel0, long channel1) {
+        HashMap<Short, Long> result = new HashMap<>(2);
+        result.put((short) 0, channel0);
+        result.put((short) 1, channel1);
+        return result;
+    }
+
+    @Test
+    public void reachedPositionCompletesImmediately() {
+        ChannelPositionTracker tracker = new ChannelPositionTracker(2);
+        tracker.update(positions(10L, 5L));
+
+        assertTrue(tracker.whenReached((short) 0, 10L).isDone());
+        assertTrue(tracker.whenReached(positions(3L, 5L)).isDone());
+        assertFalse(tracker.whenReached((short) 1, 6L).isDone());
+    }
+
+    @Test
+    public void waitersAreCompletedByUpdates() {
+        ChannelPositionTracker tracker = new ChannelPositionTracker(2);
+
+        CompletableFuture<Void> first = tracker.whenReached((short) 1, 5L);
+        CompletableFuture<Void> second = tracker.whenReached((short) 1, 8L);
+        CompletableFuture<Void> both = tracker.whenReached(positions(2L, 5L));
+
+        tracker.update(positions(0L, 6L));
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+        assertFalse(both.isDone());
+
+        tracker.update(positions(2L, 8L));
+        assertTrue(second.isDone());
+        assertTrue(both.isDone());
+    }
+
+    @Test
+    public void positionsNeverMoveBackward() {
+        ChannelPositionTracker tracker = new ChannelPositionTracker(2);
+        tracker.update(positions(10L, 10L));
+        tracker.update(positions(4L, 12L));
+
+        assertEquals(positions(10L, 12L), tracker.getPositions());
+    }
+
+    @Test
+    public void zeroTargetsAreIgnored() throws Throwable {
+        ChannelPositionTracker tracker = new ChannelPositionTracker(2);
+        tracker.await(positions(0L, 0L));
+    }
+
+    @Test
+    public void awaitReturnsWhenPositionIsPublished() throws Throwable {
+        ChannelPositionTracker tracker = new ChannelPositionTracker(2);
+
+        Thread publisher = new Thread(() -> {
+            for (long i = 1; i <= 100; i++)
+                tracker.update(positions(i, i));
+        });
+
+        CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+            try {
+                tracker.await(positions(100L, 50L));
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        publisher.start();
+        future.get(10, TimeUnit.SECONDS);
+        publisher.join();
+    }
+
+}
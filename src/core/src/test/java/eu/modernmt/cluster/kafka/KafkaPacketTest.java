@@ -0,0 +1,196 @@
+package eu.modernmt.cluster.kafka;
+
+import eu.modernmt.data.BulkImportMessage;
+import eu.modernmt.data.TranslationUnitMessage;
+import eu.modernmt.lang.Language;
+import eu.modernmt.lang.LanguageDirection;
+import eu.modernmt.lang.LanguageIndex;
+import eu.modernmt.model.Memory;
+import eu.modernmt.model.corpus.TUReader;
+import eu.modernmt.model.corpus.TranslationUnit;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class KafkaPacketTest {
+
+    private static final LanguageDirection EN__IT = new LanguageDirection(Language.ENGLISH, Language.ITALIAN);
+    private static final LanguageDirection EN__FR = new LanguageDirection(Language.ENGLISH, Language.FRENCH);
+    private static final Memory MEMORY = new Memory(1L, new UUID(0L, 1L), "test");
+
+    private static TranslationUnit tu(LanguageDirection language, int i) {
+        return new TranslationUnit("tu" + i, language, "source " + i, "target " + i, new Date(1000L + i));
+    }
+
+    private static TUReader reader(List<TranslationUnit> units) {
+        Iterator<TranslationUnit> iterator = units.iterator();
+
+        return new TUReader() {
+            @Override
+            public TranslationUnit read() {
+                return iterator.hasNext() ? iterator.next() : null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Test
+    public void bulkAdditionRoundTrip() {
+        List<TranslationUnit> units = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            units.add(tu(EN__IT, i));
+
+        KafkaPacket bulk = KafkaPacket.createBulkAddition(MEMORY.getOwner(), MEMORY.getId(), EN__IT, units);
+        byte[] bytes = bulk.toBytes();
+
+        KafkaPacket packet = KafkaPacket.fromBytes(bytes);
+        packet.setChannelInfo((short) 0, 42L);
+
+        assertEquals(KafkaPacket.TYPE_BULK_ADDITION, packet.getType());
+        assertEquals(100, packet.size());
+        assertEquals(EN__IT, packet.getDirection());
+
+        List<KafkaPacket> expanded = packet.expand();
+        assertEquals(100, expanded.size());
+
+        for (int i = 0; i < expanded.size(); i++) {
+            TranslationUnitMessage message = expanded.get(i).asTranslationUnit(EN__IT);
+
+            assertEquals(42L, message.channelPosition);
+            assertEquals(MEMORY.getId(), message.memory);
+            assertEquals(MEMORY.getOwner(), message.owner);
+            assertFalse(message.update);
+            assertNull(message.bulkImport);
+            assertEquals(units.get(i).tuid, message.value.tuid);
+            assertEquals(units.get(i).source, message.value.source);
+            assertEquals(units.get(i).target, message.value.target);
+            assertEquals(units.get(i).timestamp, message.value.timestamp);
+        }
+
+        // the shared header and the compression must beat the single additions
+        int singleSize = 0;
+        for (TranslationUnit tu : units)
+            singleSize += KafkaPacket.createAddition(MEMORY.getOwner(), MEMORY.getId(), tu).toBytes().length;
+
+        assertTrue(bytes.length * 2 < singleSize);
+    }
+
+    @Test
+    public void bulkPacketReaderSplitsByDirectionAndSize() throws IOException {
+        List<TranslationUnit> units = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+            units.add(tu(EN__IT, i));
+        for (int i = 5; i < 10; i++)
+            units.add(tu(EN__FR, i));
+        for (int i = 10; i < 10 + BulkPacketReader.MAX_BULK_SIZE + 1; i++)
+            units.add(tu(EN__IT, i));
+
+        List<KafkaPacket> packets = new ArrayList<>();
+        try (BulkPacketReader reader = new BulkPacketReader(MEMORY, reader(units))) {
+            KafkaPacket packet;
+            while ((packet = reader.read()) != null)
+                packets.add(packet);
+
+            assertEquals(units.size(), reader.getSize());
+        }
+
+        assertEquals(4, packets.size());
+        assertEquals(EN__IT, packets.get(0).getDirection());
+        assertEquals(5, packets.get(0).size());
+        assertEquals(EN__FR, packets.get(1).getDirection());
+        assertEquals(5, packets.get(1).size());
+        assertEquals(BulkPacketReader.MAX_BULK_SIZE, packets.get(2).size());
+        assertEquals(1, packets.get(3).size());
+    }
+
+    @Test
+    public void dataBatchExpandsBulkPackets() throws Throwable {
+        LanguageIndex languages = new LanguageIndex.Builder().add(EN__IT).build();
+        KafkaDataBatch batch = new KafkaDataBatch(languages, null, null, null);
+
+        KafkaPacket bulk = KafkaPacket.createBulkAddition(MEMORY.getOwner(), MEMORY.getId(), EN__IT,
+                Arrays.asList(tu(EN__IT, 0), tu(EN__IT, 1), tu(EN__IT, 2)));
+        bulk.setChannelInfo((short) 0, 7L);
+
+        KafkaPacket single = KafkaPacket.createAddition(MEMORY.getOwner(), MEMORY.getId(), tu(EN__IT, 3));
+        single.setChannelInfo((short) 0, 8L);
+
+        batch.load(Arrays.asList(bulk, single), false, false);
+
+        List<String> sources = new ArrayList<>();
+        for (TranslationUnitMessage message : batch.getTranslationUnits())
+            sources.add(message.value.source);
+
+        assertEquals(Arrays.asList("source 0", "source 1", "source 2", "source 3"), sources);
+        assertEquals(8L, (long) batch.getChannelPositions().get((short) 0));
+    }
+
+    @Test
+    public void bulkImportContentRoundTrip() throws Throwable {
+        UUID id = UUID.randomUUID();
+        List<TranslationUnit> units = Arrays.asList(tu(EN__IT, 0), tu(EN__IT, 1), tu(EN__FR, 2));
+
+        List<KafkaPacket> packets = new ArrayList<>();
+        try (BulkPacketReader reader = new BulkPacketReader(MEMORY, reader(units), id)) {
+            KafkaPacket packet;
+            while ((packet = reader.read()) != null) {
+                packet = KafkaPacket.fromBytes(packet.toBytes());
+                packet.setChannelInfo((short) 0, 10L + packets.size());
+                packets.add(packet);
+            }
+        }
+
+        assertEquals(2, packets.size());
+        assertEquals(KafkaPacket.TYPE_BULK_IMPORT_ADDITION, packets.get(0).getType());
+        assertEquals(2, packets.get(0).size());
+        assertEquals(EN__FR, packets.get(1).getDirection());
+
+        LanguageIndex languages = new LanguageIndex.Builder().add(EN__IT).add(EN__FR).build();
+        KafkaDataBatch batch = new KafkaDataBatch(languages, null, null, null);
+        batch.load(packets, false, false);
+
+        List<String> sources = new ArrayList<>();
+        for (TranslationUnitMessage message : batch.getTranslationUnits()) {
+            assertEquals(id, message.bulkImport);
+            sources.add(message.value.source);
+        }
+
+        assertEquals(3, sources.size());
+        assertTrue(sources.containsAll(Arrays.asList("source 0", "source 1", "source 2")));
+        assertTrue(batch.getBulkImports().isEmpty());
+        assertEquals(11L, (long) batch.getChannelPositions().get((short) 0));
+    }
+
+    @Test
+    public void bulkImportMarkerRoundTrip() throws Throwable {
+        UUID id = UUID.randomUUID();
+
+        KafkaPacket marker = KafkaPacket.fromBytes(KafkaPacket.createBulkImport(MEMORY.getOwner(), MEMORY.getId(), id, 1234).toBytes());
+        marker.setChannelInfo((short) 0, 9L);
+
+        assertEquals(KafkaPacket.TYPE_BULK_IMPORT, marker.getType());
+        assertEquals(0, marker.size());
+
+        LanguageIndex languages = new LanguageIndex.Builder().add(EN__IT).build();
+        KafkaDataBatch batch = new KafkaDataBatch(languages, null, null, null);
+        batch.load(Collections.singletonList(marker), false, false);
+
+        assertTrue(batch.getTranslationUnits().isEmpty());
+        assertEquals(1, batch.getBulkImports().size());
+
+        BulkImportMessage message = batch.getBulkImports().iterator().next();
+        assertEquals(id, message.id);
+        assertEquals(MEMORY.getOwner(), message.owner);
+        assertEquals(MEMORY.getId(), message.memory);
+        assertEquals(1234, message.size);
+        assertEquals(9L, message.channelPosition);
+        assertEquals(9L, (long) batch.getChannelPositions().get((short) 0));
+    }
+
+}
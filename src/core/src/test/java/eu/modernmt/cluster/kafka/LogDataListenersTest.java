@@ -0,0 +1,94 @@
+package eu.modernmt.cluster.kafka;
+
+import eu.modernmt.data.DataBatch;
+import eu.modernmt.data.LogDataListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class LogDataListenersTest {
+
+    private ExecutorService executor;
+
+    private interface Delivery {
+
+        void run() throws Exception;
+
+    }
+
+    private static LogDataListener listener(Delivery delivery) {
+        return new LogDataListener() {
+
+            @Override
+            public void onDataReceived(DataBatch batch) throws Exception {
+                delivery.run();
+            }
+
+            @Override
+            public Map<Short, Long> getLatestChannelPositions() {
+                return null;
+            }
+
+            @Override
+            public boolean needsProcessing() {
+                return false;
+            }
+
+            @Override
+            public boolean needsAlignment() {
+                return false;
+            }
+
+        };
+    }
+
+    @Before
+    public void setup() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void teardown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void failedDeliveryWaitsForEveryListener() throws Throwable {
+        IOException first = new IOException("first");
+        IllegalStateException second = new IllegalStateException("second");
+        AtomicBoolean completed = new AtomicBoolean(false);
+
+        LogDataListener failing = listener(() -> {
+            throw first;
+        });
+        LogDataListener slow = listener(() -> {
+            Thread.sleep(200);
+            completed.set(true);
+        });
+        LogDataListener alsoFailing = listener(() -> {
+            Thread.sleep(100);
+            throw second;
+        });
+
+        try {
+            LogDataListeners.deliver(executor, Arrays.asList(failing, slow, alsoFailing), null);
+            fail("Expected exception");
+        } catch (IOException e) {
+            assertSame(first, e);
+            assertArrayEquals(new Throwable[]{second}, e.getSuppressed());
+        }
+
+        // the batch can be reused only once every listener has returned
+        assertTrue(completed.get());
+    }
+
+}
@@ -0,0 +1,137 @@
+package eu.modernmt.cluster.kafka;
+
+import eu.modernmt.config.BinaryLogConfig;
+import eu.modernmt.data.DataBatch;
+import eu.modernmt.data.LogDataListener;
+import eu.modernmt.data.TranslationUnitMessage;
+import eu.modernmt.lang.Language;
+import eu.modernmt.lang.LanguageDirection;
+import eu.modernmt.lang.LanguageIndex;
+import eu.modernmt.model.corpus.TranslationUnit;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LogDataPollingThreadTest {
+
+    private static final LanguageDirection EN__IT = new LanguageDirection(Language.ENGLISH, Language.ITALIAN);
+
+    private KafkaBinaryLog binaryLog;
+    private KafkaChannel channel;
+    private MockConsumer<Integer, KafkaPacket> consumer;
+    private LogDataPollingThread pollingThread;
+
+    private static class RecordingListener implements LogDataListener {
+
+        private final long deliveryTime;
+        private final List<Long> positions = Collections.synchronizedList(new ArrayList<>());
+
+        private RecordingListener(long deliveryTime) {
+            this.deliveryTime = deliveryTime;
+        }
+
+        @Override
+        public void onDataReceived(DataBatch batch) throws Exception {
+            for (TranslationUnitMessage tu : batch.getTranslationUnits())
+                positions.add(tu.channelPosition);
+
+            Thread.sleep(deliveryTime);
+        }
+
+        @Override
+        public Map<Short, Long> getLatestChannelPositions() {
+            return null;
+        }
+
+        @Override
+        public boolean needsProcessing() {
+            return false;
+        }
+
+        @Override
+        public boolean needsAlignment() {
+            return false;
+        }
+
+    }
+
+    @Before
+    public void setup() {
+        LanguageIndex languages = new LanguageIndex.Builder().add(EN__IT).build();
+        binaryLog = new KafkaBinaryLog(languages, null, null, "test", new BinaryLogConfig(null));
+        channel = binaryLog.getLogChannel(KafkaBinaryLog.CONTRIBUTIONS_CHANNEL_ID);
+
+        List<TopicPartition> partitions = new ArrayList<>();
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        for (KafkaChannel channel : binaryLog.getChannels()) {
+            partitions.add(channel.getTopicPartition());
+            offsets.put(channel.getTopicPartition(), 0L);
+        }
+
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(partitions);
+        consumer.updateBeginningOffsets(offsets);
+
+        pollingThread = new LogDataPollingThread(languages, null, null, binaryLog);
+    }
+
+    @After
+    public void teardown() throws InterruptedException {
+        pollingThread.shutdown();
+        assertTrue(pollingThread.awaitTermination(TimeUnit.SECONDS, 5));
+    }
+
+    private void send(long offset) {
+        TranslationUnit tu = new TranslationUnit("tu" + offset, EN__IT, "source " + offset, "target " + offset);
+        consumer.addRecord(new ConsumerRecord<>(channel.getName(), 0, offset, 0,
+                KafkaPacket.createAddition(new UUID(0L, 1L), 1L, tu)));
+    }
+
+    @Test
+    public void batchesAreDeliveredInOrder() throws Throwable {
+        RecordingListener fast = new RecordingListener(0L);
+        RecordingListener slow = new RecordingListener(20L);
+        List<Long> notifiedPositions = Collections.synchronizedList(new ArrayList<>());
+
+        pollingThread.addListener(fast);
+        pollingThread.addListener(slow);
+        pollingThread.setBinaryLogListener(positions -> notifiedPositions.add(positions.get(channel.getId())));
+        pollingThread.start(consumer);
+
+        int size = 0;
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 10; i++)
+                send(size++);
+            Thread.sleep(5);
+        }
+
+        long deadline = System.currentTimeMillis() + 10000L;
+        while ((slow.positions.size() < size || fast.positions.size() < size) && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+
+        List<Long> expected = new ArrayList<>(size);
+        for (long i = 0; i < size; i++)
+            expected.add(i);
+
+        assertEquals(expected, fast.positions);
+        assertEquals(expected, slow.positions);
+
+        // positions are notified after delivery, in increasing order
+        synchronized (notifiedPositions) {
+            for (int i = 1; i < notifiedPositions.size(); i++)
+                assertTrue(notifiedPositions.get(i - 1) < notifiedPositions.get(i));
+        }
+
+        pollingThread.ensureRunning();
+    }
+
+}
@@ -0,0 +1,85 @@
+package eu.modernmt.cluster.serialization;
+
+import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.serialization.Data;
+import eu.modernmt.model.*;
+import org.apache.commons.lang.SerializationUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the serialization round-trip of a translation (with its source sentence and alignment)
+ * between plain Java serialization and the compact Hazelcast encoding.
+ * <p>
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=eu.modernmt.cluster.serialization.ModelSerializationBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelSerializationBenchmark {
+
+    @Param({"10", "30", "100"})
+    public int length;
+
+    private InternalSerializationService service;
+    private Translation translation;
+
+    @Setup
+    public void setup() {
+        SerializationConfig config = new SerializationConfig();
+        ModelSerialization.register(config);
+        service = new DefaultSerializationServiceBuilder().setConfig(config).build();
+
+        Random random = new Random(1234);
+        Sentence source = new Sentence(words(random, length), new Tag[]{
+                XMLTag.fromText("<b>", " ", null, 0),
+                XMLTag.fromText("</b>", null, " ", length / 2)
+        });
+
+        int[][] pairs = new int[length][];
+        for (int i = 0; i < length; i++)
+            pairs[i] = new int[]{i, random.nextInt(length)};
+
+        translation = new Translation(words(random, length), source, Alignment.fromAlignmentPairs(pairs));
+
+        System.out.println("\nSerialized size (bytes): java = " + SerializationUtils.serialize(translation).length +
+                ", compact = " + service.toData(translation).totalSize());
+    }
+
+    private static Word[] words(Random random, int length) {
+        Word[] words = new Word[length];
+        for (int i = 0; i < length; i++)
+            words[i] = new Word("word" + random.nextInt(1000), i == 0 ? null : " ", null);
+        return words;
+    }
+
+    @Benchmark
+    public Object java() {
+        byte[] bytes = SerializationUtils.serialize(translation);
+        return SerializationUtils.deserialize(bytes);
+    }
+
+    @Benchmark
+    public Object compact() {
+        Data data = service.toData(translation);
+        return service.toObject(data);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ModelSerializationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,147 @@
+package eu.modernmt.cluster.serialization;
+
+import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import eu.modernmt.model.*;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class ModelSerializationTest {
+
+    private static final InternalSerializationService service;
+
+    static {
+        SerializationConfig config = new SerializationConfig();
+        ModelSerialization.register(config);
+        service = new DefaultSerializationServiceBuilder().setConfig(config).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(T object) {
+        return (T) service.toObject(service.toData(object));
+    }
+
+    private static Sentence sentence() {
+        Word hello = new Word("Hello", "Hello", null, " ", false, true);
+        Word world = new Word("World", "world", " ", null, true, false);
+        world.setHiddenRightSpace(true);
+        Word excl = new Word("!", null, " ");
+        excl.setSentenceBreak(true);
+
+        Tag open = XMLTag.fromText("<b>", null, null, 1);
+        Tag close = XMLTag.fromText("</b>", null, " ", 2);
+        Tag newline = WhitespaceTag.fromText("\n", null, null, 3);
+
+        Sentence sentence = new Sentence(new Word[]{hello, world, excl}, new Tag[]{open, close, newline});
+        sentence.addAnnotation(new Annotation("test"));
+
+        return sentence;
+    }
+
+    private static void assertSentenceEquals(Sentence expected, Sentence actual) {
+        assertArrayEquals(expected.getWords(), actual.getWords());
+        assertArrayEquals(expected.getTags(), actual.getTags());
+        assertEquals(expected.toString(true, false), actual.toString(true, false));
+
+        for (int i = 0; i < expected.getWords().length; i++) {
+            Word e = expected.getWords()[i];
+            Word a = actual.getWords()[i];
+
+            assertEquals(e.isLeftSpaceRequired(), a.isLeftSpaceRequired());
+            assertEquals(e.isRightSpaceRequired(), a.isRightSpaceRequired());
+            assertEquals(e.hasHiddenLeftSpace(), a.hasHiddenLeftSpace());
+            assertEquals(e.hasHiddenRightSpace(), a.hasHiddenRightSpace());
+            assertEquals(e.isSentenceBreak(), a.isSentenceBreak());
+        }
+
+        for (int i = 0; i < expected.getTags().length; i++) {
+            Tag e = expected.getTags()[i];
+            Tag a = actual.getTags()[i];
+
+            assertSame(e.getClass(), a.getClass());
+            assertEquals(e.getName(), a.getName());
+        }
+
+        assertEquals(expected.getAnnotations().size(), actual.getAnnotations().size());
+        for (Annotation annotation : expected.getAnnotations())
+            assertTrue(actual.hasAnnotation(annotation.getId()));
+    }
+
+    @Test
+    public void sentence_roundTrip() {
+        Sentence sentence = sentence();
+        assertSentenceEquals(sentence, roundTrip(sentence));
+    }
+
+    @Test
+    public void translation_roundTrip() {
+        Sentence source = sentence();
+
+        Translation translation = new Translation(new Word[]{
+                new Word("Ciao", null, " "),
+                new Word("mondo", " ", null)
+        }, new Tag[]{
+                XMLTag.fromText("<br/>", null, null, 2)
+        }, source, Alignment.fromAlignmentPairs(new int[][]{{0, 0}, {1, 1}}, .5f));
+        translation.setDecodeTime(12);
+        translation.setQueueTime(3);
+        translation.setQueueLength(4);
+
+        Translation hypothesis = new Translation(new Word[]{new Word("Salve")}, source, null);
+        Translation other = new Translation(new Word[]{new Word("Hello")}, new Sentence(null), null);
+        translation.setNbest(Arrays.asList(hypothesis, other));
+
+        Translation result = roundTrip(translation);
+
+        assertSentenceEquals(translation, result);
+        assertSentenceEquals(source, result.getSource());
+        assertArrayEquals(translation.getWordAlignment().getSourceIndexes(), result.getWordAlignment().getSourceIndexes());
+        assertArrayEquals(translation.getWordAlignment().getTargetIndexes(), result.getWordAlignment().getTargetIndexes());
+        assertEquals(.5f, result.getWordAlignment().getScore(), 0.f);
+        assertEquals(12, result.getDecodeTime());
+        assertEquals(3, result.getQueueTime());
+        assertEquals(4, result.getQueueLength());
+
+        assertEquals(2, result.getNbest().size());
+        assertSame(result.getSource(), result.getNbest().get(0).getSource());
+        assertSentenceEquals(hypothesis, result.getNbest().get(0));
+        assertNull(result.getNbest().get(0).getWordAlignment());
+        assertSentenceEquals(other, result.getNbest().get(1));
+        assertEquals(0, result.getNbest().get(1).getSource().getWords().length);
+    }
+
+    @Test
+    public void contextVector_roundTrip() {
+        UUID owner = UUID.randomUUID();
+        ContextVector vector = new ContextVector.Builder()
+                .add(new Memory(1, owner, "first"), .8f)
+                .add(new Memory(2, null, null), .3f)
+                .build();
+
+        ContextVector result = roundTrip(vector);
+
+        assertEquals(vector.size(), result.size());
+
+        ContextVector.Entry[] expected = new ContextVector.Entry[vector.size()];
+        ContextVector.Entry[] actual = new ContextVector.Entry[result.size()];
+        int i = 0;
+        for (ContextVector.Entry entry : vector)
+            expected[i++] = entry;
+        i = 0;
+        for (ContextVector.Entry entry : result)
+            actual[i++] = entry;
+
+        for (i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].memory, actual[i].memory);
+            assertEquals(expected[i].memory.getOwner(), actual[i].memory.getOwner());
+            assertEquals(expected[i].memory.getName(), actual[i].memory.getName());
+            assertEquals(expected[i].score, actual[i].score, 0.f);
+        }
+    }
+
+}
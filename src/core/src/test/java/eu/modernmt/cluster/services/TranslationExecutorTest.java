@@ -0,0 +1,70 @@
+package eu.modernmt.cluster.services;
+
+import eu.modernmt.decoder.DecoderUnavailableException;
+import eu.modernmt.model.Priority;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TranslationExecutorTest {
+
+    private TranslationExecutor executor;
+    private CountDownLatch blocker;
+
+    @Before
+    public void setup() throws Throwable {
+        executor = new TranslationExecutor(1, 4);
+        blocker = new CountDownLatch(1);
+
+        // occupy the only thread, so that the following tasks are queued
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(Priority.NORMAL, () -> {
+            started.countDown();
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                // Ignore
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void teardown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void tasksRunInPriorityOrder() throws Throwable {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        executor.execute(Priority.BACKGROUND, () -> order.add("background"));
+        executor.execute(Priority.NORMAL, () -> order.add("normal-1"));
+        executor.execute(Priority.HIGH, () -> order.add("high"));
+        executor.execute(Priority.NORMAL, () -> order.add("normal-2"));
+
+        blocker.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(Arrays.asList("high", "normal-1", "normal-2", "background"), order);
+    }
+
+    @Test(expected = DecoderUnavailableException.class)
+    public void fullQueueRejectsTasks() throws Throwable {
+        for (int i = 0; i < 5; i++)
+            executor.execute(Priority.HIGH, () -> {
+            });
+    }
+
+}
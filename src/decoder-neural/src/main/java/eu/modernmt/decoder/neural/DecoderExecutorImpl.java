@@ -5,6 +5,7 @@ import eu.modernmt.decoder.TranslationTimeoutException;
 import eu.modernmt.decoder.neural.queue.DecoderQueue;
 import eu.modernmt.decoder.neural.queue.PythonDecoder;
 import eu.modernmt.decoder.neural.scheduler.Scheduler;
+import eu.modernmt.decoder.neural.scheduler.TokenBudgetPacker;
 import eu.modernmt.decoder.neural.scheduler.TranslationSplit;
 import eu.modernmt.lang.LanguageDirection;
 import eu.modernmt.memory.ScoreEntry;
@@ -17,12 +18,33 @@ import java.util.List;
 
 public class DecoderExecutorImpl implements DecoderExecutor {
 
+    private final TokenBudgetPacker packer;
+
+    public DecoderExecutorImpl() {
+        this(null);
+    }
+
+    /**
+     * @param packer the packer used to divide large batches into decoder calls of similar
+     *               sentence length, or null to send every batch with a single call
+     */
+    public DecoderExecutorImpl(TokenBudgetPacker packer) {
+        this.packer = packer;
+    }
+
     @Override
     public void align(PythonDecoder decoder, LanguageDirection language, List<TranslationSplit> splits) throws DecoderException {
-        Sentence[] sentences = mergeSentences(splits);
-        String[][] references = mergeReferences(splits);
+        Translation[] result;
 
-        Translation[] result = decoder.align(language, sentences, references);
+        if (packer == null || splits.size() < 2) {
+            result = decoder.align(language, mergeSentences(splits), mergeReferences(splits));
+        } else {
+            result = new Translation[splits.size()];
+            for (int[] batch : packer.pack(splits)) {
+                List<TranslationSplit> subset = subset(splits, batch);
+                scatter(decoder.align(language, mergeSentences(subset), mergeReferences(subset)), batch, result);
+            }
+        }
 
         int i = 0;
         for (TranslationSplit split : splits)
@@ -31,21 +53,44 @@ public class DecoderExecutorImpl implements DecoderExecutor {
 
     @Override
     public void translate(PythonDecoder decoder, LanguageDirection language, List<TranslationSplit> splits, Collection<ScoreEntry> suggestions) throws DecoderException {
-        Sentence[] sentences = mergeSentences(splits);
+        ScoreEntry[] suggestionArray = suggestions == null || suggestions.isEmpty() ?
+                null : suggestions.toArray(new ScoreEntry[0]);
         Translation[] translations;
 
-        if (suggestions == null || suggestions.isEmpty()) {
-            translations = decoder.translate(language, sentences, 0);
+        if (packer == null || splits.size() < 2) {
+            translations = translate(decoder, language, mergeSentences(splits), suggestionArray);
         } else {
-            ScoreEntry[] suggestionArray = suggestions.toArray(new ScoreEntry[0]);
-            translations = decoder.translate(language, sentences, suggestionArray, 0);
+            translations = new Translation[splits.size()];
+            for (int[] batch : packer.pack(splits))
+                scatter(translate(decoder, language, mergeSentences(subset(splits, batch)), suggestionArray), batch, translations);
         }
 
+        // translations are assigned in the original order of the splits
         int i = 0;
         for (TranslationSplit split : splits)
             split.setTranslation(translations[i++]);
     }
 
+    private static Translation[] translate(PythonDecoder decoder, LanguageDirection language, Sentence[] sentences,
+                                           ScoreEntry[] suggestions) throws DecoderException {
+        if (suggestions == null)
+            return decoder.translate(language, sentences, 0);
+        else
+            return decoder.translate(language, sentences, suggestions, 0);
+    }
+
+    private static List<TranslationSplit> subset(List<TranslationSplit> splits, int[] indexes) {
+        ArrayList<TranslationSplit> result = new ArrayList<>(indexes.length);
+        for (int i : indexes)
+            result.add(splits.get(i));
+        return result;
+    }
+
+    private static void scatter(Translation[] translations, int[] indexes, Translation[] result) {
+        for (int i = 0; i < indexes.length; i++)
+            result[indexes[i]] = translations[i];
+    }
+
     private static Sentence[] mergeSentences(List<TranslationSplit> splits) {
         Sentence[] sentences = new Sentence[splits.size()];
         for (int i = 0; i < sentences.length; i++)
@@ -1,14 +1,17 @@
 package eu.modernmt.decoder.neural;
 
+import eu.modernmt.decoder.DecoderException;
 import eu.modernmt.decoder.TranslationTimeoutException;
 import eu.modernmt.decoder.neural.queue.DecoderQueue;
 import eu.modernmt.decoder.neural.queue.PythonDecoder;
 import eu.modernmt.decoder.neural.scheduler.Scheduler;
 import eu.modernmt.decoder.neural.scheduler.TranslationSplit;
 import eu.modernmt.lang.LanguageDirection;
+import eu.modernmt.memory.ScoreEntry;
 import eu.modernmt.model.*;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class DecoderExecutorThread extends Thread {
@@ -36,6 +39,16 @@ public class DecoderExecutorThread extends Thread {
         Scheduler.Job job;
 
         while ((job = take()) != null) {
+            // wait for the memory lookup, it may still be running
+            Collection<ScoreEntry> suggestions;
+            try {
+                suggestions = job.isAlignmentJob() ? null : job.getSuggestions();
+            } catch (DecoderException e) {
+                for (TranslationSplit split : job.getTranslationSplits())
+                    split.setException(e);
+                continue;
+            }
+
             List<TranslationSplit> splits = filter(job.getTranslationSplits());
 
             if (!splits.isEmpty()) {
@@ -52,7 +65,7 @@ public class DecoderExecutorThread extends Thread {
                     if (job.isAlignmentJob())
                         executor.align(decoder, language, splits);
                     else
-                        executor.translate(decoder, language, splits, job.getSuggestions());
+                        executor.translate(decoder, language, splits, suggestions);
                 } catch (Throwable e) {
                     for (TranslationSplit split : job.getTranslationSplits())
                         split.setException(e);
@@ -68,6 +81,9 @@ public class DecoderExecutorThread extends Thread {
         ArrayList<TranslationSplit> result = new ArrayList<>(splits.size());
 
         for (TranslationSplit split : splits) {
+            if (split.isCancelled())
+                continue;
+
             try {
                 split.ensureValid();
 
@@ -2,12 +2,15 @@ package eu.modernmt.decoder.neural;
 
 import eu.modernmt.config.DecoderConfig;
 import eu.modernmt.decoder.DecoderException;
+import eu.modernmt.decoder.neural.cache.SuggestionCache;
+import eu.modernmt.decoder.neural.cache.TranslationCache;
 import eu.modernmt.decoder.neural.queue.DecoderQueue;
 import eu.modernmt.decoder.neural.scheduler.Scheduler;
 import eu.modernmt.memory.TranslationMemory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
 
 public interface DecoderInitializer {
 
@@ -15,9 +18,15 @@ public interface DecoderInitializer {
 
     TranslationMemory createTranslationMemory(DecoderConfig config, ModelConfig modelConfig, File model) throws IOException;
 
+    TranslationCache createTranslationCache(DecoderConfig config, ModelConfig modelConfig, TranslationMemory memory);
+
+    SuggestionCache createSuggestionCache(DecoderConfig config, ModelConfig modelConfig, TranslationMemory memory);
+
+    ExecutorService createLookupExecutor(DecoderConfig config, ModelConfig modelConfig);
+
     DecoderQueue createDecoderQueue(DecoderConfig config, ModelConfig modelConfig, File model) throws DecoderException;
 
-    Scheduler createScheduler(DecoderConfig config, ModelConfig modelConfig, int queueSize) throws DecoderException;
+    Scheduler createScheduler(DecoderConfig config, ModelConfig modelConfig, DecoderQueue decoderQueue, int queueSize) throws DecoderException;
 
     DecoderExecutor createDecoderExecutor(DecoderConfig config, ModelConfig modelConfig) throws DecoderException;
 
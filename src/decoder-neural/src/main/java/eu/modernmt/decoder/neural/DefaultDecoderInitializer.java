@@ -3,19 +3,30 @@ package eu.modernmt.decoder.neural;
 import eu.modernmt.config.DecoderConfig;
 import eu.modernmt.decoder.Decoder;
 import eu.modernmt.decoder.DecoderException;
+import eu.modernmt.decoder.neural.cache.MemoryAwareCache;
+import eu.modernmt.decoder.neural.cache.SuggestionCache;
+import eu.modernmt.decoder.neural.cache.TranslationCache;
+import eu.modernmt.decoder.neural.memory.lucene.DefaultDocumentBuilder;
+import eu.modernmt.decoder.neural.memory.lucene.DocumentBuilder;
 import eu.modernmt.decoder.neural.memory.lucene.LuceneTranslationMemory;
+import eu.modernmt.decoder.neural.memory.lucene.analysis.DefaultAnalyzerFactory;
+import eu.modernmt.decoder.neural.memory.lucene.query.DefaultQueryBuilder;
+import eu.modernmt.decoder.neural.memory.lucene.query.rescoring.F1BleuRescorer;
 import eu.modernmt.decoder.neural.queue.DecoderQueue;
 import eu.modernmt.decoder.neural.queue.DecoderQueueImpl;
 import eu.modernmt.decoder.neural.queue.PythonDecoder;
 import eu.modernmt.decoder.neural.queue.PythonDecoderImpl;
 import eu.modernmt.decoder.neural.scheduler.Scheduler;
 import eu.modernmt.decoder.neural.scheduler.SentenceBatchScheduler;
+import eu.modernmt.decoder.neural.scheduler.TokenBudgetPacker;
 import eu.modernmt.memory.TranslationMemory;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class DefaultDecoderInitializer implements DecoderInitializer {
 
@@ -35,12 +46,45 @@ public class DefaultDecoderInitializer implements DecoderInitializer {
 
     @Override
     public TranslationMemory createTranslationMemory(DecoderConfig config, ModelConfig modelConfig, File model) throws IOException {
-        return new LuceneTranslationMemory(model, modelConfig.getQueryMinimumResults());
+        DocumentBuilder documentBuilder = new DefaultDocumentBuilder(modelConfig.isMemoryTokensDocValuesEnabled());
+        LuceneTranslationMemory memory = new LuceneTranslationMemory(model, documentBuilder, new DefaultQueryBuilder(),
+                new F1BleuRescorer(), new DefaultAnalyzerFactory(), modelConfig.getQueryMinimumResults());
+        memory.setMaxStaleness(modelConfig.getMemoryMaxStaleness());
+        memory.setCommitInterval(modelConfig.getMemoryCommitInterval());
+        return memory;
+    }
+
+    @Override
+    public TranslationCache createTranslationCache(DecoderConfig config, ModelConfig modelConfig, TranslationMemory memory) {
+        long size = modelConfig.getTranslationCacheSize();
+        return size > 0 ? register(new TranslationCache(size), memory) : null;
+    }
+
+    @Override
+    public SuggestionCache createSuggestionCache(DecoderConfig config, ModelConfig modelConfig, TranslationMemory memory) {
+        long size = modelConfig.getSuggestionCacheSize();
+        return size > 0 ? register(new SuggestionCache(size), memory) : null;
+    }
+
+    private static <C extends MemoryAwareCache<?>> C register(C cache, TranslationMemory memory) {
+        // cached values can be invalidated only if the memory notifies its updates
+        if (!(memory instanceof LuceneTranslationMemory))
+            return null;
+
+        ((LuceneTranslationMemory) memory).addUpdateListener(cache::invalidate);
+        return cache;
+    }
+
+    @Override
+    public ExecutorService createLookupExecutor(DecoderConfig config, ModelConfig modelConfig) {
+        int threads = modelConfig.getLookupThreads();
+        return threads > 0 ? Executors.newFixedThreadPool(threads) : null;
     }
 
     @Override
     public DecoderQueue createDecoderQueue(DecoderConfig config, ModelConfig modelConfig, File model) throws DecoderException {
-        PythonDecoder.Builder builder = new PythonDecoderImpl.Builder(getJarPath(), model);
+        PythonDecoder.Builder builder = new PythonDecoderImpl.Builder(getJarPath(), model)
+                .setBinaryProtocol(modelConfig.isBinaryProtocolEnabled());
 
         if (config.isUsingGPUs())
             return DecoderQueueImpl.newGPUInstance(modelConfig, builder, config.getGPUs());
@@ -49,13 +93,16 @@ public class DefaultDecoderInitializer implements DecoderInitializer {
     }
 
     @Override
-    public Scheduler createScheduler(DecoderConfig config, ModelConfig modelConfig, int queueSize) {
-        return new SentenceBatchScheduler(queueSize);
+    public Scheduler createScheduler(DecoderConfig config, ModelConfig modelConfig, DecoderQueue decoderQueue, int queueSize) {
+        return new SentenceBatchScheduler(queueSize,
+                modelConfig.getBatchMaxSentences(), modelConfig.getBatchMaxTokens(), modelConfig.getBatchMaxWait(),
+                modelConfig.getParallelSplitMinTokens(), decoderQueue::idle);
     }
 
     @Override
     public DecoderExecutor createDecoderExecutor(DecoderConfig config, ModelConfig modelConfig) {
-        return new DecoderExecutorImpl();
+        int maxPaddedTokens = modelConfig.getBatchMaxPaddedTokens();
+        return new DecoderExecutorImpl(maxPaddedTokens > 0 ? new TokenBudgetPacker(maxPaddedTokens) : null);
     }
 
 }
@@ -19,6 +19,20 @@ public class ModelConfig {
 
     private final int DEFAULT_SUGGESTIONS_LIMIT = 1;
     private final int DEFAULT_QUERY_MIN_RESULTS = 10;
+    private final int DEFAULT_BATCH_MAX_SENTENCES = 0;
+    private final int DEFAULT_BATCH_MAX_TOKENS = 0;
+    private final long DEFAULT_BATCH_MAX_WAIT = 0L;
+    private final int DEFAULT_BATCH_MAX_PADDED_TOKENS = 0;
+    private final int DEFAULT_PARALLEL_SPLIT_MIN_TOKENS = 0;
+    private final boolean DEFAULT_BINARY_PROTOCOL = false;
+    private final int DEFAULT_INFLIGHT_WINDOW = 1;
+    private final long DEFAULT_TRANSLATION_CACHE_SIZE = 0L;
+    private final String DEFAULT_HANDLER_SELECTION_POLICY = "match";
+    private final long DEFAULT_SUGGESTION_CACHE_SIZE = 0L;
+    private final int DEFAULT_LOOKUP_THREADS = 0;
+    private final long DEFAULT_MEMORY_MAX_STALENESS = 0L;
+    private final long DEFAULT_MEMORY_COMMIT_INTERVAL = 0L;
+    private final boolean DEFAULT_MEMORY_TOKENS_DOC_VALUES = false;
 
     protected final HierarchicalINIConfiguration config;
     protected final File basePath;
@@ -83,4 +97,171 @@ public class ModelConfig {
         }
     }
 
+    public int getBatchMaxSentences() {
+        try {
+            SubnodeConfiguration settings = config.configurationAt("settings");
+            return settings.getInt("batch_max_sentences", DEFAULT_BATCH_MAX_SENTENCES);
+        } catch (IllegalArgumentException iex) {
+            return DEFAULT_BATCH_MAX_SENTENCES;
+        }
+    }
+
+    public int getBatchMaxTokens() {
+        try {
+            SubnodeConfiguration settings = config.configurationAt("settings");
+            return settings.getInt("batch_max_tokens", DEFAULT_BATCH_MAX_TOKENS);
+        } catch (IllegalArgumentException iex) {
+            return DEFAULT_BATCH_MAX_TOKENS;
+        }
+    }
+
+    /**
+     * @return the maximum time (in microseconds) the scheduler waits for compatible jobs to fill a batch
+     */
+    public long getBatchMaxWait() {
+        try {
+            SubnodeConfiguration settings = config.configurationAt("settings");
+            return settings.getLong("batch_max_wait", DEFAULT_BATCH_MAX_WAIT);
+        } catch (IllegalArgumentException iex) {
+            return DEFAULT_BATCH_MAX_WAIT;
+        }
+    }
+
+    /**
+     * @return the maximum number of padded tokens (sentences by max sentence length) of a single decoder call,
+     * larger batches are sorted by length and packed into multiple calls; zero if packing is disabled
+     */
+    public int getBatchMaxPaddedTokens() {
+        try {
+            SubnodeConfiguration settings = config.configurationAt("settings");
+            return settings.getInt("batch_max_padded_tokens", DEFAULT_BATCH_MAX_PADDED_TOKENS);
+        } catch (IllegalArgumentException iex) {
+            return DEFAULT_BATCH_MAX_PADDED_TOKENS;
+        }
+    }
+
+    /**
+     * @return the minimum number of source tokens of every shard when the splits of a long translation
+     * are dispatched in parallel to multiple decoder processes, zero if parallel dispatch is disabled
+     */
+    public int getParallelSplitMinTokens() {
+        try {
+            SubnodeConfiguration settings = config.configurationAt("settings");
+            return settings.getInt("parallel_split_min_tokens", DEFAULT_PARALLEL_SPLIT_MIN_TOKENS);
+        } catch (IllegalArgumentException iex) {
+            return DEFAULT_PARALLEL_SPLIT_MIN_TOKENS;
+        }
+    }
+
+    public boolean isBinaryProtocolEnabled() {
+        try {
+            SubnodeConfiguration settings = config.configurationAt("settings");
+            return settings.getBoolean("binary_protocol", DEFAULT_BINARY_PROTOCOL);
+        } catch (IllegalArgumentException iex) {
+            return DEFAULT_BINARY_PROTOCOL;
+        }
+    }
+
+    /**
+     * @return the maximum number of requests that can be in-flight at the same time on a single decoder process
+     */
+    public int getInFlightWindow() {
+        try {
+            SubnodeConfiguration settings = config.configurationAt("settings");
+            return Math.max(1, settings.getInt("inflight_window", DEFAULT_INFLIGHT_WINDOW));
+        } catch (IllegalArgumentException iex) {
+            return DEFAULT_INFLIGHT_WINDOW;
+        }
+    }
+
+    /**
+     * @return the maximum number of words held by the translation cache, zero if the cache is disabled
+     */
+    public long getTranslationCacheSize() {
+        try {
+            SubnodeConfiguration settings = config.configurationAt("settings");
+            return settings.getLong("translation_cache_size", DEFAULT_TRANSLATION_CACHE_SIZE);
+        } catch (IllegalArgumentException iex) {
+            return DEFAULT_TRANSLATION_CACHE_SIZE;
+        }
+    }
+
+    /**
+     * @return the policy used to assign decoder processes to requests: "match" (prefer a process with the
+     * requested model loaded, otherwise the longest idle one) or "affinity" (also keep processes dedicated to
+     * the most requested models in order to minimize model switches)
+     */
+    public String getHandlerSelectionPolicy() {
+        try {
+            SubnodeConfiguration settings = config.configurationAt("settings");
+            return settings.getString("handler_selection_policy", DEFAULT_HANDLER_SELECTION_POLICY);
+        } catch (IllegalArgumentException iex) {
+            return DEFAULT_HANDLER_SELECTION_POLICY;
+        }
+    }
+
+    /**
+     * @return the maximum number of memory lookup results held by the suggestion cache, zero if the cache is disabled
+     */
+    public long getSuggestionCacheSize() {
+        try {
+            SubnodeConfiguration settings = config.configurationAt("settings");
+            return settings.getLong("suggestion_cache_size", DEFAULT_SUGGESTION_CACHE_SIZE);
+        } catch (IllegalArgumentException iex) {
+            return DEFAULT_SUGGESTION_CACHE_SIZE;
+        }
+    }
+
+    /**
+     * @return the number of threads used to search the memory while translations are waiting in queue,
+     * zero if the memory lookup is performed synchronously before scheduling the translation
+     */
+    public int getLookupThreads() {
+        try {
+            SubnodeConfiguration settings = config.configurationAt("settings");
+            return settings.getInt("lookup_threads", DEFAULT_LOOKUP_THREADS);
+        } catch (IllegalArgumentException iex) {
+            return DEFAULT_LOOKUP_THREADS;
+        }
+    }
+
+    /**
+     * @return the maximum time (in milliseconds) before an update of the memory becomes visible to searches,
+     * zero if updates must be visible as soon as they are applied
+     */
+    public long getMemoryMaxStaleness() {
+        try {
+            SubnodeConfiguration settings = config.configurationAt("settings");
+            return settings.getLong("memory_max_staleness", DEFAULT_MEMORY_MAX_STALENESS);
+        } catch (IllegalArgumentException iex) {
+            return DEFAULT_MEMORY_MAX_STALENESS;
+        }
+    }
+
+    /**
+     * @return the interval (in milliseconds) between two consecutive commits of the memory index,
+     * zero if every update must be committed
+     */
+    public long getMemoryCommitInterval() {
+        try {
+            SubnodeConfiguration settings = config.configurationAt("settings");
+            return settings.getLong("memory_commit_interval", DEFAULT_MEMORY_COMMIT_INTERVAL);
+        } catch (IllegalArgumentException iex) {
+            return DEFAULT_MEMORY_COMMIT_INTERVAL;
+        }
+    }
+
+    /**
+     * @return true if sentence tokens of new memory entries must be indexed as doc values,
+     * so that search hits can be rescored without loading their stored fields
+     */
+    public boolean isMemoryTokensDocValuesEnabled() {
+        try {
+            SubnodeConfiguration settings = config.configurationAt("settings");
+            return settings.getBoolean("memory_tokens_doc_values", DEFAULT_MEMORY_TOKENS_DOC_VALUES);
+        } catch (IllegalArgumentException iex) {
+            return DEFAULT_MEMORY_TOKENS_DOC_VALUES;
+        }
+    }
+
 }
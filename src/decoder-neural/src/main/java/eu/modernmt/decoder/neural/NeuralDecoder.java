@@ -6,6 +6,8 @@ import eu.modernmt.data.DataListenerProvider;
 import eu.modernmt.decoder.Decoder;
 import eu.modernmt.decoder.DecoderException;
 import eu.modernmt.decoder.DecoderListener;
+import eu.modernmt.decoder.neural.cache.SuggestionCache;
+import eu.modernmt.decoder.neural.cache.TranslationCache;
 import eu.modernmt.decoder.neural.queue.*;
 import eu.modernmt.decoder.neural.scheduler.Scheduler;
 import eu.modernmt.decoder.neural.scheduler.TranslationSplit;
@@ -26,7 +28,7 @@ import org.apache.logging.log4j.Logger;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 
 /**
  * Created by davide on 22/05/17.
@@ -38,6 +40,9 @@ public class NeuralDecoder extends Decoder implements DataListenerProvider {
     private final boolean echoServer;
     private final int suggestionsLimit;
     private final TranslationMemory memory;
+    private final TranslationCache cache;
+    private final SuggestionCache suggestionCache;
+    private final ExecutorService lookupExecutor;
     private final Set<LanguageDirection> directions;
     private final Scheduler scheduler;
     private final DecoderExecutorThread[] executors;
@@ -71,11 +76,18 @@ public class NeuralDecoder extends Decoder implements DataListenerProvider {
             throw new DecoderException("Failed to initialize memory", e);
         }
 
+        // Caches
+        this.cache = init.createTranslationCache(config, modelConfig, this.memory);
+        this.suggestionCache = init.createSuggestionCache(config, modelConfig, this.memory);
+
+        // Memory lookup
+        this.lookupExecutor = init.createLookupExecutor(config, modelConfig);
+
         // Decoder Queue
         this.decoderQueue = this.echoServer ? new EchoServerDecoderQueue() : init.createDecoderQueue(config, modelConfig, model);
 
         // Scheduler
-        this.scheduler = init.createScheduler(config, modelConfig, config.getQueueSize());
+        this.scheduler = init.createScheduler(config, modelConfig, this.decoderQueue, config.getQueueSize());
 
         // Executors
         DecoderExecutor executor = init.createDecoderExecutor(config, modelConfig);
@@ -93,6 +105,34 @@ public class NeuralDecoder extends Decoder implements DataListenerProvider {
         return memory;
     }
 
+    /**
+     * @return the translation cache or null if the cache is disabled
+     */
+    public TranslationCache getTranslationCache() {
+        return cache;
+    }
+
+    /**
+     * @return the suggestion cache or null if the cache is disabled
+     */
+    public SuggestionCache getSuggestionCache() {
+        return suggestionCache;
+    }
+
+    /**
+     * @return the number of model switches on the decoder processes, by requested language direction
+     */
+    public Map<LanguageDirection, Long> getModelSwitches() {
+        return decoderQueue.getModelSwitches();
+    }
+
+    /**
+     * @return the number of translation jobs discarded because they expired while waiting in queue
+     */
+    public long getExpiredJobCount() {
+        return scheduler.getExpiredJobCount();
+    }
+
     @Override
     public void setListener(DecoderListener listener) {
         if (decoderQueue != null)
@@ -118,28 +158,60 @@ public class NeuralDecoder extends Decoder implements DataListenerProvider {
         if (!text.hasWords())
             return Translation.emptyTranslation(text);
 
-        // Search for suggestions
+        // Search in translation cache
+        TranslationCache.Key cacheKey = null;
+        if (cache != null) {
+            cacheKey = cache.key(user, direction, text, context);
+
+            Translation translation = cache.get(cacheKey, text);
+            if (translation != null) {
+                if (logger.isDebugEnabled())
+                    logger.debug("Translation found in cache: " + TokensOutputStream.serialize(text, false, true));
+
+                return translation;
+            }
+        }
+
+        // Search for suggestions and scheduling translation
         long lookupBegin = System.currentTimeMillis();
-        ScoreEntry[] suggestions = lookup(user, direction, text, context);
-        long lookupTime = System.currentTimeMillis() - lookupBegin;
+        long lookupTime;
+        ScoreEntry[] suggestions;
 
-        // Scheduling translation
         Scheduler.TranslationLock lock;
         TranslationSplit[] splits;
 
-        if (suggestions != null && suggestions[0].score == 1.f) {  // align
-            TranslationSplit split = new TranslationSplit(priority, text, suggestions[0].translationTokens, timeout);
-            splits = new TranslationSplit[]{split};
-            lock = scheduler.schedule(direction, split);
-        } else {
-            List<Sentence> textSplits = split(text);
-            splits = new TranslationSplit[textSplits.size()];
+        if (lookupExecutor != null && hasContext(context)) {
+            // memory lookup proceeds while the translation is waiting in queue
+            splits = split(priority, text, timeout);
+            Future<ScoreEntry[]> pendingSuggestions = lookupAsync(user, direction, text, context, splits);
+
+            try {
+                lock = scheduler.scheduleWithLookup(direction, splits, pendingSuggestions);
+            } catch (DecoderException e) {
+                pendingSuggestions.cancel(false);
+                throw e;
+            }
 
-            int i = 0;
-            for (Sentence textSplit : textSplits)
-                splits[i++] = new TranslationSplit(priority, textSplit, timeout);
+            suggestions = await(pendingSuggestions);
+            lookupTime = System.currentTimeMillis() - lookupBegin;
 
-            lock = scheduler.schedule(direction, splits, suggestions);
+            if (isPerfectMatch(suggestions)) {  // splits have been cancelled by the lookup
+                TranslationSplit split = new TranslationSplit(priority, text, suggestions[0].translationTokens, timeout);
+                splits = new TranslationSplit[]{split};
+                lock = scheduler.schedule(direction, split);
+            }
+        } else {
+            suggestions = lookup(user, direction, text, context);
+            lookupTime = System.currentTimeMillis() - lookupBegin;
+
+            if (isPerfectMatch(suggestions)) {  // align
+                TranslationSplit split = new TranslationSplit(priority, text, suggestions[0].translationTokens, timeout);
+                splits = new TranslationSplit[]{split};
+                lock = scheduler.schedule(direction, split);
+            } else {
+                splits = split(priority, text, timeout);
+                lock = scheduler.schedule(direction, splits, suggestions);
+            }
         }
 
         // Wait for translation to be completed
@@ -169,6 +241,9 @@ public class NeuralDecoder extends Decoder implements DataListenerProvider {
                 logger.debug(log);
             }
 
+            if (cacheKey != null)
+                cache.put(cacheKey, translation);
+
             return translation;
         } catch (InterruptedException e) {
             throw new DecoderException("Decoder interrupted", e);
@@ -179,20 +254,80 @@ public class NeuralDecoder extends Decoder implements DataListenerProvider {
         return SentenceSplitter.split(sentence);
     }
 
+    private TranslationSplit[] split(Priority priority, Sentence text, long timeout) {
+        List<Sentence> textSplits = split(text);
+        TranslationSplit[] splits = new TranslationSplit[textSplits.size()];
+
+        int i = 0;
+        for (Sentence textSplit : textSplits)
+            splits[i++] = new TranslationSplit(priority, textSplit, timeout);
+
+        return splits;
+    }
+
+    private static boolean hasContext(ContextVector contextVector) {
+        return contextVector != null && !contextVector.isEmpty();
+    }
+
+    private static boolean isPerfectMatch(ScoreEntry[] suggestions) {
+        return suggestions != null && suggestions[0].score == 1.f;
+    }
+
     protected ScoreEntry[] lookup(UUID user, LanguageDirection direction, Sentence text, ContextVector contextVector) throws DecoderException {
         ScoreEntry[] entries = null;
 
-        if (text.hasWords() && contextVector != null && !contextVector.isEmpty()) {
-            try {
-                entries = memory.search(user, direction, text, contextVector, suggestionsLimit);
-            } catch (IOException e) {
-                throw new DecoderException("Failed to retrieve suggestions from memory", e);
+        if (text.hasWords() && hasContext(contextVector)) {
+            SuggestionCache.Key key = null;
+            if (suggestionCache != null) {
+                key = suggestionCache.key(user, direction, text, contextVector);
+                entries = suggestionCache.get(key);
+            }
+
+            if (entries == null) {
+                try {
+                    entries = memory.search(user, direction, text, contextVector, suggestionsLimit);
+                } catch (IOException e) {
+                    throw new DecoderException("Failed to retrieve suggestions from memory", e);
+                }
+
+                if (key != null)
+                    suggestionCache.put(key, entries);
             }
         }
 
         return entries != null && entries.length > 0 ? entries : null;
     }
 
+    private Future<ScoreEntry[]> lookupAsync(UUID user, LanguageDirection direction, Sentence text, ContextVector contextVector,
+                                             TranslationSplit[] splits) {
+        return lookupExecutor.submit(() -> {
+            ScoreEntry[] suggestions = lookup(user, direction, text, contextVector);
+
+            // a perfect match is aligned instead of translated: the splits must be cancelled
+            // before the decoder can see the result of the lookup
+            if (isPerfectMatch(suggestions)) {
+                for (TranslationSplit split : splits)
+                    split.cancel();
+            }
+
+            return suggestions;
+        });
+    }
+
+    private static ScoreEntry[] await(Future<ScoreEntry[]> suggestions) throws DecoderException {
+        try {
+            return suggestions.get();
+        } catch (InterruptedException e) {
+            throw new DecoderException("Decoder interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DecoderException)
+                throw (DecoderException) cause;
+            else
+                throw new DecoderException("Failed to retrieve suggestions from memory", cause);
+        }
+    }
+
     @Override
     public void test() throws DecoderException {
         if (echoServer)
@@ -239,6 +374,9 @@ public class NeuralDecoder extends Decoder implements DataListenerProvider {
     public void close() {
         IOUtils.closeQuietly(this.scheduler);
 
+        if (this.lookupExecutor != null)
+            this.lookupExecutor.shutdownNow();
+
         for (Thread executor : executors) {
             try {
                 executor.join();
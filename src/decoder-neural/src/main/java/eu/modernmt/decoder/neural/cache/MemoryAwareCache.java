@@ -0,0 +1,206 @@
+package eu.modernmt.decoder.neural.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import eu.modernmt.io.TokensOutputStream;
+import eu.modernmt.lang.LanguageDirection;
+import eu.modernmt.model.ContextVector;
+import eu.modernmt.model.Sentence;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Base class for the caches of values computed from the content of the memories.
+ * <p>
+ * Entries are keyed by user, language direction, source tokens (as sent to the decoder, so segments
+ * that differ only by tags or whitespace share the same entry) and context vector. Every memory has a
+ * version that is incremented when new data for that memory becomes searchable: a cached value
+ * is served only if all the memories of its context vector still have the version they had before the
+ * value was computed.
+ */
+public abstract class MemoryAwareCache<V> {
+
+    private final Cache<Key, Entry<V>> cache;
+    private final ConcurrentHashMap<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxWeight the maximum total weight of the cached values
+     */
+    protected MemoryAwareCache(long maxWeight) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Key key, Entry<V> entry) -> entry.weight)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Creates the cache key for the given request. The key captures the current version of the
+     * context memories, so it must be created before the value for the same request is computed.
+     */
+    public Key key(UUID user, LanguageDirection direction, Sentence source, ContextVector context) {
+        String[] tokens = TokensOutputStream.tokens(source, false, true);
+
+        long[] memories;
+        float[] scores;
+        long[] memoryVersions;
+
+        if (context == null || context.isEmpty()) {
+            memories = new long[0];
+            scores = new float[0];
+            memoryVersions = new long[0];
+        } else {
+            memories = new long[context.size()];
+            scores = new float[context.size()];
+            memoryVersions = new long[context.size()];
+
+            int i = 0;
+            for (ContextVector.Entry entry : context) {
+                memories[i] = entry.memory.getId();
+                scores[i] = entry.score;
+                memoryVersions[i] = getVersion(memories[i]);
+                i++;
+            }
+        }
+
+        return new Key(user, direction, tokens, memories, scores, memoryVersions);
+    }
+
+    protected final V getValue(Key key) {
+        Entry<V> entry = cache.getIfPresent(key);
+
+        if (entry != null && !Arrays.equals(entry.versions, key.versions)) {
+            // either the entry is outdated or the key has been created before a newer entry was stored
+            if (isOutdated(entry.versions, entry.memories))
+                cache.asMap().remove(key, entry);
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses.increment();
+            return null;
+        } else {
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    protected final void putValue(Key key, V value, int weight) {
+        if (isOutdated(key.versions, key.memories))
+            return;
+
+        cache.put(key, new Entry<>(value, weight, key.memories, key.versions));
+    }
+
+    /**
+     * Invalidates all the entries whose context vector contains at least one of the given memories.
+     */
+    public void invalidate(Set<Long> memories) {
+        for (Long memory : memories)
+            versions.computeIfAbsent(memory, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public CacheStats getStats() {
+        CacheStats stats = cache.stats();
+        return new CacheStats(hits.sum(), misses.sum(), 0L, 0L, 0L, stats.evictionCount());
+    }
+
+    private long getVersion(long memory) {
+        AtomicLong version = versions.get(memory);
+        return version == null ? 0L : version.get();
+    }
+
+    private boolean isOutdated(long[] memoryVersions, long[] memories) {
+        for (int i = 0; i < memories.length; i++) {
+            if (memoryVersions[i] != getVersion(memories[i]))
+                return true;
+        }
+
+        return false;
+    }
+
+    public static final class Key {
+
+        private final UUID user;
+        private final LanguageDirection direction;
+        private final String[] source;
+        private final long[] memories;
+        private final float[] scores;
+        private final long[] versions;
+        private final int hash;
+
+        private Key(UUID user, LanguageDirection direction, String[] source, long[] memories, float[] scores, long[] versions) {
+            this.user = user;
+            this.direction = direction;
+            this.source = source;
+            this.memories = memories;
+            this.scores = scores;
+            this.versions = versions;
+
+            int result = Objects.hashCode(user);
+            result = 31 * result + direction.hashCode();
+            result = 31 * result + Arrays.hashCode(source);
+            result = 31 * result + Arrays.hashCode(memories);
+            result = 31 * result + Arrays.hashCode(scores);
+            this.hash = result;
+        }
+
+        public int getSourceLength() {
+            return source.length;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return hash == key.hash &&
+                    Objects.equals(user, key.user) &&
+                    direction.equals(key.direction) &&
+                    Arrays.equals(source, key.source) &&
+                    Arrays.equals(memories, key.memories) &&
+                    Arrays.equals(scores, key.scores);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    private static final class Entry<V> {
+
+        private final V value;
+        private final int weight;
+        private final long[] memories;
+        private final long[] versions;
+
+        private Entry(V value, int weight, long[] memories, long[] versions) {
+            this.value = value;
+            this.weight = weight;
+            this.memories = memories;
+            this.versions = versions;
+        }
+
+    }
+
+}
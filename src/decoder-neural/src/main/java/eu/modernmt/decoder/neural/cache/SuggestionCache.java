@@ -0,0 +1,28 @@
+package eu.modernmt.decoder.neural.cache;
+
+import eu.modernmt.memory.ScoreEntry;
+
+import java.util.Arrays;
+
+/**
+ * Cache of the suggestions retrieved from the translation memory.
+ */
+public class SuggestionCache extends MemoryAwareCache<ScoreEntry[]> {
+
+    /**
+     * @param maxSize the maximum number of lookup results held by the cache
+     */
+    public SuggestionCache(long maxSize) {
+        super(maxSize);
+    }
+
+    public ScoreEntry[] get(Key key) {
+        ScoreEntry[] entries = getValue(key);
+        return entries == null ? null : Arrays.copyOf(entries, entries.length);
+    }
+
+    public void put(Key key, ScoreEntry[] entries) {
+        putValue(key, entries == null ? new ScoreEntry[0] : Arrays.copyOf(entries, entries.length), 1);
+    }
+
+}
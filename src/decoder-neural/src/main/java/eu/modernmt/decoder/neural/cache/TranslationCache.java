@@ -0,0 +1,58 @@
+package eu.modernmt.decoder.neural.cache;
+
+import eu.modernmt.model.Alignment;
+import eu.modernmt.model.Sentence;
+import eu.modernmt.model.Translation;
+import eu.modernmt.model.Word;
+
+/**
+ * Segment-level cache of the translations produced by the decoder.
+ */
+public class TranslationCache extends MemoryAwareCache<TranslationCache.Value> {
+
+    /**
+     * @param maxSize the maximum number of words (source and target) held by the cache
+     */
+    public TranslationCache(long maxSize) {
+        super(maxSize);
+    }
+
+    public Translation get(Key key, Sentence source) {
+        Value value = getValue(key);
+        return value == null ? null : value.toTranslation(source);
+    }
+
+    public void put(Key key, Translation translation) {
+        Value value = new Value(translation);
+        putValue(key, value, key.getSourceLength() + value.words.length);
+    }
+
+    static final class Value {
+
+        private final Word[] words;
+        private final Alignment alignment;
+
+        private Value(Translation translation) {
+            this.words = copy(translation.getWords());
+            this.alignment = translation.getWordAlignment();
+        }
+
+        private Translation toTranslation(Sentence source) {
+            return new Translation(copy(words), source, alignment);
+        }
+
+        private static Word[] copy(Word[] words) {
+            Word[] copy = new Word[words.length];
+            for (int i = 0; i < words.length; i++) {
+                Word word = words[i];
+                copy[i] = new Word(word.getText(), word.getPlaceholder(), word.getLeftSpace(), word.getRightSpace(),
+                        word.isLeftSpaceRequired(), word.isRightSpaceRequired());
+                copy[i].setHiddenLeftSpace(word.hasHiddenLeftSpace());
+                copy[i].setHiddenRightSpace(word.hasHiddenRightSpace());
+            }
+            return copy;
+        }
+
+    }
+
+}
@@ -9,14 +9,17 @@ import eu.modernmt.lang.LanguageDirection;
 import eu.modernmt.memory.ScoreEntry;
 import eu.modernmt.memory.TranslationMemory;
 import org.apache.lucene.document.*;
-import org.apache.lucene.index.IndexableField;
-import org.apache.lucene.index.Term;
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.NumericUtils;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -31,12 +34,27 @@ public class DefaultDocumentBuilder implements DocumentBuilder {
     private static final String TUID_HASH_FIELD = "hash_tuid";
     private static final String LANGUAGE_PREFIX_FIELD = "lang_";
     private static final String CONTENT_PREFIX_FIELD = "content_";
+    private static final String TOKENS_PREFIX_FIELD = "tokens_";
 
     private static final String SOURCE_LANGUAGE_FIELD = "src_lang";
     private static final String TARGET_LANGUAGE_FIELD = "tgt_lang";
     private static final String SENTENCE_FIELD = "sentence";
     private static final String TRANSLATION_FIELD = "translation";
 
+    private final boolean tokensDocValues;
+
+    public DefaultDocumentBuilder() {
+        this(false);
+    }
+
+    /**
+     * @param tokensDocValues if true, memory and sentence tokens of new documents are also written as doc values,
+     *                        so that search hits can be rescored without loading their stored fields
+     */
+    public DefaultDocumentBuilder(boolean tokensDocValues) {
+        this.tokensDocValues = tokensDocValues;
+    }
+
     // Factory methods
 
     @Override
@@ -66,6 +84,12 @@ public class DefaultDocumentBuilder implements DocumentBuilder {
         document.add(new TextField(makeContentFieldName(language), sentence, Field.Store.YES));
         document.add(new TextField(makeContentFieldName(language.reversed()), translation, Field.Store.YES));
 
+        if (tokensDocValues) {
+            document.add(new NumericDocValuesField(MEMORY_FIELD, memory));
+            document.add(new BinaryDocValuesField(makeTokensFieldName(language), new BytesRef(sentence)));
+            document.add(new BinaryDocValuesField(makeTokensFieldName(language.reversed()), new BytesRef(translation)));
+        }
+
         document.add(new StoredField(SOURCE_LANGUAGE_FIELD, rawLanguage.source.toLanguageTag()));
         document.add(new StoredField(TARGET_LANGUAGE_FIELD, rawLanguage.target.toLanguageTag()));
         document.add(new StoredField(SENTENCE_FIELD, rawSentence.getBytes(UTF8Charset.get())));
@@ -183,6 +207,50 @@ public class DefaultDocumentBuilder implements DocumentBuilder {
         return new ScoreEntry(memory, direction, sentenceTokens, translationTokens);
     }
 
+    @Override
+    public ScoreEntry[] asRescoringEntries(IndexReader reader, ScoreDoc[] docs, LanguageDirection direction) throws IOException {
+        String tokensField = makeTokensFieldName(direction);
+        List<AtomicReaderContext> leaves = reader.leaves();
+        LeafValues[] leafValues = new LeafValues[leaves.size()];
+        RescoringFieldsVisitor visitor = null;
+
+        ScoreEntry[] entries = new ScoreEntry[docs.length];
+        for (int i = 0; i < docs.length; i++) {
+            int doc = docs[i].doc;
+            int leafIndex = ReaderUtil.subIndex(doc, leaves);
+            AtomicReaderContext leaf = leaves.get(leafIndex);
+
+            LeafValues values = leafValues[leafIndex];
+            if (values == null)
+                values = leafValues[leafIndex] = new LeafValues(leaf.reader(), tokensField);
+
+            int leafDoc = doc - leaf.docBase;
+
+            long memory;
+            String sentence;
+
+            if (values.has(leafDoc)) {
+                memory = values.memories.get(leafDoc);
+                sentence = values.tokens.get(leafDoc).utf8ToString();
+            } else {
+                // document indexed without doc values: load only the required stored fields
+                if (visitor == null)
+                    visitor = new RescoringFieldsVisitor(makeContentFieldName(direction));
+
+                visitor.reset();
+                reader.document(doc, visitor);
+
+                memory = visitor.memory;
+                sentence = visitor.content;
+            }
+
+            entries[i] = new ScoreEntry(memory, direction, TokensOutputStream.deserialize(sentence), null);
+            entries[i].score = docs[i].score;
+        }
+
+        return entries;
+    }
+
     @Override
     public TranslationMemory.Entry asEntry(Document self) {
         long memory = Long.parseLong(self.get(MEMORY_FIELD));
@@ -255,6 +323,10 @@ public class DefaultDocumentBuilder implements DocumentBuilder {
         return CONTENT_PREFIX_FIELD + direction.source.getLanguage() + '_' + direction.target.getLanguage();
     }
 
+    private static String makeTokensFieldName(LanguageDirection direction) {
+        return TOKENS_PREFIX_FIELD + direction.source.getLanguage() + '_' + direction.target.getLanguage();
+    }
+
     // Utils
 
     private static Term makeLongTerm(long value, String field) {
@@ -264,4 +336,63 @@ public class DefaultDocumentBuilder implements DocumentBuilder {
         return new Term(field, builder.toBytesRef());
     }
 
+    private static final class LeafValues {
+
+        private final NumericDocValues memories;
+        private final BinaryDocValues tokens;
+        private final Bits docsWithTokens;
+
+        private LeafValues(AtomicReader reader, String tokensField) throws IOException {
+            this.memories = reader.getNumericDocValues(MEMORY_FIELD);
+            this.tokens = reader.getBinaryDocValues(tokensField);
+            this.docsWithTokens = reader.getDocsWithField(tokensField);
+        }
+
+        private boolean has(int doc) {
+            return memories != null && tokens != null && docsWithTokens != null && docsWithTokens.get(doc);
+        }
+
+    }
+
+    private static final class RescoringFieldsVisitor extends StoredFieldVisitor {
+
+        private final String contentField;
+
+        private long memory;
+        private String content;
+        private int missing;
+
+        private RescoringFieldsVisitor(String contentField) {
+            this.contentField = contentField;
+        }
+
+        private void reset() {
+            memory = 0L;
+            content = null;
+            missing = 2;
+        }
+
+        @Override
+        public Status needsField(FieldInfo fieldInfo) {
+            if (missing == 0)
+                return Status.STOP;
+
+            String name = fieldInfo.name;
+            return MEMORY_FIELD.equals(name) || contentField.equals(name) ? Status.YES : Status.NO;
+        }
+
+        @Override
+        public void longField(FieldInfo fieldInfo, long value) {
+            memory = value;
+            missing--;
+        }
+
+        @Override
+        public void stringField(FieldInfo fieldInfo, String value) {
+            content = value;
+            missing--;
+        }
+
+    }
+
 }
@@ -6,8 +6,11 @@ import eu.modernmt.lang.LanguageDirection;
 import eu.modernmt.memory.ScoreEntry;
 import eu.modernmt.memory.TranslationMemory;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.search.ScoreDoc;
 
+import java.io.IOException;
 import java.util.Map;
 
 /**
@@ -37,6 +40,19 @@ public interface DocumentBuilder {
 
     ScoreEntry asScoreEntry(Document self, LanguageDirection direction);
 
+    /**
+     * Loads the given search hits with only the data needed to rescore them: memory and sentence tokens.
+     * The returned entries have no translation tokens and their language is always the given direction;
+     * the complete entry can be loaded later with {@link #asScoreEntry(Document, LanguageDirection)}.
+     *
+     * @param reader    the reader the hits come from
+     * @param docs      the search hits
+     * @param direction the language direction of the search
+     * @return the partial entries, one for each hit, in the same order and with the hit score
+     * @throws IOException if a low-level I/O error occurs
+     */
+    ScoreEntry[] asRescoringEntries(IndexReader reader, ScoreDoc[] docs, LanguageDirection direction) throws IOException;
+
     TranslationMemory.Entry asEntry(Document self);
 
     Map<Short, Long> asChannels(Document self);
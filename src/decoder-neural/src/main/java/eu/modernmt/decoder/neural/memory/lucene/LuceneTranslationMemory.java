@@ -1,5 +1,7 @@
 package eu.modernmt.decoder.neural.memory.lucene;
 
+import eu.modernmt.data.BulkDataListener;
+import eu.modernmt.data.BulkImportMessage;
 import eu.modernmt.data.DataBatch;
 import eu.modernmt.data.DeletionMessage;
 import eu.modernmt.data.HashGenerator;
@@ -16,6 +18,7 @@ import eu.modernmt.lang.LanguageDirection;
 import eu.modernmt.model.ContextVector;
 import eu.modernmt.model.Sentence;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.analysis.Analyzer;
@@ -25,6 +28,7 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.search.*;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
@@ -32,10 +36,9 @@ import org.apache.lucene.util.Version;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.Consumer;
 
 import static org.apache.lucene.analysis.Analyzer.PER_FIELD_REUSE_STRATEGY;
@@ -43,7 +46,16 @@ import static org.apache.lucene.analysis.Analyzer.PER_FIELD_REUSE_STRATEGY;
 /**
  * Created by davide on 23/05/17.
  */
-public class LuceneTranslationMemory implements TranslationMemory {
+public class LuceneTranslationMemory implements TranslationMemory, BulkDataListener {
+
+    /**
+     * Listener notified every time the content of a data batch becomes visible to searches.
+     */
+    public interface UpdateListener {
+
+        void onMemoriesUpdated(Set<Long> memories);
+
+    }
 
     protected final Logger logger = LogManager.getLogger(LuceneTranslationMemory.class);
 
@@ -57,10 +69,29 @@ public class LuceneTranslationMemory implements TranslationMemory {
     protected final Analyzer longQueryAnalyzer;
     protected final IndexWriter indexWriter;
 
-    private DirectoryReader _indexReader;
-    private IndexSearcher _indexSearcher;
+    private final SearcherManager searcherManager;
     private final Map<Short, Long> channels;
 
+    // immutable snapshots of the positions written to the index and of the ones visible to searches
+    private volatile Map<Short, Long> writtenChannels;
+    private volatile Map<Short, Long> searchableChannels;
+    private Map<Short, Long> refreshingChannels = null;
+    private final List<UpdateListener> updateListeners = new CopyOnWriteArrayList<>();
+    private final ConcurrentHashMap<UUID, BulkLoader> bulkLoads = new ConcurrentHashMap<>();
+    private final List<BulkLoader> uncommittedBulkLoads = new ArrayList<>();
+
+    // memories of the batch being written, and the ones updated since the last refresh of the searcher
+    private final Set<Long> writingUpdates = ConcurrentHashMap.newKeySet();
+    private final HashSet<Long> pendingUpdates = new HashSet<>();
+    private Set<Long> refreshingUpdates = null;
+
+    private ScheduledExecutorService backgroundExecutor = null;
+    private ScheduledFuture<?> refreshTask = null;
+    private ScheduledFuture<?> commitTask = null;
+    private long maxStaleness = 0L;
+    private long commitInterval = 0L;
+    private boolean uncommittedChanges = false;
+
     private boolean closed = false;
 
     protected static File forceMkdir(File directory) throws IOException {
@@ -100,18 +131,8 @@ public class LuceneTranslationMemory implements TranslationMemory {
         this.minQuerySize = minQuerySize;
 
         // Index writer setup
-        IndexWriterConfig indexConfig = new IndexWriterConfig(Version.LUCENE_4_10_4, new DelegatingAnalyzerWrapper(PER_FIELD_REUSE_STRATEGY) {
-            @Override
-            protected Analyzer getWrappedAnalyzer(String fieldName) {
-                if (documentBuilder.isHashField(fieldName))
-                    return analyzerFactory.createHashAnalyzer();
-                else
-                    return analyzerFactory.createContentAnalyzer();
-            }
-        });
-
+        IndexWriterConfig indexConfig = newIndexWriterConfig();
         indexConfig.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
-        indexConfig.setSimilarity(analyzerFactory.createSimilarity());
 
         this.indexWriter = new IndexWriter(this.indexDirectory, indexConfig);
 
@@ -119,44 +140,158 @@ public class LuceneTranslationMemory implements TranslationMemory {
         if (!DirectoryReader.indexExists(directory))
             this.indexWriter.commit();
 
-        // Read channels status
-        IndexSearcher searcher = this.getIndexSearcher();
+        // Near-real-time searchers, opened from the index writer
+        this.searcherManager = new SearcherManager(this.indexWriter, true, new SearcherFactory() {
+            @Override
+            public IndexSearcher newSearcher(IndexReader reader) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                searcher.setSimilarity(analyzerFactory.createSimilarity());
+                return searcher;
+            }
+        });
+        this.searcherManager.addListener(new ReferenceManager.RefreshListener() {
+            @Override
+            public void beforeRefresh() {
+                refreshingUpdates = drainPendingUpdates();
+                refreshingChannels = writtenChannels;
+            }
 
-        Query query = this.queryBuilder.getChannels(this.documentBuilder);
-        TopDocs docs = searcher.search(query, 1);
+            @Override
+            public void afterRefresh(boolean didRefresh) {
+                searchableChannels = refreshingChannels;
+                refreshingChannels = null;
+
+                Set<Long> memories = refreshingUpdates;
+                refreshingUpdates = null;
+
+                if (!didRefresh) {
+                    // nothing new is visible, updates are notified with the next swap
+                    if (memories != null) {
+                        synchronized (pendingUpdates) {
+                            pendingUpdates.addAll(memories);
+                        }
+                    }
+                    return;
+                }
+
+                // updates written while the searcher was reopening may be visible too: they are
+                // notified now and again with the next swap, when they are visible for sure
+                Set<Long> inflight = getInflightUpdates();
+                if (inflight != null) {
+                    if (memories == null)
+                        memories = inflight;
+                    else
+                        memories.addAll(inflight);
+                }
+
+                if (memories != null && !memories.isEmpty())
+                    notifyUpdateListeners(memories);
+            }
+        });
 
-        if (docs.scoreDocs.length > 0) {
-            Document channelsDocument = searcher.doc(docs.scoreDocs[0].doc);
-            this.channels = this.documentBuilder.asChannels(channelsDocument);
-        } else {
-            this.channels = new HashMap<>();
+        // Read channels status
+        IndexSearcher searcher = this.searcherManager.acquire();
+        try {
+            Query query = this.queryBuilder.getChannels(this.documentBuilder);
+            TopDocs docs = searcher.search(query, 1);
+
+            if (docs.scoreDocs.length > 0) {
+                Document channelsDocument = searcher.doc(docs.scoreDocs[0].doc);
+                this.channels = this.documentBuilder.asChannels(channelsDocument);
+            } else {
+                this.channels = new HashMap<>();
+            }
+        } finally {
+            this.searcherManager.release(searcher);
         }
+
+        this.writtenChannels = Collections.unmodifiableMap(new HashMap<>(this.channels));
+        this.searchableChannels = this.writtenChannels;
+
+        this.loadBulkImports();
     }
 
-    protected synchronized IndexReader getIndexReader() throws IOException {
-        if (this._indexReader == null) {
-            this._indexReader = DirectoryReader.open(this.indexDirectory);
-            this._indexReader.incRef();
-            this._indexSearcher = new IndexSearcher(this._indexReader);
-        } else {
-            DirectoryReader reader = DirectoryReader.openIfChanged(this._indexReader);
+    private IndexWriterConfig newIndexWriterConfig() {
+        IndexWriterConfig indexConfig = new IndexWriterConfig(Version.LUCENE_4_10_4, new DelegatingAnalyzerWrapper(PER_FIELD_REUSE_STRATEGY) {
+            @Override
+            protected Analyzer getWrappedAnalyzer(String fieldName) {
+                if (documentBuilder.isHashField(fieldName))
+                    return analyzerFactory.createHashAnalyzer();
+                else
+                    return analyzerFactory.createContentAnalyzer();
+            }
+        });
 
-            if (reader != null) {
-                this._indexReader.close();
-                this._indexReader = reader;
-                this._indexReader.incRef();
+        indexConfig.setSimilarity(analyzerFactory.createSimilarity());
+        return indexConfig;
+    }
+
+    /**
+     * Sets the maximum time an update can take to become visible to searches.
+     *
+     * @param millis the maximum staleness in milliseconds, or 0 to refresh the searcher
+     *               as soon as every data batch has been applied
+     */
+    public synchronized void setMaxStaleness(long millis) {
+        this.maxStaleness = Math.max(0L, millis);
+
+        if (refreshTask != null)
+            refreshTask.cancel(false);
+
+        refreshTask = maxStaleness > 0 ? getBackgroundExecutor().scheduleWithFixedDelay(() -> {
+            try {
+                searcherManager.maybeRefresh();
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to refresh memory searcher", e);
+            }
+        }, maxStaleness, maxStaleness, TimeUnit.MILLISECONDS) : null;
+    }
 
-                this._indexSearcher = new IndexSearcher(this._indexReader);
-                this._indexSearcher.setSimilarity(analyzerFactory.createSimilarity());
+    /**
+     * Sets the interval between two consecutive commits of the index. Commits are independent from
+     * the visibility of updates: they only establish the durable state (data and channel positions)
+     * that is recovered after a restart.
+     *
+     * @param millis the commit interval in milliseconds, or 0 to commit every data batch
+     */
+    public synchronized void setCommitInterval(long millis) {
+        this.commitInterval = Math.max(0L, millis);
+
+        if (commitTask != null)
+            commitTask.cancel(false);
+
+        commitTask = commitInterval > 0 ? getBackgroundExecutor().scheduleWithFixedDelay(() -> {
+            try {
+                commit();
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to commit memory index", e);
             }
+        }, commitInterval, commitInterval, TimeUnit.MILLISECONDS) : null;
+    }
+
+    private ScheduledExecutorService getBackgroundExecutor() {
+        if (backgroundExecutor == null) {
+            backgroundExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "LuceneTranslationMemory-background");
+                thread.setDaemon(true);
+                return thread;
+            });
         }
 
-        return this._indexReader;
+        return backgroundExecutor;
     }
 
-    public IndexSearcher getIndexSearcher() throws IOException {
-        getIndexReader();
-        return this._indexSearcher;
+    /**
+     * Returns the most recent searcher, refreshing it if necessary. The searcher is reference-counted:
+     * it must be released with {@link #releaseIndexSearcher(IndexSearcher)} once it is no longer used.
+     */
+    public IndexSearcher acquireIndexSearcher() throws IOException {
+        searcherManager.maybeRefreshBlocking();
+        return searcherManager.acquire();
+    }
+
+    public void releaseIndexSearcher(IndexSearcher searcher) throws IOException {
+        searcherManager.release(searcher);
     }
 
     public IndexWriter getIndexWriter() {
@@ -167,55 +302,62 @@ public class LuceneTranslationMemory implements TranslationMemory {
         return documentBuilder;
     }
 
+    public void addUpdateListener(UpdateListener listener) {
+        this.updateListeners.add(listener);
+    }
+
+    public void removeUpdateListener(UpdateListener listener) {
+        this.updateListeners.remove(listener);
+    }
+
     @Override
     public long size() {
         try {
-            IndexReader reader = getIndexReader();
-            return Math.max(reader.numDocs(), reader.maxDoc() - 1);
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                IndexReader reader = searcher.getIndexReader();
+                return Math.max(reader.numDocs(), reader.maxDoc() - 1);
+            } finally {
+                searcherManager.release(searcher);
+            }
         } catch (IOException e) {
-            logger.warn("Error while invoking getIndexReader()", e);
+            logger.warn("Error while reading memory size", e);
             return 0;
         }
     }
 
     @Override
     public void dump(UUID owner, long memory, Consumer<Entry> consumer) throws IOException {
-        IndexSearcher searcher = getIndexSearcher();
-        IndexReader reader = getIndexReader();
-
-        int size = reader.numDocs();
-        if (size == 0)
-            return;
-
-        Query memoryQuery = new TermQuery(documentBuilder.makeMemoryTerm(memory));
-        TopDocs docs = searcher.search(memoryQuery, size);
-
-        for (ScoreDoc scoreDoc : docs.scoreDocs) {
-            Document document = reader.document(scoreDoc.doc);
-            if (documentBuilder.getMemory(document) > 0) {
-                TranslationMemory.Entry entry = documentBuilder.asEntry(document);
-                consumer.accept(entry);
-            }
-        }
+        dump(new TermQuery(documentBuilder.makeMemoryTerm(memory)), consumer);
     }
 
     @Override
     public void dumpAll(Consumer<Entry> consumer) throws IOException {
-        IndexSearcher searcher = getIndexSearcher();
-        IndexReader reader = getIndexReader();
+        dump(new MatchAllDocsQuery(), consumer);
+    }
 
-        int size = reader.numDocs();
-        if (size == 0)
-            return;
+    private void dump(Query query, Consumer<Entry> consumer) throws IOException {
+        searcherManager.maybeRefreshBlocking();
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            IndexReader reader = searcher.getIndexReader();
+
+            int size = reader.numDocs();
+            if (size == 0)
+                return;
 
-        TopDocs docs = searcher.search(new MatchAllDocsQuery(), size);
+            TopDocs docs = searcher.search(query, size);
 
-        for (ScoreDoc scoreDoc : docs.scoreDocs) {
-            Document document = reader.document(scoreDoc.doc);
-            if (documentBuilder.getMemory(document) > 0) {
-                TranslationMemory.Entry entry = documentBuilder.asEntry(document);
-                consumer.accept(entry);
+            for (ScoreDoc scoreDoc : docs.scoreDocs) {
+                Document document = reader.document(scoreDoc.doc);
+                if (documentBuilder.getMemory(document) > 0) {
+                    TranslationMemory.Entry entry = documentBuilder.asEntry(document);
+                    consumer.accept(entry);
+                }
             }
+        } finally {
+            searcherManager.release(searcher);
         }
     }
 
@@ -230,43 +372,71 @@ public class LuceneTranslationMemory implements TranslationMemory {
         Analyzer analyzer = this.queryBuilder.isLongQuery(source.getWords().length) ? longQueryAnalyzer : shortQueryAnalyzer;
         Query query = this.queryBuilder.bestMatchingSuggestion(documentBuilder, analyzer, user, direction, source, contextVector);
 
-        IndexSearcher searcher = getIndexSearcher();
-
         int queryLimit = Math.max(this.minQuerySize, limit * 2);
-        ScoreDoc[] docs = searcher.search(query, queryLimit).scoreDocs;
 
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            ScoreDoc[] docs = searcher.search(query, queryLimit).scoreDocs;
+
+            if (rescorer == null) {
+                if (docs.length > limit)
+                    docs = Arrays.copyOf(docs, limit);
+                return load(searcher, docs, direction);
+            }
+
+            // Rescore the hits with only memory and sentence tokens loaded,
+            // then load the complete entry of the best ones
+            ScoreEntry[] entries = documentBuilder.asRescoringEntries(searcher.getIndexReader(), docs, direction);
+
+            IdentityHashMap<ScoreEntry, ScoreDoc> hits = new IdentityHashMap<>(entries.length);
+            for (int i = 0; i < entries.length; i++)
+                hits.put(entries[i], docs[i]);
+
+            entries = rescorer.rescore(direction, source, entries, contextVector);
+
+            ScoreDoc[] best = new ScoreDoc[Math.min(limit, entries.length)];
+            for (int i = 0; i < best.length; i++) {
+                ScoreDoc hit = hits.get(entries[i]);
+                best[i] = new ScoreDoc(hit.doc, entries[i].score);
+            }
+
+            return load(searcher, best, direction);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    private ScoreEntry[] load(IndexSearcher searcher, ScoreDoc[] docs, LanguageDirection direction) throws IOException {
         ScoreEntry[] entries = new ScoreEntry[docs.length];
         for (int i = 0; i < docs.length; i++) {
             entries[i] = documentBuilder.asScoreEntry(searcher.doc(docs[i].doc), direction);
             entries[i].score = docs[i].score;
         }
 
-        if (rescorer != null)
-            entries = rescorer.rescore(direction, source, entries, contextVector);
-
-        if (entries.length > limit) {
-            ScoreEntry[] temp = new ScoreEntry[limit];
-            System.arraycopy(entries, 0, temp, 0, limit);
-            entries = temp;
-        }
-
         return entries;
     }
 
     @Override
     public synchronized void optimize() throws IOException {
-        IndexReader reader = getIndexReader();
-        logger.info("Starting memory forced merge " +
-                "(deleted-docs = " + reader.numDeletedDocs() + ", size = " + reader.numDocs() + ", max-doc = " + reader.maxDoc());
+        logger.info("Starting memory forced merge (" + getIndexStats() + ")");
 
         long begin = System.currentTimeMillis();
         this.indexWriter.forceMerge(1);
-        this.indexWriter.commit();
+        this.uncommittedChanges = true;
+        this.commit();
         long elapsed = System.currentTimeMillis() - begin;
 
-        reader = getIndexReader();
-        logger.info("Memory forced merge completed in " + (elapsed / 1000.) + "s " +
-                "(deleted-docs = " + reader.numDeletedDocs() + ", size = " + reader.numDocs() + ", max-doc = " + reader.maxDoc());
+        logger.info("Memory forced merge completed in " + (elapsed / 1000.) + "s (" + getIndexStats() + ")");
+    }
+
+    private String getIndexStats() throws IOException {
+        IndexSearcher searcher = acquireIndexSearcher();
+        try {
+            IndexReader reader = searcher.getIndexReader();
+            return "deleted-docs = " + reader.numDeletedDocs() + ", size = " + reader.numDocs() + ", max-doc = " + reader.maxDoc();
+        } finally {
+            releaseIndexSearcher(searcher);
+        }
     }
 
     // DataListener
@@ -276,11 +446,22 @@ public class LuceneTranslationMemory implements TranslationMemory {
         if (closed)
             return;
 
+        Collection<TranslationUnitMessage> units = batch.getTranslationUnits();
+        Collection<BulkImportMessage> imports = batch.getBulkImports();
+        Collection<DeletionMessage> deletions = batch.getDeletions();
+
+        Set<Long> updatedMemories = this.writingUpdates;
+        boolean acknowledgedChanges = this.uncommittedChanges;
+        boolean writing = false;
         boolean success = false;
 
         try {
-            this.onTranslationUnitsReceived(batch.getTranslationUnits());
-            this.onDeletionsReceived(batch.getDeletions());
+            // every change of the batch is built before writing anything:
+            // an invalid message cannot leave a partial batch in the index
+            ArrayList<IndexUpdate> updates = new ArrayList<>(units.size() + imports.size() + deletions.size() + 1);
+            this.onTranslationUnitsReceived(units, updatedMemories, updates);
+            List<BulkLoader> attached = this.onBulkImportsReceived(imports, updatedMemories, updates);
+            this.onDeletionsReceived(deletions, updatedMemories, updates);
 
             // Writing channels
             HashMap<Short, Long> newChannels = new HashMap<>(this.channels);
@@ -292,16 +473,87 @@ public class LuceneTranslationMemory implements TranslationMemory {
                     newChannels.put(entry.getKey(), position);
             }
 
+            Term channelsTerm = documentBuilder.makeChannelsTerm();
             Document channelsDocument = documentBuilder.create(newChannels);
-            this.indexWriter.updateDocument(documentBuilder.makeChannelsTerm(), channelsDocument);
-            this.indexWriter.commit();
+            updates.add(writer -> writer.updateDocument(channelsTerm, channelsDocument));
+
+            writing = true;
+            for (IndexUpdate update : updates)
+                update.apply(this.indexWriter);
+
+            // bulk indexes are deleted once their segments are committed, see commit()
+            this.uncommittedBulkLoads.addAll(attached);
+            this.uncommittedChanges = true;
+            if (commitInterval <= 0)
+                this.commit();
 
             this.channels.putAll(newChannels);
+            this.writtenChannels = Collections.unmodifiableMap(newChannels);
 
             success = true;
         } finally {
-            if (!success)
+            // A batch that failed while being written is rolled back, unless it would drop batches
+            // already acknowledged but not committed yet (never the case if commitInterval <= 0).
+            // Channels are not advanced either way, so the batch is not recorded as applied
+            if (writing && !success && !acknowledgedChanges)
                 this.indexWriter.rollback();
+
+            if (!updatedMemories.isEmpty()) {
+                synchronized (pendingUpdates) {
+                    pendingUpdates.addAll(updatedMemories);
+                }
+                updatedMemories.clear();
+            }
+        }
+
+        if (maxStaleness <= 0)
+            this.searcherManager.maybeRefreshBlocking();
+    }
+
+    /**
+     * Commits all pending changes to the index, making them durable.
+     */
+    public synchronized void commit() throws IOException {
+        if (closed || !uncommittedChanges)
+            return;
+
+        this.indexWriter.commit();
+        this.uncommittedChanges = false;
+
+        for (BulkLoader loader : uncommittedBulkLoads)
+            loader.discard();
+        uncommittedBulkLoads.clear();
+    }
+
+    private Set<Long> drainPendingUpdates() {
+        synchronized (pendingUpdates) {
+            if (pendingUpdates.isEmpty())
+                return null;
+
+            HashSet<Long> result = new HashSet<>(pendingUpdates);
+            pendingUpdates.clear();
+            return result;
+        }
+    }
+
+    private Set<Long> getInflightUpdates() {
+        // writing updates are moved to pending updates before being removed: reading them in this
+        // order never misses a memory
+        HashSet<Long> result = new HashSet<>(writingUpdates);
+        synchronized (pendingUpdates) {
+            result.addAll(pendingUpdates);
+        }
+        return result.isEmpty() ? null : result;
+    }
+
+    private void notifyUpdateListeners(Set<Long> memories) {
+        Set<Long> unmodifiable = Collections.unmodifiableSet(memories);
+        for (UpdateListener listener : updateListeners) {
+            try {
+                listener.onMemoriesUpdated(unmodifiable);
+            } catch (RuntimeException e) {
+                logger.error("Update listener failed", e);
+            }
         }
     }
 
@@ -315,11 +567,18 @@ public class LuceneTranslationMemory implements TranslationMemory {
         return false;
     }
 
-    private void onTranslationUnitsReceived(Collection<TranslationUnitMessage> units) throws IOException {
+    private void onTranslationUnitsReceived(Collection<TranslationUnitMessage> units, Set<Long> updatedMemories, List<IndexUpdate> updates) {
         for (TranslationUnitMessage unit : units) {
             Long currentPosition = this.channels.get(unit.channel);
 
             if (currentPosition == null || currentPosition < unit.channelPosition) {
+                // the unit will be attached with the offline data of its bulk import
+                if (unit.bulkImport != null && bulkLoads.containsKey(unit.bulkImport))
+                    continue;
+
+                // memories are marked as updated before being written, see getInflightUpdates()
+                updatedMemories.add(unit.memory);
+
                 if (unit.update) {
                     Query deleteQuery = null;
                     if (unit.previousSentence != null && unit.previousTranslation != null)
@@ -327,45 +586,219 @@ public class LuceneTranslationMemory implements TranslationMemory {
                     else if (unit.value.tuid != null)
                         deleteQuery = this.queryBuilder.getByTuid(documentBuilder, unit.memory, unit.value.language, unit.value.tuid);
 
-                    if (deleteQuery != null)
-                        this.indexWriter.deleteDocuments(deleteQuery);
+                    if (deleteQuery != null) {
+                        Query query = deleteQuery;
+                        updates.add(writer -> writer.deleteDocuments(query));
+                    }
                 }
 
                 Document document = documentBuilder.create(unit);
-                this.indexWriter.addDocument(document);
+                updates.add(writer -> writer.addDocument(document));
             }
         }
     }
 
-    private void onDeletionsReceived(Collection<DeletionMessage> deletions) throws IOException {
+    /**
+     * @return the loaders of the bulk imports to attach: the ones already applied are ignored, as well
+     * as the ones without offline data on this node, whose content has been applied as regular additions
+     */
+    private List<BulkLoader> onBulkImportsReceived(Collection<BulkImportMessage> imports, Set<Long> updatedMemories, List<IndexUpdate> updates) {
+        if (imports.isEmpty())
+            return Collections.emptyList();
+
+        ArrayList<BulkLoader> loaders = new ArrayList<>(imports.size());
+
+        for (BulkImportMessage message : imports) {
+            Long currentPosition = this.channels.get(message.channel);
+
+            if (currentPosition == null || currentPosition < message.channelPosition) {
+                BulkLoader loader = bulkLoads.get(message.id);
+                if (loader == null)
+                    continue;
+
+                updatedMemories.add(message.memory);
+                loaders.add(loader);
+
+                // segments are copied, the bulk index can be deleted once the batch has been committed
+                Directory directory = loader.directory;
+                updates.add(writer -> writer.addIndexes(directory));
+            }
+        }
+
+        return loaders;
+    }
+
+    private void onDeletionsReceived(Collection<DeletionMessage> deletions, Set<Long> updatedMemories, List<IndexUpdate> updates) {
         for (DeletionMessage deletion : deletions) {
             Long currentPosition = this.channels.get(deletion.channel);
 
-            if (currentPosition == null || currentPosition < deletion.channelPosition)
-                this.indexWriter.deleteDocuments(documentBuilder.makeMemoryTerm(deletion.memory));
+            if (currentPosition == null || currentPosition < deletion.channelPosition) {
+                updatedMemories.add(deletion.memory);
+
+                Term term = documentBuilder.makeMemoryTerm(deletion.memory);
+                updates.add(writer -> writer.deleteDocuments(term));
+            }
+        }
+    }
+
+    /**
+     * A change to the index, built in advance so that all the changes of a batch can be validated
+     * before writing any of them.
+     */
+    private interface IndexUpdate {
+
+        void apply(IndexWriter writer) throws IOException;
+
+    }
+
+    // BulkDataListener
+
+    private static final String BULK_PREFIX = "bulk-";
+    private static final String BULK_FINISHED_FLAG = "finished";
+
+    /**
+     * @return the folder of the bulk indexes, or null if the index is not stored on disk
+     */
+    private File getBulkImportsPath() {
+        if (indexDirectory instanceof FSDirectory)
+            return ((FSDirectory) indexDirectory).getDirectory().getParentFile();
+        else
+            return null;
+    }
+
+    /**
+     * Restores the bulk indexes finished before a restart and not attached yet, and deletes the incomplete ones.
+     */
+    private void loadBulkImports() throws IOException {
+        File folder = getBulkImportsPath();
+        File[] files = folder == null ? null : folder.listFiles();
+        if (files == null)
+            return;
+
+        for (File path : files) {
+            if (!path.isDirectory() || !path.getName().startsWith(BULK_PREFIX))
+                continue;
+
+            UUID id;
+            try {
+                id = UUID.fromString(path.getName().substring(BULK_PREFIX.length()));
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+
+            if (new File(path, BULK_FINISHED_FLAG).isFile())
+                bulkLoads.put(id, new BulkLoader(id, path, true));
+            else
+                FileUtils.deleteDirectory(path);
+        }
+    }
+
+    @Override
+    public BulkLoader newBulkLoader(UUID id) throws IOException {
+        File folder = getBulkImportsPath();
+        File path;
+        if (folder != null)
+            path = new File(folder, BULK_PREFIX + id);
+        else
+            path = Files.createTempDirectory(BULK_PREFIX + id).toFile();
+
+        FileUtils.deleteDirectory(path);
+        return new BulkLoader(id, path, false);
+    }
+
+    /**
+     * Builds the index of a bulk import in a separate directory, that is attached to the
+     * main index with a single addIndexes() when the bulk import message is received.
+     * Once finished the directory is flagged as such, so that it is restored after a restart.
+     */
+    public class BulkLoader implements BulkDataListener.Loader {
+
+        private final UUID id;
+        private final File path;
+        private final Directory directory;
+        private final IndexWriter writer;
+
+        private BulkLoader(UUID id, File path, boolean finished) throws IOException {
+            this.id = id;
+            this.path = path;
+            this.directory = FSDirectory.open(forceMkdir(path));
+
+            if (finished) {
+                this.writer = null;
+            } else {
+                IndexWriterConfig indexConfig = newIndexWriterConfig();
+                indexConfig.setOpenMode(IndexWriterConfig.OpenMode.CREATE);
+                indexConfig.setRAMBufferSizeMB(256.);
+
+                this.writer = new IndexWriter(this.directory, indexConfig);
+            }
         }
+
+        @Override
+        public void add(Collection<TranslationUnitMessage> units) throws IOException {
+            for (TranslationUnitMessage unit : units)
+                writer.addDocument(documentBuilder.create(unit));
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.close();
+            FileUtils.touch(new File(path, BULK_FINISHED_FLAG));
+            bulkLoads.put(id, this);
+        }
+
+        @Override
+        public void discard() {
+            bulkLoads.remove(id, this);
+
+            IOUtils.closeQuietly(writer);
+            IOUtils.closeQuietly(directory);
+            FileUtils.deleteQuietly(path);
+        }
+
     }
 
+    /**
+     * @return the positions of the data visible to searches, i.e. the ones written to the index
+     * before the last refresh of the searcher
+     */
     @Override
     public Map<Short, Long> getLatestChannelPositions() {
-        return channels;
+        return searchableChannels;
     }
 
     // Closeable
 
     @Override
     public synchronized void close() throws IOException {
-        this.closed = true;
+        if (this.backgroundExecutor != null)
+            this.backgroundExecutor.shutdownNow();
 
         IOException error = null;
 
         try {
-            if (this._indexReader != null)
-                this._indexReader.close();
+            this.commit();
         } catch (IOException e) {
             error = e;
         }
 
+        this.closed = true;
+
+        // bulk indexes not attached yet are restored at the next start, if stored on disk
+        for (BulkLoader loader : bulkLoads.values()) {
+            if (getBulkImportsPath() == null)
+                loader.discard();
+            else
+                IOUtils.closeQuietly(loader.directory);
+        }
+
+        try {
+            this.searcherManager.close();
+        } catch (IOException e) {
+            if (error == null)
+                error = e;
+        }
+
         try {
             if (this.indexWriter != null)
                 this.indexWriter.close();
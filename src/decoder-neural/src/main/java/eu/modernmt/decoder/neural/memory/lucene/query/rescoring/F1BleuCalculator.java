@@ -1,146 +1,181 @@
 package eu.modernmt.decoder.neural.memory.lucene.query.rescoring;
 
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Map;
 
+/**
+ * Computes the F1-BLEU score of hypotheses against a fixed reference sentence.
+ * <p>
+ * Reference tokens are mapped to integer ids once, in the constructor, and every n-gram is packed
+ * into a single long key (16 bits per token). Reference n-gram counts are kept in an open-addressing
+ * hash table, so scoring a hypothesis does not allocate any object. N-grams containing a token
+ * that is not in the reference can never match, so they are never looked up.
+ * <p>
+ * This class is not thread-safe. Use one instance per query.
+ */
 public class F1BleuCalculator {
 
     private static final int N = 4;
     private static final double EPSILON = 0.1;
-    private final String[] reference;
-    private final HashMap<NGram, Counter> referenceNGrams;
+    private static final int MAX_VOCABULARY_SIZE = 0xFFFF;  // ids are packed in 16 bits, 0 is reserved
 
-    public F1BleuCalculator(String[] reference) {
-        this.reference = reference;
-        this.referenceNGrams = split(this.reference, N);
-    }
-
-    public float calc(String[] hyp) {
-        HashMap<NGram, Counter> hypNGrams = split(hyp, N);
-        return getF1BleuScore(this.referenceNGrams, this.reference.length, hypNGrams, hyp.length);
-    }
-
-    private static HashMap<NGram, Counter> split(String[] sentence, int order) {
-        HashMap<NGram, Counter> counts = new HashMap<>(sentence.length * order);
-
-        for (int offset = 0; offset < sentence.length; offset++) {
-            int maxOrder = sentence.length - offset;
+    private final int referenceLength;
+    private final HashMap<String, Integer> vocabulary;
 
-            for (int o = 1; o <= Math.min(order, maxOrder); o++) {
-                NGram ngram = new NGram(sentence, offset, o);
-                counts.computeIfAbsent(ngram, key -> new Counter()).value++;
-            }
-        }
+    // Reference n-grams table
+    private final long[] keys;
+    private final int[] referenceCounts;
+    private final int[] hypothesisCounts;
+    private final int mask;
 
-        return counts;
-    }
+    // Scratch buffers
+    private final int[] numerators = new int[N];
+    private final int[] touchedSlots;
+    private int[] ids;
 
-    private static float getF1BleuScore(HashMap<NGram, Counter> sentence, int sentenceLength, HashMap<NGram, Counter> suggestion, int suggestionLength) {
-        int numerators[] = new int[N];
+    public F1BleuCalculator(String[] reference) {
+        this.referenceLength = reference.length;
+        this.vocabulary = new HashMap<>(reference.length * 2);
+        this.ids = new int[Math.max(16, reference.length * 2)];
 
-        for (Map.Entry<NGram, Counter> entry : sentence.entrySet()) {
-            NGram ngram = entry.getKey();
+        for (int i = 0; i < reference.length; i++) {
+            String token = reference[i];
+            Integer id = token == null ? null : vocabulary.get(token);
 
-            int order = ngram.getOrder();
-            int count = entry.getValue().value;
-            int suggestionCount = suggestion.getOrDefault(ngram, Counter.ZERO).value;
+            if (id == null && token != null && vocabulary.size() < MAX_VOCABULARY_SIZE) {
+                id = vocabulary.size() + 1;
+                vocabulary.put(token, id);
+            }
 
-            numerators[order - 1] += Math.min(count, suggestionCount);
+            ids[i] = id == null ? -1 : id;
         }
 
-        double precision = 0;
-        double recall = 0;
+        int ngrams = countNGrams(reference.length);
+        int capacity = Integer.highestOneBit(Math.max(2, ngrams * 2) - 1) << 1;
 
-        for (int order = 1; order <= N; ++order) {
-            precision += Math.log(smooth(numerators[order - 1], Math.max(suggestionLength - order + 1, 0), 1));
-            recall += Math.log(smooth(numerators[order - 1], Math.max(sentenceLength - order + 1, 0), 1));
-        }
+        this.keys = new long[capacity];
+        this.referenceCounts = new int[capacity];
+        this.hypothesisCounts = new int[capacity];
+        this.mask = capacity - 1;
+        this.touchedSlots = new int[Math.max(1, ngrams)];
 
-        precision = Math.exp(precision / N);
-        recall = Math.exp(recall / N);
+        for (int offset = 0; offset < reference.length; offset++) {
+            int maxOrder = Math.min(N, reference.length - offset);
+            long key = 0L;
 
-        // compute F1
-        return (float) (2 * (precision * recall) / (precision + recall));
-    }
+            for (int o = 0; o < maxOrder; o++) {
+                int id = ids[offset + o];
+                if (id < 0)
+                    break;
 
-    private static double smooth(int num, int den, int count) {
-        return (num + EPSILON) / (den + count * EPSILON);
+                key = (key << 16) | id;
+                referenceCounts[insert(key)]++;
+            }
+        }
     }
 
-    private static final class Counter {
+    public float calc(String[] hyp) {
+        int length = hyp.length;
+        if (ids.length < length)
+            ids = new int[Math.max(length, ids.length * 2)];
+
+        for (int i = 0; i < length; i++) {
+            String token = hyp[i];
+            Integer id = token == null ? null : vocabulary.get(token);
+            ids[i] = id == null ? -1 : id;
+        }
 
-        public static final Counter ZERO = new Counter();
+        Arrays.fill(numerators, 0);
+        int touched = 0;
 
-        public int value = 0;
-    }
+        for (int offset = 0; offset < length; offset++) {
+            int maxOrder = Math.min(N, length - offset);
+            long key = 0L;
 
-    private static final class NGram {
+            for (int o = 0; o < maxOrder; o++) {
+                int id = ids[offset + o];
+                if (id < 0)
+                    break;
 
-        private final String[] sentence;
-        private final int offset;
-        private final int order;
+                key = (key << 16) | id;
 
-        private int hash = 0;
+                // if an n-gram is not in the reference, none of its extensions is
+                int slot = find(key);
+                if (slot < 0)
+                    break;
 
-        public NGram(String[] sentence, int offset, int order) {
-            this.sentence = sentence;
-            this.offset = offset;
-            this.order = order;
+                int count = hypothesisCounts[slot]++;
+                if (count == 0)
+                    touchedSlots[touched++] = slot;
+                if (count < referenceCounts[slot])
+                    numerators[o]++;
+            }
         }
 
-        public int getOrder() {
-            return order;
-        }
+        for (int i = 0; i < touched; i++)
+            hypothesisCounts[touchedSlots[i]] = 0;
 
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
+        return getF1BleuScore(numerators, referenceLength, length);
+    }
 
-            NGram ngram = (NGram) o;
+    // Hash table
 
-            if (order != ngram.order) return false;
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
 
-            for (int i = 0; i < order; i++) {
-                String a = sentence[i + offset];
-                String b = ngram.sentence[i + ngram.offset];
+    private int find(long key) {
+        int i = slot(key);
+        long k;
+        while ((k = keys[i]) != 0L) {
+            if (k == key)
+                return i;
+            i = (i + 1) & mask;
+        }
 
-                if (!(a != null && b != null && a.equals(b)))
-                    return false;
-            }
+        return -1;
+    }
 
-            return true;
+    private int insert(long key) {
+        int i = slot(key);
+        long k;
+        while ((k = keys[i]) != 0L) {
+            if (k == key)
+                return i;
+            i = (i + 1) & mask;
         }
 
-        @Override
-        public int hashCode() {
-            if (hash == 0) {
-                int result = 1;
+        keys[i] = key;
+        return i;
+    }
 
-                for (int i = 0; i < order; i++) {
-                    String element = sentence[i + offset];
-                    result = 31 * result + (element == null ? 0 : element.hashCode());
-                }
+    // Scoring
 
-                hash = result;
-            }
+    private static int countNGrams(int length) {
+        int count = 0;
+        for (int order = 1; order <= N; order++)
+            count += Math.max(length - order + 1, 0);
+        return count;
+    }
 
-            return hash;
+    private static float getF1BleuScore(int[] numerators, int sentenceLength, int suggestionLength) {
+        double precision = 0;
+        double recall = 0;
+
+        for (int order = 1; order <= N; ++order) {
+            precision += Math.log(smooth(numerators[order - 1], Math.max(suggestionLength - order + 1, 0), 1));
+            recall += Math.log(smooth(numerators[order - 1], Math.max(sentenceLength - order + 1, 0), 1));
         }
 
-        @Override
-        public String toString() {
-            StringBuilder string = new StringBuilder("(");
-            for (int i = 0; i < order; i++) {
-                if (i > 0)
-                    string.append(' ');
-                string.append(sentence[i + offset]);
-            }
-            string.append(')');
+        precision = Math.exp(precision / N);
+        recall = Math.exp(recall / N);
 
-            return string.toString();
-        }
+        // compute F1
+        return (float) (2 * (precision * recall) / (precision + recall));
+    }
 
+    private static double smooth(int num, int den, int count) {
+        return (num + EPSILON) / (den + count * EPSILON);
     }
 
 }
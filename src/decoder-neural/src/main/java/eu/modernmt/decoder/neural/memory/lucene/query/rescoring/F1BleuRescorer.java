@@ -8,7 +8,6 @@ import eu.modernmt.model.Sentence;
 import org.apache.commons.lang3.ArrayUtils;
 
 import java.util.Arrays;
-import java.util.HashMap;
 
 /**
  * Created by davide on 06/08/17.
@@ -40,17 +39,30 @@ public class F1BleuRescorer implements Rescorer {
         }
 
         // Apply context scores
-        HashMap<Long, Float> contextScores = new HashMap<>();
+        long[] memories;
+        float[] contextScores;
 
         if (context != null && context.size() > 0) {
+            memories = new long[context.size()];
+            contextScores = new float[context.size()];
+
+            int i = 0;
+            for (ContextVector.Entry ce : context)
+                memories[i++] = ce.memory.getId();
+            Arrays.sort(memories);
+
             for (ContextVector.Entry ce : context)
-                contextScores.put(ce.memory.getId(), ce.score);
+                contextScores[Arrays.binarySearch(memories, ce.memory.getId())] = ce.score;
+        } else {
+            memories = new long[0];
+            contextScores = new float[0];
         }
 
         for (ScoreEntry entry : entries) {
             if (entry.score >= 0) {
-                Float contextScore = contextScores.get(entry.memory);
-                entry.score = entry.score * .5f + (contextScore == null ? 0.f : contextScore) * .5f;
+                int index = Arrays.binarySearch(memories, entry.memory);
+                float contextScore = index < 0 ? 0.f : contextScores[index];
+                entry.score = entry.score * .5f + contextScore * .5f;
             }
         }
 
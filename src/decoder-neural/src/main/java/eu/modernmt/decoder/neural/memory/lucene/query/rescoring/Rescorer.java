@@ -10,6 +10,12 @@ import eu.modernmt.model.Sentence;
  */
 public interface Rescorer {
 
+    /**
+     * Rescores and sorts the given entries. Entries only contain memory, sentence tokens and
+     * the search score: translation tokens are loaded after rescoring for the best entries only.
+     *
+     * @return the given entries (same instances) sorted by descending score
+     */
     ScoreEntry[] rescore(LanguageDirection direction, Sentence input, ScoreEntry[] entries, ContextVector context);
 
 }
@@ -0,0 +1,236 @@
+package eu.modernmt.decoder.neural.queue;
+
+import eu.modernmt.decoder.DecoderException;
+import eu.modernmt.io.TokensOutputStream;
+import eu.modernmt.io.UTF8Charset;
+import eu.modernmt.lang.LanguageDirection;
+import eu.modernmt.memory.ScoreEntry;
+import eu.modernmt.model.Alignment;
+import eu.modernmt.model.Sentence;
+import eu.modernmt.model.Translation;
+import eu.modernmt.model.Word;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Length-prefixed binary encoding of the requests and responses exchanged with the python decoder process.
+ * Strings are encoded as a varint length followed by the UTF-8 bytes, token sequences as a varint count
+ * followed by the tokens; integers and floats are 4 bytes big-endian.
+ * <p>
+ * Request: id (varint), kind (byte), source and target language, sentences, forced translations (align requests only)
+ * and suggestions (language, segment tokens, translation tokens, score).
+ * <p>
+ * Response: id (varint) of the request, status (byte), then either the translations (tokens, optional packed alignment,
+ * optional score) or the error type and message.
+ */
+final class BinaryProtocol {
+
+    private static final byte REQUEST_TEST = 0;
+    private static final byte REQUEST_TRANSLATE = 1;
+    private static final byte REQUEST_ALIGN = 2;
+
+    private static final byte STATUS_ERROR = 0;
+
+    private BinaryProtocol() {
+    }
+
+    public static byte[] encodeTestRequest(int id) {
+        FrameWriter writer = new FrameWriter();
+        writer.writeVarint(id);
+        writer.writeByte(REQUEST_TEST);
+        return writer.toByteArray();
+    }
+
+    public static byte[] encodeRequest(int id, LanguageDirection direction, Sentence[] sentences, ScoreEntry[] suggestions, String[][] forcedTranslations) {
+        FrameWriter writer = new FrameWriter();
+        writer.writeVarint(id);
+        writer.writeByte(forcedTranslations == null ? REQUEST_TRANSLATE : REQUEST_ALIGN);
+        writer.writeString(direction.source.toLanguageTag());
+        writer.writeString(direction.target.toLanguageTag());
+
+        writer.writeVarint(sentences.length);
+        for (Sentence sentence : sentences)
+            writer.writeTokens(TokensOutputStream.tokens(sentence, false, true));
+
+        if (forcedTranslations != null) {
+            for (String[] translation : forcedTranslations)
+                writer.writeTokens(translation);
+        }
+
+        if (suggestions == null) {
+            writer.writeVarint(0);
+        } else {
+            writer.writeVarint(suggestions.length);
+            for (ScoreEntry entry : suggestions) {
+                writer.writeString(entry.language.source.toLanguageTag());
+                writer.writeString(entry.language.target.toLanguageTag());
+                writer.writeTokens(entry.sentenceTokens);
+                writer.writeTokens(entry.translationTokens);
+                writer.writeFloat(entry.score);
+            }
+        }
+
+        return writer.toByteArray();
+    }
+
+    public static int readResponseId(byte[] frame) {
+        try {
+            int id = readVarint(ByteBuffer.wrap(frame));
+            return id == 0 ? -1 : id;  // zero is used for errors not bound to any request
+        } catch (BufferUnderflowException e) {
+            return -1;
+        }
+    }
+
+    public static Translation[] decodeResponse(byte[] frame, Sentence[] sentences) throws IOException, DecoderException {
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+
+        try {
+            readVarint(buffer);  // request id
+
+            if (buffer.get() == STATUS_ERROR) {
+                String type = readString(buffer);
+                String message = readString(buffer);
+
+                throw message.isEmpty() ? new DecoderException(type) : new DecoderException(type + " - " + message);
+            }
+
+            int expected = sentences == null ? 0 : sentences.length;  // test requests have no sentences
+            int count = readVarint(buffer);
+            if (count != expected)
+                throw new IOException("Invalid binary response from NMT decoder: expected " + expected + " translations, found " + count);
+
+            Translation[] translations = new Translation[count];
+            for (int i = 0; i < translations.length; i++) {
+                Word[] words = TokensOutputStream.deserializeWords(readTokens(buffer));
+
+                Alignment alignment = null;
+                if (buffer.get() != 0) {
+                    int size = readLength(buffer, 8);
+                    int[] sourceIndexes = new int[size];
+                    int[] targetIndexes = new int[size];
+                    buffer.asIntBuffer().get(sourceIndexes);
+                    buffer.position(buffer.position() + size * 4);
+                    buffer.asIntBuffer().get(targetIndexes);
+                    buffer.position(buffer.position() + size * 4);
+
+                    alignment = new Alignment(sourceIndexes, targetIndexes);
+                }
+
+                if (buffer.get() != 0)
+                    buffer.getFloat();  // translation score is not used
+
+                translations[i] = new Translation(words, sentences[i], alignment);
+            }
+
+            return translations;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Invalid binary response from NMT decoder", e);
+        }
+    }
+
+    // Decoding helpers
+
+    private static int readVarint(ByteBuffer buffer) {
+        int result = 0;
+        int shift = 0;
+
+        byte b;
+        do {
+            b = buffer.get();
+            result |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        return result;
+    }
+
+    /**
+     * Reads the length of a sequence and checks that the frame contains enough bytes for it, so that
+     * a corrupted frame is reported as such instead of causing a huge allocation.
+     *
+     * @param buffer      the frame
+     * @param minItemSize the minimum number of bytes of an item of the sequence
+     * @return the length of the sequence
+     * @throws IOException if the length is negative or exceeds the remaining bytes of the frame
+     */
+    private static int readLength(ByteBuffer buffer, int minItemSize) throws IOException {
+        int length = readVarint(buffer);
+        if (length < 0 || (long) length * minItemSize > buffer.remaining())
+            throw new IOException("Invalid binary response from NMT decoder: invalid length " + length);
+        return length;
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException {
+        int length = readLength(buffer, 1);
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, UTF8Charset.get());
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static String[] readTokens(ByteBuffer buffer) throws IOException {
+        String[] tokens = new String[readLength(buffer, 1)];
+        for (int i = 0; i < tokens.length; i++)
+            tokens[i] = readString(buffer).replace('\u00A0', ' ');
+        return tokens;
+    }
+
+    // Encoding helpers
+
+    private static final class FrameWriter {
+
+        private byte[] buffer = new byte[512];
+        private int size = 0;
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length)
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+
+        public void writeByte(byte value) {
+            ensureCapacity(1);
+            buffer[size++] = value;
+        }
+
+        public void writeVarint(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        public void writeFloat(float value) {
+            int bits = Float.floatToIntBits(value);
+            ensureCapacity(4);
+            buffer[size++] = (byte) (bits >>> 24);
+            buffer[size++] = (byte) (bits >>> 16);
+            buffer[size++] = (byte) (bits >>> 8);
+            buffer[size++] = (byte) bits;
+        }
+
+        public void writeString(String value) {
+            byte[] bytes = value.getBytes(UTF8Charset.get());
+            writeVarint(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        public void writeTokens(String[] tokens) {
+            writeVarint(tokens.length);
+            for (String token : tokens)
+                writeString(token);
+        }
+
+        public byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+    }
+
+}
@@ -0,0 +1,95 @@
+package eu.modernmt.decoder.neural.queue;
+
+import java.io.File;
+import java.util.HashMap;
+
+/**
+ * Selection policy that tries to minimize model switches on the decoder processes.
+ * <p>
+ * An idle process with the requested checkpoint already loaded is always preferred. Otherwise the policy
+ * sacrifices the process whose checkpoint is the most over-provisioned with respect to its recent demand:
+ * every checkpoint deserves a number of warm processes proportional to its share of the recent requests,
+ * so under sustained traffic hot directions keep dedicated processes while cold directions share the others.
+ * <p>
+ * The demand of each checkpoint is an exponentially decayed request count.
+ */
+public class CheckpointAffinityPolicy implements HandlerSelectionPolicy {
+
+    private static final double DEFAULT_DECAY = 0.995;
+    private static final double MAX_WEIGHT = 1e100;
+
+    private final double decay;
+    private final HashMap<File, Double> demand = new HashMap<>();
+    private double totalDemand = 0;
+    private double weight = 1.;
+
+    public CheckpointAffinityPolicy() {
+        this(DEFAULT_DECAY);
+    }
+
+    /**
+     * @param decay the factor (between 0 and 1) applied to the demand statistics at every request:
+     *              the closer to 1, the longer the history taken into account
+     */
+    public CheckpointAffinityPolicy(double decay) {
+        if (decay <= 0 || decay > 1)
+            throw new IllegalArgumentException("Invalid decay: " + decay);
+        this.decay = decay;
+    }
+
+    @Override
+    public int select(File checkpoint, File[] candidates, File[] checkpoints) {
+        updateDemand(checkpoint);
+
+        for (int i = 0; i < candidates.length; i++) {
+            if (checkpoint.equals(candidates[i]))
+                return i;
+        }
+
+        HashMap<File, Integer> warm = new HashMap<>(checkpoints.length);
+        for (File loaded : checkpoints) {
+            if (loaded != null)
+                warm.merge(loaded, 1, Integer::sum);
+        }
+
+        int selection = -1;
+        double surplus = Double.NEGATIVE_INFINITY;
+
+        for (int i = 0; i < candidates.length; i++) {
+            File loaded = candidates[i];
+            if (loaded == null)
+                return i;  // an empty process costs nothing
+
+            double candidateSurplus = warm.getOrDefault(loaded, 1) - getDemandShare(loaded) * checkpoints.length;
+            if (candidateSurplus > surplus) {
+                surplus = candidateSurplus;
+                selection = i;
+            }
+        }
+
+        return selection;
+    }
+
+    /**
+     * @return the fraction of the recent requests that targeted the given checkpoint
+     */
+    public double getDemandShare(File checkpoint) {
+        Double value = demand.get(checkpoint);
+        return value == null || totalDemand == 0 ? 0. : value / totalDemand;
+    }
+
+    private void updateDemand(File checkpoint) {
+        // instead of decaying all the counters, the weight of new requests is increased
+        weight /= decay;
+
+        if (weight > MAX_WEIGHT) {
+            demand.replaceAll((key, value) -> value / weight);
+            totalDemand /= weight;
+            weight = 1.;
+        }
+
+        demand.merge(checkpoint, weight, Double::sum);
+        totalDemand += weight;
+    }
+
+}
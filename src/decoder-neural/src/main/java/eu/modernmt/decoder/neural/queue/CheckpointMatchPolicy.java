@@ -0,0 +1,21 @@
+package eu.modernmt.decoder.neural.queue;
+
+import java.io.File;
+
+/**
+ * Selects the first idle process with the requested checkpoint loaded,
+ * falling back to the head of the queue.
+ */
+public class CheckpointMatchPolicy implements HandlerSelectionPolicy {
+
+    @Override
+    public int select(File checkpoint, File[] candidates, File[] checkpoints) {
+        for (int i = 0; i < candidates.length; i++) {
+            if (checkpoint.equals(candidates[i]))
+                return i;
+        }
+
+        return -1;
+    }
+
+}
@@ -5,6 +5,7 @@ import eu.modernmt.decoder.DecoderUnavailableException;
 import eu.modernmt.lang.LanguageDirection;
 
 import java.io.Closeable;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 public interface DecoderQueue extends Closeable {
@@ -17,8 +18,20 @@ public interface DecoderQueue extends Closeable {
 
     int availability();
 
+    /**
+     * @return the number of decoders that can be taken right now without waiting for
+     * another request to release them
+     */
+    int idle();
+
     int size();
 
+    /**
+     * @return the number of times a decoder process had to replace its loaded model
+     * in order to serve a request, by requested language direction
+     */
+    Map<LanguageDirection, Long> getModelSwitches();
+
     void setListener(DecoderListener listener);
 
 }
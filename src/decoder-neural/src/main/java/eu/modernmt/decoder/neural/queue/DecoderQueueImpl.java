@@ -11,9 +11,11 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Created by davide on 22/05/17.
@@ -23,21 +25,36 @@ public class DecoderQueueImpl implements DecoderQueue {
     public static DecoderQueueImpl newGPUInstance(ModelConfig config, PythonDecoder.Builder builder, int[] gpus) throws DecoderException {
         Map<LanguageDirection, File> checkpoints = config.getAvailableModels();
 
+        int window = config.getInFlightWindow();
+
         Handler[] handlers = new Handler[gpus.length];
         for (int i = 0; i < gpus.length; i++)
-            handlers[i] = new Handler(builder, checkpoints, gpus[i]);
+            handlers[i] = new Handler(builder, checkpoints, gpus[i], window);
 
-        return new DecoderQueueImpl(checkpoints, handlers);
+        return new DecoderQueueImpl(checkpoints, handlers, createSelectionPolicy(config));
     }
 
     public static DecoderQueueImpl newCPUInstance(ModelConfig config, PythonDecoder.Builder builder, int cpus) throws DecoderException {
         Map<LanguageDirection, File> checkpoints = config.getAvailableModels();
 
+        int window = config.getInFlightWindow();
+
         Handler[] handlers = new Handler[cpus];
         for (int i = 0; i < cpus; i++)
-            handlers[i] = new Handler(builder, checkpoints, -1);
+            handlers[i] = new Handler(builder, checkpoints, -1, window);
+
+        return new DecoderQueueImpl(checkpoints, handlers, createSelectionPolicy(config));
+    }
 
-        return new DecoderQueueImpl(checkpoints, handlers);
+    private static HandlerSelectionPolicy createSelectionPolicy(ModelConfig config) throws DecoderException {
+        String policy = config.getHandlerSelectionPolicy();
+
+        if ("match".equalsIgnoreCase(policy))
+            return new CheckpointMatchPolicy();
+        else if ("affinity".equalsIgnoreCase(policy))
+            return new CheckpointAffinityPolicy();
+        else
+            throw new DecoderException("Invalid handler selection policy: " + policy);
     }
 
     protected final Logger logger = LogManager.getLogger(getClass());
@@ -46,15 +63,26 @@ public class DecoderQueueImpl implements DecoderQueue {
     private final HandlerBlockingQueue queue;
     private final ExecutorService initExecutor;
     private final int maxAvailability;
+    private final int size;
 
     private final AtomicInteger aliveProcesses = new AtomicInteger(0);
+    private final ConcurrentHashMap<LanguageDirection, LongAdder> modelSwitches = new ConcurrentHashMap<>();
     private boolean active = true;
     private DecoderListener listener;
 
     protected DecoderQueueImpl(Map<LanguageDirection, File> checkpoints, Handler[] handlers) throws DecoderException {
+        this(checkpoints, handlers, new CheckpointMatchPolicy());
+    }
+
+    protected DecoderQueueImpl(Map<LanguageDirection, File> checkpoints, Handler[] handlers, HandlerSelectionPolicy policy) throws DecoderException {
         this.checkpoints = checkpoints;
-        this.queue = new HandlerBlockingQueue(handlers.length, false);
+        int size = 0;
+        for (Handler handler : handlers)
+            size += handler.getSlots();
+
+        this.queue = new HandlerBlockingQueue(size, false, policy);
         this.maxAvailability = handlers.length;
+        this.size = size;
         this.initExecutor = handlers.length > 1 ? Executors.newCachedThreadPool() : Executors.newSingleThreadExecutor();
 
         Future<?>[] array = new Future<?>[handlers.length];
@@ -77,9 +105,26 @@ public class DecoderQueueImpl implements DecoderQueue {
         return aliveProcesses.get();
     }
 
+    @Override
+    public int idle() {
+        return this.active ? this.queue.size() : 0;
+    }
+
+    /**
+     * @return the maximum number of decoders that can be in use at the same time:
+     * each process can serve multiple in-flight requests
+     */
     @Override
     public int size() {
-        return maxAvailability;
+        return size;
+    }
+
+    @Override
+    public Map<LanguageDirection, Long> getModelSwitches() {
+        HashMap<LanguageDirection, Long> result = new HashMap<>(modelSwitches.size());
+        for (Map.Entry<LanguageDirection, LongAdder> entry : modelSwitches.entrySet())
+            result.put(entry.getKey(), entry.getValue().sum());
+        return result;
     }
 
     @Override
@@ -103,13 +148,27 @@ public class DecoderQueueImpl implements DecoderQueue {
             if (language != null)
                 checkpoint = checkpoints.get(language);
 
+            long deadline = timeout > 0 ? System.nanoTime() + unit.toNanos(timeout) : 0L;
 
-            if (timeout > 0)
-                decoder = this.queue.poll(checkpoint, timeout, unit);
-            else
-                decoder = this.queue.take(checkpoint);
+            while (true) {
+                if (timeout > 0)
+                    decoder = this.queue.poll(checkpoint, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                else
+                    decoder = this.queue.take(checkpoint);
+
+                // the process may have died while serving another in-flight request
+                if (decoder == null)
+                    return null;
 
-            return decoder;
+                if (decoder.isAlive()) {
+                    if (checkpoint != null)
+                        onCheckpointRequested(decoder, language, checkpoint);
+                    return decoder;
+                }
+
+                retire(decoder, 1);
+                decoder = null;
+            }
         } catch (InterruptedException e) {
             throw new DecoderUnavailableException("No NMT processes available", e);
         } finally {
@@ -118,6 +177,19 @@ public class DecoderQueueImpl implements DecoderQueue {
         }
     }
 
+    private void onCheckpointRequested(Handler handler, LanguageDirection language, File checkpoint) {
+        File lastCheckpoint = handler.getLastCheckpoint();
+
+        if (lastCheckpoint != null && !lastCheckpoint.equals(checkpoint)) {
+            modelSwitches.computeIfAbsent(language, key -> new LongAdder()).increment();
+
+            if (logger.isDebugEnabled()) {
+                String process = handler.getGPU() < 0 ? "CPU process" : ("GPU " + handler.getGPU() + " process");
+                logger.debug("Model switch on " + process + ": " + lastCheckpoint.getName() + " -> " + checkpoint.getName());
+            }
+        }
+    }
+
     @Override
     public final void release(PythonDecoder process) {
         Handler handler = (Handler) process;
@@ -130,19 +202,28 @@ public class DecoderQueueImpl implements DecoderQueue {
         if (!this.active) {
             IOUtils.closeQuietly(handler);
         } else {
-            if (handler.isAlive()) {
+            if (handler.isAlive())
                 this.queue.offer(handler);
-            } else {
-                int availability = this.aliveProcesses.decrementAndGet();
+            else
+                retire(handler, 1);
+        }
+    }
 
-                DecoderListener listener = this.listener;
-                if (listener != null)
-                    listener.onDecoderAvailabilityChanged(availability, this.maxAvailability);
+    private void retire(Handler handler, int count) {
+        // idle slots of the dead process must not be served anymore
+        count += this.queue.removeAll(handler);
 
-                if (this.active)
-                    this.initExecutor.execute(new Initializer(handler));
-            }
-        }
+        if (!handler.retire(count))
+            return;  // other requests are still in-flight on this process
+
+        int availability = this.aliveProcesses.decrementAndGet();
+
+        DecoderListener listener = this.listener;
+        if (listener != null)
+            listener.onDecoderAvailabilityChanged(availability, this.maxAvailability);
+
+        if (this.active)
+            this.initExecutor.execute(new Initializer(handler));
     }
 
     @Override
@@ -188,7 +269,8 @@ public class DecoderQueueImpl implements DecoderQueue {
                 System.exit(2);
             }
 
-            queue.offer(handler);
+            for (int i = 0; i < handler.getSlots(); i++)
+                queue.offer(handler);
             int availability = aliveProcesses.incrementAndGet();
 
             DecoderListener listener = DecoderQueueImpl.this.listener;
@@ -4,6 +4,8 @@ import eu.modernmt.decoder.DecoderListener;
 import eu.modernmt.decoder.DecoderUnavailableException;
 import eu.modernmt.lang.LanguageDirection;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 public class EchoServerDecoderQueue implements DecoderQueue {
@@ -28,11 +30,21 @@ public class EchoServerDecoderQueue implements DecoderQueue {
         return 2;
     }
 
+    @Override
+    public int idle() {
+        return 2;
+    }
+
     @Override
     public int size() {
         return 2;
     }
 
+    @Override
+    public Map<LanguageDirection, Long> getModelSwitches() {
+        return Collections.emptyMap();
+    }
+
     @Override
     public void setListener(DecoderListener listener) {
         // Nothing to do
@@ -17,34 +17,74 @@ class Handler implements PythonDecoder {
     private final PythonDecoder.Builder builder;
     private final Map<LanguageDirection, File> checkpoints;
     private final int gpu;
+    private final int slots;
 
-    private PythonDecoder delegate = null;
-    private File checkpoint = null;
-    private boolean inUse;
+    private volatile PythonDecoder delegate = null;
+    private volatile File checkpoint = null;
+    private int inUse;
+    private int retired;
 
     public Handler(Builder builder, Map<LanguageDirection, File> checkpoints, int gpu) {
+        this(builder, checkpoints, gpu, 1);
+    }
+
+    /**
+     * Create a new Handler for a decoder process.
+     *
+     * @param builder     the decoder process builder
+     * @param checkpoints the available checkpoints by language direction
+     * @param gpu         the GPU to use or -1 for CPU
+     * @param slots       the maximum number of requests that can be in-flight at the same time on this process
+     */
+    public Handler(Builder builder, Map<LanguageDirection, File> checkpoints, int gpu, int slots) {
+        if (slots < 1)
+            throw new IllegalArgumentException("slots must be greater than zero");
+
         this.builder = builder;
         this.checkpoints = checkpoints;
         this.gpu = gpu;
-        this.inUse = false;
+        this.slots = slots;
+        this.inUse = 0;
+        this.retired = 0;
+    }
+
+    public int getSlots() {
+        return slots;
     }
 
     public synchronized boolean setInUse() {
-        if (this.inUse)
+        if (this.inUse == slots)
             return false;
 
-        this.inUse = true;
+        this.inUse++;
         return true;
     }
 
     public synchronized boolean unsetInUse() {
-        if (!this.inUse)
+        if (this.inUse == 0)
             return false;
 
-        this.inUse = false;
+        this.inUse--;
         return true;
     }
 
+    /**
+     * Mark the given number of slots as retired after the decoder process died.
+     *
+     * @param count the number of slots to retire
+     * @return true if all the slots of this handler have been retired and the process can be restarted
+     */
+    public synchronized boolean retire(int count) {
+        this.retired += count;
+
+        if (this.retired >= slots) {
+            this.retired = 0;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
     public void restart() throws IOException {
         IOUtils.closeQuietly(this);
 
@@ -69,7 +109,7 @@ class Handler implements PythonDecoder {
     }
 
     @Override
-    public synchronized Translation translate(LanguageDirection direction, Sentence sentence, int nBest) throws DecoderException {
+    public Translation translate(LanguageDirection direction, Sentence sentence, int nBest) throws DecoderException {
         if (delegate == null)
             throw new DecoderUnavailableException("Decoder process is dead");
 
@@ -78,7 +118,7 @@ class Handler implements PythonDecoder {
     }
 
     @Override
-    public synchronized Translation translate(LanguageDirection direction, Sentence sentence, ScoreEntry[] suggestions, int nBest) throws DecoderException {
+    public Translation translate(LanguageDirection direction, Sentence sentence, ScoreEntry[] suggestions, int nBest) throws DecoderException {
         if (delegate == null)
             throw new DecoderUnavailableException("Decoder process is dead");
 
@@ -105,7 +145,7 @@ class Handler implements PythonDecoder {
     }
 
     @Override
-    public synchronized Translation align(LanguageDirection direction, Sentence sentence, String[] translation) throws DecoderException {
+    public Translation align(LanguageDirection direction, Sentence sentence, String[] translation) throws DecoderException {
         if (delegate == null)
             throw new DecoderUnavailableException("Decoder process is dead");
 
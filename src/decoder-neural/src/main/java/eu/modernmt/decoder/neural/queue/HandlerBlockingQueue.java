@@ -1,6 +1,7 @@
 package eu.modernmt.decoder.neural.queue;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
@@ -17,10 +18,18 @@ public class HandlerBlockingQueue {
     private final Condition notEmpty;
     private final Condition notFull;
 
+    private final HandlerSelectionPolicy policy;
+    private final ArrayList<Handler> handlers = new ArrayList<>();
+
     public HandlerBlockingQueue(int capacity, boolean fair) {
+        this(capacity, fair, new CheckpointMatchPolicy());
+    }
+
+    public HandlerBlockingQueue(int capacity, boolean fair, HandlerSelectionPolicy policy) {
         if (capacity <= 0)
             throw new IllegalArgumentException();
 
+        this.policy = Objects.requireNonNull(policy);
         items = new Handler[capacity];
         lock = new ReentrantLock(fair);
         notEmpty = lock.newCondition();
@@ -56,7 +65,7 @@ public class HandlerBlockingQueue {
      * until an element becomes available.
      *
      * @param checkpoint preferred most-recently used checkpoint
-     * @return the selected instance or the head of this queue if there is no Handler with preferred checkpoint
+     * @return the instance selected by the {@link HandlerSelectionPolicy}
      * @throws InterruptedException if interrupted while waiting
      */
     public Handler take(File checkpoint) throws InterruptedException {
@@ -98,7 +107,7 @@ public class HandlerBlockingQueue {
      *                   {@code unit}
      * @param unit       a {@code TimeUnit} determining how to interpret the
      *                   {@code timeout} parameter
-     * @return the selected instance or the head of this queue if there is no Handler with preferred checkpoint,
+     * @return the instance selected by the {@link HandlerSelectionPolicy},
      * or {@code null} if the specified waiting time elapses before an element is available
      * @throws InterruptedException if interrupted while waiting
      */
@@ -120,9 +129,66 @@ public class HandlerBlockingQueue {
         }
     }
 
+    /**
+     * Returns the number of elements in this queue.
+     *
+     * @return the number of elements in this queue
+     */
+    public int size() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all the occurrences of the specified element from this queue.
+     *
+     * @param e element to be removed from this queue
+     * @return the number of removed occurrences
+     */
+    public int removeAll(Handler e) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            int removed = 0;
+            int i;
+            while ((i = indexOf(e)) >= 0) {
+                removeAt(i);
+                removed++;
+            }
+
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     // Internal helper methods
 
+    private int indexOf(Handler e) {
+        if (count > 0) {
+            final Handler[] items = this.items;
+            for (int i = takeIndex, end = putIndex,
+                 to = (i < end) ? end : items.length;
+                    ; i = 0, to = end) {
+                for (; i < to; i++)
+                    if (items[i] == e)
+                        return i;
+                if (to == end) break;
+            }
+        }
+
+        return -1;
+    }
+
     private void enqueue(Handler e) {
+        if (!contains(handlers, e))
+            handlers.add(e);
+
         final Object[] items = this.items;
         items[putIndex] = e;
         if (++putIndex == items.length) putIndex = 0;
@@ -142,22 +208,35 @@ public class HandlerBlockingQueue {
     }
 
     private Handler select(File checkpoint) {
-        if (count > 0) {
-            final Handler[] items = this.items;
-            for (int i = takeIndex, end = putIndex,
-                 to = (i < end) ? end : items.length;
-                    ; i = 0, to = end) {
-                for (; i < to; i++)
-                    if (checkpoint.equals(items[i].getLastCheckpoint())) {
-                        Handler result = items[i];
-                        removeAt(i);
-                        return result;
-                    }
-                if (to == end) break;
-            }
+        final Handler[] items = this.items;
+
+        File[] candidates = new File[count];
+        for (int i = 0, j = takeIndex; i < count; i++) {
+            candidates[i] = items[j].getLastCheckpoint();
+            if (++j == items.length) j = 0;
+        }
+
+        File[] checkpoints = new File[handlers.size()];
+        for (int i = 0; i < checkpoints.length; i++)
+            checkpoints[i] = handlers.get(i).getLastCheckpoint();
+
+        int selection = policy.select(checkpoint, candidates, checkpoints);
+        if (selection < 0 || selection >= count)
+            return null;
+
+        int index = (takeIndex + selection) % items.length;
+        Handler result = items[index];
+        removeAt(index);
+        return result;
+    }
+
+    private static boolean contains(ArrayList<Handler> list, Handler e) {
+        for (Handler handler : list) {
+            if (handler == e)
+                return true;
         }
 
-        return null;
+        return false;
     }
 
     private void removeAt(final int removeIndex) {
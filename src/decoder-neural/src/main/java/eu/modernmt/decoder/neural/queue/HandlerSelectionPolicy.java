@@ -0,0 +1,23 @@
+package eu.modernmt.decoder.neural.queue;
+
+import java.io.File;
+
+/**
+ * Strategy used by {@link HandlerBlockingQueue} to choose which idle decoder process
+ * should serve a request for a given checkpoint.
+ */
+public interface HandlerSelectionPolicy {
+
+    /**
+     * Select the idle process that will serve a request for the given checkpoint.
+     * This method is always invoked while holding the queue lock.
+     *
+     * @param checkpoint  the requested checkpoint
+     * @param candidates  the last checkpoint of every idle process in queue order (null if no model has been loaded yet);
+     *                    the same process appears multiple times if it has more than one free slot
+     * @param checkpoints the last checkpoint of every known process, both idle and busy
+     * @return the index of the selected candidate or -1 to select the head of the queue
+     */
+    int select(File checkpoint, File[] candidates, File[] checkpoints);
+
+}
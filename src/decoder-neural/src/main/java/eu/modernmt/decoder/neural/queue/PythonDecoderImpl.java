@@ -1,6 +1,8 @@
 package eu.modernmt.decoder.neural.queue;
 
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import eu.modernmt.decoder.DecoderException;
 import eu.modernmt.decoder.DecoderUnavailableException;
 import eu.modernmt.io.TokensOutputStream;
@@ -15,9 +17,11 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class PythonDecoderImpl extends PythonProcess implements PythonDecoder {
 
@@ -28,6 +32,7 @@ public class PythonDecoderImpl extends PythonProcess implements PythonDecoder {
         private final String main;
         private final File model;
         private final String[] extraArgs;
+        private boolean binaryProtocol = false;
 
         public Builder(String pythonExec, File pythonModule, File model) {
             this(pythonExec, pythonModule, null, null, model);
@@ -49,6 +54,18 @@ public class PythonDecoderImpl extends PythonProcess implements PythonDecoder {
             this.extraArgs = extraArgs;
         }
 
+        /**
+         * Enable the binary protocol for the communication with the decoder process;
+         * JSON is still used if the process does not support it.
+         *
+         * @param binaryProtocol true to use the binary protocol if available
+         * @return this builder
+         */
+        public Builder setBinaryProtocol(boolean binaryProtocol) {
+            this.binaryProtocol = binaryProtocol;
+            return this;
+        }
+
         @Override
         public PythonDecoder startOnCPU() throws IOException {
             return start(-1);
@@ -89,7 +106,7 @@ public class PythonDecoderImpl extends PythonProcess implements PythonDecoder {
 
             try {
                 process.connect();
-                process.init();
+                process.init(binaryProtocol);
                 success = true;
 
                 return process;
@@ -104,7 +121,9 @@ public class PythonDecoderImpl extends PythonProcess implements PythonDecoder {
     private static final JsonParser parser = new JsonParser();
 
     private final int gpu;
-    private boolean alive;
+    private final AtomicInteger requestId = new AtomicInteger(1);
+    private volatile boolean alive;
+    private boolean binary = false;
 
     protected PythonDecoderImpl(Process process) {
         this(process, -1);
@@ -116,10 +135,22 @@ public class PythonDecoderImpl extends PythonProcess implements PythonDecoder {
     }
 
     protected void init() throws IOException {
+        init(false);
+    }
+
+    protected void init(boolean binaryProtocol) throws IOException {
         String line = super.recv();
-        if (!"READY".equals(line))
+        if (line == null || !(line.equals("READY") || line.startsWith("READY ")))
             throw new IOException("Failed to start neural decoder, received: " + line);
 
+        if (binaryProtocol) {
+            String[] capabilities = line.substring(5).trim().split("\\s+");
+            this.binary = Arrays.asList(capabilities).contains("binary");
+
+            if (!this.binary)
+                logger.warn("Neural decoder process does not support binary protocol, falling back to JSON");
+        }
+
         this.alive = true;
     }
 
@@ -135,7 +166,7 @@ public class PythonDecoderImpl extends PythonProcess implements PythonDecoder {
 
     @Override
     public void test() throws DecoderException {
-        translate(null, "{}");
+        translate(null, null, null, null);
     }
 
     @Override
@@ -150,60 +181,118 @@ public class PythonDecoderImpl extends PythonProcess implements PythonDecoder {
 
     @Override
     public Translation[] translate(LanguageDirection direction, Sentence[] sentences, int nBest) throws DecoderException {
-        return this.translate(sentences, serialize(direction, sentences, null, null));
+        return this.translate(direction, sentences, null, null);
     }
 
     @Override
     public Translation[] translate(LanguageDirection direction, Sentence[] sentences, ScoreEntry[] suggestions, int nBest) throws DecoderException {
-        return this.translate(sentences, serialize(direction, sentences, suggestions, null));
+        return this.translate(direction, sentences, suggestions, null);
     }
 
     @Override
     public Translation align(LanguageDirection direction, Sentence sentence, String[] translation) throws DecoderException {
         Sentence[] sentences = new Sentence[]{sentence};
         String[][] translations = new String[][]{translation};
-        return this.translate(sentences, serialize(direction, new Sentence[]{sentence}, null, translations))[0];
+        return this.translate(direction, sentences, null, translations)[0];
     }
 
     @Override
     public Translation[] align(LanguageDirection direction, Sentence[] sentences, String[][] translations) throws DecoderException {
-        return this.translate(sentences, serialize(direction, sentences, null, translations));
+        return this.translate(direction, sentences, null, translations);
     }
 
-    private synchronized Translation[] translate(Sentence[] sentences, String payload) throws DecoderException {
+    private Translation[] translate(LanguageDirection direction, Sentence[] sentences, ScoreEntry[] suggestions, String[][] forcedTranslations) throws DecoderException {
+        int id = nextRequestId();
+
+        Object payload;
+        if (direction == null)
+            payload = binary ? BinaryProtocol.encodeTestRequest(id) : serializeTest(id);
+        else if (binary)
+            payload = BinaryProtocol.encodeRequest(id, direction, sentences, suggestions, forcedTranslations);
+        else
+            payload = serialize(id, direction, sentences, suggestions, forcedTranslations);
+
+        return this.translate(id, sentences, payload);
+    }
+
+    private Translation[] translate(int id, Sentence[] sentences, Object payload) throws DecoderException {
         if (!isAlive())
             throw new DecoderUnavailableException("Neural decoder process not available");
 
-        boolean success = false;
+        Object response;
 
         try {
-            super.send(payload);
-
-            String response = super.recv(30, TimeUnit.SECONDS);
-            if (response == null)
-                throw new DecoderUnavailableException("Neural decoder process not responding (timeout)");
+            response = super.call(id, payload, 30, TimeUnit.SECONDS);
+        } catch (IOException e) {
+            // the process is dead, unresponsive or out of sync: no other request can succeed
+            kill();
+            throw new DecoderUnavailableException("Failed to send request to decoder process", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DecoderException("Translation interrupted", e);
+        }
 
-            Translation[] translations = deserialize(response, sentences);
+        // responses are matched by id, so a failure of this request does not affect the other ones
+        if (response == null)
+            throw new DecoderUnavailableException("Neural decoder process not responding (timeout)");
 
-            success = true;
-            return translations;
+        try {
+            if (response instanceof byte[])
+                return BinaryProtocol.decodeResponse((byte[]) response, sentences);
+            else
+                return deserialize((String) response, sentences);
         } catch (IOException e) {
-            throw new DecoderUnavailableException("Failed to send request to decoder process", e);
-        } finally {
-            if (!success) {
-                this.alive = false;
-                this.close();
-            }
+            throw new DecoderException("Invalid response from decoder process", e);
+        }
+    }
+
+    private synchronized void kill() {
+        if (this.alive) {
+            this.alive = false;
+            this.close();
+        }
+    }
+
+    private int nextRequestId() {
+        int id;
+        do {
+            id = requestId.getAndIncrement() & Integer.MAX_VALUE;
+        } while (id == 0);  // zero is reserved for responses not bound to any request
+
+        return id;
+    }
+
+    @Override
+    protected int getResponseId(Object message) {
+        if (message instanceof byte[])
+            return BinaryProtocol.readResponseId((byte[]) message);
+
+        // "id" is always the first property of a JSON response
+        try (JsonReader reader = new JsonReader(new StringReader((String) message))) {
+            reader.beginObject();
+            if (reader.hasNext() && "id".equals(reader.nextName()) && reader.peek() == JsonToken.NUMBER)
+                return reader.nextInt();
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            // not a response
         }
+
+        return -1;
+    }
+
+    private static String serializeTest(int id) {
+        JsonObject json = new JsonObject();
+        json.addProperty("id", id);
+        return json.toString();
     }
 
-    private String serialize(LanguageDirection direction, Sentence[] sentences, ScoreEntry[] suggestions, String[][] forcedTranslations) {
+    private String serialize(int id, LanguageDirection direction, Sentence[] sentences, ScoreEntry[] suggestions, String[][] forcedTranslations) {
         String[] serialized = new String[sentences.length];
         for (int i = 0; i < serialized.length; i++)
             serialized[i] = TokensOutputStream.serialize(sentences[i], false, true);
         String text = StringUtils.join(serialized, '\n');
 
         JsonObject json = new JsonObject();
+        json.addProperty("id", id);
         json.addProperty("q", text);
         json.addProperty("sl", direction.source.toLanguageTag());
         json.addProperty("tl", direction.target.toLanguageTag());
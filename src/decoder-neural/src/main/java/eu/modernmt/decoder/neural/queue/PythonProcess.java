@@ -10,16 +10,19 @@ import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.Closeable;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.*;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 
 public abstract class PythonProcess implements Closeable {
 
+    /**
+     * First byte of a binary frame: it is never the first byte of a text line,
+     * so binary frames and text lines can be freely interleaved on the same stream.
+     */
+    protected static final int FRAME_MARKER = 0x00;
+
     private static final Map<String, Level> LOG_LEVELS = ImmutableMap.of(
             "CRITICAL", Level.FATAL,
             "ERROR", Level.ERROR,
@@ -43,7 +46,7 @@ public abstract class PythonProcess implements Closeable {
     protected final Logger logger = LogManager.getLogger(getClass());
 
     private final Process process;
-    private OutputStream stdin = null;
+    private DataOutputStream stdin = null;
     private StdoutThread stdoutThread = null;
     private StreamPollingThread logThread = null;
 
@@ -52,7 +55,7 @@ public abstract class PythonProcess implements Closeable {
     }
 
     protected void connectStdin(OutputStream stdin) {
-        this.stdin = stdin;
+        this.stdin = new DataOutputStream(new BufferedOutputStream(stdin));
     }
 
     protected void connectStdout(InputStream stdout) {
@@ -71,18 +74,81 @@ public abstract class PythonProcess implements Closeable {
         connectStdout(process.getInputStream());
     }
 
-    protected void send(String line) throws IOException {
+    protected synchronized void send(String line) throws IOException {
         this.stdin.write(line.getBytes(UTF8Charset.get()));
         this.stdin.write('\n');
         this.stdin.flush();
     }
 
+    protected synchronized void send(byte[] frame) throws IOException {
+        this.stdin.write(FRAME_MARKER);
+        this.stdin.writeInt(frame.length);
+        this.stdin.write(frame);
+        this.stdin.flush();
+    }
+
+    /**
+     * Read the next message that is not a response to a pending request (see {@link #call(int, Object, long, TimeUnit)}).
+     *
+     * @return the next text line or null if the process has terminated
+     * @throws IOException if an I/O error occurs
+     */
     protected String recv() throws IOException {
-        return this.stdoutThread.readLine();
+        return this.stdoutThread.read(0, null);
     }
 
     protected String recv(long timeout, TimeUnit unit) throws IOException {
-        return this.stdoutThread.readLine(timeout, unit);
+        return this.stdoutThread.read(timeout, unit);
+    }
+
+    /**
+     * Send a request (either a text line or a binary frame) and wait for its response.
+     * Multiple requests can be in-flight at the same time: responses are matched to requests
+     * through {@link #getResponseId(Object)}.
+     *
+     * @param id      the unique id of the request, included in the payload
+     * @param request the request payload, either a {@link String} or a byte array
+     * @param timeout the maximum time to wait for the response
+     * @param unit    the time unit of the timeout argument
+     * @return the response (either a {@link String} or a byte array), or null if the timeout expired while
+     * the process was still responding to other requests: the late response, if any, will be discarded
+     * @throws IOException          if an I/O error occurs, the process has terminated or the communication with
+     *                              the process is out of sync, or if the process has not written anything at all
+     *                              while waiting for the response
+     * @throws InterruptedException if the current thread has been interrupted while waiting for the response
+     */
+    protected Object call(int id, Object request, long timeout, TimeUnit unit) throws IOException, InterruptedException {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        long sendTime = System.nanoTime();
+        this.stdoutThread.pending.put(id, future);
+
+        try {
+            if (request instanceof byte[])
+                send((byte[]) request);
+            else
+                send((String) request);
+
+            return future.get(timeout, unit);
+        } catch (TimeoutException e) {
+            if (this.stdoutThread.lastMessageTime - sendTime < 0)
+                throw new IOException("Decoder process not responding");
+            return null;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } finally {
+            this.stdoutThread.pending.remove(id);
+        }
+    }
+
+    /**
+     * Return the id of the request the given message is responding to.
+     *
+     * @param message a message read from the process STDOUT, either a {@link String} or a byte array
+     * @return the id of the request or -1 if the message is not a response
+     */
+    protected int getResponseId(Object message) {
+        return -1;
     }
 
     protected boolean isAlive() {
@@ -176,58 +242,153 @@ public abstract class PythonProcess implements Closeable {
 
     }
 
-    private class StdoutThread extends StreamPollingThread {
+    private class StdoutThread extends Thread {
 
         private final Object POISON_PILL = new Object();
-        private final SynchronousQueue<Object> handoff;
+        private final BlockingQueue<Object> messages;
+        private final ConcurrentHashMap<Integer, CompletableFuture<Object>> pending;
+        private final DataInputStream stream;
+        private final ByteArrayOutputStream lineBuffer;
+        private volatile boolean active = true;
+        private volatile long lastMessageTime = System.nanoTime();
 
         public StdoutThread(InputStream stdout) {
-            super(stdout);
-            this.handoff = new SynchronousQueue<>();
+            this.stream = new DataInputStream(new BufferedInputStream(stdout));
+            this.messages = new LinkedBlockingQueue<>();
+            this.pending = new ConcurrentHashMap<>();
+            this.lineBuffer = new ByteArrayOutputStream(1024);
         }
 
         @Override
-        protected void onIOException(IOException e) throws InterruptedException {
-            handoff.put(e);
+        public void run() {
+            while (active) {
+                Object object;
+
+                try {
+                    object = readObject();
+                    if (object == null)
+                        active = false;
+                    else
+                        lastMessageTime = System.nanoTime();
+
+                    if (!active)
+                        break;
+                } catch (IOException e) {
+                    if (!active)
+                        break;
+
+                    object = e;
+                }
+
+                dispatch(object);
+            }
+
+            IOUtils.closeQuietly(stream);
+
+            failPendingRequests(new IOException("Decoder process terminated"));
+            messages.offer(POISON_PILL);
         }
 
-        @Override
-        protected void onLineRead(String line) throws InterruptedException {
-            if (line == null)
-                handoff.offer(POISON_PILL);
-            else
-                handoff.put(line);
+        private void dispatch(Object object) {
+            if (object instanceof IOException) {
+                if (pending.isEmpty())
+                    messages.offer(object);
+                else
+                    failPendingRequests((IOException) object);
+
+                return;
+            }
+
+            int id;
+            try {
+                id = getResponseId(object);
+            } catch (RuntimeException e) {
+                id = -1;
+            }
+
+            if (id >= 0) {
+                CompletableFuture<Object> future = pending.remove(id);
+                if (future == null)
+                    logger.warn("Discarding response for unknown request " + id);
+                else
+                    future.complete(object);
+            } else if (pending.isEmpty()) {
+                messages.offer(object);
+            } else {
+                String message = object instanceof String ? ((String) object) : "<binary frame>";
+                failPendingRequests(new IOException("Unexpected response from decoder process: " + message));
+            }
         }
 
-        public String readLine() throws IOException {
-            return readLine(0, null);
+        private void failPendingRequests(IOException e) {
+            Iterator<CompletableFuture<Object>> iterator = pending.values().iterator();
+            while (iterator.hasNext()) {
+                iterator.next().completeExceptionally(e);
+                iterator.remove();
+            }
         }
 
-        public String readLine(long timeout, TimeUnit unit) throws IOException {
-            if (!super.isActive())
+        private Object readObject() throws IOException {
+            int b = stream.read();
+            if (b < 0)
+                return null;
+
+            if (b == FRAME_MARKER) {
+                int length = stream.readInt();
+                if (length < 0)
+                    throw new IOException("Invalid frame length from decoder process: " + length);
+
+                byte[] frame = new byte[length];
+                stream.readFully(frame);
+                return frame;
+            }
+
+            lineBuffer.reset();
+            while (b >= 0 && b != '\n') {
+                lineBuffer.write(b);
+                b = stream.read();
+            }
+
+            int length = lineBuffer.size();
+            byte[] bytes = lineBuffer.toByteArray();
+            if (length > 0 && bytes[length - 1] == '\r')
+                length--;
+
+            return new String(bytes, 0, length, UTF8Charset.get());
+        }
+
+        public String read(long timeout, TimeUnit unit) throws IOException {
+            if (!active)
                 return null;
 
             Object object;
 
             try {
-                object = unit == null ? handoff.take() : handoff.poll(timeout, unit);
+                object = unit == null ? messages.take() : messages.poll(timeout, unit);
             } catch (InterruptedException e) {
                 return null;
             }
 
-            if (object == null || object == POISON_PILL)
+            if (object == null)
+                return null;
+
+            if (object == POISON_PILL) {
+                messages.offer(POISON_PILL);  // let next readers know the stream is closed
                 return null;
+            }
 
             if (object instanceof IOException)
                 throw (IOException) object;
-            else
+
+            if (object instanceof String)
                 return (String) object;
+            else
+                throw new IOException("Unexpected binary frame from decoder process");
         }
 
         @Override
         public void interrupt() {
-            super.interrupt();
-            this.handoff.poll();
+            this.active = false;
         }
 
     }
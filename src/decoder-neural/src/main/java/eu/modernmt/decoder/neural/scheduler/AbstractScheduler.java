@@ -1,21 +1,84 @@
 package eu.modernmt.decoder.neural.scheduler;
 
 import eu.modernmt.decoder.DecoderUnavailableException;
+import eu.modernmt.decoder.TranslationTimeoutException;
 
-import java.util.Queue;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 public abstract class AbstractScheduler<T extends Scheduler.Job> implements Scheduler {
 
-    private final Queue<T> queue;
+    /**
+     * A Batch collects multiple queued jobs into a single {@link Scheduler.Job}
+     * that will be sent to the decoder with a single call.
+     */
+    protected interface Batch<T extends Scheduler.Job> {
+
+        /**
+         * Try to add the given job to this batch.
+         *
+         * @param job the candidate job
+         * @return true if the job has been added to the batch, false if it is not compatible
+         * or it would exceed the batch limits
+         */
+        boolean offer(T job);
+
+        boolean isFull();
+
+        Scheduler.Job build();
+
+    }
+
+    private final int capacity;
+    private final Comparator<? super T> comparator;
+    private final HashMap<Object, PriorityQueue<T>> buckets = new HashMap<>();
+    private final long maxBatchWaitNanos;
 
     private final ReentrantLock lock = new ReentrantLock();
     private final Condition notEmpty = lock.newCondition();
+    private final AtomicLong expiredJobs = new AtomicLong(0L);
+    private int size = 0;
     private boolean active = true;
 
-    protected AbstractScheduler(Queue<T> queue) {
-        this.queue = queue;
+    protected AbstractScheduler(int capacity, Comparator<? super T> comparator) {
+        this(capacity, comparator, 0L);
+    }
+
+    /**
+     * @param capacity           the maximum number of jobs waiting in queue
+     * @param comparator         the order in which jobs are taken from the queue
+     * @param maxBatchWaitMicros the maximum time (in microseconds) spent waiting for compatible jobs to fill a batch
+     */
+    protected AbstractScheduler(int capacity, Comparator<? super T> comparator, long maxBatchWaitMicros) {
+        this.capacity = capacity;
+        this.comparator = comparator;
+        this.maxBatchWaitNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0L, maxBatchWaitMicros));
+    }
+
+    /**
+     * Returns the bucket of the given job: queued jobs are kept ordered by bucket, and a batch is
+     * filled only with jobs of the same bucket as its head. The default implementation puts all the
+     * jobs in the same bucket.
+     *
+     * @param job the job
+     * @return the key of the job bucket, jobs that can be merged together must share the same key
+     */
+    protected Object getBucketKey(T job) {
+        return Boolean.TRUE;
+    }
+
+    /**
+     * Create a new batch starting from the given job. The default implementation
+     * returns null, meaning that jobs are never merged together.
+     *
+     * @param head the first job of the batch
+     * @return a new batch containing the job or null if batching is not supported for the job
+     */
+    protected Batch<T> newBatch(T head) {
+        return null;
     }
 
     protected final void schedule(T job) throws DecoderUnavailableException {
@@ -25,13 +88,13 @@ public abstract class AbstractScheduler<T extends Scheduler.Job> implements Sche
             if (!active)
                 throw new DecoderUnavailableException("Decoder has been shut down");
 
-            int qSize = queue.size();
-            if (queue.offer(job)) {
-                job.onStartWaitingInQueue(qSize);
-                notEmpty.signal();
-            } else {
+            if (size >= capacity)
                 throw new DecoderUnavailableException("Decoder unavailable due to a temporary overloading");
-            }
+
+            // the job must be ready to be sorted before entering its bucket
+            job.onStartWaitingInQueue(size++);
+            buckets.computeIfAbsent(getBucketKey(job), key -> new PriorityQueue<>(comparator)).add(job);
+            notEmpty.signal();
         } finally {
             lock.unlock();
         }
@@ -41,11 +104,24 @@ public abstract class AbstractScheduler<T extends Scheduler.Job> implements Sche
     public final Job take() throws InterruptedException {
         try {
             lock.lock();
-            while (queue.isEmpty() && active)
-                notEmpty.await();
 
-            if (!queue.isEmpty())
-                return queue.poll();
+            while (true) {
+                while (size == 0 && active)
+                    notEmpty.await();
+
+                if (size == 0)
+                    break;
+
+                T head = poll(headBucket());
+                if (discardIfExpired(head))
+                    continue;
+
+                Batch<T> batch = newBatch(head);
+                if (batch == null)
+                    return head;
+
+                return fill(getBucketKey(head), batch);
+            }
 
             // scheduler is not active anymore
             notEmpty.signal();  // pass the signal to next thread in queue
@@ -55,12 +131,112 @@ public abstract class AbstractScheduler<T extends Scheduler.Job> implements Sche
         }
     }
 
+    private Job fill(Object key, Batch<T> batch) throws InterruptedException {
+        collect(key, batch);
+
+        if (maxBatchWaitNanos > 0L) {
+            long deadline = System.nanoTime() + maxBatchWaitNanos;
+            long nanos;
+
+            while (active && !batch.isFull() && (nanos = deadline - System.nanoTime()) > 0L) {
+                notEmpty.awaitNanos(nanos);
+                collect(key, batch);
+            }
+        }
+
+        // jobs not compatible with this batch may still be waiting:
+        // pass the signal to next thread in queue
+        if (size > 0)
+            notEmpty.signal();
+
+        return batch.build();
+    }
+
+    /**
+     * Moves into the batch the jobs of the given bucket, in queue order, until the batch is full:
+     * only the jobs of the bucket are polled, the jobs that do not fit the batch are put back.
+     */
+    private void collect(Object key, Batch<T> batch) {
+        PriorityQueue<T> bucket = buckets.get(key);
+        if (bucket == null || batch.isFull())
+            return;
+
+        List<T> rejected = null;
+
+        T job;
+        while (!batch.isFull() && (job = poll(bucket)) != null) {
+            if (discardIfExpired(job) || batch.offer(job))
+                continue;
+
+            if (rejected == null)
+                rejected = new ArrayList<>();
+            rejected.add(job);
+        }
+
+        if (rejected != null) {
+            buckets.computeIfAbsent(key, k -> new PriorityQueue<>(comparator)).addAll(rejected);
+            size += rejected.size();
+        }
+    }
+
+    private PriorityQueue<T> headBucket() {
+        PriorityQueue<T> result = null;
+
+        for (PriorityQueue<T> bucket : buckets.values()) {
+            if (result == null || comparator.compare(bucket.peek(), result.peek()) < 0)
+                result = bucket;
+        }
+
+        return result;
+    }
+
+    private T poll(PriorityQueue<T> bucket) {
+        T job = bucket.poll();
+        if (job == null)
+            return null;
+
+        size--;
+        if (bucket.isEmpty())
+            buckets.values().remove(bucket);
+
+        return job;
+    }
+
+    /**
+     * Checks whether all the splits of the job have expired (or have been cancelled) while waiting in queue:
+     * in that case the job is not worth decoding, so its splits fail immediately with a timeout.
+     *
+     * @param job the job just removed from the queue, or about to be
+     * @return true if the job has been discarded
+     */
+    private boolean discardIfExpired(T job) {
+        List<TranslationSplit> splits = job.getTranslationSplits();
+
+        for (TranslationSplit split : splits) {
+            if (!split.isCancelled() && !split.isExpired())
+                return false;
+        }
+
+        for (TranslationSplit split : splits) {
+            if (!split.isCancelled())
+                split.setException(new TranslationTimeoutException());
+        }
+
+        expiredJobs.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public final long getExpiredJobCount() {
+        return expiredJobs.get();
+    }
+
     @Override
     public final void close() {
         try {
             lock.lock();
             active = false;
-            notEmpty.signal();
+            notEmpty.signalAll();
         } finally {
             lock.unlock();
         }
@@ -1,5 +1,6 @@
 package eu.modernmt.decoder.neural.scheduler;
 
+import eu.modernmt.decoder.DecoderException;
 import eu.modernmt.decoder.DecoderUnavailableException;
 import eu.modernmt.lang.LanguageDirection;
 import eu.modernmt.memory.ScoreEntry;
@@ -7,6 +8,7 @@ import eu.modernmt.memory.ScoreEntry;
 import java.io.Closeable;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 public interface Scheduler extends Closeable {
@@ -29,7 +31,13 @@ public interface Scheduler extends Closeable {
 
         List<TranslationSplit> getTranslationSplits();
 
-        Collection<ScoreEntry> getSuggestions();
+        /**
+         * Returns the suggestions of this job, waiting if necessary for the memory lookup to complete.
+         *
+         * @return the suggestions of this job or null if there are no suggestions
+         * @throws DecoderException if the memory lookup failed
+         */
+        Collection<ScoreEntry> getSuggestions() throws DecoderException;
 
         void onStartWaitingInQueue(int queueSize);
     }
@@ -45,6 +53,18 @@ public interface Scheduler extends Closeable {
      */
     TranslationLock schedule(LanguageDirection direction, TranslationSplit[] splits, ScoreEntry[] suggestions) throws DecoderUnavailableException;
 
+    /**
+     * Schedule a group of translation splits (from one single translation) whose suggestions are still being
+     * retrieved from the memory: the lookup proceeds while the splits are waiting in queue.
+     *
+     * @param direction   the language direction of the translation splits
+     * @param splits      the translation splits to be translated
+     * @param suggestions the pending result of the memory lookup
+     * @return a {@link TranslationLock} that will unlock when all the translation splits have completed
+     * @throws DecoderUnavailableException if there are too many pending translation jobs or the Scheduler has been closed
+     */
+    TranslationLock scheduleWithLookup(LanguageDirection direction, TranslationSplit[] splits, Future<ScoreEntry[]> suggestions) throws DecoderUnavailableException;
+
     /**
      * Schedule a a single translation split to be aligned with the given translation at some point in the future.
      *
@@ -63,4 +83,12 @@ public interface Scheduler extends Closeable {
      */
     Job take() throws InterruptedException;
 
+    /**
+     * Returns the number of jobs that have been discarded without being translated because all their
+     * splits expired while waiting in queue.
+     *
+     * @return the number of expired jobs discarded so far
+     */
+    long getExpiredJobCount();
+
 }
@@ -1,34 +1,89 @@
 package eu.modernmt.decoder.neural.scheduler;
 
+import eu.modernmt.decoder.DecoderException;
 import eu.modernmt.decoder.DecoderUnavailableException;
 import eu.modernmt.lang.LanguageDirection;
 import eu.modernmt.memory.ScoreEntry;
 import eu.modernmt.model.Priority;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
 
 public class SentenceBatchScheduler extends AbstractScheduler<SentenceBatchScheduler.JobImpl> {
 
+    private final int maxBatchSentences;
+    private final int maxBatchTokens;
+    private final int parallelSplitMinTokens;
+    private final IntSupplier availableDecoders;
+
     public SentenceBatchScheduler(final int queueSize) {
-        super(new PriorityQueue<JobImpl>(queueSize) {
-
-            @Override
-            public boolean add(JobImpl job) {
-                if (offer(job))
-                    return true;
-                else
-                    throw new IllegalStateException("Queue full");
-            }
+        this(queueSize, 0, 0, 0L);
+    }
 
-            @Override
-            public boolean offer(JobImpl job) {
-                if (size() + 1 > queueSize)
-                    return false;
+    /**
+     * Create a new scheduler that merges queued jobs sharing the same language direction
+     * (and the same suggestions, if any) into a single decoder call.
+     *
+     * @param queueSize          the maximum number of jobs waiting in queue
+     * @param maxBatchSentences  the maximum number of sentences in a merged batch, or 0 for no limit;
+     *                           batching is disabled if 1, or if both limits are 0
+     * @param maxBatchTokens     the maximum number of source tokens in a merged batch, or 0 for no limit
+     * @param maxBatchWaitMicros the maximum time (in microseconds) spent waiting for compatible jobs to fill the batch
+     */
+    public SentenceBatchScheduler(final int queueSize, int maxBatchSentences, int maxBatchTokens, long maxBatchWaitMicros) {
+        this(queueSize, maxBatchSentences, maxBatchTokens, maxBatchWaitMicros, 0, null);
+    }
 
-                return super.offer(job);
-            }
+    /**
+     * Create a new scheduler that, in addition to batching, dispatches the splits of a long translation
+     * in parallel: if some decoder processes are idle, the splits are divided into contiguous shards
+     * (balanced by number of tokens) that are queued as independent jobs sharing the same lock.
+     *
+     * @param queueSize              the maximum number of jobs waiting in queue
+     * @param maxBatchSentences      the maximum number of sentences in a merged batch, or 0 for no limit;
+     *                               batching is disabled if 1, or if both limits are 0
+     * @param maxBatchTokens         the maximum number of source tokens in a merged batch, or 0 for no limit
+     * @param maxBatchWaitMicros     the maximum time (in microseconds) spent waiting for compatible jobs to fill the batch
+     * @param parallelSplitMinTokens the minimum number of source tokens of a shard, parallel dispatch is disabled if 0
+     * @param availableDecoders      the number of decoders that can currently take a job without waiting,
+     *                               usually {@link eu.modernmt.decoder.neural.queue.DecoderQueue#idle()}
+     */
+    public SentenceBatchScheduler(final int queueSize, int maxBatchSentences, int maxBatchTokens, long maxBatchWaitMicros,
+                                  int parallelSplitMinTokens, IntSupplier availableDecoders) {
+        super(queueSize, Comparator.naturalOrder(), maxBatchWaitMicros);
 
-        });
+        this.maxBatchSentences = maxBatchSentences;
+        this.maxBatchTokens = maxBatchTokens;
+        this.parallelSplitMinTokens = availableDecoders == null ? 0 : parallelSplitMinTokens;
+        this.availableDecoders = availableDecoders;
+    }
+
+    /**
+     * Jobs are bucketed by language direction and by alignment, the features that a batch must share.
+     */
+    @Override
+    protected Object getBucketKey(JobImpl job) {
+        return new BucketKey(job.direction, job.alignment);
+    }
+
+    @Override
+    protected Batch<JobImpl> newBatch(JobImpl head) {
+        if (maxBatchSentences == 1 || (maxBatchSentences <= 0 && maxBatchTokens <= 0))
+            return null;
+
+        if (maxBatchSentences > 0 && head.splits.size() >= maxBatchSentences)
+            return null;
+
+        if (!head.isReady())
+            return null;
+
+        if (maxBatchTokens > 0 && head.tokens >= maxBatchTokens)
+            return null;
+
+        return new BatchImpl(head);
     }
 
     @Override
@@ -37,7 +92,28 @@ public class SentenceBatchScheduler extends AbstractScheduler<SentenceBatchSched
         for (TranslationSplit split : splits)
             split.setLock(lock);
 
-        schedule(new JobImpl(direction, splits, suggestions));
+        List<List<TranslationSplit>> shards = shard(Arrays.asList(splits));
+        if (shards.size() == 1) {
+            schedule(new JobImpl(direction, splits, suggestions));
+        } else {
+            List<ScoreEntry> entries = toList(suggestions);
+            scheduleShards(splits, shards, shard -> new JobImpl(direction, shard, entries, null, lock));
+        }
+
+        return lock;
+    }
+
+    @Override
+    public TranslationLock scheduleWithLookup(LanguageDirection direction, TranslationSplit[] splits, Future<ScoreEntry[]> suggestions) throws DecoderUnavailableException {
+        CountDownTranslationLock lock = new CountDownTranslationLock(splits.length);
+        for (TranslationSplit split : splits)
+            split.setLock(lock);
+
+        List<List<TranslationSplit>> shards = shard(Arrays.asList(splits));
+        if (shards.size() == 1)
+            schedule(new JobImpl(direction, Arrays.asList(splits), suggestions));
+        else
+            scheduleShards(splits, shards, shard -> new JobImpl(direction, shard, null, suggestions, lock));
 
         return lock;
     }
@@ -52,41 +128,138 @@ public class SentenceBatchScheduler extends AbstractScheduler<SentenceBatchSched
         return lock;
     }
 
+    private interface JobFactory {
+
+        JobImpl create(List<TranslationSplit> shard);
+
+    }
+
+    private void scheduleShards(TranslationSplit[] splits, List<List<TranslationSplit>> shards, JobFactory factory) throws DecoderUnavailableException {
+        try {
+            for (List<TranslationSplit> shard : shards)
+                schedule(factory.create(shard));
+        } catch (DecoderUnavailableException e) {
+            // the shards already in queue must not be translated
+            for (TranslationSplit split : splits)
+                split.cancel();
+            throw e;
+        }
+    }
+
+    /**
+     * Divides the given splits into contiguous shards with a similar number of tokens. The number of shards
+     * is limited by the number of idle decoders and by the minimum size of a shard.
+     *
+     * @param splits the splits of a translation
+     * @return the list of shards, a single shard if parallel dispatch is not possible
+     */
+    List<List<TranslationSplit>> shard(List<TranslationSplit> splits) {
+        if (parallelSplitMinTokens <= 0 || splits.size() < 2)
+            return Collections.singletonList(splits);
+
+        int tokens = 0;
+        for (TranslationSplit split : splits)
+            tokens += split.sentence.getWords().length;
+
+        int count = Math.min(splits.size(), Math.min(tokens / parallelSplitMinTokens, availableDecoders.getAsInt()));
+        if (count < 2)
+            return Collections.singletonList(splits);
+
+        List<List<TranslationSplit>> shards = new ArrayList<>(count);
+
+        int begin = 0;
+        int accumulated = 0;
+        for (int i = 0; i < splits.size(); i++) {
+            accumulated += splits.get(i).sentence.getWords().length;
+
+            int remainingShards = count - shards.size() - 1;
+            int remainingSplits = splits.size() - i - 1;
+
+            // close the shard when it reaches its share of tokens, leaving at least one split for every other shard
+            boolean full = (long) accumulated * count >= (long) tokens * (shards.size() + 1);
+            if (remainingShards > 0 && (full || remainingSplits == remainingShards)) {
+                shards.add(splits.subList(begin, i + 1));
+                begin = i + 1;
+            }
+        }
+
+        shards.add(splits.subList(begin, splits.size()));
+
+        return shards;
+    }
+
     public static class JobImpl implements Scheduler.Job, Comparable<JobImpl> {
 
+        private static final AtomicLong sequenceGenerator = new AtomicLong(0L);
+
         private final LanguageDirection direction;
         private final List<TranslationSplit> splits;
-        private final List<ScoreEntry> suggestions;
+        private Future<ScoreEntry[]> pendingSuggestions;
+        private List<ScoreEntry> suggestions;
         private final Priority priority;
+        private final boolean alignment;
+        private final int tokens;
+        private final long deadline;
+        private final Object group;
         private long timestamp;
+        private long sequence;
 
         JobImpl(LanguageDirection direction, TranslationSplit split) {
             this(direction, Collections.singletonList(split), null);
         }
 
         JobImpl(LanguageDirection direction, TranslationSplit[] splits, ScoreEntry[] suggestions) {
-            this(direction, Arrays.asList(splits), suggestions != null && suggestions.length > 0 ? Arrays.asList(suggestions) : null);
+            this(direction, Arrays.asList(splits), toList(suggestions), null);
+        }
+
+        JobImpl(LanguageDirection direction, List<TranslationSplit> splits, Future<ScoreEntry[]> suggestions) {
+            this(direction, splits, null, suggestions);
         }
 
-        private JobImpl(LanguageDirection direction, List<TranslationSplit> splits, List<ScoreEntry> suggestions) {
+        private JobImpl(LanguageDirection direction, List<TranslationSplit> splits, List<ScoreEntry> suggestions, Future<ScoreEntry[]> pendingSuggestions) {
+            this(direction, splits, suggestions, pendingSuggestions, null);
+        }
+
+        /**
+         * @param group an object shared by all the shards of the same translation, or null if the job is not a shard
+         */
+        private JobImpl(LanguageDirection direction, List<TranslationSplit> splits, List<ScoreEntry> suggestions,
+                        Future<ScoreEntry[]> pendingSuggestions, Object group) {
             if (splits == null || splits.isEmpty())
                 throw new IllegalArgumentException("splits cannot be null or empty");
 
             this.direction = direction;
             this.splits = splits;
             this.suggestions = suggestions;
+            this.pendingSuggestions = pendingSuggestions;
+            this.group = group;
 
             Priority priority = null;
+            boolean alignment = true;
+            int tokens = 0;
+            long deadline = 0L;
+
             for (TranslationSplit split : splits) {
                 if (priority == null || priority.intValue > split.priority.intValue)
                     priority = split.priority;
+                if (split.reference == null)
+                    alignment = false;
+                tokens += split.sentence.getWords().length;
+
+                long expiration = split.getExpiration() > 0 ? split.getExpiration() : Long.MAX_VALUE;
+                deadline = Math.max(deadline, expiration);
             }
+
             this.priority = priority;
+            this.alignment = alignment;
+            this.tokens = tokens;
+            this.deadline = deadline;
         }
 
         @Override
         public void onStartWaitingInQueue(int queueSize) {
             this.timestamp = System.currentTimeMillis();
+            this.sequence = sequenceGenerator.getAndIncrement();
             for (TranslationSplit split : splits)
                 split.onStartWaitingInQueue(queueSize, this.timestamp);
         }
@@ -98,12 +271,7 @@ public class SentenceBatchScheduler extends AbstractScheduler<SentenceBatchSched
 
         @Override
         public boolean isAlignmentJob() {
-            for (TranslationSplit split : splits) {
-                if (split.reference == null)
-                    return false;
-            }
-
-            return true;
+            return alignment;
         }
 
         @Override
@@ -112,17 +280,178 @@ public class SentenceBatchScheduler extends AbstractScheduler<SentenceBatchSched
         }
 
         @Override
-        public Collection<ScoreEntry> getSuggestions() {
+        public synchronized Collection<ScoreEntry> getSuggestions() throws DecoderException {
+            if (pendingSuggestions != null) {
+                try {
+                    suggestions = toList(pendingSuggestions.get());
+                    pendingSuggestions = null;
+                } catch (InterruptedException e) {
+                    throw new DecoderException("Memory lookup interrupted", e);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof DecoderException)
+                        throw (DecoderException) cause;
+                    else
+                        throw new DecoderException("Failed to retrieve suggestions from memory", cause);
+                }
+            }
+
             return suggestions;
         }
 
+        /**
+         * @return true if the suggestions of this job have been successfully retrieved
+         */
+        synchronized boolean isReady() {
+            if (pendingSuggestions == null)
+                return true;
+            if (!pendingSuggestions.isDone())
+                return false;
+
+            try {
+                getSuggestions();
+                return true;
+            } catch (DecoderException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Jobs are sorted by priority, then by deadline (earliest first, jobs without
+         * expiration last) and finally by their arrival in queue.
+         */
         @Override
         public int compareTo(JobImpl o) {
-            if (priority == o.priority)
-                return Long.compare(timestamp, o.timestamp);
-            else
+            if (priority != o.priority)
                 return Integer.compare(priority.intValue, o.priority.intValue);
+            if (deadline != o.deadline)
+                return Long.compare(deadline, o.deadline);
+            if (timestamp != o.timestamp)
+                return Long.compare(timestamp, o.timestamp);
+            return Long.compare(sequence, o.sequence);
+        }
+    }
+
+    private class BatchImpl implements Batch<JobImpl>, Scheduler.Job {
+
+        private final JobImpl head;
+        private final ArrayList<TranslationSplit> splits;
+        private final HashSet<Object> groups = new HashSet<>();
+        private int tokens;
+
+        BatchImpl(JobImpl head) {
+            this.head = head;
+            this.splits = new ArrayList<>(maxBatchSentences > 0 ? maxBatchSentences : head.splits.size() * 2);
+            this.splits.addAll(head.splits);
+            this.tokens = head.tokens;
+
+            if (head.group != null)
+                this.groups.add(head.group);
         }
+
+        @Override
+        public boolean offer(JobImpl job) {
+            if (job.alignment != head.alignment || !job.direction.equals(head.direction))
+                return false;
+            if (job.group != null && groups.contains(job.group))  // shards are meant to run on different decoders
+                return false;
+            if (!job.isReady() || !isCompatible(head.suggestions, job.suggestions))
+                return false;
+            if (maxBatchSentences > 0 && splits.size() + job.splits.size() > maxBatchSentences)
+                return false;
+            if (maxBatchTokens > 0 && tokens + job.tokens > maxBatchTokens)
+                return false;
+
+            splits.addAll(job.splits);
+            tokens += job.tokens;
+
+            if (job.group != null)
+                groups.add(job.group);
+
+            return true;
+        }
+
+        @Override
+        public boolean isFull() {
+            return (maxBatchSentences > 0 && splits.size() >= maxBatchSentences) || (maxBatchTokens > 0 && tokens >= maxBatchTokens);
+        }
+
+        @Override
+        public Scheduler.Job build() {
+            return this;
+        }
+
+        @Override
+        public LanguageDirection getLanguageDirection() {
+            return head.direction;
+        }
+
+        @Override
+        public boolean isAlignmentJob() {
+            return head.alignment;
+        }
+
+        @Override
+        public List<TranslationSplit> getTranslationSplits() {
+            return splits;
+        }
+
+        @Override
+        public Collection<ScoreEntry> getSuggestions() throws DecoderException {
+            return head.getSuggestions();
+        }
+
+        @Override
+        public void onStartWaitingInQueue(int queueSize) {
+            // merged jobs are never enqueued
+        }
+    }
+
+    private static final class BucketKey {
+
+        private final LanguageDirection direction;
+        private final boolean alignment;
+
+        private BucketKey(LanguageDirection direction, boolean alignment) {
+            this.direction = direction;
+            this.alignment = alignment;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            BucketKey that = (BucketKey) o;
+            return alignment == that.alignment && direction.equals(that.direction);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * direction.hashCode() + (alignment ? 1 : 0);
+        }
+
+    }
+
+    private static List<ScoreEntry> toList(ScoreEntry[] suggestions) {
+        return suggestions != null && suggestions.length > 0 ? Arrays.asList(suggestions) : null;
+    }
+
+    private static boolean isCompatible(List<ScoreEntry> a, List<ScoreEntry> b) {
+        if (a == null || b == null)
+            return a == b;
+        if (a.size() != b.size())
+            return false;
+
+        for (int i = 0; i < a.size(); i++) {
+            ScoreEntry ea = a.get(i);
+            ScoreEntry eb = b.get(i);
+
+            if (ea.score != eb.score || !ea.equals(eb))
+                return false;
+        }
+
+        return true;
     }
 
 }
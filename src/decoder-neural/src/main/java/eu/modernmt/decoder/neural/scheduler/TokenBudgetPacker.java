@@ -0,0 +1,145 @@
+package eu.modernmt.decoder.neural.scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Divides a batch of sentences into smaller batches of similar length. The decoder pads every sentence
+ * of a batch to the length of the longest one, so the cost of a batch is proportional to the number of
+ * <em>padded</em> tokens (batch size by max length), plus a fixed cost for every decoder call.
+ * <p>
+ * Sentences are sorted by length and then partitioned into contiguous batches that minimize the total
+ * cost, with the constraint that the padded tokens of a batch must fit into the budget.
+ */
+public class TokenBudgetPacker {
+
+    /**
+     * The default cost of a decoder call, expressed in padded tokens
+     */
+    public static final int DEFAULT_CALL_COST = 32;
+
+    private final int maxPaddedTokens;
+    private final int callCost;
+
+    /**
+     * @param maxPaddedTokens the maximum number of padded tokens of a packed batch
+     */
+    public TokenBudgetPacker(int maxPaddedTokens) {
+        this(maxPaddedTokens, DEFAULT_CALL_COST);
+    }
+
+    /**
+     * @param maxPaddedTokens the maximum number of padded tokens of a packed batch
+     * @param callCost        the fixed cost of a decoder call, expressed in padded tokens
+     */
+    public TokenBudgetPacker(int maxPaddedTokens, int callCost) {
+        if (maxPaddedTokens < 1)
+            throw new IllegalArgumentException("Invalid token budget: " + maxPaddedTokens);
+        if (callCost < 0)
+            throw new IllegalArgumentException("Invalid call cost: " + callCost);
+
+        this.maxPaddedTokens = maxPaddedTokens;
+        this.callCost = callCost;
+    }
+
+    public int getMaxPaddedTokens() {
+        return maxPaddedTokens;
+    }
+
+    /**
+     * Packs the splits by their source length.
+     *
+     * @param splits the splits of a batch
+     * @return the packed batches, as indexes of the given list
+     * @see #pack(int[])
+     */
+    public List<int[]> pack(List<TranslationSplit> splits) {
+        int[] lengths = new int[splits.size()];
+        for (int i = 0; i < lengths.length; i++)
+            lengths[i] = splits.get(i).sentence.getWords().length;
+
+        return pack(lengths);
+    }
+
+    /**
+     * Packs the given sentences into batches of similar length. A sentence longer than the
+     * budget is placed in a batch on its own.
+     *
+     * @param lengths the length of every sentence
+     * @return the packed batches, as indexes of the given array; indexes are sorted by length
+     * in every batch, batches are sorted by increasing length
+     */
+    public List<int[]> pack(int[] lengths) {
+        int size = lengths.length;
+        if (size == 0)
+            return Collections.emptyList();
+
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(lengths[a], lengths[b]));  // stable
+
+        // cost[j] is the minimum cost of packing the first j sentences (in length order),
+        // begin[j] is where the last batch of that packing starts
+        long[] cost = new long[size + 1];
+        int[] begin = new int[size + 1];
+
+        for (int j = 1; j <= size; j++) {
+            // the sentence j - 1 is the longest of any batch ending with it
+            long length = Math.max(1, lengths[order[j - 1]]);
+
+            cost[j] = Long.MAX_VALUE;
+            for (int i = j - 1; i >= 0; i--) {
+                long padded = (j - i) * length;
+                if (padded > maxPaddedTokens && i < j - 1)
+                    break;
+
+                long candidate = cost[i] + padded + callCost;
+                if (candidate < cost[j]) {
+                    cost[j] = candidate;
+                    begin[j] = i;
+                }
+            }
+        }
+
+        LinkedList<int[]> batches = new LinkedList<>();
+        for (int j = size; j > 0; j = begin[j])
+            batches.addFirst(indexes(order, begin[j], j));
+
+        return new ArrayList<>(batches);
+    }
+
+    private static int[] indexes(Integer[] order, int begin, int end) {
+        int[] result = new int[end - begin];
+        for (int i = 0; i < result.length; i++)
+            result[i] = order[begin + i];
+        return result;
+    }
+
+    /**
+     * Computes the fraction of padding tokens the decoder would process for the given batches.
+     *
+     * @param lengths the length of every sentence
+     * @param batches the batches, as indexes of the lengths array
+     * @return the padding tokens divided by the padded tokens, from 0 (no padding) to 1
+     */
+    public static double paddingWaste(int[] lengths, List<int[]> batches) {
+        long tokens = 0;
+        long padded = 0;
+
+        for (int[] batch : batches) {
+            int max = 0;
+            for (int i : batch) {
+                tokens += lengths[i];
+                max = Math.max(max, lengths[i]);
+            }
+            padded += (long) max * batch.length;
+        }
+
+        return padded == 0 ? 0. : (double) (padded - tokens) / padded;
+    }
+
+}
@@ -14,6 +14,7 @@ public class TranslationSplit {
 
     private Translation translation;
     private Throwable exception;
+    private volatile boolean cancelled = false;
 
     private final long expiration;
     private int queueSize = 0;
@@ -38,8 +39,30 @@ public class TranslationSplit {
         this.lock = lock;
     }
 
+    /**
+     * Marks this split as no longer needed: the decoder will skip it and its lock will never be notified.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return the timestamp after which this split is no longer needed, or 0 if it never expires
+     */
+    public long getExpiration() {
+        return expiration;
+    }
+
+    public boolean isExpired() {
+        return expiration > 0 && expiration < System.currentTimeMillis();
+    }
+
     public void ensureValid() throws TranslationTimeoutException {
-        if (expiration > 0 && expiration < System.currentTimeMillis())
+        if (isExpired())
             throw new TranslationTimeoutException();
     }
 
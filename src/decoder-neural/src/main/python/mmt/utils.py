@@ -1,5 +1,6 @@
 import json
 import logging
+import struct
 import sys
 
 from mmt.decoder import Suggestion
@@ -58,8 +59,88 @@ def mask_std_streams():
     return stdout, stderr
 
 
+# - Binary protocol ----------------------------------------------------------------------------------------------------
+# Every binary frame starts with a FRAME_MARKER byte followed by the payload length (4 bytes, big-endian).
+# JSON lines never start with FRAME_MARKER, so both protocols can be read from the same stream.
+
+FRAME_MARKER = 0x00
+
+REQUEST_TEST = 0
+REQUEST_TRANSLATE = 1
+REQUEST_ALIGN = 2
+
+
+class _FrameReader(object):
+    def __init__(self, payload):
+        self._payload = payload
+        self._offset = 0
+
+    def read_byte(self):
+        value = self._payload[self._offset]
+        self._offset += 1
+        return value
+
+    def read_varint(self):
+        result, shift = 0, 0
+        while True:
+            b = self.read_byte()
+            result |= (b & 0x7F) << shift
+            if b & 0x80 == 0:
+                return result
+            shift += 7
+
+    def read_float(self):
+        value, = struct.unpack_from('>f', self._payload, self._offset)
+        self._offset += 4
+        return value
+
+    def read_string(self):
+        length = self.read_varint()
+        value = self._payload[self._offset:self._offset + length].decode('utf-8')
+        self._offset += length
+        return value
+
+    def read_tokens(self):
+        return ' '.join([self.read_string() for _ in range(self.read_varint())])
+
+
+class _FrameWriter(object):
+    def __init__(self):
+        self._buffer = bytearray()
+
+    def write_byte(self, value):
+        self._buffer.append(value)
+
+    def write_varint(self, value):
+        while value > 0x7F:
+            self._buffer.append((value & 0x7F) | 0x80)
+            value >>= 7
+        self._buffer.append(value)
+
+    def write_float(self, value):
+        self._buffer += struct.pack('>f', value)
+
+    def write_ints(self, values):
+        self._buffer += struct.pack('>%di' % len(values), *values)
+
+    def write_string(self, value):
+        data = value.encode('utf-8')
+        self.write_varint(len(data))
+        self._buffer += data
+
+    def write_tokens(self, text):
+        tokens = [token for token in text.split(' ') if len(token) > 0]
+        self.write_varint(len(tokens))
+        for token in tokens:
+            self.write_string(token)
+
+    def to_bytes(self):
+        return bytes(self._buffer)
+
+
 class TranslationRequest(object):
-    def __init__(self, source_lang, target_lang, batch, suggestions=None, forced_translation=None):
+    def __init__(self, source_lang, target_lang, batch, suggestions=None, forced_translation=None, request_id=None):
+        self.request_id = request_id
         self.source_lang = source_lang
         self.target_lang = target_lang
         self.batch = batch
@@ -69,9 +150,10 @@ class TranslationRequest(object):
     @staticmethod
     def from_json_string(json_string):
         obj = json.loads(json_string)
+        request_id = obj.get('id', None)
 
-        if len(obj) == 0:
-            return TranslationRequest(None, None, None)  # Test request
+        if 'q' not in obj:
+            return TranslationRequest(None, None, None, request_id=request_id)  # Test request
 
         batch = obj['q'].split('\n')
         source_lang = obj['sl']
@@ -92,28 +174,64 @@ class TranslationRequest(object):
 
                 suggestions.append(Suggestion(sugg_sl, sugg_tl, sugg_seg, sugg_tra, sugg_scr))
 
-        return TranslationRequest(source_lang, target_lang, batch,
-                                  suggestions=suggestions, forced_translation=forced_translation)
+        return TranslationRequest(source_lang, target_lang, batch, suggestions=suggestions,
+                                  forced_translation=forced_translation, request_id=request_id)
+
+    @staticmethod
+    def from_bytes(payload):
+        reader = _FrameReader(payload)
+
+        request_id = reader.read_varint()
+        kind = reader.read_byte()
+        if kind == REQUEST_TEST:
+            return TranslationRequest(None, None, None, request_id=request_id)  # Test request
+
+        source_lang = reader.read_string()
+        target_lang = reader.read_string()
+        batch = [reader.read_tokens() for _ in range(reader.read_varint())]
+
+        forced_translation = None
+        if kind == REQUEST_ALIGN:
+            forced_translation = [reader.read_tokens() for _ in range(len(batch))]
+
+        suggestions = []
+        for _ in range(reader.read_varint()):
+            sugg_sl = reader.read_string()
+            sugg_tl = reader.read_string()
+            sugg_seg = reader.read_tokens()
+            sugg_tra = reader.read_tokens()
+            sugg_scr = reader.read_float()
+
+            suggestions.append(Suggestion(sugg_sl, sugg_tl, sugg_seg, sugg_tra, sugg_scr))
+
+        return TranslationRequest(source_lang, target_lang, batch, suggestions=suggestions,
+                                  forced_translation=forced_translation, request_id=request_id)
 
 
 class TranslationResponse(object):
     @staticmethod
-    def to_json_string(obj):
+    def to_json_string(obj, request_id=None):
         if isinstance(obj, BaseException):
-            return TranslationResponse.__error_to_json_string(obj)
+            return TranslationResponse.__error_to_json_string(obj, request_id)
         else:
-            return TranslationResponse.__translations_to_json_string(obj)
+            return TranslationResponse.__translations_to_json_string(obj, request_id)
 
     @staticmethod
-    def __error_to_json_string(cause):
+    def __header(request_id):
+        # 'id' must be the first property of the response
+        return {} if request_id is None else {'id': request_id}
+
+    @staticmethod
+    def __error_to_json_string(cause, request_id):
         return json.dumps({
+            **TranslationResponse.__header(request_id),
             'success': False,
             'type': 'UnknownError' if isinstance(cause, str) else type(cause).__name__,
             'msg': cause if isinstance(cause, str) else str(cause)
         }).replace('\n', ' ')
 
     @staticmethod
-    def __translations_to_json_string(translations):
+    def __translations_to_json_string(translations, request_id):
         def __encode_alignment(a):
             return [[e[0] for e in a], [e[1] for e in a]] if a is not None else None
 
@@ -129,22 +247,84 @@ class TranslationResponse(object):
             return payload
 
         return json.dumps({
+            **TranslationResponse.__header(request_id),
             'success': True,
             'data': [__to_json(translation) for translation in translations],
         }).replace('\n', ' ')
 
+    @staticmethod
+    def to_bytes(obj, request_id=None):
+        writer = _FrameWriter()
+        writer.write_varint(request_id if request_id is not None else 0)
+
+        if isinstance(obj, BaseException):
+            writer.write_byte(0)
+            writer.write_string(type(obj).__name__)
+            writer.write_string(str(obj))
+        else:
+            writer.write_byte(1)
+            writer.write_varint(len(obj))
+
+            for translation in obj:
+                writer.write_tokens(translation.text)
+
+                if translation.alignment is None:
+                    writer.write_byte(0)
+                else:
+                    writer.write_byte(1)
+                    writer.write_varint(len(translation.alignment))
+                    writer.write_ints([e[0] for e in translation.alignment])
+                    writer.write_ints([e[1] for e in translation.alignment])
+
+                if translation.score is None:
+                    writer.write_byte(0)
+                else:
+                    writer.write_byte(1)
+                    writer.write_float(translation.score)
+
+        return writer.to_bytes()
+
+
+def _read_request(stdin):
+    marker = stdin.read(1)
+    if not marker:
+        return None, False
+
+    if marker[0] == FRAME_MARKER:
+        length, = struct.unpack('>i', stdin.read(4))
+        return TranslationRequest.from_bytes(stdin.read(length)), True
+    else:
+        line = marker + stdin.readline()
+        return TranslationRequest.from_json_string(line.decode('utf-8')), False
+
+
+def _write_response(stdout, obj, binary, request_id):
+    if binary:
+        payload = TranslationResponse.to_bytes(obj, request_id)
+        stdout.buffer.write(struct.pack('>Bi', FRAME_MARKER, len(payload)))
+        stdout.buffer.write(payload)
+        stdout.buffer.flush()
+    else:
+        stdout.write(TranslationResponse.to_json_string(obj, request_id) + '\n')
+        stdout.flush()
+
 
 def serve_forever(stdin, stdout, decoder):
-    stdout.write('READY\n')
+    # Advertise binary protocol support: the client opts in by sending binary frames
+    stdout.write('READY binary\n')
     stdout.flush()
 
+    binary = False
+    request_id = None
+
     try:
         while True:
-            line = stdin.readline()
-            if not line:
+            request_id = None
+            request, binary = _read_request(stdin.buffer)
+            if request is None:
                 break
 
-            request = TranslationRequest.from_json_string(line)
+            request_id = request.request_id
 
             if request.batch is None:
                 decoder.test()
@@ -154,15 +334,10 @@ def serve_forever(stdin, stdout, decoder):
                                                  suggestions=request.suggestions,
                                                  forced_translation=request.forced_translation)
 
-            response = TranslationResponse.to_json_string(translations)
-
-            stdout.write(response + '\n')
-            stdout.flush()
+            _write_response(stdout, translations, binary, request_id)
     except KeyboardInterrupt:
         pass  # ignore and exit
     except BaseException as e:
-        response = TranslationResponse.to_json_string(e)
-        stdout.write(response + '\n')
-        stdout.flush()
+        _write_response(stdout, e, binary, request_id)
 
         exit(1)
@@ -0,0 +1,135 @@
+package eu.modernmt.decoder.neural;
+
+import eu.modernmt.decoder.neural.queue.EchoPythonDecoder;
+import eu.modernmt.decoder.neural.scheduler.TokenBudgetPacker;
+import eu.modernmt.decoder.neural.scheduler.TranslationSplit;
+import eu.modernmt.lang.Language;
+import eu.modernmt.lang.LanguageDirection;
+import eu.modernmt.model.Priority;
+import eu.modernmt.model.Sentence;
+import eu.modernmt.model.Translation;
+import eu.modernmt.model.Word;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates the decoding of batches of sentences with heavy length variance, with and without
+ * token-budget packing. The fake decoder spends time proportionally to the padded tokens of every
+ * call (plus a fixed cost per call), as a GPU decoder would; the padding waste of every budget
+ * is printed at the end of the trial, so the packing policy can be tuned without a GPU.
+ * <p>
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=eu.modernmt.decoder.neural.BatchPackingBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchPackingBenchmark {
+
+    private static final LanguageDirection EN__IT = new LanguageDirection(Language.ENGLISH, Language.ITALIAN);
+
+    /**
+     * Padded tokens budget of a decoder call, 0 sends the whole batch in arrival order
+     */
+    @Param({"0", "512", "1024", "2048"})
+    public int budget;
+
+    @Param({"64"})
+    public int sentences;
+
+    /**
+     * Simulated cost of a decoder call, in padded tokens
+     */
+    @Param({"128"})
+    public int callOverhead;
+
+    private PaddingDecoder decoder;
+    private DecoderExecutorImpl executor;
+    private List<TranslationSplit> splits;
+    private long batches = 0;
+
+    private static class PaddingDecoder extends EchoPythonDecoder {
+
+        private final int callOverhead;
+        private long calls = 0;
+        private long tokens = 0;
+        private long padded = 0;
+
+        private PaddingDecoder(int callOverhead) {
+            this.callOverhead = callOverhead;
+        }
+
+        @Override
+        public Translation[] translate(LanguageDirection direction, Sentence[] sentences, int nBest) {
+            int max = 0;
+            for (Sentence sentence : sentences) {
+                int length = sentence.getWords().length;
+                tokens += length;
+                max = Math.max(max, length);
+            }
+
+            long cost = (long) max * sentences.length;
+            calls++;
+            padded += cost;
+
+            Blackhole.consumeCPU(cost + callOverhead);
+
+            return super.translate(direction, sentences, nBest);
+        }
+
+    }
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1234);
+
+        // log-normal lengths: mostly short segments with a long tail of long ones
+        splits = new ArrayList<>(sentences);
+        for (int i = 0; i < sentences; i++) {
+            int length = (int) Math.min(200, Math.max(1, Math.round(Math.exp(2.5 + random.nextGaussian()))));
+
+            Word[] words = new Word[length];
+            for (int j = 0; j < length; j++)
+                words[j] = new Word("word" + random.nextInt(1000), j == 0 ? null : " ", null);
+
+            splits.add(new TranslationSplit(Priority.NORMAL, new Sentence(words), 0L));
+        }
+
+        decoder = new PaddingDecoder(callOverhead);
+        executor = new DecoderExecutorImpl(budget > 0 ? new TokenBudgetPacker(budget, callOverhead) : null);
+    }
+
+    @TearDown
+    public void teardown() {
+        if (decoder.padded > 0) {
+            System.out.printf("%nBudget %d: padding waste = %.1f%%, calls per batch = %.1f%n", budget,
+                    100. * (decoder.padded - decoder.tokens) / decoder.padded,
+                    (double) decoder.calls / batches);
+        }
+    }
+
+    @Benchmark
+    public Object translate() throws Throwable {
+        batches++;
+        executor.translate(decoder, EN__IT, splits, null);
+        return splits.get(0).getTranslation();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BatchPackingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,58 @@
+package eu.modernmt.decoder.neural;
+
+import eu.modernmt.decoder.neural.queue.EchoPythonDecoder;
+import eu.modernmt.decoder.neural.scheduler.TokenBudgetPacker;
+import eu.modernmt.decoder.neural.scheduler.TranslationSplit;
+import eu.modernmt.lang.LanguageDirection;
+import eu.modernmt.model.Sentence;
+import eu.modernmt.model.Translation;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static eu.modernmt.decoder.neural.scheduler.TestData.EN__IT;
+import static eu.modernmt.decoder.neural.scheduler.TestData.split;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TestDecoderExecutorImpl {
+
+    private static class RecordingDecoder extends EchoPythonDecoder {
+
+        private final List<Integer> batches = new ArrayList<>();
+
+        @Override
+        public Translation[] translate(LanguageDirection direction, Sentence[] sentences, int nBest) {
+            batches.add(sentences.length);
+            return super.translate(direction, sentences, nBest);
+        }
+
+    }
+
+    @Test
+    public void packedTranslationsKeepTheOriginalOrder() throws Throwable {
+        List<TranslationSplit> splits = Arrays.asList(split(20), split(3), split(19), split(4), split(2), split(18));
+        RecordingDecoder decoder = new RecordingDecoder();
+
+        new DecoderExecutorImpl(new TokenBudgetPacker(40)).translate(decoder, EN__IT, splits, null);
+
+        assertEquals(Arrays.asList(3, 2, 1), decoder.batches);
+        for (TranslationSplit split : splits)
+            assertSame(split.sentence, split.getTranslation().getSource());
+    }
+
+    @Test
+    public void noPackingWithoutBudget() throws Throwable {
+        List<TranslationSplit> splits = Arrays.asList(split(20), split(3), split(19));
+        RecordingDecoder decoder = new RecordingDecoder();
+
+        new DecoderExecutorImpl().translate(decoder, EN__IT, splits, null);
+
+        assertEquals(Arrays.asList(3), decoder.batches);
+        for (TranslationSplit split : splits)
+            assertSame(split.sentence, split.getTranslation().getSource());
+    }
+
+}
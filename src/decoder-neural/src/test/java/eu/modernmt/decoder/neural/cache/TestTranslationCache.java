@@ -0,0 +1,116 @@
+package eu.modernmt.decoder.neural.cache;
+
+import eu.modernmt.decoder.neural.memory.TLuceneTranslationMemory;
+import eu.modernmt.io.TokensOutputStream;
+import eu.modernmt.model.ContextVector;
+import eu.modernmt.model.Sentence;
+import eu.modernmt.model.Translation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.UUID;
+
+import static eu.modernmt.decoder.neural.memory.TestData.*;
+import static org.junit.Assert.*;
+
+public class TestTranslationCache {
+
+    private static final UUID USER = UUID.randomUUID();
+
+    private TLuceneTranslationMemory memory;
+    private TranslationCache cache;
+
+    @Before
+    public void setup() throws Throwable {
+        this.memory = new TLuceneTranslationMemory();
+        this.cache = new TranslationCache(1000);
+        this.memory.addUpdateListener(cache::invalidate);
+    }
+
+    @After
+    public void teardown() throws Throwable {
+        this.memory.close();
+        this.memory = null;
+        this.cache = null;
+    }
+
+    private static ContextVector context(long... memories) {
+        ContextVector.Builder builder = new ContextVector.Builder();
+        for (long memory : memories)
+            builder.add(memory, 1.f);
+        return builder.build();
+    }
+
+    private void put(Sentence source, ContextVector context, String translation) {
+        cache.put(cache.key(USER, EN__IT, source, context), new Translation(sentence(translation).getWords(), source, null));
+    }
+
+    private Translation get(Sentence source, ContextVector context) {
+        return cache.get(cache.key(USER, EN__IT, source, context), source);
+    }
+
+    @Test
+    public void hitAndMiss() {
+        Sentence source = sentence("Hello world");
+        put(source, context(1L), "Ciao mondo");
+
+        Translation translation = get(sentence("Hello world"), context(1L));
+        assertNotNull(translation);
+        assertEquals("Ciao mondo", TokensOutputStream.serialize(translation, false, true));
+
+        assertNull(get(sentence("Hello world"), context(2L)));
+        assertNull(get(sentence("Hello world"), null));
+        assertNull(cache.get(cache.key(UUID.randomUUID(), EN__IT, source, context(1L)), source));
+
+        assertEquals(1, cache.getStats().hitCount());
+        assertEquals(3, cache.getStats().missCount());
+    }
+
+    @Test
+    public void cachedWordsAreNotShared() {
+        put(sentence("Hello world"), null, "Ciao mondo");
+
+        Translation translation = get(sentence("Hello world"), null);
+        translation.getWords()[0].setPlaceholder("Hi");
+
+        assertEquals("Ciao mondo", TokensOutputStream.serialize(get(sentence("Hello world"), null), false, true));
+    }
+
+    @Test
+    public void invalidatedOnMemoryUpdate() throws Throwable {
+        put(sentence("Hello world"), context(1L), "Ciao mondo");
+        put(sentence("Hello world"), context(2L), "Ciao mondo");
+        put(sentence("Hello world"), null, "Ciao mondo");
+
+        memory.onDataReceived(additions(0, 0, 1L, EN__IT, 1));
+
+        assertNull(get(sentence("Hello world"), context(1L)));
+        assertNotNull(get(sentence("Hello world"), context(2L)));
+        assertNotNull(get(sentence("Hello world"), null));
+    }
+
+    @Test
+    public void invalidatedOnMemoryDeletion() throws Throwable {
+        put(sentence("Hello world"), context(1L, 2L), "Ciao mondo");
+
+        memory.onDelete(deletion(2L, null));
+
+        assertNull(get(sentence("Hello world"), context(1L, 2L)));
+    }
+
+    @Test
+    public void outdatedTranslationIsNotStored() {
+        Sentence source = sentence("Hello world");
+        TranslationCache.Key key = cache.key(USER, EN__IT, source, context(1L));
+
+        // memory updated while the translation was in progress
+        cache.invalidate(Collections.singleton(1L));
+        cache.put(key, new Translation(sentence("Ciao mondo").getWords(), source, null));
+
+        assertNull(get(source, context(1L)));
+        assertEquals(0, cache.size());
+    }
+
+}
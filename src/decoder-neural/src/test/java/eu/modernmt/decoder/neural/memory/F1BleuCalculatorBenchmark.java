@@ -0,0 +1,86 @@
+package eu.modernmt.decoder.neural.memory;
+
+import eu.modernmt.decoder.neural.memory.lucene.query.rescoring.F1BleuCalculator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the F1-BLEU rescoring of a query (one reference, many candidates)
+ * between the interned-ids calculator and the original HashMap-based one.
+ * <p>
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=eu.modernmt.decoder.neural.memory.F1BleuCalculatorBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class F1BleuCalculatorBenchmark {
+
+    @Param({"10", "25", "60"})
+    public int length;
+
+    @Param({"40"})
+    public int candidates;
+
+    private String[] reference;
+    private String[][] hypotheses;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1234);
+
+        reference = sentence(random, length);
+        hypotheses = new String[candidates][];
+        for (int i = 0; i < candidates; i++) {
+            // candidates share most of the reference words, as search hits do
+            String[] hypothesis = sentence(random, length + random.nextInt(5) - 2);
+            for (int j = 0; j < hypothesis.length && j < reference.length; j++) {
+                if (random.nextFloat() < .7f)
+                    hypothesis[j] = reference[j];
+            }
+            hypotheses[i] = hypothesis;
+        }
+    }
+
+    private static String[] sentence(Random random, int length) {
+        String[] sentence = new String[Math.max(1, length)];
+        for (int i = 0; i < sentence.length; i++)
+            sentence[i] = "word" + random.nextInt(200);
+        return sentence;
+    }
+
+    @Benchmark
+    public float interned() {
+        F1BleuCalculator calculator = new F1BleuCalculator(reference);
+
+        float sum = 0;
+        for (String[] hypothesis : hypotheses)
+            sum += calculator.calc(hypothesis);
+        return sum;
+    }
+
+    @Benchmark
+    public float hashMap() {
+        HashMapF1BleuCalculator calculator = new HashMapF1BleuCalculator(reference);
+
+        float sum = 0;
+        for (String[] hypothesis : hypotheses)
+            sum += calculator.calc(hypothesis);
+        return sum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(F1BleuCalculatorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
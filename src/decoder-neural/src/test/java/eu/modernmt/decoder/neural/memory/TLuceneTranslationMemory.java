@@ -1,15 +1,22 @@
 package eu.modernmt.decoder.neural.memory;
 
+import eu.modernmt.data.BulkImportMessage;
 import eu.modernmt.data.DataBatch;
 import eu.modernmt.data.DeletionMessage;
 import eu.modernmt.data.TranslationUnitMessage;
 import eu.modernmt.decoder.neural.memory.lucene.DocumentBuilder;
 import eu.modernmt.decoder.neural.memory.lucene.LuceneTranslationMemory;
+import eu.modernmt.decoder.neural.memory.lucene.analysis.DefaultAnalyzerFactory;
+import eu.modernmt.decoder.neural.memory.lucene.query.DefaultQueryBuilder;
 import eu.modernmt.decoder.neural.memory.lucene.query.QueryBuilder;
+import eu.modernmt.decoder.neural.memory.lucene.query.rescoring.F1BleuRescorer;
 import eu.modernmt.io.RuntimeIOException;
 import eu.modernmt.memory.TranslationMemory;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.RAMDirectory;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.*;
 
@@ -22,6 +29,14 @@ public class TLuceneTranslationMemory extends LuceneTranslationMemory {
         super(new RAMDirectory(), 10);
     }
 
+    public TLuceneTranslationMemory(File indexPath) throws IOException {
+        super(indexPath, 10);
+    }
+
+    public TLuceneTranslationMemory(DocumentBuilder documentBuilder) throws IOException {
+        super(new RAMDirectory(), documentBuilder, new DefaultQueryBuilder(), new F1BleuRescorer(), new DefaultAnalyzerFactory(), 10);
+    }
+
     public DocumentBuilder getDocumentBuilder() {
         return super.documentBuilder;
     }
@@ -30,10 +45,19 @@ public class TLuceneTranslationMemory extends LuceneTranslationMemory {
         return super.queryBuilder;
     }
 
+    public Directory getIndexDirectory() {
+        return super.indexDirectory;
+    }
+
     @Override
     public long size() {
         try {
-            return getIndexReader().numDocs();
+            IndexSearcher searcher = acquireIndexSearcher();
+            try {
+                return searcher.getIndexReader().numDocs();
+            } finally {
+                releaseIndexSearcher(searcher);
+            }
         } catch (IOException e) {
             throw new RuntimeIOException(e);
         }
@@ -84,6 +108,32 @@ public class TLuceneTranslationMemory extends LuceneTranslationMemory {
         });
     }
 
+    public void onBulkImport(final BulkImportMessage message) throws IOException {
+        super.onDataReceived(new DataBatch() {
+
+            @Override
+            public Collection<TranslationUnitMessage> getTranslationUnits() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public Collection<DeletionMessage> getDeletions() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public Collection<BulkImportMessage> getBulkImports() {
+                return Collections.singleton(message);
+            }
+
+            @Override
+            public Map<Short, Long> getChannelPositions() {
+                return Collections.singletonMap(message.channel, message.channelPosition);
+            }
+
+        });
+    }
+
     public void onDataReceived(TranslationUnitMessage... units) throws IOException {
         onDataReceived(Arrays.asList(units));
     }
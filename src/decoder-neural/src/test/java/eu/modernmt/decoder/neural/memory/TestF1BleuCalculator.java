@@ -0,0 +1,76 @@
+package eu.modernmt.decoder.neural.memory;
+
+import eu.modernmt.decoder.neural.memory.lucene.query.rescoring.F1BleuCalculator;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestF1BleuCalculator {
+
+    private static String[] tokens(String text) {
+        return text.isEmpty() ? new String[0] : text.split(" ");
+    }
+
+    private static void assertSameScore(String[] reference, String[] hypothesis) {
+        float expected = new HashMapF1BleuCalculator(reference).calc(hypothesis);
+        float actual = new F1BleuCalculator(reference).calc(hypothesis);
+
+        assertEquals(expected, actual, 1e-6f);
+    }
+
+    @Test
+    public void identicalSentences() {
+        String[] sentence = tokens("the cat is on the table");
+        assertSameScore(sentence, sentence);
+        assertEquals(1.f, new F1BleuCalculator(sentence).calc(sentence), 0.05f);
+    }
+
+    @Test
+    public void repeatedNGramsAreClipped() {
+        assertSameScore(tokens("the the the cat"), tokens("the the the the the the"));
+        assertSameScore(tokens("a b a b a b"), tokens("a b a b"));
+    }
+
+    @Test
+    public void edgeCases() {
+        assertSameScore(tokens(""), tokens("hello world"));
+        assertSameScore(tokens("hello world"), tokens(""));
+        assertSameScore(tokens("hello"), tokens("world"));
+        assertSameScore(new String[]{"hello", null, "world"}, new String[]{"hello", null, "world"});
+    }
+
+    @Test
+    public void calculatorIsReusable() {
+        F1BleuCalculator calculator = new F1BleuCalculator(tokens("a b c d e f"));
+
+        float first = calculator.calc(tokens("a b c x"));
+        calculator.calc(tokens("a b c d e f a b c d e f a b c d e f"));
+        assertEquals(first, calculator.calc(tokens("a b c x")), 0.f);
+    }
+
+    @Test
+    public void randomSentences() {
+        Random random = new Random(42);
+
+        for (int i = 0; i < 1000; i++) {
+            String[] reference = randomSentence(random);
+            F1BleuCalculator calculator = new F1BleuCalculator(reference);
+            HashMapF1BleuCalculator expected = new HashMapF1BleuCalculator(reference);
+
+            for (int j = 0; j < 10; j++) {
+                String[] hypothesis = randomSentence(random);
+                assertEquals(expected.calc(hypothesis), calculator.calc(hypothesis), 1e-6f);
+            }
+        }
+    }
+
+    static String[] randomSentence(Random random) {
+        String[] sentence = new String[random.nextInt(40)];
+        for (int i = 0; i < sentence.length; i++)
+            sentence[i] = "w" + random.nextInt(12);
+        return sentence;
+    }
+
+}
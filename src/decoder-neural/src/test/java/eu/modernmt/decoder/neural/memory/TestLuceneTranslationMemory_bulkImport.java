@@ -0,0 +1,178 @@
+package eu.modernmt.decoder.neural.memory;
+
+import eu.modernmt.data.BulkImportMessage;
+import eu.modernmt.data.TranslationUnitMessage;
+import eu.modernmt.decoder.neural.memory.lucene.LuceneTranslationMemory;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static eu.modernmt.decoder.neural.memory.TestData.*;
+import static org.junit.Assert.*;
+
+public class TestLuceneTranslationMemory_bulkImport {
+
+    private TLuceneTranslationMemory memory;
+
+    @Before
+    public void setup() throws Throwable {
+        this.memory = new TLuceneTranslationMemory();
+    }
+
+    @After
+    public void teardown() throws Throwable {
+        this.memory.close();
+        this.memory = null;
+    }
+
+    /**
+     * @return the given units as the content of a bulk import, as written to the binary log before its marker
+     */
+    private static List<TranslationUnitMessage> content(UUID id, List<TranslationUnitMessage> units) {
+        ArrayList<TranslationUnitMessage> result = new ArrayList<>(units.size());
+        for (TranslationUnitMessage unit : units) {
+            result.add(new TranslationUnitMessage(unit.channel, unit.channelPosition, unit.memory, unit.owner, unit.value,
+                    unit.update, unit.previousSentence, unit.previousTranslation,
+                    unit.language, unit.sentence, unit.translation, unit.alignment, id));
+        }
+        return result;
+    }
+
+    private static UUID load(LuceneTranslationMemory memory, List<TranslationUnitMessage> units) throws Throwable {
+        UUID id = UUID.randomUUID();
+        LuceneTranslationMemory.BulkLoader loader = memory.newBulkLoader(id);
+        loader.add(units);
+        loader.finish();
+        return id;
+    }
+
+    @Test
+    public void bulkImportIsAttachedOnMarker() throws Throwable {
+        List<TranslationUnitMessage> units = additions(0, 0L, 1L, EN__IT, 4);
+
+        UUID id = UUID.randomUUID();
+        LuceneTranslationMemory.BulkLoader loader = memory.newBulkLoader(id);
+        loader.add(units.subList(0, 2));
+        loader.add(units.subList(2, 4));
+        loader.finish();
+
+        // offline data is not visible before the marker, and its content in the log is skipped
+        memory.onDataReceived(content(id, units));
+        assertEquals(1, memory.size());
+        assertEquals(channels(0, 3L), memory.getLatestChannelPositions());
+
+        memory.onBulkImport(new BulkImportMessage((short) 0, 10L, id, null, 1L, units.size()));
+
+        assertEquals(units.size() + 1, memory.size());
+        assertEquals(TLuceneTranslationMemory.asEntrySet(units), memory.entrySet());
+        assertEquals(channels(0, 10L), memory.getLatestChannelPositions());
+    }
+
+    @Test
+    public void bulkImportIsOrderedWithContributions() throws Throwable {
+        memory.onDataReceived(additions(0, 0L, 1L, EN__IT, 2));
+
+        List<TranslationUnitMessage> units = additions(0, 0L, 2L, FR__ES, 3);
+        UUID id = load(memory, units);
+
+        // a marker already applied is ignored
+        memory.onBulkImport(new BulkImportMessage((short) 0, 1L, id, null, 2L, units.size()));
+        assertEquals(3, memory.size());
+
+        memory.onBulkImport(new BulkImportMessage((short) 0, 2L, id, null, 2L, units.size()));
+        assertEquals(6, memory.size());
+        assertEquals(channels(0, 2L), memory.getLatestChannelPositions());
+    }
+
+    @Test
+    public void replicaAppliesBulkImportContent() throws Throwable {
+        List<TranslationUnitMessage> units = additions(0, 1L, 1L, EN__IT, 4);
+        UUID id = load(memory, units);
+
+        List<TranslationUnitMessage> content = content(id, units);
+        BulkImportMessage marker = new BulkImportMessage((short) 0, 5L, id, null, 1L, units.size());
+
+        memory.onDataReceived(content);
+        memory.onBulkImport(marker);
+
+        // another listener instance, as on a node that did not run the import
+        try (TLuceneTranslationMemory replica = new TLuceneTranslationMemory()) {
+            replica.onDataReceived(content);
+            replica.onBulkImport(marker);
+
+            assertEquals(units.size() + 1, replica.size());
+            assertEquals(memory.entrySet(), replica.entrySet());
+            assertEquals(channels(0, 5L), replica.getLatestChannelPositions());
+        }
+
+        assertEquals(units.size() + 1, memory.size());
+        assertEquals(channels(0, 5L), memory.getLatestChannelPositions());
+    }
+
+    @Test
+    public void discardedBulkImportAppliesContent() throws Throwable {
+        List<TranslationUnitMessage> units = additions(0, 1L, 1L, EN__IT, 4);
+
+        UUID id = UUID.randomUUID();
+        LuceneTranslationMemory.BulkLoader loader = memory.newBulkLoader(id);
+        loader.add(new ArrayList<>(units));
+        loader.discard();
+
+        memory.onDataReceived(content(id, units));
+        memory.onBulkImport(new BulkImportMessage((short) 0, 5L, id, null, 1L, 4));
+
+        assertEquals(units.size() + 1, memory.size());
+        assertEquals(TLuceneTranslationMemory.asEntrySet(units), memory.entrySet());
+        assertEquals(channels(0, 5L), memory.getLatestChannelPositions());
+    }
+
+    @Test
+    public void finishedBulkImportSurvivesRestart() throws Throwable {
+        File folder = Files.createTempDirectory("TestLuceneTranslationMemory_bulkImport").toFile();
+        File index = new File(folder, "index");
+
+        try {
+            List<TranslationUnitMessage> units = additions(0, 1L, 1L, EN__IT, 4);
+            List<TranslationUnitMessage> content;
+            UUID id;
+
+            try (TLuceneTranslationMemory memory = new TLuceneTranslationMemory(index)) {
+                id = load(memory, units);
+                content = content(id, units);
+
+                // part of the content is skipped before the restart
+                memory.onDataReceived(content.subList(0, 2));
+
+            }
+
+            // an incomplete bulk import, as left by a crash, is deleted at restart
+            FileUtils.forceMkdir(new File(folder, "bulk-" + UUID.randomUUID()));
+
+            assertEquals(2, folder.listFiles((dir, name) -> name.startsWith("bulk-")).length);
+
+            try (TLuceneTranslationMemory memory = new TLuceneTranslationMemory(index)) {
+                assertEquals(1, folder.listFiles((dir, name) -> name.startsWith("bulk-")).length);
+
+                memory.onDataReceived(content.subList(2, 4));
+                memory.onBulkImport(new BulkImportMessage((short) 0, 5L, id, null, 1L, units.size()));
+
+                assertEquals(units.size() + 1, memory.size());
+                assertEquals(TLuceneTranslationMemory.asEntrySet(units), memory.entrySet());
+                assertEquals(channels(0, 5L), memory.getLatestChannelPositions());
+
+                // the bulk index is deleted once attached
+                assertEquals(0, folder.listFiles((dir, name) -> name.startsWith("bulk-")).length);
+            }
+        } finally {
+            FileUtils.deleteDirectory(folder);
+        }
+    }
+
+}
@@ -67,13 +67,18 @@ public class TestLuceneTranslationMemory_hash {
 
         Query query = queryBuilder.getByMatchHash(documentBuilder, 1, "A B C D");
 
-        IndexSearcher searcher = memory.getIndexSearcher();
-        ScoreDoc[] result = searcher.search(query, 10).scoreDocs;
+        IndexSearcher searcher = memory.acquireIndexSearcher();
+        ScoreEntry e1, e2;
+        try {
+            ScoreDoc[] result = searcher.search(query, 10).scoreDocs;
 
-        assertEquals(2, result.length);
+            assertEquals(2, result.length);
 
-        ScoreEntry e1 = documentBuilder.asScoreEntry(searcher.doc(result[0].doc));
-        ScoreEntry e2 = documentBuilder.asScoreEntry(searcher.doc(result[1].doc));
+            e1 = documentBuilder.asScoreEntry(searcher.doc(result[0].doc));
+            e2 = documentBuilder.asScoreEntry(searcher.doc(result[1].doc));
+        } finally {
+            memory.releaseIndexSearcher(searcher);
+        }
 
         if ("fr".equals(e1.language.target.getLanguage())) {
             assertArrayEquals(new String[]{"1-1F"}, e1.sentenceTokens);
@@ -0,0 +1,101 @@
+package eu.modernmt.decoder.neural.memory;
+
+import eu.modernmt.model.ContextVector;
+import eu.modernmt.memory.ScoreEntry;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static eu.modernmt.decoder.neural.memory.TestData.*;
+import static org.junit.Assert.*;
+
+public class TestLuceneTranslationMemory_nrt {
+
+    private TLuceneTranslationMemory memory;
+
+    @Before
+    public void setup() throws Throwable {
+        this.memory = new TLuceneTranslationMemory();
+    }
+
+    @After
+    public void teardown() throws Throwable {
+        this.memory.close();
+        this.memory = null;
+    }
+
+    private int committedDocs() throws Throwable {
+        try (DirectoryReader reader = DirectoryReader.open(memory.getIndexDirectory())) {
+            return reader.numDocs();
+        }
+    }
+
+    private ScoreEntry[] search() throws Throwable {
+        ContextVector context = new ContextVector.Builder().add(1L, 1.f).build();
+        return memory.search(null, EN__IT, sentence("Hello world"), context, 10);
+    }
+
+    @Test
+    public void visibleBeforeCommit() throws Throwable {
+        memory.setCommitInterval(TimeUnit.HOURS.toMillis(1));
+        memory.onDataReceived(additions(0, 0, 1L, EN__IT, 5));
+
+        assertEquals(5, search().length);
+        assertEquals(0, committedDocs());
+
+        memory.commit();
+        assertEquals(5 + 1, committedDocs());
+    }
+
+    @Test
+    public void positionsPublishedOnRefresh() throws Throwable {
+        memory.setMaxStaleness(TimeUnit.HOURS.toMillis(1));
+        memory.onDataReceived(additions(0, 0, 1L, EN__IT, 5));
+
+        assertTrue(memory.getLatestChannelPositions().isEmpty());
+
+        IndexSearcher searcher = memory.acquireIndexSearcher();
+        memory.releaseIndexSearcher(searcher);
+
+        assertEquals(channels(0, 4), memory.getLatestChannelPositions());
+    }
+
+    @Test
+    public void updatesNotifiedOnRefresh() throws Throwable {
+        LinkedBlockingQueue<Set<Long>> updates = new LinkedBlockingQueue<>();
+        memory.addUpdateListener(updates::add);
+        memory.setMaxStaleness(TimeUnit.HOURS.toMillis(1));
+
+        memory.onDataReceived(additions(0, 0, 1L, EN__IT, 5));
+        assertTrue(updates.isEmpty());
+
+        IndexSearcher searcher = memory.acquireIndexSearcher();
+        memory.releaseIndexSearcher(searcher);
+
+        Set<Long> updated = updates.poll();
+        assertNotNull(updated);
+        assertTrue(updated.contains(1L));
+        assertTrue(updates.isEmpty());
+    }
+
+    @Test
+    public void backgroundRefresh() throws Throwable {
+        LinkedBlockingQueue<Set<Long>> updates = new LinkedBlockingQueue<>();
+        memory.addUpdateListener(updates::add);
+        memory.setMaxStaleness(50);
+
+        memory.onDataReceived(additions(0, 0, 1L, EN__IT, 5));
+
+        Set<Long> updated = updates.poll(5, TimeUnit.SECONDS);
+        assertNotNull(updated);
+        assertTrue(updated.contains(1L));
+        assertEquals(5, search().length);
+    }
+
+}
@@ -1,19 +1,21 @@
 package eu.modernmt.decoder.neural.memory;
 
+import eu.modernmt.data.DataBatch;
+import eu.modernmt.data.DeletionMessage;
 import eu.modernmt.data.TranslationUnitMessage;
 import eu.modernmt.memory.TranslationMemory;
+import eu.modernmt.model.corpus.TranslationUnit;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import static eu.modernmt.decoder.neural.memory.TestData.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 /**
  * Created by davide on 03/08/17.
@@ -93,4 +95,71 @@ public class TestLuceneTranslationMemory_onDataReceived {
         assertEquals(expectedChannels, memory.getLatestChannelPositions());
     }
 
+    @Test
+    public void failedBatchKeepsUncommittedBatches() throws Throwable {
+        memory.setCommitInterval(TimeUnit.HOURS.toMillis(1));
+
+        List<TranslationUnitMessage> units = additions(0, 0L, 1L, EN__IT, 2);
+        memory.onDataReceived(units);
+
+        try {
+            memory.onDataReceived(new DataBatch() {
+
+                @Override
+                public Collection<TranslationUnitMessage> getTranslationUnits() {
+                    return additions(0, 2L, 1L, EN__IT, 2);
+                }
+
+                @Override
+                public Collection<DeletionMessage> getDeletions() {
+                    throw new IllegalStateException("corrupted batch");
+                }
+
+                @Override
+                public Map<Short, Long> getChannelPositions() {
+                    return TestData.channels(0, 3);
+                }
+
+            });
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        assertEquals(TLuceneTranslationMemory.asEntrySet(units), memory.entrySet());
+        assertEquals(TestData.channels(0, 1), memory.getLatestChannelPositions());
+
+        // the index writer is still usable
+        TranslationUnitMessage next = addition(0, 2L, 1L, tu(FR__ES));
+        memory.onDataReceived(next);
+        memory.commit();
+
+        assertEquals(2 + 1 + 1, memory.size());
+        assertEquals(TestData.channels(0, 2), memory.getLatestChannelPositions());
+    }
+
+    @Test
+    public void invalidMessageLeavesNoPartialBatch() throws Throwable {
+        memory.setCommitInterval(TimeUnit.HOURS.toMillis(1));
+
+        List<TranslationUnitMessage> units = additions(0, 0L, 1L, EN__IT, 2);
+        memory.onDataReceived(units);
+
+        TranslationUnit tu = tu(EN__IT);
+        TranslationUnitMessage invalid = new TranslationUnitMessage((short) 0, 3L, 1L, null, tu,
+                false, null, null, tu.language, sentence(tu.source), null, null);
+
+        try {
+            memory.onDataReceived(Arrays.asList(addition(0, 2L, 1L, tu(FR__ES)), invalid));
+            fail("Expected exception");
+        } catch (NullPointerException e) {
+            // expected
+        }
+
+        memory.commit();
+
+        assertEquals(TLuceneTranslationMemory.asEntrySet(units), memory.entrySet());
+        assertEquals(TestData.channels(0, 1), memory.getLatestChannelPositions());
+    }
+
 }
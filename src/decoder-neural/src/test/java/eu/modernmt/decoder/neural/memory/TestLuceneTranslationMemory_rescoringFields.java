@@ -0,0 +1,82 @@
+package eu.modernmt.decoder.neural.memory;
+
+import eu.modernmt.data.TranslationUnitMessage;
+import eu.modernmt.decoder.neural.memory.lucene.DefaultDocumentBuilder;
+import eu.modernmt.memory.ScoreEntry;
+import eu.modernmt.model.ContextVector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static eu.modernmt.decoder.neural.memory.TestData.*;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestLuceneTranslationMemory_rescoringFields {
+
+    private final ContextVector context = ContextVector.fromString("1:1,2:0.5");
+
+    private TLuceneTranslationMemory storedFieldsMemory;
+    private TLuceneTranslationMemory docValuesMemory;
+
+    @Before
+    public void setup() throws Throwable {
+        List<TranslationUnitMessage> units = Arrays.asList(
+                addition(0, 0, 1, tu(EN__IT, "Hello world", "Ciao mondo")),
+                addition(0, 1, 2, tu(EN_US__IT_CH, "Hello world 2", "Ciao mondo 2")),
+                addition(0, 2, 1, tu(EN__IT, "Hello the world 3", "Ciao il mondo 3")),
+                addition(0, 3, 2, tu(EN__FR, "Hello world", "Bonjour monde"))
+        );
+
+        this.storedFieldsMemory = new TLuceneTranslationMemory(new DefaultDocumentBuilder(false));
+        this.storedFieldsMemory.onDataReceived(units);
+        this.docValuesMemory = new TLuceneTranslationMemory(new DefaultDocumentBuilder(true));
+        this.docValuesMemory.onDataReceived(units);
+    }
+
+    @After
+    public void teardown() throws Throwable {
+        this.storedFieldsMemory.close();
+        this.docValuesMemory.close();
+    }
+
+    @Test
+    public void bestEntriesAreFullyLoaded() throws Throwable {
+        ScoreEntry[] all = storedFieldsMemory.search(null, EN__IT, sentence("Hello world"), context, 10);
+        ScoreEntry[] best = storedFieldsMemory.search(null, EN__IT, sentence("Hello world"), context, 2);
+
+        assertEquals(3, all.length);
+        assertArrayEquals(Arrays.copyOf(all, 2), best);
+        assertEquals(new ScoreEntry(1, EN__IT, "Hello world".split(" "), "Ciao mondo".split(" ")), best[0]);
+
+        for (ScoreEntry entry : all)
+            assertNotNull(entry.translationTokens);
+        assertTrue(contains(all, new ScoreEntry(2, EN_US__IT_CH, "Hello world 2".split(" "), "Ciao mondo 2".split(" "))));
+    }
+
+    private static boolean contains(ScoreEntry[] entries, ScoreEntry target) {
+        for (ScoreEntry entry : entries) {
+            if (entry.equals(target))
+                return true;
+        }
+        return false;
+    }
+
+    @Test
+    public void docValuesMatchStoredFields() throws Throwable {
+        for (String text : new String[]{"Hello world", "Hello the world", "world"}) {
+            ScoreEntry[] expected = storedFieldsMemory.search(null, EN__IT, sentence(text), context, 10);
+            ScoreEntry[] actual = docValuesMemory.search(null, EN__IT, sentence(text), context, 10);
+
+            assertArrayEquals(expected, actual);
+            for (int i = 0; i < expected.length; i++)
+                assertEquals(expected[i].score, actual[i].score, 0.0001f);
+        }
+    }
+
+}
@@ -0,0 +1,198 @@
+package eu.modernmt.decoder.neural.queue;
+
+import eu.modernmt.decoder.DecoderException;
+import eu.modernmt.io.UTF8Charset;
+import eu.modernmt.lang.Language;
+import eu.modernmt.lang.LanguageDirection;
+import eu.modernmt.model.Sentence;
+import eu.modernmt.model.Translation;
+import eu.modernmt.model.Word;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class TestBinaryProtocol {
+
+    private static final LanguageDirection EN__IT = new LanguageDirection(Language.ENGLISH, Language.ITALIAN);
+
+    private static Sentence sentence(String... tokens) {
+        Word[] words = new Word[tokens.length];
+        for (int i = 0; i < words.length; i++)
+            words[i] = new Word(tokens[i], " ", " ");
+        return new Sentence(words);
+    }
+
+    /**
+     * Writes frames with the same encoding used by the python decoder process.
+     */
+    private static final class Frame {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream stream = new DataOutputStream(bytes);
+
+        Frame varint(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                stream.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            stream.writeByte(value);
+            return this;
+        }
+
+        Frame b(int value) throws IOException {
+            stream.writeByte(value);
+            return this;
+        }
+
+        Frame string(String value) throws IOException {
+            byte[] data = value.getBytes(UTF8Charset.get());
+            varint(data.length);
+            stream.write(data);
+            return this;
+        }
+
+        Frame tokens(String... tokens) throws IOException {
+            varint(tokens.length);
+            for (String token : tokens)
+                string(token);
+            return this;
+        }
+
+        Frame ints(int... values) throws IOException {
+            for (int value : values)
+                stream.writeInt(value);
+            return this;
+        }
+
+        Frame f(float value) throws IOException {
+            stream.writeFloat(value);
+            return this;
+        }
+
+        byte[] bytes() {
+            return bytes.toByteArray();
+        }
+
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int result = 0;
+        int shift = 0;
+
+        byte b;
+        do {
+            b = buffer.get();
+            result |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        return result;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] data = new byte[readVarint(buffer)];
+        buffer.get(data);
+        return new String(data, UTF8Charset.get());
+    }
+
+    @Test
+    public void encodeRequest() {
+        Sentence[] sentences = {sentence("hello", "wörld"), sentence("ciao")};
+        ByteBuffer buffer = ByteBuffer.wrap(BinaryProtocol.encodeRequest(300, EN__IT, sentences, null, null));
+
+        assertEquals(300, readVarint(buffer));
+        assertEquals(1, buffer.get());
+        assertEquals("en", readString(buffer));
+        assertEquals("it", readString(buffer));
+
+        assertEquals(2, readVarint(buffer));
+        assertEquals(2, readVarint(buffer));
+        assertEquals("hello", readString(buffer));
+        assertEquals("wörld", readString(buffer));
+        assertEquals(1, readVarint(buffer));
+        assertEquals("ciao", readString(buffer));
+
+        assertEquals(0, readVarint(buffer));  // no suggestions
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void readResponseId() throws Throwable {
+        assertEquals(300, BinaryProtocol.readResponseId(new Frame().varint(300).b(1).bytes()));
+        assertEquals(-1, BinaryProtocol.readResponseId(new Frame().varint(0).b(0).bytes()));
+        assertEquals(-1, BinaryProtocol.readResponseId(new byte[0]));
+    }
+
+    @Test
+    public void decodeResponse() throws Throwable {
+        Sentence[] sentences = {sentence("hello", "world"), sentence("hello")};
+        byte[] frame = new Frame().varint(1).b(1).varint(2)
+                .tokens("ciao", "mondo").b(1).varint(2).ints(0, 1).ints(0, 1).b(1).f(0.5f)
+                .tokens("ciao").b(0).b(0)
+                .bytes();
+
+        Translation[] translations = BinaryProtocol.decodeResponse(frame, sentences);
+
+        assertEquals(2, translations.length);
+        assertEquals(2, translations[0].getWords().length);
+        assertEquals("ciao", translations[0].getWords()[0].getPlaceholder());
+        assertEquals("mondo", translations[0].getWords()[1].getPlaceholder());
+        assertArrayEquals(new int[]{0, 1}, translations[0].getWordAlignment().getSourceIndexes());
+        assertArrayEquals(new int[]{0, 1}, translations[0].getWordAlignment().getTargetIndexes());
+        assertSame(sentences[0], translations[0].getSource());
+
+        assertEquals(1, translations[1].getWords().length);
+        assertEquals("ciao", translations[1].getWords()[0].getPlaceholder());
+        assertNull(translations[1].getWordAlignment());
+    }
+
+    @Test
+    public void decodeErrorResponse() throws Throwable {
+        byte[] frame = new Frame().varint(1).b(0).string("RuntimeError").string("out of memory").bytes();
+
+        try {
+            BinaryProtocol.decodeResponse(frame, new Sentence[]{sentence("hello")});
+            fail("Expected DecoderException");
+        } catch (DecoderException e) {
+            assertEquals("RuntimeError - out of memory", e.getMessage());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedResponse() throws Throwable {
+        byte[] frame = new Frame().varint(1).b(1).varint(1).tokens("ciao", "mondo").bytes();
+        BinaryProtocol.decodeResponse(frame, new Sentence[]{sentence("hello")});
+    }
+
+    @Test(expected = IOException.class)
+    public void negativeStringLength() throws Throwable {
+        byte[] frame = new Frame().varint(1).b(1).varint(1).varint(1).varint(-1).bytes();
+        BinaryProtocol.decodeResponse(frame, new Sentence[]{sentence("hello")});
+    }
+
+    @Test(expected = IOException.class)
+    public void oversizedTokenCount() throws Throwable {
+        byte[] frame = new Frame().varint(1).b(1).varint(1).varint(Integer.MAX_VALUE).bytes();
+        BinaryProtocol.decodeResponse(frame, new Sentence[]{sentence("hello")});
+    }
+
+    @Test(expected = IOException.class)
+    public void oversizedAlignment() throws Throwable {
+        byte[] frame = new Frame().varint(1).b(1).varint(1)
+                .tokens("ciao").b(1).varint(1 << 28).ints(0).ints(0).b(0)
+                .bytes();
+        BinaryProtocol.decodeResponse(frame, new Sentence[]{sentence("hello")});
+    }
+
+    @Test(expected = IOException.class)
+    public void unexpectedTranslationCount() throws Throwable {
+        byte[] frame = new Frame().varint(1).b(1).varint(2).tokens("ciao").b(0).b(0).tokens("mondo").b(0).b(0).bytes();
+        BinaryProtocol.decodeResponse(frame, new Sentence[]{sentence("hello")});
+    }
+
+}
@@ -0,0 +1,76 @@
+package eu.modernmt.decoder.neural.queue;
+
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestCheckpointAffinityPolicy {
+
+    private static final File EN_IT = new File("en__it");
+    private static final File EN_FR = new File("en__fr");
+    private static final File EN_DE = new File("en__de");
+
+    @Test
+    public void preferLoadedCheckpoint() {
+        CheckpointAffinityPolicy policy = new CheckpointAffinityPolicy();
+        File[] idle = {EN_FR, EN_DE, EN_IT};
+
+        assertEquals(2, policy.select(EN_IT, idle, idle));
+    }
+
+    @Test
+    public void preferEmptyProcess() {
+        CheckpointAffinityPolicy policy = new CheckpointAffinityPolicy();
+        File[] idle = {EN_FR, null};
+
+        assertEquals(1, policy.select(EN_IT, idle, idle));
+    }
+
+    @Test
+    public void keepHotCheckpointLoaded() {
+        CheckpointAffinityPolicy policy = new CheckpointAffinityPolicy();
+        File[] all = {EN_IT, EN_IT, EN_FR, EN_DE};
+
+        // sustained traffic on en__it
+        for (int i = 0; i < 100; i++)
+            policy.select(EN_IT, all, all);
+        policy.select(EN_FR, all, all);
+
+        // en__de is the least requested checkpoint, its process is the one to be reloaded
+        File[] idle = {EN_IT, EN_FR, EN_DE};
+        assertEquals(2, policy.select(new File("en__es"), idle, all));
+    }
+
+    @Test
+    public void releaseOverProvisionedCheckpoint() {
+        CheckpointAffinityPolicy policy = new CheckpointAffinityPolicy();
+        File[] all = {EN_IT, EN_IT, EN_IT, EN_FR};
+
+        // traffic moved to en__fr
+        for (int i = 0; i < 100; i++) {
+            policy.select(EN_FR, all, all);
+            policy.select(EN_DE, all, all);
+        }
+
+        File[] idle = {EN_FR, EN_IT};
+        assertEquals(1, policy.select(EN_DE, idle, all));
+        assertEquals(0.5, policy.getDemandShare(EN_DE), 0.05);
+    }
+
+    @Test
+    public void demandDecay() {
+        CheckpointAffinityPolicy policy = new CheckpointAffinityPolicy(0.9);
+        File[] all = {EN_IT};
+
+        for (int i = 0; i < 100; i++)
+            policy.select(EN_IT, all, all);
+        for (int i = 0; i < 100; i++)
+            policy.select(EN_FR, all, all);
+
+        assertEquals(1., policy.getDemandShare(EN_FR), 0.001);
+        assertEquals(0., policy.getDemandShare(EN_IT), 0.001);
+    }
+
+}
@@ -0,0 +1,91 @@
+package eu.modernmt.decoder.neural.queue;
+
+import eu.modernmt.decoder.neural.scheduler.Scheduler;
+import eu.modernmt.decoder.neural.scheduler.SentenceBatchScheduler;
+import eu.modernmt.decoder.neural.scheduler.TranslationSplit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static eu.modernmt.decoder.neural.scheduler.TestData.EN__IT;
+import static eu.modernmt.decoder.neural.scheduler.TestData.splits;
+import static org.junit.Assert.assertEquals;
+
+public class TestDecoderQueueImpl_idle {
+
+    private static final PythonDecoder.Builder ECHO_BUILDER = new PythonDecoder.Builder() {
+
+        @Override
+        public PythonDecoder startOnCPU() {
+            return EchoPythonDecoder.INSTANCE;
+        }
+
+        @Override
+        public PythonDecoder startOnGPU(int gpu) {
+            return EchoPythonDecoder.INSTANCE;
+        }
+
+    };
+
+    private DecoderQueueImpl queue;
+
+    @Before
+    public void setup() throws Throwable {
+        Handler[] handlers = new Handler[3];
+        for (int i = 0; i < handlers.length; i++)
+            handlers[i] = new Handler(ECHO_BUILDER, Collections.emptyMap(), -1);
+
+        this.queue = new DecoderQueueImpl(Collections.emptyMap(), handlers);
+    }
+
+    @After
+    public void teardown() {
+        this.queue.close();
+        this.queue = null;
+    }
+
+    @Test
+    public void idleCountsOnlyDecodersNotInUse() throws Throwable {
+        assertEquals(3, queue.availability());
+        assertEquals(3, queue.idle());
+
+        PythonDecoder first = queue.take(null);
+        PythonDecoder second = queue.take(null);
+        assertEquals(3, queue.availability());
+        assertEquals(1, queue.idle());
+
+        queue.release(first);
+        queue.release(second);
+        assertEquals(3, queue.idle());
+    }
+
+    @Test
+    public void noShardingWhenAllDecodersAreBusy() throws Throwable {
+        SentenceBatchScheduler scheduler = new SentenceBatchScheduler(10, 8, 0, 0L, 10, queue::idle);
+
+        PythonDecoder[] busy = new PythonDecoder[3];
+        for (int i = 0; i < busy.length; i++)
+            busy[i] = queue.take(null);
+
+        TranslationSplit[] splits = splits(10, 10, 10, 10);
+        scheduler.schedule(EN__IT, splits, null);
+
+        // all the processes are alive, but none of them can take a shard
+        Scheduler.Job job = scheduler.take();
+        assertEquals(Arrays.asList(splits), job.getTranslationSplits());
+
+        queue.release(busy[0]);
+        queue.release(busy[1]);
+
+        splits = splits(10, 10, 10, 10);
+        scheduler.schedule(EN__IT, splits, null);
+
+        // shards scheduled together can be taken in any order
+        assertEquals(2, scheduler.take().getTranslationSplits().size());
+        assertEquals(2, scheduler.take().getTranslationSplits().size());
+    }
+
+}
@@ -0,0 +1,210 @@
+package eu.modernmt.decoder.neural.queue;
+
+import eu.modernmt.io.UTF8Charset;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class TestPythonProcess {
+
+    /**
+     * A process without a native counterpart: the test writes the responses on its STDOUT.
+     * Responses are text lines starting with the id of the request.
+     */
+    private static class FakeProcess extends PythonProcess {
+
+        FakeProcess(InputStream stdout, OutputStream stdin) {
+            super(null);
+            connectStdin(stdin);
+            connectStdout(stdout);
+        }
+
+        @Override
+        protected int getResponseId(Object message) {
+            String line = (String) message;
+            int space = line.indexOf(' ');
+
+            try {
+                return space < 0 ? -1 : Integer.parseInt(line.substring(0, space));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+    }
+
+    /**
+     * Collects the requests written on the process STDIN.
+     */
+    private static class RequestSink extends OutputStream {
+
+        private final BlockingQueue<String> requests = new LinkedBlockingQueue<>();
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        @Override
+        public synchronized void write(int b) {
+            if (b == '\n') {
+                requests.offer(new String(line.toByteArray(), UTF8Charset.get()));
+                line.reset();
+            } else {
+                line.write(b);
+            }
+        }
+
+        public String take() throws InterruptedException {
+            String request = requests.poll(5, TimeUnit.SECONDS);
+            assertNotNull("Request not sent", request);
+            return request;
+        }
+
+    }
+
+    private RequestSink stdin;
+    private PipedOutputStream stdout;
+    private FakeProcess process;
+    private ExecutorService executor;
+
+    @Before
+    public void setup() throws IOException {
+        this.stdin = new RequestSink();
+        this.stdout = new PipedOutputStream();
+        this.process = new FakeProcess(new PipedInputStream(stdout, 4096), stdin);
+        this.executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void teardown() throws IOException {
+        this.stdout.close();
+        this.process.close();
+        this.executor.shutdownNow();
+    }
+
+    private void write(String line) throws IOException {
+        stdout.write((line + '\n').getBytes(UTF8Charset.get()));
+        stdout.flush();
+    }
+
+    private Future<Object> call(int id, long timeout) {
+        return executor.submit(() -> process.call(id, id + " request", timeout, TimeUnit.MILLISECONDS));
+    }
+
+    private static Throwable failure(Future<?> future) throws Throwable {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Expected exception");
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+
+    @Test
+    public void responsesAreMatchedById() throws Throwable {
+        Future<Object> first = call(1, 5000);
+        stdin.take();
+        Future<Object> second = call(2, 5000);
+        stdin.take();
+
+        write("2 second");
+        write("1 first");
+
+        assertEquals("1 first", first.get(5, TimeUnit.SECONDS));
+        assertEquals("2 second", second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void responseToUnknownRequestIsDiscarded() throws Throwable {
+        Future<Object> future = call(1, 5000);
+        stdin.take();
+
+        write("7 unknown");
+        write("1 response");
+
+        assertEquals("1 response", future.get(5, TimeUnit.SECONDS));
+        assertNull(process.recv(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void unexpectedMessageFailsPendingRequests() throws Throwable {
+        Future<Object> first = call(1, 5000);
+        stdin.take();
+        Future<Object> second = call(2, 5000);
+        stdin.take();
+
+        write("not a response");
+
+        assertTrue(failure(first) instanceof IOException);
+        assertTrue(failure(second) instanceof IOException);
+
+        // no request is pending anymore: messages are delivered to recv()
+        write("hello");
+        assertEquals("hello", process.recv(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void timeoutFailsOnlyTheExpiredRequest() throws Throwable {
+        Future<Object> expired = call(1, 500);
+        stdin.take();
+        Future<Object> other = call(2, 5000);
+        stdin.take();
+
+        write("3 unknown");  // the process is still responding
+        assertNull(expired.get(5, TimeUnit.SECONDS));
+
+        write("1 late");
+        write("2 response");
+        assertEquals("2 response", other.get(5, TimeUnit.SECONDS));
+
+        // the expired request is not pending anymore
+        write("hello");
+        assertEquals("hello", process.recv(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void silentProcessIsNotResponding() throws Throwable {
+        Future<Object> future = call(1, 200);
+        stdin.take();
+
+        assertTrue(failure(future) instanceof IOException);
+    }
+
+    @Test
+    public void processTerminationFailsPendingRequests() throws Throwable {
+        Future<Object> future = call(1, 5000);
+        stdin.take();
+
+        stdout.close();
+
+        assertTrue(failure(future) instanceof IOException);
+    }
+
+    @Test
+    public void interruptIsPropagated() throws Throwable {
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                process.call(1, "1 request", 5, TimeUnit.SECONDS);
+            } catch (Throwable e) {
+                error.set(e);
+            }
+        });
+        thread.start();
+        stdin.take();
+
+        thread.interrupt();
+        thread.join(5000);
+
+        assertTrue(error.get() instanceof InterruptedException);
+
+        // the interrupted request is not pending anymore
+        write("hello");
+        assertEquals("hello", process.recv(5, TimeUnit.SECONDS));
+    }
+
+}
@@ -0,0 +1,42 @@
+package eu.modernmt.decoder.neural.scheduler;
+
+import eu.modernmt.lang.Language;
+import eu.modernmt.lang.LanguageDirection;
+import eu.modernmt.model.Priority;
+import eu.modernmt.model.Sentence;
+import eu.modernmt.model.Word;
+
+public class TestData {
+
+    public static final LanguageDirection EN__IT = new LanguageDirection(Language.ENGLISH, Language.ITALIAN);
+    public static final LanguageDirection EN__FR = new LanguageDirection(Language.ENGLISH, Language.FRENCH);
+
+    public static TranslationSplit split(String text) {
+        return split(text, Priority.NORMAL, 0L);
+    }
+
+    public static TranslationSplit split(String text, Priority priority, long expiration) {
+        String[] tokens = text.split(" ");
+        Word[] words = new Word[tokens.length];
+        for (int i = 0; i < words.length; i++)
+            words[i] = new Word(tokens[i], " ", " ");
+
+        return new TranslationSplit(priority, new Sentence(words), expiration);
+    }
+
+    public static TranslationSplit split(int length) {
+        Word[] words = new Word[length];
+        for (int i = 0; i < words.length; i++)
+            words[i] = new Word("w" + i, " ", " ");
+
+        return new TranslationSplit(Priority.NORMAL, new Sentence(words), 0L);
+    }
+
+    public static TranslationSplit[] splits(int... lengths) {
+        TranslationSplit[] splits = new TranslationSplit[lengths.length];
+        for (int i = 0; i < lengths.length; i++)
+            splits[i] = split(lengths[i]);
+        return splits;
+    }
+
+}
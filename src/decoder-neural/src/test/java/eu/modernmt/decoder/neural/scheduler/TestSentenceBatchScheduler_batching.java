@@ -0,0 +1,152 @@
+package eu.modernmt.decoder.neural.scheduler;
+
+import eu.modernmt.decoder.DecoderException;
+import eu.modernmt.memory.ScoreEntry;
+import eu.modernmt.model.Translation;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static eu.modernmt.decoder.neural.scheduler.TestData.*;
+import static org.junit.Assert.*;
+
+public class TestSentenceBatchScheduler_batching {
+
+    @Test
+    public void disabledBatching() throws Throwable {
+        SentenceBatchScheduler scheduler = new SentenceBatchScheduler(10);
+        scheduler.schedule(EN__IT, new TranslationSplit[]{split("hello world")}, null);
+        scheduler.schedule(EN__IT, new TranslationSplit[]{split("hello")}, null);
+
+        assertEquals(1, scheduler.take().getTranslationSplits().size());
+        assertEquals(1, scheduler.take().getTranslationSplits().size());
+    }
+
+    @Test
+    public void mergeSameDirection() throws Throwable {
+        SentenceBatchScheduler scheduler = new SentenceBatchScheduler(10, 8, 0, 0L);
+        scheduler.schedule(EN__IT, new TranslationSplit[]{split("hello world")}, null);
+        scheduler.schedule(EN__FR, new TranslationSplit[]{split("hello")}, null);
+        scheduler.schedule(EN__IT, new TranslationSplit[]{split("the test"), split("a test")}, null);
+
+        Scheduler.Job job = scheduler.take();
+        assertEquals(EN__IT, job.getLanguageDirection());
+        assertEquals(3, job.getTranslationSplits().size());
+
+        job = scheduler.take();
+        assertEquals(EN__FR, job.getLanguageDirection());
+        assertEquals(1, job.getTranslationSplits().size());
+    }
+
+    @Test
+    public void respectLimits() throws Throwable {
+        SentenceBatchScheduler scheduler = new SentenceBatchScheduler(10, 8, 4, 0L);
+        scheduler.schedule(EN__IT, new TranslationSplit[]{split("one two three")}, null);
+        scheduler.schedule(EN__IT, new TranslationSplit[]{split("four five")}, null);
+        scheduler.schedule(EN__IT, new TranslationSplit[]{split("six")}, null);
+
+        assertEquals(2, scheduler.take().getTranslationSplits().size());
+        assertEquals(1, scheduler.take().getTranslationSplits().size());
+    }
+
+    @Test
+    public void fanOutResults() throws Throwable {
+        SentenceBatchScheduler scheduler = new SentenceBatchScheduler(10, 8, 0, 0L);
+        TranslationSplit a = split("hello world");
+        TranslationSplit b = split("hello");
+
+        Scheduler.TranslationLock lockA = scheduler.schedule(EN__IT, new TranslationSplit[]{a}, null);
+        Scheduler.TranslationLock lockB = scheduler.schedule(EN__IT, new TranslationSplit[]{b}, null);
+
+        Scheduler.Job job = scheduler.take();
+        assertEquals(2, job.getTranslationSplits().size());
+
+        for (TranslationSplit split : job.getTranslationSplits())
+            split.setTranslation(Translation.emptyTranslation(split.sentence));
+
+        assertTrue(lockA.await(1, TimeUnit.SECONDS));
+        assertTrue(lockB.await(1, TimeUnit.SECONDS));
+        assertNotNull(a.getTranslation());
+        assertNotNull(b.getTranslation());
+    }
+
+    @Test
+    public void waitForCompatibleJobs() throws Throwable {
+        SentenceBatchScheduler scheduler = new SentenceBatchScheduler(10, 2, 0, TimeUnit.SECONDS.toMicros(5));
+        scheduler.schedule(EN__IT, new TranslationSplit[]{split("hello world")}, null);
+
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+                scheduler.schedule(EN__IT, new TranslationSplit[]{split("hello")}, null);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        producer.start();
+
+        Scheduler.Job job = scheduler.take();
+        producer.join();
+
+        assertEquals(2, job.getTranslationSplits().size());
+    }
+
+    @Test
+    public void pendingLookupIsNotMerged() throws Throwable {
+        SentenceBatchScheduler scheduler = new SentenceBatchScheduler(10, 8, 0, 0L);
+        CompletableFuture<ScoreEntry[]> lookup = new CompletableFuture<>();
+
+        scheduler.schedule(EN__IT, new TranslationSplit[]{split("hello world")}, null);
+        scheduler.scheduleWithLookup(EN__IT, new TranslationSplit[]{split("hello")}, lookup);
+
+        Scheduler.Job first = scheduler.take();
+        Scheduler.Job second = scheduler.take();
+        assertEquals(1, first.getTranslationSplits().size());
+        assertEquals(1, second.getTranslationSplits().size());
+
+        lookup.complete(null);
+        assertNull(first.getSuggestions());
+        assertNull(second.getSuggestions());
+    }
+
+    @Test
+    public void rejectedJobsKeepTheirPlaceInQueue() throws Throwable {
+        SentenceBatchScheduler scheduler = new SentenceBatchScheduler(10, 8, 0, 0L);
+        TranslationSplit pending = split("hello");
+
+        scheduler.schedule(EN__IT, new TranslationSplit[]{split("hello world")}, null);
+        scheduler.scheduleWithLookup(EN__IT, new TranslationSplit[]{pending}, new CompletableFuture<>());
+        scheduler.schedule(EN__IT, new TranslationSplit[]{split("the test")}, null);
+        scheduler.schedule(EN__FR, new TranslationSplit[]{split("a test")}, null);
+
+        assertEquals(2, scheduler.take().getTranslationSplits().size());
+
+        Scheduler.Job job = scheduler.take();
+        assertEquals(EN__IT, job.getLanguageDirection());
+        assertSame(pending, job.getTranslationSplits().get(0));
+
+        assertEquals(EN__FR, scheduler.take().getLanguageDirection());
+    }
+
+    @Test
+    public void completedLookupIsMerged() throws Throwable {
+        SentenceBatchScheduler scheduler = new SentenceBatchScheduler(10, 8, 0, 0L);
+
+        scheduler.schedule(EN__IT, new TranslationSplit[]{split("hello world")}, null);
+        scheduler.scheduleWithLookup(EN__IT, new TranslationSplit[]{split("hello")}, CompletableFuture.completedFuture(new ScoreEntry[0]));
+
+        assertEquals(2, scheduler.take().getTranslationSplits().size());
+    }
+
+    @Test(expected = DecoderException.class)
+    public void failedLookup() throws Throwable {
+        SentenceBatchScheduler scheduler = new SentenceBatchScheduler(10, 8, 0, 0L);
+        CompletableFuture<ScoreEntry[]> lookup = new CompletableFuture<>();
+        lookup.completeExceptionally(new DecoderException("lookup failed"));
+
+        scheduler.scheduleWithLookup(EN__IT, new TranslationSplit[]{split("hello")}, lookup);
+        scheduler.take().getSuggestions();
+    }
+
+}
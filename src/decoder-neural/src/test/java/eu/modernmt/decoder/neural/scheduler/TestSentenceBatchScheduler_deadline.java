@@ -0,0 +1,72 @@
+package eu.modernmt.decoder.neural.scheduler;
+
+import eu.modernmt.decoder.TranslationTimeoutException;
+import eu.modernmt.model.Priority;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static eu.modernmt.decoder.neural.scheduler.TestData.*;
+import static org.junit.Assert.*;
+
+public class TestSentenceBatchScheduler_deadline {
+
+    @Test
+    public void expiredJobsAreDiscarded() throws Throwable {
+        SentenceBatchScheduler scheduler = new SentenceBatchScheduler(10);
+        long now = System.currentTimeMillis();
+
+        TranslationSplit expired = split("expired", Priority.HIGH, now - 1000L);
+        TranslationSplit valid = split("valid", Priority.NORMAL, 0L);
+
+        Scheduler.TranslationLock lock = scheduler.schedule(EN__IT, new TranslationSplit[]{expired}, null);
+        scheduler.schedule(EN__IT, new TranslationSplit[]{valid}, null);
+
+        Scheduler.Job job = scheduler.take();
+        assertSame(valid, job.getTranslationSplits().get(0));
+        assertEquals(1, scheduler.getExpiredJobCount());
+
+        assertTrue(lock.await(1, TimeUnit.SECONDS));
+        try {
+            expired.getTranslation();
+            fail("Expected TranslationTimeoutException");
+        } catch (TranslationTimeoutException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void expiredJobsAreNotBatched() throws Throwable {
+        SentenceBatchScheduler scheduler = new SentenceBatchScheduler(10, 8, 0, 0L);
+        long now = System.currentTimeMillis();
+
+        scheduler.schedule(EN__IT, new TranslationSplit[]{split("first", Priority.NORMAL, 0L)}, null);
+        scheduler.schedule(EN__IT, new TranslationSplit[]{split("expired", Priority.NORMAL, now - 1000L)}, null);
+        scheduler.schedule(EN__IT, new TranslationSplit[]{split("second", Priority.NORMAL, 0L)}, null);
+
+        assertEquals(2, scheduler.take().getTranslationSplits().size());
+        assertEquals(1, scheduler.getExpiredJobCount());
+    }
+
+    @Test
+    public void earliestDeadlineFirst() throws Throwable {
+        SentenceBatchScheduler scheduler = new SentenceBatchScheduler(10);
+        long now = System.currentTimeMillis();
+
+        TranslationSplit noDeadline = split("none", Priority.NORMAL, 0L);
+        TranslationSplit late = split("late", Priority.NORMAL, now + 60000L);
+        TranslationSplit early = split("early", Priority.NORMAL, now + 30000L);
+        TranslationSplit background = split("background", Priority.BACKGROUND, now + 10000L);
+
+        scheduler.schedule(EN__IT, new TranslationSplit[]{background}, null);
+        scheduler.schedule(EN__IT, new TranslationSplit[]{noDeadline}, null);
+        scheduler.schedule(EN__IT, new TranslationSplit[]{late}, null);
+        scheduler.schedule(EN__IT, new TranslationSplit[]{early}, null);
+
+        assertSame(early, scheduler.take().getTranslationSplits().get(0));
+        assertSame(late, scheduler.take().getTranslationSplits().get(0));
+        assertSame(noDeadline, scheduler.take().getTranslationSplits().get(0));
+        assertSame(background, scheduler.take().getTranslationSplits().get(0));
+    }
+
+}
@@ -0,0 +1,70 @@
+package eu.modernmt.decoder.neural.scheduler;
+
+import eu.modernmt.model.Translation;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static eu.modernmt.decoder.neural.scheduler.TestData.*;
+import static org.junit.Assert.*;
+
+public class TestSentenceBatchScheduler_sharding {
+
+    @Test
+    public void shardsAreBalancedAndContiguous() {
+        SentenceBatchScheduler scheduler = new SentenceBatchScheduler(10, 8, 0, 0L, 10, () -> 3);
+        TranslationSplit[] splits = splits(10, 10, 10, 10, 10, 10);
+
+        List<List<TranslationSplit>> shards = scheduler.shard(Arrays.asList(splits));
+
+        assertEquals(3, shards.size());
+        assertEquals(Arrays.asList(splits[0], splits[1]), shards.get(0));
+        assertEquals(Arrays.asList(splits[2], splits[3]), shards.get(1));
+        assertEquals(Arrays.asList(splits[4], splits[5]), shards.get(2));
+    }
+
+    @Test
+    public void shardsAreLimitedByMinTokensAndSplits() {
+        SentenceBatchScheduler scheduler = new SentenceBatchScheduler(10, 8, 0, 0L, 20, () -> 8);
+
+        assertEquals(2, scheduler.shard(Arrays.asList(splits(10, 10, 10, 10, 5))).size());
+        assertEquals(1, scheduler.shard(Arrays.asList(splits(10, 10, 5))).size());
+        assertEquals(2, scheduler.shard(Arrays.asList(splits(100, 100))).size());
+    }
+
+    @Test
+    public void noShardingWithoutIdleDecoders() {
+        SentenceBatchScheduler scheduler = new SentenceBatchScheduler(10, 8, 0, 0L, 10, () -> 1);
+        assertEquals(1, scheduler.shard(Arrays.asList(splits(50, 50, 50))).size());
+    }
+
+    @Test
+    public void shardsAreQueuedAsSeparateJobs() throws Throwable {
+        SentenceBatchScheduler scheduler = new SentenceBatchScheduler(10, 8, 0, 0L, 10, () -> 2);
+        TranslationSplit[] splits = splits(10, 10, 10, 10);
+
+        Scheduler.TranslationLock lock = scheduler.schedule(EN__IT, splits, null);
+
+        Scheduler.Job first = scheduler.take();
+        Scheduler.Job second = scheduler.take();
+
+        // shards scheduled together can be taken in any order
+        List<List<TranslationSplit>> expected = Arrays.asList(
+                Arrays.asList(splits[0], splits[1]), Arrays.asList(splits[2], splits[3]));
+        assertTrue(expected.contains(first.getTranslationSplits()));
+        assertTrue(expected.contains(second.getTranslationSplits()));
+        assertNotEquals(first.getTranslationSplits(), second.getTranslationSplits());
+
+        // the lock is released only when the splits of all the shards are done
+        for (TranslationSplit split : first.getTranslationSplits())
+            split.setTranslation(Translation.emptyTranslation(split.sentence));
+        assertFalse(lock.await(100, TimeUnit.MILLISECONDS));
+
+        for (TranslationSplit split : second.getTranslationSplits())
+            split.setTranslation(Translation.emptyTranslation(split.sentence));
+        assertTrue(lock.await(1, TimeUnit.SECONDS));
+    }
+
+}
@@ -0,0 +1,59 @@
+package eu.modernmt.decoder.neural.scheduler;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestTokenBudgetPacker {
+
+    @Test
+    public void similarLengthsArePackedTogether() {
+        TokenBudgetPacker packer = new TokenBudgetPacker(40);
+        int[] lengths = {20, 3, 19, 4, 2, 18};
+
+        List<int[]> batches = packer.pack(lengths);
+
+        assertEquals(3, batches.size());
+        assertArrayEquals(new int[]{4, 1, 3}, batches.get(0));
+        assertArrayEquals(new int[]{5, 2}, batches.get(1));
+        assertArrayEquals(new int[]{0}, batches.get(2));
+    }
+
+    @Test
+    public void everySentenceIsPackedOnce() {
+        TokenBudgetPacker packer = new TokenBudgetPacker(64);
+        int[] lengths = {5, 80, 12, 1, 33, 7, 7, 64, 2, 0, 15};
+
+        int[] seen = new int[lengths.length];
+        for (int[] batch : packer.pack(lengths)) {
+            int max = 0;
+            for (int i : batch) {
+                seen[i]++;
+                max = Math.max(max, lengths[i]);
+            }
+
+            // only a sentence longer than the budget can exceed it, alone
+            assertTrue(batch.length * max <= 64 || batch.length == 1);
+        }
+
+        int[] expected = new int[lengths.length];
+        Arrays.fill(expected, 1);
+        assertArrayEquals(expected, seen);
+    }
+
+    @Test
+    public void packingReducesPaddingWaste() {
+        int[] lengths = {2, 30, 3, 28, 2, 31, 4, 29};
+        List<int[]> arrival = Arrays.asList(new int[]{0, 1, 2, 3}, new int[]{4, 5, 6, 7});
+
+        double before = TokenBudgetPacker.paddingWaste(lengths, arrival);
+        double after = TokenBudgetPacker.paddingWaste(lengths, new TokenBudgetPacker(124).pack(lengths));
+
+        assertTrue(before > .4);
+        assertTrue(after < .1);
+    }
+
+}
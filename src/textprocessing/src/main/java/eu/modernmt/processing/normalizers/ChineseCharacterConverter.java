@@ -39,7 +39,7 @@ public class ChineseCharacterConverter extends TextProcessor<Translation, Transl
         } finally {
             IOUtils.closeQuietly(stream);
             if (iterator != null)
-                iterator.close();
+                LineIterator.closeQuietly(iterator);
         }
     }
 